@@ -0,0 +1,74 @@
+package com.vssoft.vspace.common.utils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+
+/**
+ * Tracks the latest request of each client session, so that a request superseded by a newer one from the same session
+ * (typically a keystroke followed by another) can give up instead of doing work whose result would be discarded.
+ * <p>
+ * Nothing blocks: a superseded request is told through the callback it registered with, from the thread registering
+ * the newer one.
+ */
+public class LatestRequestTracker {
+
+    private final Cache<String, Session> sessions = Caffeine
+        .newBuilder()
+        .maximumSize(100_000)
+        .expireAfterAccess(Duration.ofMinutes(5))
+        .build();
+
+    /**
+     * Registers a new request, superseding the previous ones of the same session.
+     *
+     * @param sessionKey identifies the client session.
+     * @param onSuperseded run once a newer request of the same session is registered, unless one was already.
+     * @return the ticket of the new request.
+     */
+    public Ticket register(String sessionKey, Runnable onSuperseded) {
+        Session session = sessions.get(sessionKey, key -> new Session());
+        return new Ticket(session, session.next(onSuperseded));
+    }
+
+    public static final class Ticket {
+
+        private final Session session;
+        private final long sequence;
+
+        private Ticket(Session session, long sequence) {
+            this.session = session;
+            this.sequence = sequence;
+        }
+
+        public boolean isSuperseded() {
+            return session.latest() != sequence;
+        }
+    }
+
+    private static final class Session {
+
+        private long latest;
+        private Runnable onSuperseded;
+
+        long next(Runnable onSuperseded) {
+            Runnable superseded;
+            long sequence;
+            synchronized (this) {
+                superseded = this.onSuperseded;
+                this.onSuperseded = onSuperseded;
+                sequence = ++latest;
+            }
+            // Outside of the lock, the callback may complete a response
+            if (superseded != null) {
+                superseded.run();
+            }
+            return sequence;
+        }
+
+        synchronized long latest() {
+            return latest;
+        }
+    }
+}
@@ -5,8 +5,11 @@ import ch.qos.logback.classic.LoggerContext;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.classic.spi.LoggerContextListener;
 import ch.qos.logback.core.ConsoleAppender;
+import ch.qos.logback.core.Appender;
 import ch.qos.logback.core.spi.ContextAwareBase;
 import com.vssoft.vspace.config.VSpaceProperties;
+import com.vssoft.vspace.config.logging.AsyncJsonConsoleAppender;
+import com.vssoft.vspace.config.logging.TimedJsonEncoder;
 import net.logstash.logback.composite.ContextJsonProvider;
 import net.logstash.logback.composite.GlobalCustomFieldsJsonProvider;
 import net.logstash.logback.composite.loggingevent.*;
@@ -18,6 +21,7 @@ import org.slf4j.LoggerFactory;
 import net.logstash.logback.appender.LogstashTcpSocketAppender;
 
 import java.net.InetSocketAddress;
+import java.util.Optional;
 
 public final class LoggingUtils {
     private static final Logger log = LoggerFactory.getLogger(LoggingUtils.class);
@@ -33,19 +37,46 @@ public final class LoggingUtils {
      *
      * @param context a {@link ch.qos.logback.classic.LoggerContext} object.
      * @param customFields a {@link java.lang.String} object.
+     * @param asyncConsoleProperties a {@link VSpaceProperties.Logging.AsyncConsole} object.
      */
-    public static void addJsonConsoleAppender(LoggerContext context, String customFields) {
+    public static void addJsonConsoleAppender(LoggerContext context, String customFields,
+                                              VSpaceProperties.Logging.AsyncConsole asyncConsoleProperties) {
         log.info("Initializing Console loggingProperties");
 
         // More documentation is available at: https://github.com/logstash/logstash-logback-encoder
-        ConsoleAppender<ILoggingEvent> consoleAppender = new ConsoleAppender<>();
-        consoleAppender.setContext(context);
-        consoleAppender.setEncoder(compositeJsonEncoder(context, customFields));
-        consoleAppender.setName(CONSOLE_APPENDER_NAME);
-        consoleAppender.start();
+        Appender<ILoggingEvent> appender;
+        if (asyncConsoleProperties.isEnabled()) {
+            AsyncJsonConsoleAppender asyncAppender = new AsyncJsonConsoleAppender();
+            asyncAppender.setContext(context);
+            asyncAppender.setEncoder(timedJsonEncoder(context, customFields));
+            asyncAppender.setName(CONSOLE_APPENDER_NAME);
+            asyncAppender.setRingBufferSize(asyncConsoleProperties.getRingBufferSize());
+            asyncAppender.setDropBelowLevel(Level.toLevel(asyncConsoleProperties.getDropBelowLevel(), Level.WARN));
+            asyncAppender.start();
+            appender = asyncAppender;
+        } else {
+            ConsoleAppender<ILoggingEvent> consoleAppender = new ConsoleAppender<>();
+            consoleAppender.setContext(context);
+            consoleAppender.setEncoder(compositeJsonEncoder(context, customFields));
+            consoleAppender.setName(CONSOLE_APPENDER_NAME);
+            consoleAppender.start();
+            appender = consoleAppender;
+        }
 
         context.getLogger(Logger.ROOT_LOGGER_NAME).detachAppender(CONSOLE_APPENDER_NAME);
-        context.getLogger(Logger.ROOT_LOGGER_NAME).addAppender(consoleAppender);
+        context.getLogger(Logger.ROOT_LOGGER_NAME).addAppender(appender);
+    }
+
+    /**
+     * <p>getAsyncJsonConsoleAppender.</p>
+     *
+     * @param context a {@link ch.qos.logback.classic.LoggerContext} object.
+     * @return the asynchronous JSON console appender attached to the root logger, if any.
+     */
+    public static Optional<AsyncJsonConsoleAppender> getAsyncJsonConsoleAppender(LoggerContext context) {
+        return context.getLogger(Logger.ROOT_LOGGER_NAME).getAppender(CONSOLE_APPENDER_NAME) instanceof AsyncJsonConsoleAppender appender
+            ? Optional.of(appender)
+            : Optional.empty();
     }
 
     /**
@@ -92,6 +123,14 @@ public final class LoggingUtils {
         return compositeJsonEncoder;
     }
 
+    private static TimedJsonEncoder timedJsonEncoder(LoggerContext context, String customFields) {
+        TimedJsonEncoder timedJsonEncoder = new TimedJsonEncoder();
+        timedJsonEncoder.setContext(context);
+        timedJsonEncoder.setProviders(jsonProviders(context, customFields));
+        timedJsonEncoder.start();
+        return timedJsonEncoder;
+    }
+
     private static LogstashEncoder logstashEncoder(String customFields) {
         LogstashEncoder logstashEncoder = new LogstashEncoder();
         logstashEncoder.setThrowableConverter(throwableConverter());
@@ -169,7 +208,7 @@ public final class LoggingUtils {
         @Override
         public void onStart(LoggerContext context) {
             if (loggingProperties.isUseJsonFormat()) {
-                addJsonConsoleAppender(context, customFields);
+                addJsonConsoleAppender(context, customFields, loggingProperties.getAsyncConsole());
             }
             if (loggingProperties.getLogstash().isEnabled()) {
                 addLogstashTcpSocketAppender(context, customFields, loggingProperties.getLogstash());
@@ -179,7 +218,7 @@ public final class LoggingUtils {
         @Override
         public void onReset(LoggerContext context) {
             if (loggingProperties.isUseJsonFormat()) {
-                addJsonConsoleAppender(context, customFields);
+                addJsonConsoleAppender(context, customFields, loggingProperties.getAsyncConsole());
             }
             if (loggingProperties.getLogstash().isEnabled()) {
                 addLogstashTcpSocketAppender(context, customFields, loggingProperties.getLogstash());
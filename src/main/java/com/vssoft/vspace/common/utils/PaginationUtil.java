@@ -6,8 +6,6 @@ import org.springframework.data.domain.Page;
 import org.springframework.http.HttpHeaders;
 import org.springframework.web.util.UriComponentsBuilder;
 
-import java.text.MessageFormat;
-
 /**
  * Utility class for handling pagination.
  *
@@ -19,35 +17,40 @@ import java.text.MessageFormat;
 public final class PaginationUtil {
 
     private static final String HEADER_X_TOTAL_COUNT = "X-Total-Count";
-    private static final String HEADER_LINK_FORMAT = "<{0}>; rel=\"{1}\"";
+    private static final String PAGE_PARAM = "page";
+    private static final String PAGE_MARKER = "__page__";
 
     public static <T> HttpHeaders generatePaginationHttpHeaders(UriComponentsBuilder uriBuilder, Page<T> page) {
         HttpHeaders headers = new HttpHeaders();
         headers.add(HEADER_X_TOTAL_COUNT, Long.toString(page.getTotalElements()));
         int pageNumber = page.getNumber();
-        int pageSize = page.getSize();
-        StringBuilder link = new StringBuilder();
-        if (pageNumber < page.getTotalPages() - 1) {
-            link.append(prepareLink(uriBuilder, pageNumber + 1, pageSize, "next"))
-                    .append(",");
+        int lastPage = page.getTotalPages() - 1;
+
+        // Encode the URI once, with a marker in place of the page number, and only splice numbers in per link
+        String template = preparePageUri(uriBuilder, page.getSize());
+        int markerIndex = template.lastIndexOf(PAGE_PARAM + "=" + PAGE_MARKER) + PAGE_PARAM.length() + 1;
+        String uriPrefix = template.substring(0, markerIndex);
+        String uriSuffix = template.substring(markerIndex + PAGE_MARKER.length());
+
+        StringBuilder link = new StringBuilder(4 * (template.length() + 16));
+        if (pageNumber < lastPage) {
+            appendLink(link, uriPrefix, uriSuffix, pageNumber + 1, "next").append(',');
         }
         if (pageNumber > 0) {
-            link.append(prepareLink(uriBuilder, pageNumber - 1, pageSize, "prev"))
-                    .append(",");
+            appendLink(link, uriPrefix, uriSuffix, pageNumber - 1, "prev").append(',');
         }
-        link.append(prepareLink(uriBuilder, page.getTotalPages() - 1, pageSize, "last"))
-                .append(",")
-                .append(prepareLink(uriBuilder, 0, pageSize, "first"));
+        appendLink(link, uriPrefix, uriSuffix, lastPage, "last").append(',');
+        appendLink(link, uriPrefix, uriSuffix, 0, "first");
         headers.add(HttpHeaders.LINK, link.toString());
         return headers;
     }
 
-    private static String prepareLink(UriComponentsBuilder uriBuilder, int pageNumber, int pageSize, String relType) {
-        return MessageFormat.format(HEADER_LINK_FORMAT, preparePageUri(uriBuilder, pageNumber, pageSize), relType);
+    private static StringBuilder appendLink(StringBuilder link, String uriPrefix, String uriSuffix, int pageNumber, String relType) {
+        return link.append('<').append(uriPrefix).append(pageNumber).append(uriSuffix).append(">; rel=\"").append(relType).append('"');
     }
 
-    private static String preparePageUri(UriComponentsBuilder uriBuilder, int pageNumber, int pageSize) {
-        return uriBuilder.replaceQueryParam("page", Integer.toString(pageNumber))
+    private static String preparePageUri(UriComponentsBuilder uriBuilder, int pageSize) {
+        return uriBuilder.replaceQueryParam(PAGE_PARAM, PAGE_MARKER)
                 .replaceQueryParam("size", Integer.toString(pageSize))
                 .toUriString()
                 .replace(",", "%2C")
@@ -0,0 +1,106 @@
+package com.vssoft.vspace.common.utils;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Collapses concurrent identical calls into one: while a call for a key is in flight, callers asking for the same key
+ * wait for its result instead of making their own.
+ * <p>
+ * The caller which made the call gets its result, each of the others gets a copy, so that no two callers share
+ * mutable objects. A failure is thrown to every caller. A caller which waited longer than the maximum wait gives up on
+ * the shared call and makes its own.
+ *
+ * @param <K> the type of the keys identifying identical calls, with value semantics.
+ * @param <V> the type of the results.
+ */
+public class RequestCoalescer<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final long maxWaitNanos;
+    private final UnaryOperator<V> copy;
+    private final LongAdder collapsed = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    /**
+     * @param maxWait how long a caller waits for a shared call before making its own.
+     * @param copy copies a result for each caller which waited for it.
+     */
+    public RequestCoalescer(Duration maxWait, UnaryOperator<V> copy) {
+        this.maxWaitNanos = maxWait.toNanos();
+        this.copy = copy;
+    }
+
+    public V execute(K key, Supplier<V> call) {
+        CompletableFuture<V> own = new CompletableFuture<>();
+        CompletableFuture<V> shared = inFlight.putIfAbsent(key, own);
+        if (shared == null) {
+            try {
+                V value = call.get();
+                own.complete(value);
+                return value;
+            } catch (RuntimeException | Error e) {
+                own.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, own);
+            }
+        }
+
+        collapsed.increment();
+        try {
+            return copy.apply(shared.get(maxWaitNanos, TimeUnit.NANOSECONDS));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            timedOut.increment();
+            return call.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return call.get();
+        }
+    }
+
+    /**
+     * Makes the call in flight for the key, if any, private to the callers already waiting for it: the next callers
+     * make a new call. To be called once the data it reads was written, since it may have read it before.
+     */
+    public void forget(K key) {
+        inFlight.remove(key);
+    }
+
+    /**
+     * Makes every call in flight private to the callers already waiting for it.
+     */
+    public void forgetAll() {
+        inFlight.clear();
+    }
+
+    /**
+     * @return the number of calls answered by a call of another caller, including those which gave up waiting.
+     */
+    public long getCollapsed() {
+        return collapsed.sum();
+    }
+
+    /**
+     * @return the number of callers which gave up waiting for a shared call.
+     */
+    public long getTimedOut() {
+        return timedOut.sum();
+    }
+}
@@ -13,6 +13,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Log filter to prevent attackers from forging log entries by submitting input containing CRLF characters.
@@ -44,27 +45,74 @@ public class CRLFLogConverter extends CompositeConverter<ILoggingEvent> {
         ELEMENTS = Collections.unmodifiableMap(ansiElements);
     }
 
+    /**
+     * Logger names are a bounded set, so the outcome of the prefix check is remembered per name.
+     */
+    private final Map<String, Boolean> safeLoggerCache = new ConcurrentHashMap<>();
+
+    private String replacement = "_";
+
     @Override
-    protected String transform(ILoggingEvent event, String in) {
+    public void start() {
         AnsiElement element = ELEMENTS.get(getFirstOption());
+        replacement = element == null ? "_" : toAnsiString("_", element);
+        super.start();
+    }
+
+    @Override
+    protected String transform(ILoggingEvent event, String in) {
+        int first = indexOfUnsafeChar(in);
+        if (first < 0) {
+            return in;
+        }
         List<Marker> markers = event.getMarkerList();
         if ((markers != null && !markers.isEmpty() && markers.get(0).contains(CRLF_SAFE_MARKER)) || isLoggerSafe(event)) {
             return in;
         }
-        String replacement = element == null ? "_" : toAnsiString("_", element);
-        return in.replaceAll("[\n\r\t]", replacement);
+        return replaceUnsafeChars(in, first, replacement);
     }
 
     protected boolean isLoggerSafe(ILoggingEvent event) {
+        return safeLoggerCache.computeIfAbsent(event.getLoggerName(), CRLFLogConverter::startsWithSafeLogger);
+    }
+
+    protected String toAnsiString(String in, AnsiElement element) {
+        return AnsiOutput.toString(element, in);
+    }
+
+    private static boolean startsWithSafeLogger(String loggerName) {
         for (String safeLogger : SAFE_LOGGERS) {
-            if (event.getLoggerName().startsWith(safeLogger)) {
+            if (loggerName.startsWith(safeLogger)) {
                 return true;
             }
         }
         return false;
     }
 
-    protected String toAnsiString(String in, AnsiElement element) {
-        return AnsiOutput.toString(element, in);
+    private static int indexOfUnsafeChar(String in) {
+        for (int i = 0, length = in.length(); i < length; i++) {
+            if (isUnsafeChar(in.charAt(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String replaceUnsafeChars(String in, int first, String replacement) {
+        int length = in.length();
+        StringBuilder sb = new StringBuilder(length + 16).append(in, 0, first);
+        for (int i = first; i < length; i++) {
+            char c = in.charAt(i);
+            if (isUnsafeChar(c)) {
+                sb.append(replacement);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static boolean isUnsafeChar(char c) {
+        return c == '\n' || c == '\r' || c == '\t';
     }
 }
@@ -3,6 +3,7 @@ package com.vssoft.vspace.config;
 import com.vssoft.vspace.config.cache.PrefixedKeyGenerator;
 import org.hibernate.cache.jcache.ConfigSettings;
 import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
 import org.redisson.config.ClusterServersConfig;
 import org.redisson.config.Config;
 import org.redisson.config.SingleServerConfig;
@@ -30,10 +31,11 @@ public class CacheConfiguration {
     private GitProperties gitProperties;
     private BuildProperties buildProperties;
 
-    @Bean
-    public javax.cache.configuration.Configuration<Object, Object> jcacheConfiguration(VSpaceProperties properties) {
-        MutableConfiguration<Object, Object> jcacheConfig = new MutableConfiguration<>();
-
+    /**
+     * The Redis client of the second level cache, shared with the other users of Redis.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public RedissonClient redissonClient(VSpaceProperties properties) {
         URI redisUri = URI.create(properties.getCache().getRedis().getServer()[0]);
 
         Config config = new Config();
@@ -60,11 +62,17 @@ public class CacheConfiguration {
                 singleServerConfig.setPassword(redisUri.getUserInfo().substring(redisUri.getUserInfo().indexOf(':') + 1));
             }
         }
+        return Redisson.create(config);
+    }
+
+    @Bean
+    public javax.cache.configuration.Configuration<Object, Object> jcacheConfiguration(VSpaceProperties properties, RedissonClient redissonClient) {
+        MutableConfiguration<Object, Object> jcacheConfig = new MutableConfiguration<>();
         jcacheConfig.setStatisticsEnabled(true);
         jcacheConfig.setExpiryPolicyFactory(
             CreatedExpiryPolicy.factoryOf(new Duration(TimeUnit.SECONDS, properties.getCache().getRedis().getExpiration()))
         );
-        return RedissonConfiguration.fromInstance(Redisson.create(config), jcacheConfig);
+        return RedissonConfiguration.fromInstance(redissonClient, jcacheConfig);
     }
 
     @Bean
@@ -75,7 +83,7 @@ public class CacheConfiguration {
     @Bean
     public JCacheManagerCustomizer cacheManagerCustomizer(javax.cache.configuration.Configuration<Object, Object> jcacheConfiguration) {
         return cm -> {
-            createCache(cm, com.vssoft.vspace.domain.Product.class.getName(), jcacheConfiguration);
+            createCache(cm, com.vssoft.vspace.domain.Product.CACHE_REGION, jcacheConfiguration);
 //            createCache(cm, com.slowv.glshop.domain.Product.class.getName() + ".caseBoxes", jcacheConfiguration);
             // jhipster-needle-redis-add-entry
         };
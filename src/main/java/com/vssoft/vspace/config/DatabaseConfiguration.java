@@ -1,14 +1,78 @@
 package com.vssoft.vspace.config;
 
+import com.vssoft.vspace.config.persistence.ContentCodec;
+import com.vssoft.vspace.domain.CompressedContentMutabilityPlan;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.core.io.ResourceLoader;
 import org.springframework.data.elasticsearch.repository.config.EnableElasticsearchRepositories;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
 @Configuration
-@EnableJpaRepositories({ "com.vssoft.vspace.repository" })
+@EnableJpaRepositories(
+    basePackages = "com.vssoft.vspace.repository",
+    // Search repositories are managed by @EnableElasticsearchRepositories below
+    excludeFilters = @ComponentScan.Filter(type = FilterType.REGEX, pattern = "com\\.vssoft\\.vspace\\.repository\\.search\\..*")
+)
 @EnableJpaAuditing(auditorAwareRef = "springSecurityAuditorAware")
 @EnableTransactionManagement
-@EnableElasticsearchRepositories("com.vssoft.vspace.repository.search")
-public class DatabaseConfiguration {}
+public class DatabaseConfiguration {
+
+    static final String COMPRESSED_CONTENT_MAPPING = "META-INF/orm-compressed-content.xml";
+
+    @Bean
+    public ContentCodec contentCodec(VSpaceProperties properties, ResourceLoader resourceLoader) throws IOException {
+        VSpaceProperties.Persistence.ContentCompression compression = properties.getPersistence().getContentCompression();
+        List<byte[]> dictionaries = new ArrayList<>();
+        for (String location : compression.getDictionaries()) {
+            try (InputStream in = resourceLoader.getResource(location).getInputStream()) {
+                dictionaries.add(in.readAllBytes());
+            }
+        }
+        return new ContentCodec(
+            compression.isEnabled(),
+            compression.getMinSize(),
+            compression.getLevel(),
+            dictionaries,
+            Runtime.getRuntime().availableProcessors()
+        );
+    }
+
+    /**
+     * Maps the content of products to compressed bytes rather than to a large object, once the column is converted.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "vspace.persistence.content-compression", name = "enabled", havingValue = "true")
+    public HibernatePropertiesCustomizer compressedContentMappingCustomizer() {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.ORM_XML_FILES, List.of(COMPRESSED_CONTENT_MAPPING));
+    }
+
+    /**
+     * Hibernate looks mutability plans up as beans, rather than creating them as it does converters.
+     */
+    @Bean
+    public CompressedContentMutabilityPlan compressedContentMutabilityPlan(ContentCodec contentCodec) {
+        return new CompressedContentMutabilityPlan(contentCodec);
+    }
+
+    /**
+     * The Elasticsearch repositories check their index at startup, so they are only created when Elasticsearch is the
+     * search engine.
+     */
+    @Configuration
+    @ConditionalOnProperty(prefix = "vspace.search", name = "engine", havingValue = "elasticsearch", matchIfMissing = true)
+    @EnableElasticsearchRepositories("com.vssoft.vspace.repository.search")
+    static class ElasticsearchRepositoriesConfiguration {}
+}
@@ -1,5 +1,10 @@
 package com.vssoft.vspace.config;
 
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.elasticsearch.client.RestClientBuilder;
+import org.springframework.boot.autoconfigure.elasticsearch.RestClientBuilderCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.convert.converter.Converter;
@@ -7,12 +12,19 @@ import org.springframework.data.convert.ReadingConverter;
 import org.springframework.data.convert.WritingConverter;
 import org.springframework.data.elasticsearch.config.ElasticsearchConfigurationSupport;
 import org.springframework.data.elasticsearch.core.convert.ElasticsearchCustomConversions;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentProperty;
+import org.springframework.data.elasticsearch.core.mapping.SimpleElasticsearchMappingContext;
+import org.springframework.data.elasticsearch.core.mapping.SimpleElasticsearchPersistentEntity;
+import org.springframework.data.elasticsearch.core.mapping.SimpleElasticsearchPersistentProperty;
+import org.springframework.data.mapping.model.Property;
+import org.springframework.data.mapping.model.SimpleTypeHolder;
 
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 public class ElasticsearchConfiguration extends ElasticsearchConfigurationSupport {
@@ -32,6 +44,71 @@ public class ElasticsearchConfiguration extends ElasticsearchConfigurationSuppor
         );
     }
 
+    /**
+     * Same as the default mapping context, except that the fields added by the Hibernate bytecode enhancement are not
+     * mapped: they hold the persistence context of the entity, not document data.
+     */
+    @Bean
+    @Override
+    public SimpleElasticsearchMappingContext elasticsearchMappingContext(ElasticsearchCustomConversions elasticsearchCustomConversions) {
+        SimpleElasticsearchMappingContext mappingContext = new EnhancedEntityMappingContext();
+        mappingContext.setInitialEntitySet(getInitialEntitySet());
+        mappingContext.setSimpleTypeHolder(elasticsearchCustomConversions.getSimpleTypeHolder());
+        mappingContext.setFieldNamingStrategy(fieldNamingStrategy());
+        mappingContext.setWriteTypeHints(writeTypeHints());
+        return mappingContext;
+    }
+
+    /**
+     * Sizes the connection pool, bounds the life of idle connections and compresses request bodies. Timeouts are set
+     * per operation, see {@code ElasticsearchClientSupport}.
+     */
+    @Bean
+    public RestClientBuilderCustomizer elasticsearchTransportCustomizer(VSpaceProperties properties) {
+        VSpaceProperties.Elasticsearch config = properties.getElasticsearch();
+        long keepAliveMillis = TimeUnit.SECONDS.toMillis(config.getKeepAliveSeconds());
+        return new RestClientBuilderCustomizer() {
+            @Override
+            public void customize(RestClientBuilder builder) {
+                builder.setCompressionEnabled(config.isCompressionEnabled());
+            }
+
+            @Override
+            public void customize(HttpAsyncClientBuilder builder) {
+                builder
+                    .setMaxConnTotal(config.getMaxConnectionsTotal())
+                    .setMaxConnPerRoute(config.getMaxConnectionsPerRoute())
+                    .setKeepAliveStrategy((response, context) -> {
+                        long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                        return serverKeepAlive > 0 ? Math.min(serverKeepAlive, keepAliveMillis) : keepAliveMillis;
+                    })
+                    .setDefaultIOReactorConfig(IOReactorConfig.custom().setSoKeepAlive(true).build());
+            }
+        };
+    }
+
+    static class EnhancedEntityMappingContext extends SimpleElasticsearchMappingContext {
+
+        private static final String ENHANCEMENT_FIELD_PREFIX = "$$_hibernate_";
+
+        @Override
+        protected ElasticsearchPersistentProperty createPersistentProperty(
+            Property property,
+            SimpleElasticsearchPersistentEntity<?> owner,
+            SimpleTypeHolder simpleTypeHolder
+        ) {
+            if (!property.getName().startsWith(ENHANCEMENT_FIELD_PREFIX)) {
+                return super.createPersistentProperty(property, owner, simpleTypeHolder);
+            }
+            return new SimpleElasticsearchPersistentProperty(property, owner, simpleTypeHolder) {
+                @Override
+                public boolean isTransient() {
+                    return true;
+                }
+            };
+        }
+    }
+
     @WritingConverter
     static class ZonedDateTimeWritingConverter implements Converter<ZonedDateTime, String> {
 
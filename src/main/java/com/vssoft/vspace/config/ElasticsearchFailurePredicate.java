@@ -0,0 +1,41 @@
+package com.vssoft.vspace.config;
+
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import org.springframework.data.elasticsearch.UncategorizedElasticsearchException;
+import org.springframework.web.ErrorResponse;
+
+import java.util.function.Predicate;
+
+/**
+ * Decides which exceptions of a search count as failures of Elasticsearch for its circuit breaker.
+ * <p>
+ * Invalid queries, rejected by the application or by Elasticsearch with a 4xx status, are the caller's fault, and a
+ * full bulkhead means the cluster was never called: none of them should open the circuit.
+ */
+public class ElasticsearchFailurePredicate implements Predicate<Throwable> {
+
+    @Override
+    public boolean test(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ErrorResponse || cause instanceof BulkheadFullException) {
+                return false;
+            }
+            if (cause instanceof ElasticsearchException esException && isClientError(esException.status())) {
+                return false;
+            }
+            if (
+                cause instanceof UncategorizedElasticsearchException uncategorized &&
+                uncategorized.getStatusCode() != null &&
+                isClientError(uncategorized.getStatusCode())
+            ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isClientError(int status) {
+        return status >= 400 && status < 500;
+    }
+}
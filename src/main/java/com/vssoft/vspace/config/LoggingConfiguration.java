@@ -3,12 +3,20 @@ package com.vssoft.vspace.config;
 import ch.qos.logback.classic.LoggerContext;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vssoft.vspace.config.logging.AsyncJsonConsoleAppender;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
 
 import static com.vssoft.vspace.common.utils.LoggingUtils.*;
 
@@ -35,7 +43,7 @@ public class LoggingConfiguration {
         VSpaceProperties.Logging.Logstash logstashProperties = loggingProperties.getLogstash();
 
         if (loggingProperties.isUseJsonFormat()) {
-            addJsonConsoleAppender(context, customFields);
+            addJsonConsoleAppender(context, customFields, loggingProperties.getAsyncConsole());
         }
         if (logstashProperties.isEnabled()) {
             addLogstashTcpSocketAppender(context, customFields, logstashProperties);
@@ -44,4 +52,34 @@ public class LoggingConfiguration {
             addContextListener(context, customFields, loggingProperties);
         }
     }
+
+    /**
+     * Exposes queue depth, dropped events and encode latency of the asynchronous JSON console appender.
+     * The appender is looked up on every read because Logback recreates it when the configuration is reset.
+     */
+    @Bean
+    public MeterBinder asyncJsonConsoleAppenderMetrics() {
+        return registry -> {
+            LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+            Gauge.builder("logging.console.async.queue.depth", context, withAppender(AsyncJsonConsoleAppender::getQueueDepth))
+                .description("Number of log events waiting in the ring buffer")
+                .register(registry);
+            FunctionCounter.builder("logging.console.async.dropped", context, withAppender(AsyncJsonConsoleAppender::getDroppedCount))
+                .description("Number of log events dropped because the ring buffer was full")
+                .register(registry);
+            FunctionTimer.builder(
+                    "logging.console.async.encode",
+                    context,
+                    c -> getAsyncJsonConsoleAppender(c).map(a -> a.getEncoder().getEncodeCount()).orElse(0L),
+                    withAppender(a -> a.getEncoder().getEncodeTotalTimeNanos()),
+                    TimeUnit.NANOSECONDS
+                )
+                .description("Time spent encoding log events to JSON")
+                .register(registry);
+        };
+    }
+
+    private static ToDoubleFunction<LoggerContext> withAppender(ToDoubleFunction<AsyncJsonConsoleAppender> function) {
+        return context -> getAsyncJsonConsoleAppender(context).map(function::applyAsDouble).orElse(0d);
+    }
 }
@@ -0,0 +1,65 @@
+package com.vssoft.vspace.config;
+
+import com.vssoft.vspace.config.persistence.JdbcStatementBudgetFilter;
+import com.vssoft.vspace.config.persistence.JdbcStatementListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+/**
+ * Instrumentation of the persistence layer, enabled with {@code vspace.persistence.instrumentation.enabled}:
+ * <ul>
+ *     <li>Hibernate statistics are collected, and exported by Spring Boot as {@code hibernate.*} metrics, including
+ *     the hits and misses of each second level cache region.</li>
+ *     <li>The {@link DataSource} is proxied to log slow statements and count the statements of each request.</li>
+ *     <li>The statements of each API request are recorded, and requests over the budget are flagged.</li>
+ * </ul>
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "vspace.persistence.instrumentation", name = "enabled", havingValue = "true")
+public class PersistenceInstrumentationConfiguration {
+
+    @Bean
+    public HibernatePropertiesCustomizer statisticsHibernatePropertiesCustomizer() {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.GENERATE_STATISTICS, true);
+    }
+
+    /**
+     * Static, so that the post processor is registered without initializing this configuration early.
+     */
+    @Bean
+    public static BeanPostProcessor jdbcStatementDataSourcePostProcessor(ObjectProvider<VSpaceProperties> properties) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ProxyDataSource) {
+                    return bean;
+                }
+                long slowStatementMillis = properties.getObject().getPersistence().getInstrumentation().getSlowStatementMillis();
+                return ProxyDataSourceBuilder.create(dataSource).name(beanName).listener(new JdbcStatementListener(slowStatementMillis)).build();
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<JdbcStatementBudgetFilter> jdbcStatementBudgetFilter(VSpaceProperties properties, MeterRegistry registry) {
+        FilterRegistrationBean<JdbcStatementBudgetFilter> registration = new FilterRegistrationBean<>(
+            new JdbcStatementBudgetFilter(properties.getPersistence().getInstrumentation().getStatementBudget(), registry)
+        );
+        registration.addUrlPatterns("/api/*");
+        // Outermost, so that the statements of the security filters are counted as well
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
@@ -0,0 +1,57 @@
+package com.vssoft.vspace.config;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.vssoft.vspace.service.dto.ProductDTO;
+import com.vssoft.vspace.service.dto.ProductSearchResultDTO;
+import com.vssoft.vspace.service.dto.ProductSuggestionDTO;
+import org.springframework.http.MediaType;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Readers and writers of the types most exchanged by the API, built once per mapper with their root deserializer and
+ * serializer resolved, instead of for each request.
+ * <p>
+ * A reader or writer of a request is only replaced when it has the configuration of the mapper: one customized with a
+ * view or filters, or for server-sent events, is kept as is.
+ */
+final class PrebuiltObjectBindings {
+
+    private final ObjectMapper objectMapper;
+    private final Map<JavaType, ObjectWriter> writers = new HashMap<>();
+    private final Map<JavaType, ObjectReader> readers = new HashMap<>();
+
+    PrebuiltObjectBindings(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        TypeFactory typeFactory = objectMapper.getTypeFactory();
+        List<JavaType> types = List.of(
+            typeFactory.constructType(ProductDTO.class),
+            typeFactory.constructCollectionType(List.class, ProductDTO.class),
+            typeFactory.constructType(ProductSearchResultDTO.class),
+            typeFactory.constructCollectionType(List.class, ProductSuggestionDTO.class)
+        );
+        for (JavaType type : types) {
+            writers.put(type, objectMapper.writerFor(type));
+            readers.put(type, objectMapper.readerFor(type));
+        }
+    }
+
+    ObjectWriter writer(ObjectWriter writer, JavaType javaType, MediaType contentType) {
+        ObjectWriter prebuilt = writers.get(javaType);
+        if (prebuilt == null || writer.getConfig() != objectMapper.getSerializationConfig()) {
+            return writer;
+        }
+        return contentType != null && contentType.isCompatibleWith(MediaType.TEXT_EVENT_STREAM) ? writer : prebuilt;
+    }
+
+    ObjectReader reader(ObjectReader reader, JavaType javaType) {
+        ObjectReader prebuilt = readers.get(javaType);
+        return prebuilt == null || reader.getConfig() != objectMapper.getDeserializationConfig() ? reader : prebuilt;
+    }
+}
@@ -0,0 +1,94 @@
+package com.vssoft.vspace.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vssoft.vspace.config.ratelimit.LeasingRateLimiter;
+import com.vssoft.vspace.config.ratelimit.RateLimitFilter;
+import com.vssoft.vspace.config.ratelimit.RedisTokenBucketStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.redisson.api.RedissonClient;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Rate limiting of API requests per caller and class of endpoints, enabled with {@code vspace.rate-limit.enabled}. The
+ * token buckets are kept in Redis, so that a caller has the same limit whichever nodes serve it.
+ * <p>
+ * Behind proxies, the addresses they forward are only taken with {@code server.forward-headers-strategy=native} and
+ * {@code server.tomcat.remoteip.internal-proxies} set to theirs, the application refuses to start otherwise.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "vspace.rate-limit", name = "enabled", havingValue = "true")
+public class RateLimitConfiguration {
+
+    static final String INTERNAL_PROXIES = "server.tomcat.remoteip.internal-proxies";
+
+    @Bean
+    public LeasingRateLimiter rateLimiter(VSpaceProperties properties, RedissonClient redissonClient, MeterRegistry registry) {
+        VSpaceProperties.RateLimit config = properties.getRateLimit();
+        return new LeasingRateLimiter(
+            new RedisTokenBucketStore(redissonClient),
+            config.getLeaseSize(),
+            Duration.ofMillis(config.getLeaseTimeToLiveMillis()),
+            Duration.ofMillis(config.getFailureBackoffMillis()),
+            config.getMaxClients(),
+            registry
+        );
+    }
+
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(
+        LeasingRateLimiter rateLimiter,
+        VSpaceProperties properties,
+        ObjectMapper objectMapper,
+        MeterRegistry registry,
+        ServerProperties serverProperties,
+        Environment environment
+    ) {
+        checkForwardedAddresses(serverProperties.getForwardHeadersStrategy(), environment);
+        List<RateLimitFilter.EndpointClass> endpointClasses = properties
+            .getRateLimit()
+            .getEndpoints()
+            .entrySet()
+            .stream()
+            .map(entry ->
+                new RateLimitFilter.EndpointClass(
+                    entry.getKey(),
+                    entry.getValue().getPathPatterns(),
+                    entry.getValue().getCapacity(),
+                    entry.getValue().getRefillPerSecond()
+                )
+            )
+            .toList();
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(
+            new RateLimitFilter(rateLimiter, endpointClasses, objectMapper, registry)
+        );
+        registration.addUrlPatterns("/api/*");
+        // Right after the security filters, which identify the caller, and before any response is served from a cache
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 1);
+        return registration;
+    }
+
+    /**
+     * Anonymous callers are rate limited by their address, so it may only be taken from the headers of known proxies:
+     * trusted from any client, or from the private networks Tomcat trusts by default, they let a caller pick a new
+     * address, and a bucket, on every request.
+     */
+    static void checkForwardedAddresses(ServerProperties.ForwardHeadersStrategy strategy, Environment environment) {
+        if (strategy == ServerProperties.ForwardHeadersStrategy.FRAMEWORK) {
+            throw new IllegalStateException(
+                "Rate limiting requires server.forward-headers-strategy=native, the framework strategy trusts the headers of any client"
+            );
+        }
+        if (strategy == ServerProperties.ForwardHeadersStrategy.NATIVE && !environment.containsProperty(INTERNAL_PROXIES)) {
+            throw new IllegalStateException("Rate limiting with server.forward-headers-strategy=native requires " + INTERNAL_PROXIES + " to be set");
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.vssoft.vspace.config;
+
+import com.vssoft.vspace.config.cache.MemoryResponseBodyCache;
+import com.vssoft.vspace.config.cache.RedisResponseBodyCache;
+import com.vssoft.vspace.config.cache.ResponseBodyCache;
+import com.vssoft.vspace.config.cache.ResponseBodyCacheEvictionTopic;
+import com.vssoft.vspace.config.cache.ResponseBodyCacheFilter;
+import com.vssoft.vspace.service.event.ProductChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.PayloadApplicationEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.event.TransactionalApplicationListener;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * Cache of the serialized responses of {@code GET /api/products/{id}}, enabled with
+ * {@code vspace.response-cache.enabled}. The responses of a product are evicted once a write to it is committed, from
+ * the memory of every node through a Redis topic, or from the store in Redis.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "vspace.response-cache", name = "enabled", havingValue = "true")
+public class ResponseCacheConfiguration {
+
+    private static final String PRODUCT_PATH = "/api/products/";
+
+    private static final String EVICTION_TOPIC = "vspace:product-response-cache-evictions";
+
+    @Bean
+    @ConditionalOnProperty(prefix = "vspace.response-cache", name = "store", havingValue = "memory", matchIfMissing = true)
+    public MemoryResponseBodyCache memoryProductResponseCache(VSpaceProperties properties) {
+        VSpaceProperties.ResponseCache config = properties.getResponseCache();
+        return new MemoryResponseBodyCache(config.getMaxEntries(), Duration.ofSeconds(config.getTimeToLiveSeconds()));
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "vspace.response-cache", name = "store", havingValue = "memory", matchIfMissing = true)
+    public ResponseBodyCacheEvictionTopic productResponseCacheEvictionTopic(MemoryResponseBodyCache productResponseCache, RedissonClient redissonClient) {
+        return new ResponseBodyCacheEvictionTopic(productResponseCache, redissonClient, EVICTION_TOPIC);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "vspace.response-cache", name = "store", havingValue = "redis")
+    public RedisResponseBodyCache redisProductResponseCache(VSpaceProperties properties, RedissonClient redissonClient) {
+        return new RedisResponseBodyCache(redissonClient, Duration.ofSeconds(properties.getResponseCache().getTimeToLiveSeconds()));
+    }
+
+    @Bean
+    public FilterRegistrationBean<ResponseBodyCacheFilter> productResponseCacheFilter(
+        ResponseBodyCache productResponseCache,
+        VSpaceProperties properties,
+        MeterRegistry registry
+    ) {
+        FilterRegistrationBean<ResponseBodyCacheFilter> registration = new FilterRegistrationBean<>(
+            new ResponseBodyCacheFilter(productResponseCache, PRODUCT_PATH, "id", properties.getResponseCache().getMaxBodySize(), registry)
+        );
+        registration.addUrlPatterns(PRODUCT_PATH + "*");
+        // Right after the security filters, so that only authorized callers get cached responses, and the rate limit
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 2);
+        return registration;
+    }
+
+    @Bean
+    public TransactionalApplicationListener<PayloadApplicationEvent<ProductChangedEvent>> productResponseCacheEviction(
+        ResponseBodyCache productResponseCache,
+        ObjectProvider<ResponseBodyCacheEvictionTopic> evictionTopic
+    ) {
+        // Caches in memory are evicted on every node, the one in Redis is shared by them
+        ResponseBodyCacheEvictionTopic topic = evictionTopic.getIfAvailable();
+        Consumer<String> evict = topic != null ? topic::evict : productResponseCache::evict;
+        return TransactionalApplicationListener.forPayload(event -> evict.accept(PRODUCT_PATH + event.id()));
+    }
+}
@@ -0,0 +1,50 @@
+package com.vssoft.vspace.config;
+
+import com.vssoft.vspace.config.compression.ResponseCompressionFilter;
+import com.vssoft.vspace.config.compression.ResponseCompressor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Compression of API responses, disabled with {@code vspace.compression.enabled}.
+ * <p>
+ * Static assets are not compressed on the fly: with {@code spring.web.resources.chain.compressed}, the {@code .br} or
+ * {@code .gz} sibling of an asset is served when the client accepts it, from the classpath as well as from the document
+ * root set by {@link WebConfigurer}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "vspace.compression", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ResponseCompressionConfiguration {
+
+    @Bean
+    public ResponseCompressor responseCompressor(VSpaceProperties properties) {
+        VSpaceProperties.Compression compression = properties.getCompression();
+        return new ResponseCompressor(compression.getBrotliQuality(), compression.getGzipLevel(), compression.getPooledBuffers());
+    }
+
+    @Bean
+    public FilterRegistrationBean<ResponseCompressionFilter> responseCompressionFilter(
+        ResponseCompressor compressor,
+        VSpaceProperties properties,
+        MeterRegistry registry
+    ) {
+        VSpaceProperties.Compression compression = properties.getCompression();
+        FilterRegistrationBean<ResponseCompressionFilter> registration = new FilterRegistrationBean<>(
+            new ResponseCompressionFilter(
+                compressor,
+                compression.getMinResponseSize(),
+                compression.getMaxBufferedSize(),
+                compression.getExcludedMimeTypes(),
+                registry
+            )
+        );
+        registration.addUrlPatterns("/api/*");
+        // Right inside the statement budget filter, so that error responses of the security filters are compressed too
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+}
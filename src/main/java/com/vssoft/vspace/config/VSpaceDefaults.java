@@ -115,6 +115,13 @@ public interface VSpaceDefaults {
             int port = 5000;
             int ringBufferSize = 512;
         }
+
+        interface AsyncConsole {
+
+            boolean enabled = false;
+            int ringBufferSize = 8192;
+            String dropBelowLevel = "WARN";
+        }
     }
 
     interface Mail {
@@ -150,4 +157,167 @@ public interface VSpaceDefaults {
 
         int retentionPeriod = 30;
     }
+
+    interface Search {
+
+        String engine = "elasticsearch";
+
+        interface ResultCache {
+
+            boolean enabled = true;
+            int timeToLiveSeconds = 10;
+            long maxEntries = 10_000;
+        }
+
+        interface Suggest {
+
+            int maxSize = 20;
+            long maxDebounceMillis = 300;
+        }
+
+        interface QueryGuard {
+
+            int maxDepth = 4;
+            int maxClauses = 64;
+            int maxFuzzyTerms = 3;
+            int minFuzzyTermLength = 4;
+            int fuzzyMaxExpansions = 20;
+            boolean rewriteLeadingWildcards = true;
+            boolean allowRegex = false;
+            long timeoutMillis = 2_000;
+            int terminateAfter = 100_000;
+        }
+
+        interface Facets {
+
+            int maxFacets = 5;
+            int maxTermsSize = 50;
+        }
+
+        interface Fallback {
+
+            boolean enabled = false;
+            int maxPageSize = 20;
+            int maxTerms = 5;
+        }
+
+        interface Postgres {
+
+            String textSearchConfig = "english";
+            long reindexIntervalMillis = 5_000;
+            int cursorTimeToLiveSeconds = 60;
+            long maxCursors = 10_000;
+        }
+
+        interface Lucene {
+
+            String path = "data/lucene/products";
+            long refreshIntervalMillis = 1_000;
+            long commitIntervalSeconds = 60;
+            long reconcileWindowSeconds = 300;
+        }
+    }
+
+    interface Elasticsearch {
+
+        int maxConnectionsTotal = 50;
+        int maxConnectionsPerRoute = 20;
+        long keepAliveSeconds = 60;
+        boolean compressionEnabled = true;
+        long connectTimeoutMillis = 1_000;
+        long connectionRequestTimeoutMillis = 500;
+        long searchTimeoutMillis = 5_000;
+        long indexTimeoutMillis = 10_000;
+        long deleteTimeoutMillis = 10_000;
+    }
+
+    interface Persistence {
+
+        interface Instrumentation {
+
+            boolean enabled = false;
+            long slowStatementMillis = 200;
+            int statementBudget = 20;
+        }
+
+        interface ContentCompression {
+
+            boolean enabled = false;
+            int minSize = 256;
+            int level = 3;
+            String[] dictionaries = {};
+        }
+    }
+
+    interface Compression {
+
+        boolean enabled = true;
+        int minResponseSize = 1_024;
+        int maxBufferedSize = 256 * 1_024;
+        int brotliQuality = 4;
+        int gzipLevel = 6;
+        int pooledBuffers = 32;
+        String[] excludedMimeTypes = {
+            "image/*",
+            "video/*",
+            "audio/*",
+            "font/woff",
+            "font/woff2",
+            "application/zip",
+            "application/gzip",
+            "application/x-brotli",
+            "application/zstd",
+            "application/pdf",
+            "application/octet-stream"
+        };
+    }
+
+    interface ResponseCache {
+
+        boolean enabled = false;
+        String store = "memory";
+        long timeToLiveSeconds = 300;
+        long maxEntries = 10_000;
+        int maxBodySize = 256 * 1024;
+    }
+
+    interface Coalescing {
+
+        boolean enabled = true;
+        long maxWaitMillis = 1000;
+    }
+
+    interface RateLimit {
+
+        boolean enabled = false;
+        int leaseSize = 10;
+        long leaseTimeToLiveMillis = 1000;
+        long failureBackoffMillis = 1000;
+        long maxClients = 100_000;
+
+        interface Endpoint {
+
+            long capacity = 100;
+            double refillPerSecond = 10;
+        }
+    }
+
+    interface ChangeFeed {
+
+        int batchSize = 500;
+        int maxChanges = 10_000;
+        long settleMillis = 2000;
+        int tombstoneRetentionDays = 30;
+    }
+
+    interface ProductEvents {
+
+        boolean enabled = true;
+        String fanOut = "redis";
+        int bufferSize = 256;
+        int maxSubscribers = 50_000;
+        int dispatchThreads = 4;
+        long heartbeatSeconds = 30;
+        long timeoutSeconds = 1800;
+    }
 }
@@ -8,7 +8,9 @@ import org.springframework.web.cors.CorsConfiguration;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Getter
 @ConfigurationProperties(prefix = "vspace", ignoreUnknownFields = false)
@@ -22,6 +24,15 @@ public class VSpaceProperties {
     private final ApiDocs apiDocs = new ApiDocs();
     private final ClientApp clientApp = new ClientApp();
     private final AuditEvents auditEvents = new AuditEvents();
+    private final Search search = new Search();
+    private final Elasticsearch elasticsearch = new Elasticsearch();
+    private final Persistence persistence = new Persistence();
+    private final Compression compression = new Compression();
+    private final ResponseCache responseCache = new ResponseCache();
+    private final Coalescing coalescing = new Coalescing();
+    private final RateLimit rateLimit = new RateLimit();
+    private final ChangeFeed changeFeed = new ChangeFeed();
+    private final ProductEvents productEvents = new ProductEvents();
 
     public static class Security {
 
@@ -510,6 +521,8 @@ public class VSpaceProperties {
 
         private final Logstash logstash = new Logstash();
 
+        private final AsyncConsole asyncConsole = new AsyncConsole();
+
         public boolean isUseJsonFormat() {
             return useJsonFormat;
         }
@@ -522,6 +535,10 @@ public class VSpaceProperties {
             return logstash;
         }
 
+        public AsyncConsole getAsyncConsole() {
+            return asyncConsole;
+        }
+
         public static class Logstash {
 
             private boolean enabled = VSpaceDefaults.Logging.Logstash.enabled;
@@ -564,6 +581,45 @@ public class VSpaceProperties {
                 this.ringBufferSize = ringBufferSize;
             }
         }
+
+        public static class AsyncConsole {
+
+            private boolean enabled = VSpaceDefaults.Logging.AsyncConsole.enabled;
+
+            /**
+             * Must be a power of 2.
+             */
+            private int ringBufferSize = VSpaceDefaults.Logging.AsyncConsole.ringBufferSize;
+
+            /**
+             * Events below this level are dropped when the ring buffer is full, others wait for free space.
+             */
+            private String dropBelowLevel = VSpaceDefaults.Logging.AsyncConsole.dropBelowLevel;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getRingBufferSize() {
+                return ringBufferSize;
+            }
+
+            public void setRingBufferSize(int ringBufferSize) {
+                this.ringBufferSize = ringBufferSize;
+            }
+
+            public String getDropBelowLevel() {
+                return dropBelowLevel;
+            }
+
+            public void setDropBelowLevel(String dropBelowLevel) {
+                this.dropBelowLevel = dropBelowLevel;
+            }
+        }
     }
 
     public static class Mail {
@@ -768,4 +824,1112 @@ public class VSpaceProperties {
         }
     }
 
+    public static class Search {
+
+        /**
+         * The engine serving product searches: {@code elasticsearch}, {@code postgres} for the full-text index of the
+         * database or {@code lucene} for a local index. The Elasticsearch repositories are only created for the first.
+         */
+        private String engine = VSpaceDefaults.Search.engine;
+
+        private final ResultCache resultCache = new ResultCache();
+
+        private final Suggest suggest = new Suggest();
+
+        private final QueryGuard queryGuard = new QueryGuard();
+
+        private final Facets facets = new Facets();
+
+        private final Fallback fallback = new Fallback();
+
+        private final Postgres postgres = new Postgres();
+
+        private final Lucene lucene = new Lucene();
+
+        public String getEngine() {
+            return engine;
+        }
+
+        public void setEngine(String engine) {
+            this.engine = engine;
+        }
+
+        public ResultCache getResultCache() {
+            return resultCache;
+        }
+
+        public Suggest getSuggest() {
+            return suggest;
+        }
+
+        public QueryGuard getQueryGuard() {
+            return queryGuard;
+        }
+
+        public Facets getFacets() {
+            return facets;
+        }
+
+        public Fallback getFallback() {
+            return fallback;
+        }
+
+        public Postgres getPostgres() {
+            return postgres;
+        }
+
+        public Lucene getLucene() {
+            return lucene;
+        }
+
+        public static class ResultCache {
+
+            private boolean enabled = VSpaceDefaults.Search.ResultCache.enabled;
+
+            /**
+             * How long a page of hit ids is reused, in seconds. Writes invalidate earlier entries on this node only.
+             */
+            private int timeToLiveSeconds = VSpaceDefaults.Search.ResultCache.timeToLiveSeconds;
+
+            private long maxEntries = VSpaceDefaults.Search.ResultCache.maxEntries;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getTimeToLiveSeconds() {
+                return timeToLiveSeconds;
+            }
+
+            public void setTimeToLiveSeconds(int timeToLiveSeconds) {
+                this.timeToLiveSeconds = timeToLiveSeconds;
+            }
+
+            public long getMaxEntries() {
+                return maxEntries;
+            }
+
+            public void setMaxEntries(long maxEntries) {
+                this.maxEntries = maxEntries;
+            }
+        }
+
+        public static class Suggest {
+
+            /**
+             * Upper bound of the number of suggestions a client can ask for.
+             */
+            private int maxSize = VSpaceDefaults.Search.Suggest.maxSize;
+
+            /**
+             * Upper bound of the server side debounce a client can ask for, in milliseconds.
+             */
+            private long maxDebounceMillis = VSpaceDefaults.Search.Suggest.maxDebounceMillis;
+
+            public int getMaxSize() {
+                return maxSize;
+            }
+
+            public void setMaxSize(int maxSize) {
+                this.maxSize = maxSize;
+            }
+
+            public long getMaxDebounceMillis() {
+                return maxDebounceMillis;
+            }
+
+            public void setMaxDebounceMillis(long maxDebounceMillis) {
+                this.maxDebounceMillis = maxDebounceMillis;
+            }
+        }
+
+        public static class QueryGuard {
+
+            /**
+             * Maximum nesting of parenthesized groups in a query string.
+             */
+            private int maxDepth = VSpaceDefaults.Search.QueryGuard.maxDepth;
+
+            /**
+             * Maximum number of terms, phrases and ranges in a query string.
+             */
+            private int maxClauses = VSpaceDefaults.Search.QueryGuard.maxClauses;
+
+            /**
+             * Number of fuzzy terms kept in a query string, the fuzziness of the next ones is dropped.
+             */
+            private int maxFuzzyTerms = VSpaceDefaults.Search.QueryGuard.maxFuzzyTerms;
+
+            /**
+             * Terms shorter than this lose their fuzziness, which would match most of the index.
+             */
+            private int minFuzzyTermLength = VSpaceDefaults.Search.QueryGuard.minFuzzyTermLength;
+
+            private int fuzzyMaxExpansions = VSpaceDefaults.Search.QueryGuard.fuzzyMaxExpansions;
+
+            /**
+             * Whether leading wildcards are stripped from terms; when false, queries with one are rejected.
+             */
+            private boolean rewriteLeadingWildcards = VSpaceDefaults.Search.QueryGuard.rewriteLeadingWildcards;
+
+            private boolean allowRegex = VSpaceDefaults.Search.QueryGuard.allowRegex;
+
+            /**
+             * Server side timeout of a search, after which the hits collected so far are returned.
+             */
+            private long timeoutMillis = VSpaceDefaults.Search.QueryGuard.timeoutMillis;
+
+            /**
+             * Maximum number of documents collected per shard by the searches without facets, 0 for no limit. Totals stop
+             * counting there too. Faceted searches are not bounded, their counts would be silently truncated.
+             */
+            private int terminateAfter = VSpaceDefaults.Search.QueryGuard.terminateAfter;
+
+            public int getMaxDepth() {
+                return maxDepth;
+            }
+
+            public void setMaxDepth(int maxDepth) {
+                this.maxDepth = maxDepth;
+            }
+
+            public int getMaxClauses() {
+                return maxClauses;
+            }
+
+            public void setMaxClauses(int maxClauses) {
+                this.maxClauses = maxClauses;
+            }
+
+            public int getMaxFuzzyTerms() {
+                return maxFuzzyTerms;
+            }
+
+            public void setMaxFuzzyTerms(int maxFuzzyTerms) {
+                this.maxFuzzyTerms = maxFuzzyTerms;
+            }
+
+            public int getMinFuzzyTermLength() {
+                return minFuzzyTermLength;
+            }
+
+            public void setMinFuzzyTermLength(int minFuzzyTermLength) {
+                this.minFuzzyTermLength = minFuzzyTermLength;
+            }
+
+            public int getFuzzyMaxExpansions() {
+                return fuzzyMaxExpansions;
+            }
+
+            public void setFuzzyMaxExpansions(int fuzzyMaxExpansions) {
+                this.fuzzyMaxExpansions = fuzzyMaxExpansions;
+            }
+
+            public boolean isRewriteLeadingWildcards() {
+                return rewriteLeadingWildcards;
+            }
+
+            public void setRewriteLeadingWildcards(boolean rewriteLeadingWildcards) {
+                this.rewriteLeadingWildcards = rewriteLeadingWildcards;
+            }
+
+            public boolean isAllowRegex() {
+                return allowRegex;
+            }
+
+            public void setAllowRegex(boolean allowRegex) {
+                this.allowRegex = allowRegex;
+            }
+
+            public long getTimeoutMillis() {
+                return timeoutMillis;
+            }
+
+            public void setTimeoutMillis(long timeoutMillis) {
+                this.timeoutMillis = timeoutMillis;
+            }
+
+            public int getTerminateAfter() {
+                return terminateAfter;
+            }
+
+            public void setTerminateAfter(int terminateAfter) {
+                this.terminateAfter = terminateAfter;
+            }
+        }
+
+        public static class Facets {
+
+            /**
+             * Upper bound of the number of facets of a single search.
+             */
+            private int maxFacets = VSpaceDefaults.Search.Facets.maxFacets;
+
+            /**
+             * Upper bound of the number of buckets of a terms facet.
+             */
+            private int maxTermsSize = VSpaceDefaults.Search.Facets.maxTermsSize;
+
+            public int getMaxFacets() {
+                return maxFacets;
+            }
+
+            public void setMaxFacets(int maxFacets) {
+                this.maxFacets = maxFacets;
+            }
+
+            public int getMaxTermsSize() {
+                return maxTermsSize;
+            }
+
+            public void setMaxTermsSize(int maxTermsSize) {
+                this.maxTermsSize = maxTermsSize;
+            }
+        }
+
+        public static class Fallback {
+
+            /**
+             * Whether searches fall back to the full-text index of the database while the Elasticsearch circuit is
+             * open, instead of failing fast. The index is then maintained along with the products, see
+             * {@code ProductFullTextSchema}, and a name lookup is done without it.
+             */
+            private boolean enabled = VSpaceDefaults.Search.Fallback.enabled;
+
+            private int maxPageSize = VSpaceDefaults.Search.Fallback.maxPageSize;
+
+            /**
+             * Number of words of the query looked up in product names, the next ones are ignored.
+             */
+            private int maxTerms = VSpaceDefaults.Search.Fallback.maxTerms;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getMaxPageSize() {
+                return maxPageSize;
+            }
+
+            public void setMaxPageSize(int maxPageSize) {
+                this.maxPageSize = maxPageSize;
+            }
+
+            public int getMaxTerms() {
+                return maxTerms;
+            }
+
+            public void setMaxTerms(int maxTerms) {
+                this.maxTerms = maxTerms;
+            }
+        }
+
+        public static class Postgres {
+
+            /**
+             * The text search configuration used to build and query the search vector. Changing it on an existing
+             * database requires clearing the {@code search_vector} column, so that it is built again.
+             */
+            private String textSearchConfig = VSpaceDefaults.Search.Postgres.textSearchConfig;
+
+            /**
+             * How often the products without a search vector, such as those written by nodes not maintaining it, are
+             * indexed, in milliseconds. 0 leaves them to other nodes.
+             */
+            private long reindexIntervalMillis = VSpaceDefaults.Search.Postgres.reindexIntervalMillis;
+
+            /**
+             * How long the position reached by a page of hits is kept to fetch the next page by keyset, in seconds.
+             */
+            private int cursorTimeToLiveSeconds = VSpaceDefaults.Search.Postgres.cursorTimeToLiveSeconds;
+
+            private long maxCursors = VSpaceDefaults.Search.Postgres.maxCursors;
+
+            public String getTextSearchConfig() {
+                return textSearchConfig;
+            }
+
+            public void setTextSearchConfig(String textSearchConfig) {
+                this.textSearchConfig = textSearchConfig;
+            }
+
+            public long getReindexIntervalMillis() {
+                return reindexIntervalMillis;
+            }
+
+            public void setReindexIntervalMillis(long reindexIntervalMillis) {
+                this.reindexIntervalMillis = reindexIntervalMillis;
+            }
+
+            public int getCursorTimeToLiveSeconds() {
+                return cursorTimeToLiveSeconds;
+            }
+
+            public void setCursorTimeToLiveSeconds(int cursorTimeToLiveSeconds) {
+                this.cursorTimeToLiveSeconds = cursorTimeToLiveSeconds;
+            }
+
+            public long getMaxCursors() {
+                return maxCursors;
+            }
+
+            public void setMaxCursors(long maxCursors) {
+                this.maxCursors = maxCursors;
+            }
+        }
+
+        public static class Lucene {
+
+            /**
+             * Directory of the local index, rebuilt from the database at startup when missing.
+             */
+            private String path = VSpaceDefaults.Search.Lucene.path;
+
+            /**
+             * How long a write may take to become searchable, in milliseconds.
+             */
+            private long refreshIntervalMillis = VSpaceDefaults.Search.Lucene.refreshIntervalMillis;
+
+            /**
+             * How often writes are made durable, in seconds. Writes not yet committed are lost on a crash, and applied
+             * again from the database at the next startup.
+             */
+            private long commitIntervalSeconds = VSpaceDefaults.Search.Lucene.commitIntervalSeconds;
+
+            /**
+             * At startup, the products written or deleted up to this long before the last commit are applied again, in
+             * seconds: it must exceed the duration of the longest transaction writing products, plus the clock skew
+             * between this instance and the one setting the dates of the writes.
+             */
+            private long reconcileWindowSeconds = VSpaceDefaults.Search.Lucene.reconcileWindowSeconds;
+
+            public String getPath() {
+                return path;
+            }
+
+            public void setPath(String path) {
+                this.path = path;
+            }
+
+            public long getRefreshIntervalMillis() {
+                return refreshIntervalMillis;
+            }
+
+            public void setRefreshIntervalMillis(long refreshIntervalMillis) {
+                this.refreshIntervalMillis = refreshIntervalMillis;
+            }
+
+            public long getCommitIntervalSeconds() {
+                return commitIntervalSeconds;
+            }
+
+            public void setCommitIntervalSeconds(long commitIntervalSeconds) {
+                this.commitIntervalSeconds = commitIntervalSeconds;
+            }
+
+            public long getReconcileWindowSeconds() {
+                return reconcileWindowSeconds;
+            }
+
+            public void setReconcileWindowSeconds(long reconcileWindowSeconds) {
+                this.reconcileWindowSeconds = reconcileWindowSeconds;
+            }
+        }
+    }
+
+    public static class Elasticsearch {
+
+        private int maxConnectionsTotal = VSpaceDefaults.Elasticsearch.maxConnectionsTotal;
+
+        private int maxConnectionsPerRoute = VSpaceDefaults.Elasticsearch.maxConnectionsPerRoute;
+
+        /**
+         * How long an idle connection is kept open, unless the server asks for less.
+         */
+        private long keepAliveSeconds = VSpaceDefaults.Elasticsearch.keepAliveSeconds;
+
+        /**
+         * Whether request bodies are gzipped, which mostly pays off for bulk indexing.
+         */
+        private boolean compressionEnabled = VSpaceDefaults.Elasticsearch.compressionEnabled;
+
+        private long connectTimeoutMillis = VSpaceDefaults.Elasticsearch.connectTimeoutMillis;
+
+        /**
+         * How long a request waits for a pooled connection before failing.
+         */
+        private long connectionRequestTimeoutMillis = VSpaceDefaults.Elasticsearch.connectionRequestTimeoutMillis;
+
+        private long searchTimeoutMillis = VSpaceDefaults.Elasticsearch.searchTimeoutMillis;
+
+        private long indexTimeoutMillis = VSpaceDefaults.Elasticsearch.indexTimeoutMillis;
+
+        private long deleteTimeoutMillis = VSpaceDefaults.Elasticsearch.deleteTimeoutMillis;
+
+        public int getMaxConnectionsTotal() {
+            return maxConnectionsTotal;
+        }
+
+        public void setMaxConnectionsTotal(int maxConnectionsTotal) {
+            this.maxConnectionsTotal = maxConnectionsTotal;
+        }
+
+        public int getMaxConnectionsPerRoute() {
+            return maxConnectionsPerRoute;
+        }
+
+        public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+            this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        }
+
+        public long getKeepAliveSeconds() {
+            return keepAliveSeconds;
+        }
+
+        public void setKeepAliveSeconds(long keepAliveSeconds) {
+            this.keepAliveSeconds = keepAliveSeconds;
+        }
+
+        public boolean isCompressionEnabled() {
+            return compressionEnabled;
+        }
+
+        public void setCompressionEnabled(boolean compressionEnabled) {
+            this.compressionEnabled = compressionEnabled;
+        }
+
+        public long getConnectTimeoutMillis() {
+            return connectTimeoutMillis;
+        }
+
+        public void setConnectTimeoutMillis(long connectTimeoutMillis) {
+            this.connectTimeoutMillis = connectTimeoutMillis;
+        }
+
+        public long getConnectionRequestTimeoutMillis() {
+            return connectionRequestTimeoutMillis;
+        }
+
+        public void setConnectionRequestTimeoutMillis(long connectionRequestTimeoutMillis) {
+            this.connectionRequestTimeoutMillis = connectionRequestTimeoutMillis;
+        }
+
+        public long getSearchTimeoutMillis() {
+            return searchTimeoutMillis;
+        }
+
+        public void setSearchTimeoutMillis(long searchTimeoutMillis) {
+            this.searchTimeoutMillis = searchTimeoutMillis;
+        }
+
+        public long getIndexTimeoutMillis() {
+            return indexTimeoutMillis;
+        }
+
+        public void setIndexTimeoutMillis(long indexTimeoutMillis) {
+            this.indexTimeoutMillis = indexTimeoutMillis;
+        }
+
+        public long getDeleteTimeoutMillis() {
+            return deleteTimeoutMillis;
+        }
+
+        public void setDeleteTimeoutMillis(long deleteTimeoutMillis) {
+            this.deleteTimeoutMillis = deleteTimeoutMillis;
+        }
+    }
+
+    public static class Persistence {
+
+        private final Instrumentation instrumentation = new Instrumentation();
+
+        private final ContentCompression contentCompression = new ContentCompression();
+
+        public Instrumentation getInstrumentation() {
+            return instrumentation;
+        }
+
+        public ContentCompression getContentCompression() {
+            return contentCompression;
+        }
+
+        public static class Instrumentation {
+
+            /**
+             * Whether Hibernate statistics are collected and JDBC statements are tracked, see
+             * {@code PersistenceInstrumentationConfiguration}.
+             */
+            private boolean enabled = VSpaceDefaults.Persistence.Instrumentation.enabled;
+
+            /**
+             * Statements taking longer are logged with their number of bind values, in milliseconds.
+             */
+            private long slowStatementMillis = VSpaceDefaults.Persistence.Instrumentation.slowStatementMillis;
+
+            /**
+             * Requests executing more statements are logged, 0 to disable.
+             */
+            private int statementBudget = VSpaceDefaults.Persistence.Instrumentation.statementBudget;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public long getSlowStatementMillis() {
+                return slowStatementMillis;
+            }
+
+            public void setSlowStatementMillis(long slowStatementMillis) {
+                this.slowStatementMillis = slowStatementMillis;
+            }
+
+            public int getStatementBudget() {
+                return statementBudget;
+            }
+
+            public void setStatementBudget(int statementBudget) {
+                this.statementBudget = statementBudget;
+            }
+        }
+
+        public static class ContentCompression {
+
+            /**
+             * Whether the content of products is stored as bytes, compressed with zstd, rather than as a large object.
+             * Takes the column to be converted first, see the README, and cannot be disabled again without converting
+             * it back.
+             */
+            private boolean enabled = VSpaceDefaults.Persistence.ContentCompression.enabled;
+
+            /**
+             * Contents smaller than this are written as is, in UTF-8 bytes.
+             */
+            private int minSize = VSpaceDefaults.Persistence.ContentCompression.minSize;
+
+            /**
+             * zstd level, from 1 to 19. Above 6 it costs far more time than it saves bytes on short texts.
+             */
+            private int level = VSpaceDefaults.Persistence.ContentCompression.level;
+
+            /**
+             * Locations of zstd dictionaries trained on contents, see {@code ContentCodec}. The first one compresses
+             * new contents, all of them decompress the contents written with them.
+             */
+            private String[] dictionaries = VSpaceDefaults.Persistence.ContentCompression.dictionaries;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getMinSize() {
+                return minSize;
+            }
+
+            public void setMinSize(int minSize) {
+                this.minSize = minSize;
+            }
+
+            public int getLevel() {
+                return level;
+            }
+
+            public void setLevel(int level) {
+                this.level = level;
+            }
+
+            public String[] getDictionaries() {
+                return dictionaries;
+            }
+
+            public void setDictionaries(String[] dictionaries) {
+                this.dictionaries = dictionaries;
+            }
+        }
+    }
+
+    public static class Compression {
+
+        /**
+         * Whether API responses are compressed with Brotli or gzip, as negotiated with {@code Accept-Encoding}.
+         */
+        private boolean enabled = VSpaceDefaults.Compression.enabled;
+
+        /**
+         * Responses smaller than this are sent as is, in bytes.
+         */
+        private int minResponseSize = VSpaceDefaults.Compression.minResponseSize;
+
+        /**
+         * Bodies are held back up to this size, in bytes, to be compressed at once and sent with their length. Larger
+         * ones are compressed as they are written.
+         */
+        private int maxBufferedSize = VSpaceDefaults.Compression.maxBufferedSize;
+
+        /**
+         * Brotli quality, from 0 to 11. Above 5 it costs far more time than it saves bytes on dynamic responses.
+         */
+        private int brotliQuality = VSpaceDefaults.Compression.brotliQuality;
+
+        /**
+         * Deflate level of gzip, from 1 to 9.
+         */
+        private int gzipLevel = VSpaceDefaults.Compression.gzipLevel;
+
+        /**
+         * Number of buffers and of gzip compressors kept for reuse by the next requests.
+         */
+        private int pooledBuffers = VSpaceDefaults.Compression.pooledBuffers;
+
+        /**
+         * Media types already compressed, or not worth compressing, which are sent as is. Wildcards are allowed.
+         */
+        private String[] excludedMimeTypes = VSpaceDefaults.Compression.excludedMimeTypes;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMinResponseSize() {
+            return minResponseSize;
+        }
+
+        public void setMinResponseSize(int minResponseSize) {
+            this.minResponseSize = minResponseSize;
+        }
+
+        public int getMaxBufferedSize() {
+            return maxBufferedSize;
+        }
+
+        public void setMaxBufferedSize(int maxBufferedSize) {
+            this.maxBufferedSize = maxBufferedSize;
+        }
+
+        public int getBrotliQuality() {
+            return brotliQuality;
+        }
+
+        public void setBrotliQuality(int brotliQuality) {
+            this.brotliQuality = brotliQuality;
+        }
+
+        public int getGzipLevel() {
+            return gzipLevel;
+        }
+
+        public void setGzipLevel(int gzipLevel) {
+            this.gzipLevel = gzipLevel;
+        }
+
+        public int getPooledBuffers() {
+            return pooledBuffers;
+        }
+
+        public void setPooledBuffers(int pooledBuffers) {
+            this.pooledBuffers = pooledBuffers;
+        }
+
+        public String[] getExcludedMimeTypes() {
+            return excludedMimeTypes;
+        }
+
+        public void setExcludedMimeTypes(String[] excludedMimeTypes) {
+            this.excludedMimeTypes = excludedMimeTypes;
+        }
+    }
+
+    public static class ResponseCache {
+
+        /**
+         * Whether the serialized responses of {@code GET /api/products/{id}} are cached, see
+         * {@code ResponseCacheConfiguration}.
+         */
+        private boolean enabled = VSpaceDefaults.ResponseCache.enabled;
+
+        /**
+         * Where responses are kept: {@code memory}, on each node, which send their evictions to each other through Redis,
+         * or {@code redis}, shared by the nodes.
+         */
+        private String store = VSpaceDefaults.ResponseCache.store;
+
+        private long timeToLiveSeconds = VSpaceDefaults.ResponseCache.timeToLiveSeconds;
+
+        /**
+         * Maximum number of resources cached in memory, each with up to a few representations.
+         */
+        private long maxEntries = VSpaceDefaults.ResponseCache.maxEntries;
+
+        /**
+         * Larger responses are not cached, in bytes.
+         */
+        private int maxBodySize = VSpaceDefaults.ResponseCache.maxBodySize;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getStore() {
+            return store;
+        }
+
+        public void setStore(String store) {
+            this.store = store;
+        }
+
+        public long getTimeToLiveSeconds() {
+            return timeToLiveSeconds;
+        }
+
+        public void setTimeToLiveSeconds(long timeToLiveSeconds) {
+            this.timeToLiveSeconds = timeToLiveSeconds;
+        }
+
+        public long getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(long maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public int getMaxBodySize() {
+            return maxBodySize;
+        }
+
+        public void setMaxBodySize(int maxBodySize) {
+            this.maxBodySize = maxBodySize;
+        }
+    }
+
+    public static class Coalescing {
+
+        /**
+         * Whether concurrent identical reads of products share one call, see {@code CoalescingProductService}.
+         */
+        private boolean enabled = VSpaceDefaults.Coalescing.enabled;
+
+        /**
+         * How long a read waits for the identical one in flight before making its own call, in milliseconds.
+         */
+        private long maxWaitMillis = VSpaceDefaults.Coalescing.maxWaitMillis;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMaxWaitMillis() {
+            return maxWaitMillis;
+        }
+
+        public void setMaxWaitMillis(long maxWaitMillis) {
+            this.maxWaitMillis = maxWaitMillis;
+        }
+    }
+
+    public static class RateLimit {
+
+        /**
+         * Whether API requests are rate limited per caller, see {@code RateLimitConfiguration}.
+         */
+        private boolean enabled = VSpaceDefaults.RateLimit.enabled;
+
+        /**
+         * Number of permits a node takes from a bucket in Redis at once, and then hands out without calling Redis.
+         */
+        private int leaseSize = VSpaceDefaults.RateLimit.leaseSize;
+
+        /**
+         * How long a node may hand out the permits it took, in milliseconds: the permits left then are dropped.
+         */
+        private long leaseTimeToLiveMillis = VSpaceDefaults.RateLimit.leaseTimeToLiveMillis;
+
+        /**
+         * How long requests are let through without calling Redis once a call to it failed, in milliseconds.
+         */
+        private long failureBackoffMillis = VSpaceDefaults.RateLimit.failureBackoffMillis;
+
+        /**
+         * Maximum number of callers whose permits a node keeps track of.
+         */
+        private long maxClients = VSpaceDefaults.RateLimit.maxClients;
+
+        /**
+         * Classes of endpoints, each with a bucket per caller. A request counts against the first class matching its
+         * path, and is not limited if none does.
+         */
+        private Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getLeaseSize() {
+            return leaseSize;
+        }
+
+        public void setLeaseSize(int leaseSize) {
+            this.leaseSize = leaseSize;
+        }
+
+        public long getLeaseTimeToLiveMillis() {
+            return leaseTimeToLiveMillis;
+        }
+
+        public void setLeaseTimeToLiveMillis(long leaseTimeToLiveMillis) {
+            this.leaseTimeToLiveMillis = leaseTimeToLiveMillis;
+        }
+
+        public long getFailureBackoffMillis() {
+            return failureBackoffMillis;
+        }
+
+        public void setFailureBackoffMillis(long failureBackoffMillis) {
+            this.failureBackoffMillis = failureBackoffMillis;
+        }
+
+        public long getMaxClients() {
+            return maxClients;
+        }
+
+        public void setMaxClients(long maxClients) {
+            this.maxClients = maxClients;
+        }
+
+        public Map<String, Endpoint> getEndpoints() {
+            return endpoints;
+        }
+
+        public void setEndpoints(Map<String, Endpoint> endpoints) {
+            this.endpoints = endpoints;
+        }
+
+        public static class Endpoint {
+
+            /**
+             * Ant-style patterns of the paths of the class, such as {@code /api/_search/**}.
+             */
+            private String[] pathPatterns = {};
+
+            /**
+             * Maximum number of requests a caller can make at once, after a quiet period.
+             */
+            private long capacity = VSpaceDefaults.RateLimit.Endpoint.capacity;
+
+            /**
+             * Sustained number of requests a caller can make per second.
+             */
+            private double refillPerSecond = VSpaceDefaults.RateLimit.Endpoint.refillPerSecond;
+
+            public String[] getPathPatterns() {
+                return pathPatterns;
+            }
+
+            public void setPathPatterns(String[] pathPatterns) {
+                this.pathPatterns = pathPatterns;
+            }
+
+            public long getCapacity() {
+                return capacity;
+            }
+
+            public void setCapacity(long capacity) {
+                this.capacity = capacity;
+            }
+
+            public double getRefillPerSecond() {
+                return refillPerSecond;
+            }
+
+            public void setRefillPerSecond(double refillPerSecond) {
+                this.refillPerSecond = refillPerSecond;
+            }
+        }
+    }
+
+    public static class ChangeFeed {
+
+        /**
+         * Number of changes read from the database at once while streaming a response.
+         */
+        private int batchSize = VSpaceDefaults.ChangeFeed.batchSize;
+
+        /**
+         * Maximum number of changes in a response, consumers ask for the next ones with its token.
+         */
+        private int maxChanges = VSpaceDefaults.ChangeFeed.maxChanges;
+
+        /**
+         * Changes younger than this are left for later, in milliseconds: it must exceed the duration of the longest
+         * transaction writing products, which may commit a change older than those already returned. Changes are dated
+         * by the clock of the database, so the clocks of the nodes do not matter.
+         */
+        private long settleMillis = VSpaceDefaults.ChangeFeed.settleMillis;
+
+        /**
+         * How long the deletions of products are kept for the change feed, in days, {@code 0} to keep them forever.
+         * Tokens older than that, by the clock of the database, are rejected, their consumers having to start over
+         * without one. The token of a caught-up consumer moves forward even without changes, so only consumers that
+         * stopped reading for that long are rejected.
+         */
+        private int tombstoneRetentionDays = VSpaceDefaults.ChangeFeed.tombstoneRetentionDays;
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getMaxChanges() {
+            return maxChanges;
+        }
+
+        public void setMaxChanges(int maxChanges) {
+            this.maxChanges = maxChanges;
+        }
+
+        public long getSettleMillis() {
+            return settleMillis;
+        }
+
+        public void setSettleMillis(long settleMillis) {
+            this.settleMillis = settleMillis;
+        }
+
+        public int getTombstoneRetentionDays() {
+            return tombstoneRetentionDays;
+        }
+
+        public void setTombstoneRetentionDays(int tombstoneRetentionDays) {
+            this.tombstoneRetentionDays = tombstoneRetentionDays;
+        }
+    }
+
+    public static class ProductEvents {
+
+        /**
+         * Whether writes of products are pushed to subscribers as server-sent events, see
+         * {@code ProductEventBroadcaster}.
+         */
+        private boolean enabled = VSpaceDefaults.ProductEvents.enabled;
+
+        /**
+         * How events reach the subscribers of the other nodes: {@code redis}, through a topic, or {@code local}, for a
+         * single node.
+         */
+        private String fanOut = VSpaceDefaults.ProductEvents.fanOut;
+
+        /**
+         * Number of products whose events are held for a subscriber which is not keeping up: events of the same
+         * product are merged, and once more products are pending the subscriber is told to reload instead.
+         */
+        private int bufferSize = VSpaceDefaults.ProductEvents.bufferSize;
+
+        private int maxSubscribers = VSpaceDefaults.ProductEvents.maxSubscribers;
+
+        /**
+         * Number of threads sending events, shared by all the subscribers.
+         */
+        private int dispatchThreads = VSpaceDefaults.ProductEvents.dispatchThreads;
+
+        /**
+         * How often idle subscribers are sent a comment, so that closed connections are noticed and proxies keep
+         * open ones, in seconds.
+         */
+        private long heartbeatSeconds = VSpaceDefaults.ProductEvents.heartbeatSeconds;
+
+        /**
+         * How long a subscription lasts before the client has to reconnect, in seconds.
+         */
+        private long timeoutSeconds = VSpaceDefaults.ProductEvents.timeoutSeconds;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getFanOut() {
+            return fanOut;
+        }
+
+        public void setFanOut(String fanOut) {
+            this.fanOut = fanOut;
+        }
+
+        public int getBufferSize() {
+            return bufferSize;
+        }
+
+        public void setBufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+
+        public int getMaxSubscribers() {
+            return maxSubscribers;
+        }
+
+        public void setMaxSubscribers(int maxSubscribers) {
+            this.maxSubscribers = maxSubscribers;
+        }
+
+        public int getDispatchThreads() {
+            return dispatchThreads;
+        }
+
+        public void setDispatchThreads(int dispatchThreads) {
+            this.dispatchThreads = dispatchThreads;
+        }
+
+        public long getHeartbeatSeconds() {
+            return heartbeatSeconds;
+        }
+
+        public void setHeartbeatSeconds(long heartbeatSeconds) {
+            this.heartbeatSeconds = heartbeatSeconds;
+        }
+
+        public long getTimeoutSeconds() {
+            return timeoutSeconds;
+        }
+
+        public void setTimeoutSeconds(long timeoutSeconds) {
+            this.timeoutSeconds = timeoutSeconds;
+        }
+    }
 }
@@ -0,0 +1,42 @@
+package com.vssoft.vspace.config.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A serialized response body, along with the headers needed to send it again: its content type and entity tag.
+ * <p>
+ * The body is a slice of an array, so that an entry read from Redis is served without copying it.
+ */
+public record CachedResponse(String contentType, String etag, byte[] body, int offset, int length) {
+    public CachedResponse(String contentType, String etag, byte[] body) {
+        this(contentType, etag, body, 0, body.length);
+    }
+
+    /**
+     * @return the entry as the lengths and bytes of the content type and entity tag, followed by the body.
+     */
+    byte[] encode() {
+        byte[] type = contentType.getBytes(StandardCharsets.UTF_8);
+        byte[] tag = etag.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer
+            .allocate(2 * Integer.BYTES + type.length + tag.length + length)
+            .putInt(type.length)
+            .put(type)
+            .putInt(tag.length)
+            .put(tag)
+            .put(body, offset, length)
+            .array();
+    }
+
+    static CachedResponse decode(byte[] encoded) {
+        ByteBuffer buffer = ByteBuffer.wrap(encoded);
+        int typeLength = buffer.getInt();
+        String type = new String(encoded, buffer.position(), typeLength, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + typeLength);
+        int tagLength = buffer.getInt();
+        String tag = new String(encoded, buffer.position(), tagLength, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + tagLength);
+        return new CachedResponse(type, tag, encoded, buffer.position(), buffer.remaining());
+    }
+}
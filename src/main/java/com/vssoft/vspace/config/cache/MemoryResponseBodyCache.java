@@ -0,0 +1,47 @@
+package com.vssoft.vspace.config.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps responses in the heap of this node, bounded by number of paths.
+ */
+public class MemoryResponseBodyCache extends ResponseBodyCache implements MeterBinder {
+
+    private final Cache<String, Map<String, CachedResponse>> responses;
+
+    public MemoryResponseBodyCache(long maxEntries, Duration timeToLive) {
+        this.responses = Caffeine.newBuilder().maximumSize(maxEntries).expireAfterWrite(timeToLive).recordStats().build();
+    }
+
+    @Override
+    public CachedResponse get(String path, String variant) {
+        Map<String, CachedResponse> variants = responses.getIfPresent(path);
+        return variants != null ? variants.get(variant) : null;
+    }
+
+    @Override
+    protected void store(String path, String variant, CachedResponse response) {
+        Map<String, CachedResponse> variants = responses.get(path, key -> new ConcurrentHashMap<>());
+        if (variants.size() < MAX_VARIANTS || variants.containsKey(variant)) {
+            variants.put(variant, response);
+        }
+    }
+
+    @Override
+    protected void remove(String path) {
+        responses.invalidate(path);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, responses, "responseBodies");
+    }
+}
@@ -0,0 +1,103 @@
+package com.vssoft.vspace.config.cache;
+
+import org.redisson.api.RMap;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.ByteArrayCodec;
+import org.redisson.client.codec.Codec;
+import org.redisson.client.codec.StringCodec;
+import org.redisson.codec.CompositeCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Keeps responses in Redis, shared by all the nodes: the variants of a path are the fields of a hash, which expires
+ * as a whole.
+ * <p>
+ * The cache is skipped while Redis cannot be reached: a failed read is a miss, and Redis is neither read from nor
+ * written to for a while after it, so that an outage does not add its timeout to every request.
+ */
+public class RedisResponseBodyCache extends ResponseBodyCache {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisResponseBodyCache.class);
+
+    private static final String KEY_PREFIX = "vspace:response:";
+    private static final Codec CODEC = new CompositeCodec(StringCodec.INSTANCE, ByteArrayCodec.INSTANCE);
+    private static final long FAILURE_BACKOFF_NANOS = Duration.ofSeconds(1).toNanos();
+
+    /**
+     * Adds a variant unless the path has as many already, and extends the life of the hash.
+     */
+    private static final String STORE =
+        """
+        if redis.call('HEXISTS', KEYS[1], ARGV[1]) == 1 or redis.call('HLEN', KEYS[1]) < tonumber(ARGV[3]) then
+            redis.call('HSET', KEYS[1], ARGV[1], ARGV[2])
+            redis.call('PEXPIRE', KEYS[1], ARGV[4])
+        end
+        return nil
+        """;
+
+    private final RedissonClient redisson;
+    private final Duration timeToLive;
+    private volatile long unavailableUntil = System.nanoTime();
+
+    public RedisResponseBodyCache(RedissonClient redisson, Duration timeToLive) {
+        this.redisson = redisson;
+        this.timeToLive = timeToLive;
+    }
+
+    @Override
+    public CachedResponse get(String path, String variant) {
+        if (isUnavailable()) {
+            return null;
+        }
+        byte[] encoded;
+        try {
+            RMap<String, byte[]> variants = redisson.getMap(KEY_PREFIX + path, CODEC);
+            encoded = variants.get(variant);
+        } catch (RuntimeException e) {
+            unavailableUntil = System.nanoTime() + FAILURE_BACKOFF_NANOS;
+            log.debug("Could not read the cached response of {}, skipping the cache: {}", path, e.getMessage());
+            return null;
+        }
+        return encoded != null ? CachedResponse.decode(encoded) : null;
+    }
+
+    @Override
+    protected void store(String path, String variant, CachedResponse response) {
+        if (isUnavailable()) {
+            return;
+        }
+        // Not awaited, the response does not have to wait for the cache
+        redisson
+            .getScript(ByteArrayCodec.INSTANCE)
+            .evalAsync(
+                KEY_PREFIX + path,
+                RScript.Mode.READ_WRITE,
+                STORE,
+                RScript.ReturnType.VALUE,
+                List.of(KEY_PREFIX + path),
+                variant.getBytes(StandardCharsets.UTF_8),
+                response.encode(),
+                bytes(MAX_VARIANTS),
+                bytes(timeToLive.toMillis())
+            );
+    }
+
+    @Override
+    protected void remove(String path) {
+        redisson.getMap(KEY_PREFIX + path, CODEC).delete();
+    }
+
+    private boolean isUnavailable() {
+        return System.nanoTime() - unavailableUntil < 0;
+    }
+
+    private static byte[] bytes(long number) {
+        return Long.toString(number).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,59 @@
+package com.vssoft.vspace.config.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of serialized response bodies, keyed by path and by variant of the representation at that path, such as the
+ * negotiated media type and the authorities of the caller. Evicting a path evicts all of its variants.
+ * <p>
+ * Every eviction bumps a generation counter: a response computed while a path was evicted is dropped rather than
+ * cached, even if it is stored after the eviction. The generation is local to this node: with a shared store, the time
+ * to live bounds how long a response rendered on another node before a write can be served after it.
+ */
+public abstract class ResponseBodyCache {
+
+    /**
+     * Variants are keyed by request headers, so their number per path is bounded to keep clients from filling the cache.
+     */
+    static final int MAX_VARIANTS = 8;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * @return the generation to pass to {@link #put} once the response is rendered.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * @return the cached response, or {@code null}.
+     */
+    public abstract CachedResponse get(String path, String variant);
+
+    /**
+     * Caches the response unless the cache was invalidated since {@code generation} was read.
+     */
+    public void put(String path, String variant, CachedResponse response, long generation) {
+        if (generation != this.generation.get()) {
+            return;
+        }
+        store(path, variant, response);
+        // An eviction may have run between the check and the store
+        if (generation != this.generation.get()) {
+            remove(path);
+        }
+    }
+
+    /**
+     * Evicts every variant of the response at the given path, to be called once a write to its resource is committed.
+     */
+    public void evict(String path) {
+        generation.incrementAndGet();
+        remove(path);
+    }
+
+    protected abstract void store(String path, String variant, CachedResponse response);
+
+    protected abstract void remove(String path);
+}
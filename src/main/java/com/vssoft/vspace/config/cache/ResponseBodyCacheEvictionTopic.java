@@ -0,0 +1,60 @@
+package com.vssoft.vspace.config.cache;
+
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.UUID;
+
+/**
+ * Sends the evictions of a cache kept in the heap of each node to the other nodes, through a Redis topic, so that none
+ * of them serves a response of a resource written on another one.
+ * <p>
+ * The eviction is applied on this node first. Should the topic be unavailable, the other nodes serve their responses
+ * until the time to live of the cache expires.
+ */
+public class ResponseBodyCacheEvictionTopic implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ResponseBodyCacheEvictionTopic.class);
+
+    private final ResponseBodyCache cache;
+    private final String node = UUID.randomUUID().toString();
+    private final RTopic topic;
+    private final int listenerId;
+
+    public ResponseBodyCacheEvictionTopic(ResponseBodyCache cache, RedissonClient redissonClient, String name) {
+        this.cache = cache;
+        this.topic = redissonClient.getTopic(name, StringCodec.INSTANCE);
+        this.listenerId = topic.addListener(String.class, (channel, message) -> received(message));
+    }
+
+    /**
+     * Evicts every variant of the response at the given path, on this node and on the others.
+     */
+    public void evict(String path) {
+        cache.evict(path);
+        topic
+            .publishAsync(node + " " + path)
+            .whenComplete((receivers, e) -> {
+                if (e != null) {
+                    log.warn("Could not send the eviction of {} to the other nodes: {}", path, e.getMessage());
+                }
+            });
+    }
+
+    void received(String message) {
+        int separator = message.indexOf(' ');
+        // Evicted already on the node which sent it
+        if (separator > 0 && !message.substring(0, separator).equals(node)) {
+            cache.evict(message.substring(separator + 1));
+        }
+    }
+
+    @Override
+    public void destroy() {
+        topic.removeListener(listenerId);
+    }
+}
@@ -0,0 +1,171 @@
+package com.vssoft.vspace.config.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Serves the responses of a {@code GET} endpoint of a single resource from a {@link ResponseBodyCache}, skipping the
+ * handler, the mapping to a DTO and its serialization. A hit only writes the cached bytes.
+ * <p>
+ * The cache is keyed by the path within the application, and by the {@code Accept} header and authorities of the
+ * caller, so that each representation and each access level is cached on its own. Only successful responses of the
+ * given handler pattern are cached, and only when the path is the one the pattern expands to, so that differently
+ * encoded paths to a resource cannot hold a copy which evicting the resource would miss.
+ * <p>
+ * Responses get an {@code ETag}, and conditional requests matching it get a {@code 304 (Not Modified)}. This filter
+ * has to run after the security filters, which decide whether the caller may see the response at all.
+ */
+public class ResponseBodyCacheFilter extends OncePerRequestFilter {
+
+    private final ResponseBodyCache cache;
+    private final String pathPrefix;
+    private final String variable;
+    private final String pattern;
+    private final int maxBodySize;
+    private final Counter hits;
+    private final Counter misses;
+
+    /**
+     * @param pathPrefix the path of the resources, such as {@code /api/products/}.
+     * @param variable the name of the path variable identifying a resource, such as {@code id}.
+     * @param maxBodySize larger responses are not cached.
+     */
+    public ResponseBodyCacheFilter(ResponseBodyCache cache, String pathPrefix, String variable, int maxBodySize, MeterRegistry registry) {
+        this.cache = cache;
+        this.pathPrefix = pathPrefix;
+        this.variable = variable;
+        this.pattern = pathPrefix + "{" + variable + "}";
+        this.maxBodySize = maxBodySize;
+        this.hits = requests("hit", registry);
+        this.misses = requests("miss", registry);
+    }
+
+    private static Counter requests(String result, MeterRegistry registry) {
+        return Counter
+            .builder("http.server.response.cache.requests")
+            .description("Requests to cached endpoints, by whether the response was found in the cache")
+            .tag("result", result)
+            .register(registry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.GET.matches(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String path = pathWithinApplication(request);
+        if (!path.startsWith(pathPrefix) || path.indexOf('/', pathPrefix.length()) >= 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String variant = variant(request);
+        CachedResponse cached = cache.get(path, variant);
+        if (cached != null) {
+            hits.increment();
+            send(cached, request, response);
+            return;
+        }
+
+        misses.increment();
+        long generation = cache.generation();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        filterChain.doFilter(request, wrapper);
+        if (!isCacheable(request, wrapper, path)) {
+            wrapper.copyBodyToResponse();
+            return;
+        }
+        byte[] body = wrapper.getContentAsByteArray();
+        CachedResponse rendered = new CachedResponse(wrapper.getContentType(), etag(body), body);
+        cache.put(path, variant, rendered, generation);
+        wrapper.resetBuffer();
+        send(rendered, request, response);
+    }
+
+    private boolean isCacheable(HttpServletRequest request, ContentCachingResponseWrapper response, String path) {
+        if (
+            response.getStatus() != HttpServletResponse.SC_OK ||
+            response.getContentType() == null ||
+            response.getHeader(HttpHeaders.CONTENT_ENCODING) != null ||
+            response.getContentSize() > maxBodySize ||
+            request.isAsyncStarted() ||
+            !pattern.equals(request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE))
+        ) {
+            return false;
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, String> variables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        String id = variables != null ? variables.get(variable) : null;
+        return id != null && path.length() == pathPrefix.length() + id.length() && path.endsWith(id);
+    }
+
+    private static void send(CachedResponse cached, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(cached.contentType());
+        response.setHeader(HttpHeaders.ETAG, cached.etag());
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), cached.etag())) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        response.setContentLength(cached.length());
+        response.getOutputStream().write(cached.body(), cached.offset(), cached.length());
+    }
+
+    /**
+     * Compares entity tags weakly, as {@code If-None-Match} does: a tag made weak by compression still matches.
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : StringUtils.tokenizeToStringArray(ifNoneMatch, ",")) {
+            if (candidate.equals("*") || stripWeakness(candidate).equals(stripWeakness(etag))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeakness(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    private static String etag(byte[] body) {
+        return "\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+    }
+
+    private static String pathWithinApplication(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        int contextPathLength = request.getContextPath().length();
+        return contextPathLength == 0 ? uri : uri.substring(contextPathLength);
+    }
+
+    private static String variant(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String authorities = authentication == null
+            ? ""
+            : authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).sorted().collect(Collectors.joining(","));
+        return (accept != null ? accept : "*/*") + "|" + authorities;
+    }
+}
@@ -0,0 +1,342 @@
+package com.vssoft.vspace.config.compression;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.http.HttpHeaders;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.function.Predicate;
+
+/**
+ * Holds back the body of a response, so that it can be compressed once complete.
+ * <p>
+ * Whether to hold it back is decided on the first write, or flush, when the content type is known: the body of a
+ * response which is not compressible, or already encoded, is passed through as it is written, as is its length.
+ * <p>
+ * The body is compressed as it is written from then on, without length, once it outgrows the buffer or when written
+ * to after a flush. Flushes are honoured on the next write only, since message converters flush once the body is
+ * complete, which should not cost those responses their length; while streaming, each flush is sent at once.
+ */
+final class CompressingResponseWrapper extends HttpServletResponseWrapper {
+
+    private enum State {
+        UNDECIDED,
+        BUFFERING,
+        STREAMING,
+        PASSING_THROUGH,
+    }
+
+    private final ResponseCompressor compressor;
+    private final ContentCoding coding;
+    private final int maxBufferedSize;
+    private final Predicate<String> compressible;
+    private State state = State.UNDECIDED;
+    private ResponseCompressor.Buffer buffer;
+    private boolean flushPending;
+    private long contentLength = -1;
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+    private OutputStream encoder;
+    private long streamedBytes;
+    private long streamedCompressedBytes;
+
+    CompressingResponseWrapper(
+        HttpServletResponse response,
+        ResponseCompressor compressor,
+        ContentCoding coding,
+        int maxBufferedSize,
+        Predicate<String> compressible
+    ) {
+        super(response);
+        this.compressor = compressor;
+        this.coding = coding;
+        this.maxBufferedSize = maxBufferedSize;
+        this.compressible = compressible;
+    }
+
+    /**
+     * Marks the response as encoded with the given coding, a strong {@code ETag} becoming weak since the bytes are not
+     * those of the identity response.
+     */
+    static void setContentEncoding(HttpServletResponse response, ContentCoding coding) {
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, coding.token());
+        String etag = response.getHeader(HttpHeaders.ETAG);
+        if (etag != null && etag.startsWith("\"")) {
+            response.setHeader(HttpHeaders.ETAG, "W/" + etag);
+        }
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        if (outputStream == null) {
+            outputStream = new BufferingOutputStream();
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+        }
+        return writer;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        if (state == State.UNDECIDED) {
+            decide();
+        }
+        switch (state) {
+            case BUFFERING -> flushPending = buffer.size() > 0;
+            case STREAMING -> {
+                encoder.flush();
+                super.flushBuffer();
+            }
+            case PASSING_THROUGH -> super.flushBuffer();
+            default -> {}
+        }
+    }
+
+    @Override
+    public void resetBuffer() {
+        super.resetBuffer();
+        if (buffer != null) {
+            buffer.reset();
+        }
+        flushPending = false;
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        contentLength = -1;
+        if (buffer != null) {
+            buffer.reset();
+        }
+        flushPending = false;
+        if (state == State.BUFFERING) {
+            state = State.UNDECIDED;
+        }
+    }
+
+    @Override
+    public void setContentLength(int len) {
+        setContentLengthLong(len);
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+        if (state == State.PASSING_THROUGH) {
+            super.setContentLengthLong(len);
+        } else {
+            contentLength = len;
+        }
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLengthLong(Long.parseLong(value));
+        } else {
+            super.setHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLengthLong(Long.parseLong(value));
+        } else {
+            super.addHeader(name, value);
+        }
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLengthLong(value);
+        } else {
+            super.setIntHeader(name, value);
+        }
+    }
+
+    /**
+     * Ends the response as far as the application is concerned.
+     *
+     * @return the body held back, or {@code null} when it was streamed, passed through or never written.
+     */
+    ResponseCompressor.Buffer finish() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        if (state == State.STREAMING) {
+            encoder.close();
+        }
+        return state == State.BUFFERING ? buffer : null;
+    }
+
+    boolean isStreamed() {
+        return state == State.STREAMING;
+    }
+
+    /**
+     * @return the bytes of the body streamed so far, before and after compression.
+     */
+    long streamedBytes() {
+        return streamedBytes;
+    }
+
+    long streamedCompressedBytes() {
+        return streamedCompressedBytes;
+    }
+
+    /**
+     * Sends what was held back so far as is, and the rest of the body as it is written, for responses which outlive
+     * the request thread.
+     */
+    void passThrough() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        if (state == State.STREAMING) {
+            // Compressed until the end, as it is written
+            return;
+        }
+        state = State.PASSING_THROUGH;
+        if (contentLength >= 0) {
+            super.setContentLengthLong(contentLength);
+        }
+        if (buffer != null && buffer.size() > 0) {
+            getResponse().getOutputStream().write(buffer.array(), 0, buffer.size());
+            buffer.reset();
+        }
+    }
+
+    void release() {
+        if (buffer != null) {
+            compressor.release(buffer);
+            buffer = null;
+        }
+    }
+
+    private void decide() throws IOException {
+        if (getHeader(HttpHeaders.CONTENT_ENCODING) == null && compressible.test(getContentType())) {
+            if (buffer == null) {
+                buffer = compressor.acquire();
+            }
+            state = State.BUFFERING;
+        } else {
+            passThrough();
+        }
+    }
+
+    /**
+     * Sends the headers, then what was held back so far compressed, and flushed if the application asked for it.
+     */
+    private void stream() throws IOException {
+        state = State.STREAMING;
+        setContentEncoding((HttpServletResponse) getResponse(), coding);
+        encoder = compressor.stream(coding, new CountingOutputStream(getResponse().getOutputStream()));
+        encoder.write(buffer.array(), 0, buffer.size());
+        streamedBytes = buffer.size();
+        buffer.reset();
+        if (flushPending) {
+            encoder.flush();
+            getResponse().getOutputStream().flush();
+            flushPending = false;
+        }
+    }
+
+    private OutputStream target(int len) throws IOException {
+        if (state == State.UNDECIDED) {
+            decide();
+        }
+        if (state == State.BUFFERING && (flushPending || buffer.size() + len > maxBufferedSize)) {
+            stream();
+        }
+        return switch (state) {
+            case BUFFERING -> buffer;
+            case STREAMING -> {
+                streamedBytes += len;
+                yield encoder;
+            }
+            default -> getResponse().getOutputStream();
+        };
+    }
+
+    private final class BufferingOutputStream extends ServletOutputStream {
+
+        @Override
+        public void write(int b) throws IOException {
+            target(1).write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            target(len).write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            switch (state) {
+                case BUFFERING -> flushPending = buffer.size() > 0;
+                case STREAMING -> {
+                    encoder.flush();
+                    getResponse().getOutputStream().flush();
+                }
+                case PASSING_THROUGH -> getResponse().getOutputStream().flush();
+                default -> {}
+            }
+        }
+
+        @Override
+        public boolean isReady() {
+            try {
+                return state == State.UNDECIDED || state == State.BUFFERING || getResponse().getOutputStream().isReady();
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            try {
+                getResponse().getOutputStream().setWriteListener(writeListener);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * Counts the compressed bytes of a streamed body.
+     */
+    private final class CountingOutputStream extends FilterOutputStream {
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            streamedCompressedBytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            streamedCompressedBytes += len;
+        }
+    }
+}
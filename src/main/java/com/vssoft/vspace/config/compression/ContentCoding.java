@@ -0,0 +1,71 @@
+package com.vssoft.vspace.config.compression;
+
+import org.springframework.util.StringUtils;
+
+/**
+ * The content codings responses can be compressed with.
+ */
+public enum ContentCoding {
+    BROTLI("br"),
+    GZIP("gzip");
+
+    private final String token;
+
+    ContentCoding(String token) {
+        this.token = token;
+    }
+
+    /**
+     * @return the value of the {@code Content-Encoding} header.
+     */
+    public String token() {
+        return token;
+    }
+
+    /**
+     * Picks the coding the client prefers, Brotli on a tie since it compresses text better at the same cost.
+     *
+     * @param acceptEncoding the {@code Accept-Encoding} header of the request, if any.
+     * @param brotliAvailable whether the native Brotli encoder could be loaded.
+     * @return the coding to use, or {@code null} to send the response as is.
+     */
+    static ContentCoding negotiate(String acceptEncoding, boolean brotliAvailable) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        float brotli = -1;
+        float gzip = -1;
+        float any = -1;
+        for (String element : StringUtils.tokenizeToStringArray(acceptEncoding, ",")) {
+            int semicolon = element.indexOf(';');
+            String coding = semicolon < 0 ? element : element.substring(0, semicolon).trim();
+            float quality = semicolon < 0 ? 1 : quality(element.substring(semicolon + 1));
+            if (coding.equalsIgnoreCase(BROTLI.token)) {
+                brotli = quality;
+            } else if (coding.equalsIgnoreCase(GZIP.token) || coding.equalsIgnoreCase("x-gzip")) {
+                gzip = quality;
+            } else if (coding.equals("*")) {
+                any = quality;
+            }
+        }
+        brotli = !brotliAvailable ? 0 : brotli < 0 ? any : brotli;
+        gzip = gzip < 0 ? any : gzip;
+        if (brotli > 0 && brotli >= gzip) {
+            return BROTLI;
+        }
+        return gzip > 0 ? GZIP : null;
+    }
+
+    private static float quality(String parameters) {
+        for (String parameter : StringUtils.tokenizeToStringArray(parameters, ";")) {
+            if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+                try {
+                    return Float.parseFloat(parameter.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
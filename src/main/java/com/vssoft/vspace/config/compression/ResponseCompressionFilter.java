@@ -0,0 +1,157 @@
+package com.vssoft.vspace.config.compression;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.util.InvalidMimeTypeException;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compresses responses with Brotli or gzip, as negotiated with the {@code Accept-Encoding} header of the request.
+ * <p>
+ * Responses are sent as is when they are smaller than the threshold, when their media type is excluded, typically
+ * because it is compressed already, and when they are streamed, such as server-sent events. Bodies larger than the
+ * buffer, or flushed along the way, are compressed as they are written. A strong {@code ETag} of a compressed response
+ * is made weak, since its bytes are not those of the identity response.
+ * <p>
+ * The bytes saved and the time spent compressing whole bodies are recorded by coding, as are the responses skipped and
+ * why.
+ */
+public class ResponseCompressionFilter extends OncePerRequestFilter {
+
+    private final ResponseCompressor compressor;
+    private final int minResponseSize;
+    private final int maxBufferedSize;
+    private final List<MimeType> excludedMimeTypes;
+    private final Map<ContentCoding, Counter> bytesSaved = new EnumMap<>(ContentCoding.class);
+    private final Map<ContentCoding, Timer> compressionTime = new EnumMap<>(ContentCoding.class);
+    private final Counter skippedBelowThreshold;
+    private final Counter skippedMediaType;
+
+    public ResponseCompressionFilter(
+        ResponseCompressor compressor,
+        int minResponseSize,
+        int maxBufferedSize,
+        String[] excludedMimeTypes,
+        MeterRegistry registry
+    ) {
+        this.compressor = compressor;
+        this.minResponseSize = minResponseSize;
+        this.maxBufferedSize = Math.max(minResponseSize, maxBufferedSize);
+        this.excludedMimeTypes = Arrays.stream(excludedMimeTypes).map(MimeTypeUtils::parseMimeType).toList();
+        for (ContentCoding coding : ContentCoding.values()) {
+            bytesSaved.put(
+                coding,
+                Counter
+                    .builder("http.server.compression.bytes.saved")
+                    .description("Bytes saved by compressing responses")
+                    .baseUnit("bytes")
+                    .tag("encoding", coding.token())
+                    .register(registry)
+            );
+            compressionTime.put(
+                coding,
+                Timer.builder("http.server.compression").description("Time spent compressing responses").tag("encoding", coding.token()).register(registry)
+            );
+        }
+        this.skippedBelowThreshold = skipped("below-threshold", registry);
+        this.skippedMediaType = skipped("media-type", registry);
+    }
+
+    private static Counter skipped(String reason, MeterRegistry registry) {
+        return Counter
+            .builder("http.server.compression.skipped")
+            .description("Responses sent as is although the client accepted a compressed one")
+            .tag("reason", reason)
+            .register(registry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        ContentCoding coding = ContentCoding.negotiate(request.getHeader(HttpHeaders.ACCEPT_ENCODING), compressor.isBrotliAvailable());
+        if (coding == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        CompressingResponseWrapper wrapper = new CompressingResponseWrapper(response, compressor, coding, maxBufferedSize, this::isCompressible);
+        try {
+            filterChain.doFilter(request, wrapper);
+            if (request.isAsyncStarted()) {
+                wrapper.passThrough();
+            } else {
+                send(wrapper.finish(), coding, response);
+                if (wrapper.isStreamed()) {
+                    bytesSaved.get(coding).increment(Math.max(0, wrapper.streamedBytes() - wrapper.streamedCompressedBytes()));
+                }
+            }
+        } finally {
+            wrapper.release();
+        }
+    }
+
+    private void send(ResponseCompressor.Buffer body, ContentCoding coding, HttpServletResponse response) throws IOException {
+        if (body == null || body.size() == 0) {
+            return;
+        }
+        if (body.size() < minResponseSize) {
+            skippedBelowThreshold.increment();
+            write(body, response);
+            return;
+        }
+
+        ResponseCompressor.Buffer compressed = compressor.acquire();
+        try {
+            long start = System.nanoTime();
+            compressor.compress(coding, body, compressed);
+            compressionTime.get(coding).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (compressed.size() >= body.size()) {
+                write(body, response);
+                return;
+            }
+            bytesSaved.get(coding).increment(body.size() - compressed.size());
+            CompressingResponseWrapper.setContentEncoding(response, coding);
+            write(compressed, response);
+        } finally {
+            compressor.release(compressed);
+        }
+    }
+
+    private static void write(ResponseCompressor.Buffer body, HttpServletResponse response) throws IOException {
+        response.setContentLength(body.size());
+        response.getOutputStream().write(body.array(), 0, body.size());
+    }
+
+    private boolean isCompressible(String contentType) {
+        if (contentType != null) {
+            try {
+                MimeType mimeType = MimeTypeUtils.parseMimeType(contentType);
+                // Events have to reach the client as they are flushed, not once the stream ends
+                if (!MediaType.TEXT_EVENT_STREAM.includes(mimeType) && excludedMimeTypes.stream().noneMatch(excluded -> excluded.includes(mimeType))) {
+                    return true;
+                }
+            } catch (InvalidMimeTypeException e) {
+                // Sent as is, as unknown content
+            }
+        }
+        skippedMediaType.increment();
+        return false;
+    }
+}
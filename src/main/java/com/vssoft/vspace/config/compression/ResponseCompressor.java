@@ -0,0 +1,154 @@
+package com.vssoft.vspace.config.compression;
+
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+import com.aayushatharva.brotli4j.encoder.BrotliOutputStream;
+import com.aayushatharva.brotli4j.encoder.Encoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses response bodies, with buffers and gzip compressors reused across requests rather than allocated by each
+ * of them.
+ * <p>
+ * Brotli is encoded natively, it is only offered when the library of the platform could be loaded.
+ */
+public class ResponseCompressor {
+
+    private static final Logger log = LoggerFactory.getLogger(ResponseCompressor.class);
+
+    private static final int INITIAL_CAPACITY = 8 * 1024;
+
+    /**
+     * Buffers grown beyond this are dropped rather than pooled, so that a few large responses do not pin memory.
+     */
+    private static final int MAX_POOLED_CAPACITY = 1024 * 1024;
+
+    private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+
+    private final boolean brotliAvailable;
+    private final Encoder.Parameters brotliParameters;
+    private final int gzipLevel;
+    private final BlockingQueue<Buffer> buffers;
+    private final BlockingQueue<Deflater> deflaters;
+
+    public ResponseCompressor(int brotliQuality, int gzipLevel, int pooledBuffers) {
+        this.brotliAvailable = Brotli4jLoader.isAvailable();
+        if (!brotliAvailable) {
+            log.warn("Brotli is not available on this platform, responses are compressed with gzip only", Brotli4jLoader.getUnavailabilityCause());
+        }
+        this.brotliParameters = new Encoder.Parameters().setQuality(brotliQuality);
+        this.gzipLevel = gzipLevel;
+        this.buffers = new ArrayBlockingQueue<>(Math.max(1, pooledBuffers));
+        this.deflaters = new ArrayBlockingQueue<>(Math.max(1, pooledBuffers));
+    }
+
+    public boolean isBrotliAvailable() {
+        return brotliAvailable;
+    }
+
+    /**
+     * @return an empty buffer, to be given back with {@link #release(Buffer)}.
+     */
+    Buffer acquire() {
+        Buffer buffer = buffers.poll();
+        return buffer != null ? buffer : new Buffer();
+    }
+
+    void release(Buffer buffer) {
+        if (buffer.capacity() <= MAX_POOLED_CAPACITY) {
+            buffer.reset();
+            buffers.offer(buffer);
+        }
+    }
+
+    /**
+     * Appends the compressed content of {@code body} to {@code out}.
+     */
+    void compress(ContentCoding coding, Buffer body, Buffer out) throws IOException {
+        switch (coding) {
+            case BROTLI -> out.writeBytes(Encoder.compress(body.array(), 0, body.size(), brotliParameters));
+            case GZIP -> gzip(body, out);
+        }
+    }
+
+    /**
+     * @return a stream compressing what is written to it into {@code out}, flushing what it holds when flushed, and
+     * ending the compressed stream when closed.
+     */
+    OutputStream stream(ContentCoding coding, OutputStream out) throws IOException {
+        return switch (coding) {
+            case BROTLI -> new BrotliOutputStream(out, brotliParameters);
+            case GZIP -> new GZIPOutputStream(out, INITIAL_CAPACITY, true) {
+                {
+                    def.setLevel(gzipLevel);
+                }
+            };
+        };
+    }
+
+    private void gzip(Buffer body, Buffer out) {
+        Deflater deflater = deflaters.poll();
+        if (deflater == null) {
+            deflater = new Deflater(gzipLevel, true);
+        }
+        try {
+            out.writeBytes(GZIP_HEADER);
+            deflater.setInput(body.array(), 0, body.size());
+            deflater.finish();
+            while (!deflater.finished()) {
+                out.deflate(deflater);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(body.array(), 0, body.size());
+            out.writeIntLE((int) crc.getValue());
+            out.writeIntLE(body.size());
+        } finally {
+            deflater.reset();
+            if (!deflaters.offer(deflater)) {
+                deflater.end();
+            }
+        }
+    }
+
+    /**
+     * A byte array output stream giving access to its array, and into which a {@link Deflater} writes directly.
+     */
+    static final class Buffer extends ByteArrayOutputStream {
+
+        Buffer() {
+            super(INITIAL_CAPACITY);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+
+        int capacity() {
+            return buf.length;
+        }
+
+        void deflate(Deflater deflater) {
+            if (count == buf.length) {
+                buf = Arrays.copyOf(buf, buf.length * 2);
+            }
+            count += deflater.deflate(buf, count, buf.length - count);
+        }
+
+        void writeIntLE(int value) {
+            write(value);
+            write(value >>> 8);
+            write(value >>> 16);
+            write(value >>> 24);
+        }
+    }
+}
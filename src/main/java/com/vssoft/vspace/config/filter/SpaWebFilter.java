@@ -9,28 +9,67 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
 
 public class SpaWebFilter extends OncePerRequestFilter {
+
     /**
      * Forwards any unmapped paths (except those containing a period) to the client {@code index.html}.
      */
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
-        // Request URI includes the contextPath if any, removed it.
-        String path = request.getRequestURI().substring(request.getContextPath().length());
-        if (
-                !path.startsWith("/api") &&
-                        !path.startsWith("/management") &&
-                        !path.startsWith("/v3/api-docs") &&
-                        !path.startsWith("/login") &&
-                        !path.startsWith("/oauth2") &&
-                        !path.startsWith("/websocket") &&
-                        !path.contains(".") &&
-                        path.matches("/(.*)")
-        ) {
+        // Request URI includes the contextPath if any, skip it.
+        if (isClientRoute(request.getRequestURI(), request.getContextPath().length())) {
             request.getRequestDispatcher("/index.html").forward(request, response);
             return;
         }
 
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Classifies the path without copying it or matching a regular expression: a client route starts with {@code /}, does not start
+     * with a backend prefix, and contains neither a period nor a line terminator.
+     *
+     * @param requestUri the request URI, including the context path.
+     * @param pathStart the length of the context path.
+     * @return whether the path should be forwarded to {@code index.html}.
+     */
+    static boolean isClientRoute(String requestUri, int pathStart) {
+        int length = requestUri.length();
+        if (pathStart >= length || requestUri.charAt(pathStart) != '/') {
+            return false;
+        }
+        if (pathStart + 1 < length && isBackendPath(requestUri, pathStart)) {
+            return false;
+        }
+        for (int i = pathStart + 1; i < length; i++) {
+            char c = requestUri.charAt(i);
+            if (c == '.' || isLineTerminator(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The characters a regular expression {@code .} does not match.
+     */
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    /**
+     * Paths served by the backend and never forwarded: {@code /api}, {@code /management}, {@code /v3/api-docs},
+     * {@code /login}, {@code /oauth2} and {@code /websocket}, dispatched on their second character.
+     */
+    private static boolean isBackendPath(String requestUri, int pathStart) {
+        return switch (requestUri.charAt(pathStart + 1)) {
+            case 'a' -> requestUri.startsWith("/api", pathStart);
+            case 'm' -> requestUri.startsWith("/management", pathStart);
+            case 'v' -> requestUri.startsWith("/v3/api-docs", pathStart);
+            case 'l' -> requestUri.startsWith("/login", pathStart);
+            case 'o' -> requestUri.startsWith("/oauth2", pathStart);
+            case 'w' -> requestUri.startsWith("/websocket", pathStart);
+            default -> false;
+        };
+    }
 }
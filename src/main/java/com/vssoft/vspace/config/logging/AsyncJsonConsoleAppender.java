@@ -0,0 +1,93 @@
+package com.vssoft.vspace.config.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.ConsoleAppender;
+import ch.qos.logback.core.util.Duration;
+import net.logstash.logback.appender.LoggingEventAsyncDisruptorAppender;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Writes JSON log events to the console from a background thread fed by a lock-free ring buffer,
+ * so request threads no longer pay for JSON encoding and stdout I/O.
+ * <p>
+ * When the ring buffer is full, events below {@link #setDropBelowLevel(Level) dropBelowLevel} are dropped
+ * while more severe events wait for free space.
+ */
+public class AsyncJsonConsoleAppender extends LoggingEventAsyncDisruptorAppender {
+
+    private static final String DELEGATE_APPENDER_NAME_SUFFIX = "_JSON";
+
+    private final LongAdder droppedCount = new LongAdder();
+
+    private Level dropBelowLevel = Level.WARN;
+
+    private TimedJsonEncoder encoder;
+
+    public AsyncJsonConsoleAppender() {
+        // Events at or above dropBelowLevel block until there is room in the ring buffer
+        setAppendTimeout(Duration.buildByMilliseconds(-1));
+        setWaitStrategyType("sleeping");
+    }
+
+    @Override
+    public void start() {
+        if (encoder == null) {
+            addError("No encoder set for the appender named [" + name + "].");
+            return;
+        }
+        ConsoleAppender<ILoggingEvent> consoleAppender = new ConsoleAppender<>();
+        consoleAppender.setContext(getContext());
+        consoleAppender.setEncoder(encoder);
+        consoleAppender.setName(getName() + DELEGATE_APPENDER_NAME_SUFFIX);
+        addAppender(consoleAppender);
+        super.start();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        if (event.getLevel().isGreaterOrEqual(dropBelowLevel)) {
+            super.append(event);
+            return;
+        }
+        if (!isStarted()) {
+            return;
+        }
+        // Never wait for free space: a single publish attempt, and the event is dropped if the buffer is full
+        prepareForDeferredProcessing(event);
+        if (!getDisruptor().getRingBuffer().tryPublishEvent(getEventTranslator(), event)) {
+            droppedCount.increment();
+        }
+    }
+
+    /**
+     * @return the number of events currently waiting in the ring buffer.
+     */
+    public long getQueueDepth() {
+        if (getDisruptor() == null) {
+            return 0;
+        }
+        return getRingBufferSize() - getDisruptor().getRingBuffer().remainingCapacity();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    public Level getDropBelowLevel() {
+        return dropBelowLevel;
+    }
+
+    public void setDropBelowLevel(Level dropBelowLevel) {
+        this.dropBelowLevel = dropBelowLevel;
+    }
+
+    public TimedJsonEncoder getEncoder() {
+        return encoder;
+    }
+
+    public void setEncoder(TimedJsonEncoder encoder) {
+        this.encoder = encoder;
+    }
+}
@@ -0,0 +1,34 @@
+package com.vssoft.vspace.config.logging;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import net.logstash.logback.encoder.LoggingEventCompositeJsonEncoder;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link LoggingEventCompositeJsonEncoder} that keeps track of the time spent encoding events.
+ */
+public class TimedJsonEncoder extends LoggingEventCompositeJsonEncoder {
+
+    private final LongAdder encodeCount = new LongAdder();
+    private final LongAdder encodeTotalTimeNanos = new LongAdder();
+
+    @Override
+    public byte[] encode(ILoggingEvent event) {
+        long start = System.nanoTime();
+        try {
+            return super.encode(event);
+        } finally {
+            encodeTotalTimeNanos.add(System.nanoTime() - start);
+            encodeCount.increment();
+        }
+    }
+
+    public long getEncodeCount() {
+        return encodeCount.sum();
+    }
+
+    public long getEncodeTotalTimeNanos() {
+        return encodeTotalTimeNanos.sum();
+    }
+}
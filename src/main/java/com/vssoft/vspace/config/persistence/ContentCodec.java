@@ -0,0 +1,169 @@
+package com.vssoft.vspace.config.persistence;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdCompressCtx;
+import com.github.luben.zstd.ZstdDecompressCtx;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Encodes the content of products for storage: compressed with zstd when large enough, otherwise as its UTF-8 bytes.
+ * <p>
+ * Compressed values start with a header, {@code 0xFF} followed by the format, which no UTF-8 text starts with: values
+ * without it, the contents smaller than the minimum size or not getting smaller, and those written before the content
+ * was compressed, are read as text.
+ * <p>
+ * Short texts compress poorly on their own, far better with a dictionary trained on existing contents, such as
+ * {@code zstd --train -o products.dict contents/*} on a few thousand of them. The id of the dictionary follows the
+ * header, so that contents stay readable as long as the dictionary they were written with is configured.
+ * <p>
+ * zstd contexts are reused across calls rather than allocated by each of them.
+ */
+public class ContentCodec {
+
+    static final byte MAGIC = (byte) 0xFF;
+
+    /**
+     * A zstd frame.
+     */
+    static final byte ZSTD = 1;
+
+    /**
+     * The big-endian id of a dictionary, then a zstd frame compressed with it.
+     */
+    static final byte ZSTD_DICTIONARY = 2;
+
+    private final boolean compress;
+    private final int minSize;
+    private final int level;
+    private final ZstdDictCompress dictionary;
+    private final int dictionaryId;
+    private final Map<Integer, ZstdDictDecompress> dictionaries = new HashMap<>();
+    private final BlockingQueue<ZstdCompressCtx> compressors;
+    private final BlockingQueue<ZstdDecompressCtx> decompressors;
+
+    /**
+     * @param compress whether to compress, rather than only read compressed contents.
+     * @param dictionaries the dictionaries to read contents with, the first one compressing new contents.
+     * @param pooledContexts number of compression and of decompression contexts kept for reuse.
+     */
+    public ContentCodec(boolean compress, int minSize, int level, List<byte[]> dictionaries, int pooledContexts) {
+        this.compress = compress;
+        this.minSize = minSize;
+        this.level = level;
+        for (byte[] dictionary : dictionaries) {
+            int id = (int) Zstd.getDictIdFromDict(dictionary);
+            if (id == 0) {
+                throw new IllegalArgumentException("Not a zstd dictionary, or one without id");
+            }
+            this.dictionaries.put(id, new ZstdDictDecompress(dictionary));
+        }
+        this.dictionary = dictionaries.isEmpty() ? null : new ZstdDictCompress(dictionaries.get(0), level);
+        this.dictionaryId = dictionaries.isEmpty() ? 0 : (int) Zstd.getDictIdFromDict(dictionaries.get(0));
+        this.compressors = new ArrayBlockingQueue<>(Math.max(1, pooledContexts));
+        this.decompressors = new ArrayBlockingQueue<>(Math.max(1, pooledContexts));
+    }
+
+    public byte[] encode(String content) {
+        if (content == null) {
+            return null;
+        }
+        byte[] text = content.getBytes(StandardCharsets.UTF_8);
+        if (!compress || text.length < minSize) {
+            return text;
+        }
+        int headerLength = dictionary != null ? 6 : 2;
+        byte[] encoded = new byte[headerLength + (int) Zstd.compressBound(text.length)];
+        encoded[0] = MAGIC;
+        if (dictionary != null) {
+            encoded[1] = ZSTD_DICTIONARY;
+            writeInt(encoded, 2, dictionaryId);
+        } else {
+            encoded[1] = ZSTD;
+        }
+        ZstdCompressCtx compressor = compressors.poll();
+        if (compressor == null) {
+            compressor = newCompressor();
+        }
+        int length;
+        try {
+            length = headerLength + compressor.compressByteArray(encoded, headerLength, encoded.length - headerLength, text, 0, text.length);
+        } finally {
+            if (!compressors.offer(compressor)) {
+                compressor.close();
+            }
+        }
+        // Not worth decompressing on every read
+        return length < text.length ? Arrays.copyOf(encoded, length) : text;
+    }
+
+    private ZstdCompressCtx newCompressor() {
+        ZstdCompressCtx compressor = new ZstdCompressCtx().setLevel(level).setContentSize(true);
+        if (dictionary != null) {
+            // The id is in the header already
+            compressor.loadDict(dictionary).setDictID(false);
+        }
+        return compressor;
+    }
+
+    public String decode(byte[] encoded) {
+        if (encoded == null) {
+            return null;
+        }
+        if (encoded.length < 2 || encoded[0] != MAGIC) {
+            return new String(encoded, StandardCharsets.UTF_8);
+        }
+        ZstdDictDecompress frameDictionary = null;
+        int offset = 2;
+        if (encoded[1] == ZSTD_DICTIONARY) {
+            int id = readInt(encoded, 2);
+            frameDictionary = dictionaries.get(id);
+            if (frameDictionary == null) {
+                throw new IllegalStateException("The content was compressed with the zstd dictionary " + Integer.toUnsignedString(id) + ", which is not configured");
+            }
+            offset = 6;
+        } else if (encoded[1] != ZSTD) {
+            throw new IllegalStateException("Unknown content format " + encoded[1]);
+        }
+        long size = Zstd.getFrameContentSize(encoded, offset, encoded.length - offset);
+        if (size < 0 || size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Invalid zstd frame, of content size " + size);
+        }
+        byte[] text = new byte[(int) size];
+        ZstdDecompressCtx decompressor = decompressors.poll();
+        if (decompressor == null) {
+            decompressor = new ZstdDecompressCtx();
+        }
+        try {
+            decompressor.reset();
+            if (frameDictionary != null) {
+                decompressor.loadDict(frameDictionary);
+            }
+            decompressor.decompressByteArray(text, 0, text.length, encoded, offset, encoded.length - offset);
+        } finally {
+            if (!decompressors.offer(decompressor)) {
+                decompressor.close();
+            }
+        }
+        return new String(text, StandardCharsets.UTF_8);
+    }
+
+    private static void writeInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xFF) << 24) | ((bytes[offset + 1] & 0xFF) << 16) | ((bytes[offset + 2] & 0xFF) << 8) | (bytes[offset + 3] & 0xFF);
+    }
+}
@@ -0,0 +1,82 @@
+package com.vssoft.vspace.config.persistence;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Records the number of JDBC statements executed by each request, and flags the requests exceeding the budget.
+ * <p>
+ * A request over budget is logged and counted, and its response gets a {@value #STATEMENTS_HEADER} header when it has
+ * not been committed yet.
+ */
+public class JdbcStatementBudgetFilter extends OncePerRequestFilter {
+
+    static final String STATEMENTS_HEADER = "X-Jdbc-Statements";
+
+    private static final Logger log = LoggerFactory.getLogger(JdbcStatementBudgetFilter.class);
+
+    private final int statementBudget;
+    private final MeterRegistry registry;
+
+    public JdbcStatementBudgetFilter(int statementBudget, MeterRegistry registry) {
+        this.statementBudget = statementBudget;
+        this.registry = registry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestStatements statements = RequestStatements.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestStatements.stop();
+            record(request, response, statements);
+        }
+    }
+
+    private void record(HttpServletRequest request, HttpServletResponse response, RequestStatements statements) {
+        // The matched pattern keeps the number of tags bounded, unlike the request URI
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        DistributionSummary
+            .builder("jdbc.statements.per.request")
+            .description("JDBC statements executed by a request")
+            .baseUnit("statements")
+            .tag("uri", uri)
+            .register(registry)
+            .record(statements.getCount());
+
+        if (statementBudget <= 0 || statements.getCount() <= statementBudget) {
+            return;
+        }
+        Counter
+            .builder("jdbc.statements.budget.exceeded")
+            .description("Requests executing more JDBC statements than the budget")
+            .tag("uri", uri)
+            .register(registry)
+            .increment();
+        log.warn(
+            "{} {} executed {} JDBC statements in {} ms, over the budget of {}",
+            request.getMethod(),
+            uri,
+            statements.getCount(),
+            statements.getElapsedMillis(),
+            statementBudget
+        );
+        if (!response.isCommitted()) {
+            response.setHeader(STATEMENTS_HEADER, Integer.toString(statements.getCount()));
+        }
+    }
+}
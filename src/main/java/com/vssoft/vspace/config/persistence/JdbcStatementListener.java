@@ -0,0 +1,56 @@
+package com.vssoft.vspace.config.persistence;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Counts the statements executed through the proxied {@code DataSource} against the current request, and logs those
+ * slower than the threshold.
+ * <p>
+ * A batch counts as one statement, as it is sent in one round trip.
+ */
+public class JdbcStatementListener implements QueryExecutionListener {
+
+    private static final Logger log = LoggerFactory.getLogger(JdbcStatementListener.class);
+
+    private final long slowStatementMillis;
+
+    public JdbcStatementListener(long slowStatementMillis) {
+        this.slowStatementMillis = slowStatementMillis;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {}
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        long elapsedMillis = execInfo.getElapsedTime();
+        RequestStatements.record(elapsedMillis);
+        if (elapsedMillis >= slowStatementMillis) {
+            // Only the placeholders are logged, bind values may hold personal data
+            log.warn(
+                "Slow statement took {} ms with {} bind values{}: {}",
+                elapsedMillis,
+                bindValues(queryInfoList),
+                execInfo.isBatch() ? " in a batch of " + execInfo.getBatchSize() : "",
+                queryInfoList.stream().map(QueryInfo::getQuery).distinct().collect(Collectors.joining("; "))
+            );
+        }
+    }
+
+    static int bindValues(List<QueryInfo> queryInfoList) {
+        int count = 0;
+        for (QueryInfo queryInfo : queryInfoList) {
+            for (List<?> parameters : queryInfo.getParametersList()) {
+                count += parameters.size();
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,45 @@
+package com.vssoft.vspace.config.persistence;
+
+/**
+ * The JDBC statements executed on behalf of the request served by the current thread.
+ * <p>
+ * Statements executed outside of a request, or on another thread, are not counted.
+ */
+public final class RequestStatements {
+
+    private static final ThreadLocal<RequestStatements> CURRENT = new ThreadLocal<>();
+
+    private int count;
+    private long elapsedMillis;
+
+    private RequestStatements() {}
+
+    /**
+     * Starts counting the statements of the current thread, until {@link #stop()}.
+     */
+    public static RequestStatements start() {
+        RequestStatements statements = new RequestStatements();
+        CURRENT.set(statements);
+        return statements;
+    }
+
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    static void record(long elapsedMillis) {
+        RequestStatements statements = CURRENT.get();
+        if (statements != null) {
+            statements.count++;
+            statements.elapsedMillis += elapsedMillis;
+        }
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+}
@@ -0,0 +1,172 @@
+package com.vssoft.vspace.config.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongSupplier;
+
+/**
+ * Rate limits callers with the token buckets of a {@link TokenBucketStore}, without calling it on every request: a
+ * node takes permits from a bucket in batches, which it then hands out on its own for a while.
+ * <p>
+ * Permits left when a lease expires are dropped, so that a node does not hold on to permits others could use, and a
+ * caller can make a few requests fewer than its limit allows. Once a bucket is empty, the node rejects the requests of
+ * the caller without calling the store until the bucket holds a permit again.
+ * <p>
+ * Requests are let through while the store cannot be reached: once a call to the store failed, it is not called again
+ * for a while, so that an outage does not add its timeout to every request.
+ */
+public class LeasingRateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(LeasingRateLimiter.class);
+
+    private final TokenBucketStore store;
+    private final int leaseSize;
+    private final long leaseTimeToLiveNanos;
+    private final long failureBackoffNanos;
+    private final LongSupplier nanoTime;
+    private final Cache<String, Lease> leases;
+    private final Counter leased;
+    private final Counter denied;
+    private final Counter failed;
+    private volatile long storeFailedUntil;
+
+    /**
+     * @param failureBackoff how long requests are let through without calling the store once a call failed.
+     */
+    public LeasingRateLimiter(
+        TokenBucketStore store,
+        int leaseSize,
+        Duration leaseTimeToLive,
+        Duration failureBackoff,
+        long maxClients,
+        MeterRegistry registry
+    ) {
+        this(store, leaseSize, leaseTimeToLive, failureBackoff, maxClients, registry, System::nanoTime);
+    }
+
+    LeasingRateLimiter(
+        TokenBucketStore store,
+        int leaseSize,
+        Duration leaseTimeToLive,
+        Duration failureBackoff,
+        long maxClients,
+        MeterRegistry registry,
+        LongSupplier nanoTime
+    ) {
+        this.store = store;
+        this.leaseSize = leaseSize;
+        this.leaseTimeToLiveNanos = leaseTimeToLive.toNanos();
+        this.failureBackoffNanos = failureBackoff.toNanos();
+        this.nanoTime = nanoTime;
+        this.storeFailedUntil = nanoTime.getAsLong();
+        this.leases = Caffeine.newBuilder().maximumSize(maxClients).expireAfterAccess(Duration.ofMinutes(1)).build();
+        this.leased = leases("leased", registry);
+        this.denied = leases("denied", registry);
+        this.failed = leases("failed", registry);
+    }
+
+    private static Counter leases(String result, MeterRegistry registry) {
+        return Counter
+            .builder("rate.limit.leases")
+            .description("Batches of permits asked for to the shared token buckets, by outcome")
+            .tag("result", result)
+            .register(registry);
+    }
+
+    /**
+     * Takes a permit from the bucket of the given key.
+     *
+     * @param capacity the maximum number of permits of the bucket.
+     * @param refillPerSecond the number of permits added to the bucket per second.
+     * @return {@code 0} if a permit was taken, otherwise how long until the bucket holds one again, in milliseconds.
+     */
+    public long tryAcquire(String key, long capacity, double refillPerSecond) {
+        Lease lease = leases.get(key, k -> new Lease(nanoTime.getAsLong()));
+        while (true) {
+            CompletableFuture<Void> inFlight;
+            synchronized (lease) {
+                long now = nanoTime.getAsLong();
+                if (lease.permits > 0 && now - lease.expiresAt < 0) {
+                    lease.permits--;
+                    return 0;
+                }
+                if (now - lease.deniedUntil < 0) {
+                    return Math.max(1, Duration.ofNanos(lease.deniedUntil - now).toMillis());
+                }
+                if (now - storeFailedUntil < 0) {
+                    return 0;
+                }
+                inFlight = lease.inFlight;
+                if (inFlight == null) {
+                    lease.inFlight = new CompletableFuture<>();
+                }
+            }
+            if (inFlight == null) {
+                return lease(lease, key, capacity, refillPerSecond);
+            }
+            // Requests of a caller wait for the lease in flight rather than asking for their own, then check again
+            inFlight.join();
+        }
+    }
+
+    /**
+     * Asks the store for a batch of permits, without holding the lock of the lease meanwhile.
+     */
+    private long lease(Lease lease, String key, long capacity, double refillPerSecond) {
+        try {
+            TokenBucketStore.Grant grant;
+            try {
+                grant = store.take(key, capacity, refillPerSecond, (int) Math.min(leaseSize, capacity));
+            } catch (RuntimeException e) {
+                failed.increment();
+                storeFailedUntil = nanoTime.getAsLong() + failureBackoffNanos;
+                log.debug("Could not take permits for {}, letting requests through for {} ms: {}", key, failureBackoffNanos / 1_000_000, e.getMessage());
+                return 0;
+            }
+            synchronized (lease) {
+                long now = nanoTime.getAsLong();
+                if (grant.permits() > 0) {
+                    leased.increment();
+                    lease.permits = grant.permits() - 1;
+                    lease.expiresAt = now + leaseTimeToLiveNanos;
+                    return 0;
+                }
+                denied.increment();
+                lease.permits = 0;
+                lease.deniedUntil = now + Duration.ofMillis(grant.retryAfterMillis()).toNanos();
+                return Math.max(1, grant.retryAfterMillis());
+            }
+        } finally {
+            CompletableFuture<Void> inFlight;
+            synchronized (lease) {
+                inFlight = lease.inFlight;
+                lease.inFlight = null;
+            }
+            inFlight.complete(null);
+        }
+    }
+
+    private static final class Lease {
+
+        private int permits;
+        private long expiresAt;
+        private long deniedUntil;
+
+        /**
+         * Completed once the batch of permits asked for to the store is known, {@code null} when none is in flight.
+         */
+        private CompletableFuture<Void> inFlight;
+
+        private Lease(long now) {
+            this.expiresAt = now;
+            this.deniedUntil = now;
+        }
+    }
+}
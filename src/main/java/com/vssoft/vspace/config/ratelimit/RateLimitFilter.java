@@ -0,0 +1,110 @@
+package com.vssoft.vspace.config.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vssoft.vspace.security.SecurityUtils;
+import com.vssoft.vspace.web.rest.errors.ErrorConstants;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Rate limits the requests of each caller, with a token bucket per caller and class of endpoints, such as searches.
+ * <p>
+ * Callers are told apart by their login, and anonymous ones by their address. Behind a proxy, that address is the one
+ * it forwarded when {@code server.forward-headers-strategy} is {@code native} and the proxy is listed in
+ * {@code server.tomcat.remoteip.internal-proxies}, otherwise all anonymous callers share the bucket of the proxy. A request counts against the first class matching its path, and is let through if none does. Requests over
+ * the limit get a {@code 429 (Too Many Requests)} with a {@code Retry-After} header. This filter has to run after the
+ * security filters, which identify the caller.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final PathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private final LeasingRateLimiter limiter;
+    private final List<EndpointClass> endpointClasses;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry registry;
+
+    public RateLimitFilter(LeasingRateLimiter limiter, List<EndpointClass> endpointClasses, ObjectMapper objectMapper, MeterRegistry registry) {
+        this.limiter = limiter;
+        this.endpointClasses = endpointClasses;
+        this.objectMapper = objectMapper;
+        this.registry = registry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String path = pathWithinApplication(request);
+        EndpointClass endpointClass = endpointClasses.stream().filter(candidate -> candidate.matches(path)).findFirst().orElse(null);
+        if (endpointClass == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String key = endpointClass.name() + ":" + caller(request);
+        long retryAfterMillis = limiter.tryAcquire(key, endpointClass.capacity(), endpointClass.refillPerSecond());
+        if (retryAfterMillis == 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        Counter
+            .builder("http.server.requests.throttled")
+            .description("Requests rejected for going over the rate limit of their caller")
+            .tag("endpoint", endpointClass.name())
+            .register(registry)
+            .increment();
+        reject(request, response, retryAfterMillis);
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, long retryAfterMillis) throws IOException {
+        ProblemDetail problem = ProblemDetail.forStatusAndDetail(HttpStatus.TOO_MANY_REQUESTS, "Rate limit exceeded, retry later");
+        problem.setType(ErrorConstants.DEFAULT_TYPE);
+        problem.setProperty("message", "error.http." + HttpStatus.TOO_MANY_REQUESTS.value());
+        problem.setProperty("path", request.getRequestURI());
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        // Whole seconds, rounded up so that a retry does not come too early
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString((retryAfterMillis + 999) / 1000));
+        response.setContentType(MediaType.APPLICATION_PROBLEM_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), problem);
+    }
+
+    private static String caller(HttpServletRequest request) {
+        if (SecurityUtils.isAuthenticated()) {
+            return SecurityUtils.getCurrentUserLogin().map(login -> "user:" + login).orElseGet(() -> "address:" + request.getRemoteAddr());
+        }
+        return "address:" + request.getRemoteAddr();
+    }
+
+    private static String pathWithinApplication(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        int contextPathLength = request.getContextPath().length();
+        return contextPathLength == 0 ? uri : uri.substring(contextPathLength);
+    }
+
+    /**
+     * A class of endpoints sharing a rate limit.
+     *
+     * @param pathPatterns Ant-style patterns of the paths within the application.
+     */
+    public record EndpointClass(String name, String[] pathPatterns, long capacity, double refillPerSecond) {
+        boolean matches(String path) {
+            return Arrays.stream(pathPatterns).anyMatch(pattern -> PATH_MATCHER.match(pattern, path));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.vssoft.vspace.config.ratelimit;
+
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.LongCodec;
+
+import java.util.List;
+
+/**
+ * Keeps token buckets in Redis, as hashes holding the permits left and when they were counted. A script refills and
+ * takes from a bucket in one step, so that nodes taking from it at once do not both get the same permits.
+ * <p>
+ * A bucket expires once it would be full again, as a full bucket is what a missing one stands for.
+ */
+public class RedisTokenBucketStore implements TokenBucketStore {
+
+    private static final String KEY_PREFIX = "vspace:rate-limit:";
+
+    private static final String TAKE =
+        """
+        local capacity = tonumber(ARGV[1])
+        local refillPerMilli = tonumber(ARGV[2])
+        local now = tonumber(ARGV[3])
+        local wanted = tonumber(ARGV[4])
+        local state = redis.call('HMGET', KEYS[1], 'tokens', 'timestamp')
+        local tokens = tonumber(state[1]) or capacity
+        local timestamp = tonumber(state[2]) or now
+        if now > timestamp then
+            tokens = math.min(capacity, tokens + (now - timestamp) * refillPerMilli)
+            timestamp = now
+        end
+        local granted = math.min(wanted, math.floor(tokens))
+        tokens = tokens - granted
+        redis.call('HMSET', KEYS[1], 'tokens', tostring(tokens), 'timestamp', tostring(timestamp))
+        redis.call('PEXPIRE', KEYS[1], math.ceil((capacity - tokens) / refillPerMilli) + 1000)
+        local retryAfter = 0
+        if granted == 0 then
+            retryAfter = math.ceil((1 - tokens) / refillPerMilli)
+        end
+        return {granted, retryAfter}
+        """;
+
+    private final RedissonClient redisson;
+
+    public RedisTokenBucketStore(RedissonClient redisson) {
+        this.redisson = redisson;
+    }
+
+    @Override
+    public Grant take(String key, long capacity, double refillPerSecond, int permits) {
+        // The clocks of the nodes stand in for that of Redis, whose time a script could not write from on older servers
+        List<Long> result = redisson
+            .getScript(LongCodec.INSTANCE)
+            .eval(
+                RScript.Mode.READ_WRITE,
+                TAKE,
+                RScript.ReturnType.MULTI,
+                List.of(KEY_PREFIX + key),
+                capacity,
+                Double.toString(refillPerSecond / 1000),
+                System.currentTimeMillis(),
+                permits
+            );
+        return new Grant(result.get(0).intValue(), result.get(1));
+    }
+}
@@ -0,0 +1,24 @@
+package com.vssoft.vspace.config.ratelimit;
+
+/**
+ * Token buckets shared by the nodes, from which permits are taken in batches.
+ */
+public interface TokenBucketStore {
+
+    /**
+     * Takes up to the given number of permits from a bucket, refilled since it was last taken from.
+     *
+     * @param key the key of the bucket.
+     * @param capacity the maximum number of permits the bucket holds, which it holds at first.
+     * @param refillPerSecond the number of permits added to the bucket per second.
+     * @param permits the number of permits wanted.
+     * @return the permits taken, possibly fewer than wanted.
+     */
+    Grant take(String key, long capacity, double refillPerSecond, int permits);
+
+    /**
+     * @param permits the number of permits taken.
+     * @param retryAfterMillis when no permit was taken, how long until the bucket holds one again.
+     */
+    record Grant(int permits, long retryAfterMillis) {}
+}
@@ -6,8 +6,9 @@ import jakarta.persistence.EntityListeners;
 import jakarta.persistence.MappedSuperclass;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Generated;
+import org.hibernate.generator.EventType;
 import org.springframework.data.annotation.CreatedDate;
-import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.io.Serial;
@@ -16,6 +17,10 @@ import java.time.Instant;
 
 /**
  * Base abstract class for entities which will hold definitions for created, updated.
+ * <p>
+ * The updated date is taken from the clock of the database, at the start of the writing transaction, rather than from
+ * that of the node: the change feed orders changes by it, which takes a single clock. It is read back once the entity
+ * is flushed.
  */
 @Getter
 @Setter
@@ -27,11 +32,17 @@ public abstract class AbstractAuditingEntity<T> implements Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
 
+    /**
+     * The current time of the database in UTC, as written to the {@code timestamp} columns {@link Instant}s are mapped
+     * to, whatever the time zone of the session.
+     */
+    public static final String CURRENT_TIMESTAMP_UTC = "(current_timestamp at time zone 'UTC')";
+
     @CreatedDate
     @Column(name = "created_date", updatable = false)
     private Instant createdDate = Instant.now();
 
-    @LastModifiedDate
+    @Generated(event = { EventType.INSERT, EventType.UPDATE }, sql = CURRENT_TIMESTAMP_UTC)
     @Column(name = "updated_date")
     private Instant updatedDate = Instant.now();
 
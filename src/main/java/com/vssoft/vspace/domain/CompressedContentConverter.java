@@ -0,0 +1,30 @@
+package com.vssoft.vspace.domain;
+
+import com.vssoft.vspace.config.persistence.ContentCodec;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores texts as encoded by the {@link ContentCodec}, compressed once large enough.
+ * <p>
+ * Created by Spring, through the bean container of Hibernate.
+ */
+@Converter
+public class CompressedContentConverter implements AttributeConverter<String, byte[]> {
+
+    private final ContentCodec codec;
+
+    public CompressedContentConverter(ContentCodec codec) {
+        this.codec = codec;
+    }
+
+    @Override
+    public byte[] convertToDatabaseColumn(String content) {
+        return codec.encode(content);
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] encoded) {
+        return codec.decode(encoded);
+    }
+}
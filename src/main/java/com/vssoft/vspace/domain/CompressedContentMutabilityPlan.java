@@ -0,0 +1,50 @@
+package com.vssoft.vspace.domain;
+
+import com.vssoft.vspace.config.persistence.ContentCodec;
+import org.hibernate.SharedSessionContract;
+import org.hibernate.type.descriptor.java.MutabilityPlan;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * Keeps texts in the second-level cache as encoded by the {@link ContentCodec}, rather than as strings: the cache
+ * takes the attribute as is otherwise, the converter only applying to the database. Contents stored as text are
+ * cached as their UTF-8 bytes.
+ * <p>
+ * A bean of {@code DatabaseConfiguration}, which Hibernate gets through its bean container.
+ */
+public class CompressedContentMutabilityPlan implements MutabilityPlan<String> {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final transient ContentCodec codec;
+
+    public CompressedContentMutabilityPlan(ContentCodec codec) {
+        this.codec = codec;
+    }
+
+    @Override
+    public boolean isMutable() {
+        return false;
+    }
+
+    @Override
+    public String deepCopy(String value) {
+        return value;
+    }
+
+    @Override
+    public Serializable disassemble(String value, SharedSessionContract session) {
+        return codec.encode(value);
+    }
+
+    /**
+     * Also takes the strings cached before, should the region hold any.
+     */
+    @Override
+    public String assemble(Serializable cached, SharedSessionContract session) {
+        return cached instanceof String text ? text : codec.decode((byte[]) cached);
+    }
+}
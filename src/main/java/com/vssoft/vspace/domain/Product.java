@@ -4,34 +4,68 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.LazyGroup;
+import org.hibernate.annotations.Mutability;
 import org.hibernate.annotations.UuidGenerator;
 import org.springframework.data.elasticsearch.annotations.Document;
 import org.springframework.data.elasticsearch.annotations.Field;
 import org.springframework.data.elasticsearch.annotations.FieldType;
+import org.springframework.data.elasticsearch.annotations.InnerField;
+import org.springframework.data.elasticsearch.annotations.MultiField;
 
 import java.io.Serial;
 
 @Getter
 @Setter
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = @Index(name = "idx_products_updated_date_id", columnList = "updated_date, id"))
 @Document(indexName = "products")
-@org.hibernate.annotations.Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@org.hibernate.annotations.Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Product.CACHE_REGION)
+@NamedEntityGraph(name = Product.WITH_CONTENT, attributeNodes = @NamedAttributeNode("content"))
 public class Product extends AbstractAuditingEntity<String> {
 
     @Serial
     private static final long serialVersionUID = 1L;
 
+    /**
+     * The entity graph loading the content along with the other attributes, for the paths returning it.
+     */
+    public static final String WITH_CONTENT = "Product.withContent";
+
+    /**
+     * The second-level cache region. Versioned with the form its entries take: nodes running an earlier version, which
+     * cached the content as a string, keep theirs in the previous region.
+     */
+    public static final String CACHE_REGION = "com.vssoft.vspace.domain.Product.v2";
+
     @Id
     @GeneratedValue(generator = "uuid", strategy = GenerationType.UUID)
     @UuidGenerator(style = UuidGenerator.Style.TIME)
     private String id;
 
-    @Field(type = FieldType.Text)
+    @MultiField(
+        mainField = @Field(type = FieldType.Text),
+        otherFields = {
+            @InnerField(suffix = "suggest", type = FieldType.Search_As_You_Type),
+            @InnerField(suffix = "keyword", type = FieldType.Keyword, ignoreAbove = 256),
+        }
+    )
     @Column(name = "name", nullable = false)
     private String name;
 
+    /**
+     * Lazy, in its own fetch group, so that merging a detached product, as its updates do, does not read the content it
+     * replaces. Every path returning products returns their content too, so they load it with the {@link #WITH_CONTENT}
+     * graph.
+     * <p>
+     * Stored as a large object, unless {@code vspace.persistence.content-compression} is enabled once the column is
+     * converted: it is then mapped by {@code META-INF/orm-compressed-content.xml}, as bytes compressed once large
+     * enough. Kept as bytes in the second-level cache either way.
+     */
     @Lob
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("content")
+    @Mutability(CompressedContentMutabilityPlan.class)
     @Column(name = "content")
     @Field(type = FieldType.Text)
     private String content;
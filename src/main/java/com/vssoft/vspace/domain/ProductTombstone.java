@@ -0,0 +1,45 @@
+package com.vssoft.vspace.domain;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.Generated;
+import org.hibernate.generator.EventType;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * Records that a product was deleted, so that the change feed can tell its consumers.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "product_tombstones", indexes = @Index(name = "idx_product_tombstones_deleted_date_id", columnList = "deleted_date, id"))
+public class ProductTombstone implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    private String id;
+
+    /**
+     * Taken from the clock of the database, like the updated date of the products, see {@link AbstractAuditingEntity}.
+     */
+    @Generated(event = { EventType.INSERT, EventType.UPDATE }, sql = AbstractAuditingEntity.CURRENT_TIMESTAMP_UTC)
+    @Column(name = "deleted_date", nullable = false)
+    private Instant deletedDate;
+
+    public ProductTombstone(String id) {
+        this.id = id;
+    }
+
+    public ProductTombstone(String id, Instant deletedDate) {
+        this.id = id;
+        this.deletedDate = deletedDate;
+    }
+}
@@ -0,0 +1,66 @@
+package com.vssoft.vspace.repository;
+
+import com.vssoft.vspace.domain.Product;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Full-text queries over the {@code search_vector} column of the products, see {@link ProductFullTextSchema}.
+ * <p>
+ * Queries are given in the web search syntax of PostgreSQL: words, quoted phrases, {@code or} and {@code -}. A blank
+ * query matches all the products, ranked equally.
+ */
+public interface ProductFullTextRepository {
+    /**
+     * A product matching a query, with its rank. It is also the position reached when paging by keyset.
+     */
+    record Match(String id, float rank) {}
+
+    /**
+     * Finds the best ranked matches, ties broken by id.
+     *
+     * @param after the last match of the previous page, {@code null} for the first page.
+     */
+    List<Match> findMatches(String query, Match after, int limit);
+
+    /**
+     * Finds the best ranked matches, ties broken by id, skipping the first ones. Prefer paging by keyset, which does
+     * not sort and skip the rows of the previous pages again.
+     */
+    List<Match> findMatches(String query, long offset, int limit);
+
+    long countMatches(String query);
+
+    /**
+     * Counts the matches per date bucket, in ascending order of buckets, leaving out empty ones.
+     *
+     * @param column {@code created_date} or {@code updated_date}.
+     * @param unit {@code day}, {@code week}, {@code month}, {@code quarter} or {@code year}, buckets are in UTC.
+     */
+    Map<Instant, Long> countMatchesByDate(String query, String column, String unit);
+
+    /**
+     * Counts the matches per value of a column, in descending order of counts, ties broken by value.
+     *
+     * @param column {@code name}.
+     */
+    Map<String, Long> countMatchesByValue(String query, String column, int size);
+
+    /**
+     * Finds the products having a word starting with each of the given prefixes in their name.
+     *
+     * @param prefixes letters and digits only.
+     * @return products with only their id and name loaded, best matches first.
+     */
+    List<Product> findByNamePrefixes(List<String> prefixes, int limit);
+
+    /**
+     * Writes the search vector of a product, in the current transaction. The pending changes of the persistence context
+     * are flushed first, so that a product just saved is there to be updated.
+     *
+     * @param content the content as text, it is stored compressed.
+     */
+    void updateSearchVector(String id, String name, String content);
+}
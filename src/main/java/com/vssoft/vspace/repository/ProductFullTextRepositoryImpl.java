@@ -0,0 +1,159 @@
+package com.vssoft.vspace.repository;
+
+import com.vssoft.vspace.config.VSpaceProperties;
+import com.vssoft.vspace.domain.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.hibernate.query.NativeQuery;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+class ProductFullTextRepositoryImpl implements ProductFullTextRepository {
+
+    private static final Set<String> DATE_COLUMNS = Set.of("created_date", "updated_date");
+    private static final Set<String> VALUE_COLUMNS = Set.of("name");
+    private static final Set<String> DATE_UNITS = Set.of("day", "week", "month", "quarter", "year");
+
+    private static final String MATCHING =
+        " FROM products p, websearch_to_tsquery(CAST(:config AS regconfig), :query) AS q(query) WHERE p.search_vector @@ q.query";
+    private static final String ALL = " FROM products p";
+
+    /**
+     * Not the table of any entity, so that writing the search vector leaves the second-level cache as it is.
+     */
+    private static final String SEARCH_VECTOR_SPACE = "products_search_vector";
+
+    private final EntityManager entityManager;
+    private final String textSearchConfig;
+
+    ProductFullTextRepositoryImpl(EntityManager entityManager, VSpaceProperties properties) {
+        this.entityManager = entityManager;
+        this.textSearchConfig = properties.getSearch().getPostgres().getTextSearchConfig();
+    }
+
+    @Override
+    public List<Match> findMatches(String query, Match after, int limit) {
+        String sql = "SELECT m.id, m.rank FROM (" + ranked(query) + ") m";
+        if (after != null) {
+            sql += " WHERE m.rank < CAST(:rank AS real) OR (m.rank = CAST(:rank AS real) AND m.id > :id)";
+        }
+        Query nativeQuery = nativeQuery(sql + " ORDER BY m.rank DESC, m.id LIMIT :limit", query).setParameter("limit", limit);
+        if (after != null) {
+            nativeQuery.setParameter("rank", after.rank()).setParameter("id", after.id());
+        }
+        return matches(nativeQuery);
+    }
+
+    @Override
+    public List<Match> findMatches(String query, long offset, int limit) {
+        String sql = "SELECT m.id, m.rank FROM (" + ranked(query) + ") m ORDER BY m.rank DESC, m.id LIMIT :limit OFFSET :offset";
+        return matches(nativeQuery(sql, query).setParameter("limit", limit).setParameter("offset", offset));
+    }
+
+    @Override
+    public long countMatches(String query) {
+        return ((Number) nativeQuery("SELECT count(*)" + from(query), query).getSingleResult()).longValue();
+    }
+
+    @Override
+    public Map<Instant, Long> countMatchesByDate(String query, String column, String unit) {
+        check(DATE_COLUMNS, column);
+        check(DATE_UNITS, unit);
+        // Epoch millis of the bucket start, read in UTC whatever the time zone of the session
+        String bucket = "CAST(extract(epoch FROM date_trunc('" + unit + "', p." + column + " AT TIME ZONE 'UTC')) * 1000 AS bigint)";
+        String sql = "SELECT " + bucket + " AS bucket, count(*)" + from(query) + " GROUP BY bucket ORDER BY bucket";
+        return counts(nativeQuery(sql, query), row -> Instant.ofEpochMilli(((Number) row[0]).longValue()));
+    }
+
+    @Override
+    public Map<String, Long> countMatchesByValue(String query, String column, int size) {
+        check(VALUE_COLUMNS, column);
+        String sql = "SELECT p." + column + ", count(*) AS doc_count" + from(query) + " GROUP BY p." + column + " ORDER BY doc_count DESC, p." + column;
+        return counts(nativeQuery(sql + " LIMIT :size", query).setParameter("size", size), row -> (String) row[0]);
+    }
+
+    @Override
+    public List<Product> findByNamePrefixes(List<String> prefixes, int limit) {
+        if (prefixes.isEmpty()) {
+            return List.of();
+        }
+        // Prefix matches restricted to the lexemes of the name, which have the A weight
+        String tsQuery = prefixes.stream().map(prefix -> prefix + ":*A").collect(Collectors.joining(" & "));
+        String sql =
+            "SELECT p.id, p.name FROM products p, to_tsquery(CAST(:config AS regconfig), :query) AS q(query)" +
+            " WHERE p.search_vector @@ q.query ORDER BY ts_rank(p.search_vector, q.query) DESC, p.id LIMIT :limit";
+        List<?> rows = entityManager
+            .createNativeQuery(sql)
+            .setParameter("config", textSearchConfig)
+            .setParameter("query", tsQuery)
+            .setParameter("limit", limit)
+            .getResultList();
+        return rows
+            .stream()
+            .map(Object[].class::cast)
+            .map(row -> {
+                Product product = new Product();
+                product.setId((String) row[0]);
+                product.setName((String) row[1]);
+                return product;
+            })
+            .toList();
+    }
+
+    @Override
+    public void updateSearchVector(String id, String name, String content) {
+        entityManager.flush();
+        entityManager
+            .createNativeQuery("UPDATE products SET search_vector = " + ProductFullTextSchema.SEARCH_VECTOR + " WHERE id = :id")
+            .unwrap(NativeQuery.class)
+            // A query space of its own, the default of native updates evicts every entity from the second-level cache
+            .addSynchronizedQuerySpace(SEARCH_VECTOR_SPACE)
+            .setParameter("config", textSearchConfig)
+            .setParameter("name", ProductFullTextSchema.nonNull(name))
+            .setParameter("content", ProductFullTextSchema.nonNull(content))
+            .setParameter("id", id)
+            .executeUpdate();
+    }
+
+    private static String ranked(String query) {
+        return query.isBlank()
+            ? "SELECT p.id, CAST(0 AS real) AS rank" + ALL
+            : "SELECT p.id, ts_rank_cd(p.search_vector, q.query) AS rank" + MATCHING;
+    }
+
+    private static String from(String query) {
+        return query.isBlank() ? ALL : MATCHING;
+    }
+
+    private Query nativeQuery(String sql, String query) {
+        Query nativeQuery = entityManager.createNativeQuery(sql);
+        if (!query.isBlank()) {
+            nativeQuery.setParameter("config", textSearchConfig).setParameter("query", query);
+        }
+        return nativeQuery;
+    }
+
+    private static List<Match> matches(Query nativeQuery) {
+        List<?> rows = nativeQuery.getResultList();
+        return rows.stream().map(Object[].class::cast).map(row -> new Match((String) row[0], ((Number) row[1]).floatValue())).toList();
+    }
+
+    private static <K> Map<K, Long> counts(Query nativeQuery, Function<Object[], K> key) {
+        Map<K, Long> counts = new LinkedHashMap<>();
+        List<?> rows = nativeQuery.getResultList();
+        rows.stream().map(Object[].class::cast).forEach(row -> counts.put(key.apply(row), ((Number) row[1]).longValue()));
+        return counts;
+    }
+
+    private static void check(Set<String> allowed, String value) {
+        if (!allowed.contains(value)) {
+            throw new IllegalArgumentException("Unsupported " + value + ", expected one of " + allowed);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.vssoft.vspace.repository;
+
+import com.vssoft.vspace.config.VSpaceProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.regex.Pattern;
+
+/**
+ * Checks the full-text index of the products: a {@code search_vector} column holding the name, weighted A, and the
+ * content, weighted B, along with its GIN index, created by the migration described in the README.
+ * <p>
+ * The content is stored compressed, see {@code ContentCodec}, which the database cannot read: the vector is written by
+ * the application along with the product, see {@link ProductFullTextRepository#updateSearchVector}, rather than
+ * generated by the database. A trigger of the migration clears it whenever the name or the content change, on any
+ * node whatever its settings, and {@link ProductSearchVectorIndexer} writes the missing ones again.
+ * <p>
+ * The index is kept when it serves the searches, and when it backs the fallback of the other engines.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@ConditionalOnExpression(ProductFullTextSchema.ENABLED)
+public class ProductFullTextSchema implements InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductFullTextSchema.class);
+
+    /**
+     * Whether the search vector is maintained: when {@code vspace.search.engine} is {@code postgres}, or
+     * {@code vspace.search.fallback} is enabled.
+     */
+    public static final String ENABLED =
+        "'${vspace.search.engine:elasticsearch}' == 'postgres' or ${vspace.search.fallback.enabled:false}";
+
+    /**
+     * The search vector of a product, from the {@code config}, {@code name} and {@code content} parameters.
+     */
+    static final String SEARCH_VECTOR =
+        "setweight(to_tsvector(CAST(:config AS regconfig), :name), 'A') || setweight(to_tsvector(CAST(:config AS regconfig), :content), 'B')";
+
+    private static final Pattern CONFIG_NAME = Pattern.compile("[a-z_][a-z0-9_]*");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final VSpaceProperties.Search.Postgres config;
+    private volatile boolean available;
+
+    public ProductFullTextSchema(DataSource dataSource, VSpaceProperties properties) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.config = properties.getSearch().getPostgres();
+    }
+
+    /**
+     * Whether the search vector can be queried and written, which takes PostgreSQL and the migration.
+     */
+    public boolean isAvailable() {
+        return available;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!isPostgres()) {
+            log.warn("The database is not PostgreSQL, the products have no full-text index");
+            return;
+        }
+        String textSearchConfig = config.getTextSearchConfig();
+        if (!CONFIG_NAME.matcher(textSearchConfig).matches()) {
+            throw new IllegalStateException("Invalid text search configuration name: " + textSearchConfig);
+        }
+        if (!exists("SELECT count(*) FROM information_schema.columns WHERE table_schema = current_schema() AND table_name = 'products' AND column_name = 'search_vector'")) {
+            log.warn("The products have no search_vector column, their full-text index is not available until it is migrated");
+            return;
+        }
+        if (!exists("SELECT count(*) FROM information_schema.triggers WHERE event_object_schema = current_schema() AND trigger_name = 'products_search_vector_stale'")) {
+            log.warn("The products have no products_search_vector_stale trigger, products written by other nodes keep their previous vector");
+        }
+        available = true;
+    }
+
+    static String nonNull(String text) {
+        return text != null ? text : "";
+    }
+
+    private boolean exists(String countQuery) {
+        Long count = jdbcTemplate.queryForObject(countQuery, Long.class);
+        return count != null && count > 0;
+    }
+
+    private boolean isPostgres() {
+        return "PostgreSQL".equals(jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()));
+    }
+}
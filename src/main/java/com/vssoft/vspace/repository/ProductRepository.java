@@ -1,8 +1,51 @@
 package com.vssoft.vspace.repository;
 
 import com.vssoft.vspace.domain.Product;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface ProductRepository extends JpaRepository<Product, String>, JpaSpecificationExecutor<Product> {
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The finders returning products load their lazy content in the same statement, rather than one statement per product:
+ * every caller maps the content along with the rest.
+ */
+public interface ProductRepository extends JpaRepository<Product, String>, JpaSpecificationExecutor<Product>, ProductFullTextRepository {
+    @Override
+    @EntityGraph(Product.WITH_CONTENT)
+    Optional<Product> findById(String id);
+
+    @Override
+    @EntityGraph(Product.WITH_CONTENT)
+    Page<Product> findAll(Pageable pageable);
+
+    @Override
+    @EntityGraph(Product.WITH_CONTENT)
+    Page<Product> findAll(Specification<Product> spec, Pageable pageable);
+
+    /**
+     * Get the products written after the given position, and before the given date, in the order they were written.
+     * The first condition lets the database seek to the position on the {@code (updated_date, id)} index.
+     */
+    @EntityGraph(Product.WITH_CONTENT)
+    @Query(
+        "select p from Product p where p.updatedDate >= :date and (p.updatedDate > :date or p.id > :id) and p.updatedDate < :until " +
+        "order by p.updatedDate, p.id"
+    )
+    List<Product> findWrittenAfter(@Param("date") Instant date, @Param("id") String id, @Param("until") Instant until, Pageable pageable);
+
+    /**
+     * Get the current time of the database, at the start of the transaction, in microseconds since the epoch: the dates
+     * products are written and deleted at are taken from it.
+     */
+    @Query(value = "SELECT CAST(extract(epoch FROM current_timestamp) * 1000000 AS bigint)", nativeQuery = true)
+    long currentTimeMicros();
 }
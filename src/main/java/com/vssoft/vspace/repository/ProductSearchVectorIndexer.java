@@ -0,0 +1,138 @@
+package com.vssoft.vspace.repository;
+
+import com.vssoft.vspace.config.VSpaceProperties;
+import com.vssoft.vspace.config.persistence.ContentCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the search vector of the products without one: those added by other means than this application, those
+ * whose vector the trigger of the migration cleared, see {@link ProductFullTextSchema}, and all of them once the
+ * column is added.
+ * <p>
+ * Products are indexed in batches, each committed on its own, with their rows locked so that a concurrent write waits
+ * for the vector to be written before clearing it again. Rows locked by another node indexing them are skipped.
+ */
+@Component
+@ConditionalOnExpression(ProductFullTextSchema.ENABLED)
+class ProductSearchVectorIndexer implements InitializingBean, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchVectorIndexer.class);
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String SELECT =
+        "SELECT id, name, %s AS content FROM products WHERE search_vector IS NULL ORDER BY id LIMIT " + BATCH_SIZE + " FOR UPDATE SKIP LOCKED";
+    private static final String UPDATE = "UPDATE products SET search_vector = " + ProductFullTextSchema.SEARCH_VECTOR + " WHERE id = :id";
+
+    private final ProductFullTextSchema schema;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ContentCodec contentCodec;
+    private final String textSearchConfig;
+    private final long intervalMillis;
+    private final ScheduledExecutorService scheduler;
+    private String select;
+
+    ProductSearchVectorIndexer(
+        ProductFullTextSchema schema,
+        DataSource dataSource,
+        PlatformTransactionManager transactionManager,
+        ContentCodec contentCodec,
+        VSpaceProperties properties
+    ) {
+        this.schema = schema;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.contentCodec = contentCodec;
+        this.textSearchConfig = properties.getSearch().getPostgres().getTextSearchConfig();
+        this.intervalMillis = properties.getSearch().getPostgres().getReindexIntervalMillis();
+        this.scheduler =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "product-search-vector-indexer");
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!schema.isAvailable()) {
+            return;
+        }
+        // Read from the large object unless the column was converted to bytes, see ContentCodec
+        List<String> contentType = jdbcTemplate.queryForList(
+            "SELECT data_type FROM information_schema.columns WHERE table_schema = current_schema() AND table_name = 'products' AND column_name = 'content'",
+            String.class
+        );
+        select = SELECT.formatted(contentType.contains("oid") ? "lo_get(content)" : "content");
+        if (intervalMillis > 0) {
+            scheduler.scheduleWithFixedDelay(this::indexMissing, 0, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Indexes the products without a search vector, until there are none left.
+     */
+    void indexMissing() {
+        long indexed = 0;
+        try {
+            int batch;
+            do {
+                batch = indexBatch();
+                indexed += batch;
+            } while (batch == BATCH_SIZE);
+        } catch (RuntimeException e) {
+            log.warn("Could not index the products without a search vector: {}", e.getMessage());
+        }
+        if (indexed > 0) {
+            log.info("Indexed {} products in their search vector", indexed);
+        }
+    }
+
+    private int indexBatch() {
+        Integer indexed = transactionTemplate.execute(status -> {
+            List<MapSqlParameterSource> rows = jdbcTemplate.query(
+                select,
+                (rs, rowNum) ->
+                    new MapSqlParameterSource()
+                        .addValue("config", textSearchConfig)
+                        .addValue("id", rs.getString("id"))
+                        .addValue("name", ProductFullTextSchema.nonNull(rs.getString("name")))
+                        .addValue("content", ProductFullTextSchema.nonNull(content(rs.getObject("content"))))
+            );
+            namedJdbcTemplate.batchUpdate(UPDATE, rows.toArray(MapSqlParameterSource[]::new));
+            return rows.size();
+        });
+        return indexed != null ? indexed : 0;
+    }
+
+    /**
+     * Decodes the content as read, bytes or the text of a column of that type.
+     */
+    private String content(Object stored) {
+        return stored instanceof byte[] bytes ? contentCodec.decode(bytes) : (String) stored;
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+}
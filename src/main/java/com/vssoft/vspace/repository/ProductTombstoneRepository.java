@@ -0,0 +1,31 @@
+package com.vssoft.vspace.repository;
+
+import com.vssoft.vspace.domain.ProductTombstone;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface ProductTombstoneRepository extends JpaRepository<ProductTombstone, String> {
+    /**
+     * Get the products deleted after the given position, and before the given date, in the order they were deleted.
+     */
+    @Query(
+        "select t from ProductTombstone t where t.deletedDate >= :date and (t.deletedDate > :date or t.id > :id) and t.deletedDate < :until " +
+        "order by t.deletedDate, t.id"
+    )
+    List<ProductTombstone> findDeletedAfter(@Param("date") Instant date, @Param("id") String id, @Param("until") Instant until, Pageable pageable);
+
+    /**
+     * Delete the tombstones of the products deleted before the given date.
+     *
+     * @return the number of tombstones deleted.
+     */
+    @Modifying
+    @Query("delete from ProductTombstone t where t.deletedDate < :before")
+    int deleteDeletedBefore(@Param("before") Instant before);
+}
@@ -0,0 +1,118 @@
+package com.vssoft.vspace.repository.search;
+
+import co.elastic.clients.transport.rest_client.RestClientOptions;
+import com.vssoft.vspace.config.VSpaceProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchTemplate;
+import org.springframework.data.elasticsearch.core.RefreshPolicy;
+import org.springframework.stereotype.Component;
+
+import java.net.SocketTimeoutException;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Per operation views of the shared {@link ElasticsearchTemplate}, each with its own request timeout, and the timers
+ * of the requests made through them.
+ * <p>
+ * The views share the connection pool of the template: only the options of their requests differ.
+ */
+@Component
+class ElasticsearchClientSupport {
+
+    enum Operation {
+        SEARCH,
+        INDEX,
+        DELETE,
+    }
+
+    private final Map<Operation, ElasticsearchTemplate> templates = new EnumMap<>(Operation.class);
+    private final MeterRegistry registry;
+
+    ElasticsearchClientSupport(ElasticsearchTemplate elasticsearchTemplate, VSpaceProperties properties, MeterRegistry registry) {
+        VSpaceProperties.Elasticsearch config = properties.getElasticsearch();
+        this.registry = registry;
+        templates.put(Operation.SEARCH, withRequestTimeout(elasticsearchTemplate, config, config.getSearchTimeoutMillis()));
+        templates.put(Operation.INDEX, withRequestTimeout(elasticsearchTemplate, config, config.getIndexTimeoutMillis()));
+        templates.put(Operation.DELETE, withRequestTimeout(elasticsearchTemplate, config, config.getDeleteTimeoutMillis()));
+        // Writes return once searchable, so that the result cache invalidated after them cannot be filled from before
+        templates.get(Operation.INDEX).setRefreshPolicy(RefreshPolicy.WAIT_UNTIL);
+        templates.get(Operation.DELETE).setRefreshPolicy(RefreshPolicy.WAIT_UNTIL);
+    }
+
+    ElasticsearchTemplate template(Operation operation) {
+        return templates.get(operation);
+    }
+
+    /**
+     * Runs the given request, recording its duration tagged with the operation and its outcome.
+     */
+    <T> T timed(Operation operation, Supplier<T> request) {
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = "error";
+        try {
+            T result = request.get();
+            outcome = "success";
+            return result;
+        } catch (RuntimeException e) {
+            outcome = isTimeout(e) ? "timeout" : "error";
+            throw e;
+        } finally {
+            sample.stop(
+                Timer
+                    .builder("elasticsearch.client.requests")
+                    .description("Requests sent to Elasticsearch")
+                    .tag("operation", operation.name().toLowerCase(Locale.ROOT))
+                    .tag("outcome", outcome)
+                    .register(registry)
+            );
+        }
+    }
+
+    void timed(Operation operation, Runnable request) {
+        timed(
+            operation,
+            () -> {
+                request.run();
+                return null;
+            }
+        );
+    }
+
+    private static boolean isTimeout(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SocketTimeoutException || cause instanceof ConnectionPoolTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A request config replaces the default one of the client as a whole, so the connect timeouts are set again.
+     */
+    private static ElasticsearchTemplate withRequestTimeout(ElasticsearchTemplate template, VSpaceProperties.Elasticsearch config, long timeoutMillis) {
+        RequestConfig requestConfig = RequestConfig
+            .custom()
+            .setConnectTimeout((int) config.getConnectTimeoutMillis())
+            .setConnectionRequestTimeout((int) config.getConnectionRequestTimeoutMillis())
+            .setSocketTimeout((int) timeoutMillis)
+            .build();
+        return new ElasticsearchTemplate(
+            template.execute(client ->
+                client.withTransportOptions(options -> {
+                    if (options instanceof RestClientOptions.Builder restClientOptions) {
+                        restClientOptions.restClientRequestOptionsBuilder().setRequestConfig(requestConfig);
+                    }
+                    return options;
+                })
+            ),
+            template.getElasticsearchConverter()
+        );
+    }
+}
@@ -0,0 +1,79 @@
+package com.vssoft.vspace.repository.search;
+
+import com.vssoft.vspace.domain.Product;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+/**
+ * Serves the product searches from Elasticsearch, the default engine.
+ * <p>
+ * Primary over the full-text index of the database, which backs the fallback when enabled. Writes are sent once
+ * their transaction commits, and indexed asynchronously.
+ */
+@Component
+@Primary
+@ConditionalOnProperty(prefix = "vspace.search", name = "engine", havingValue = "elasticsearch", matchIfMissing = true)
+class ElasticsearchProductSearchEngine implements ProductSearchEngine {
+
+    private final ProductSearchRepository productSearchRepository;
+
+    ElasticsearchProductSearchEngine(ProductSearchRepository productSearchRepository) {
+        this.productSearchRepository = productSearchRepository;
+    }
+
+    @Override
+    public Page<Product> search(String query, Pageable pageable) {
+        return productSearchRepository.search(query, pageable);
+    }
+
+    @Override
+    public FacetedPage<Product> search(String query, Pageable pageable, List<ProductFacet> facets) {
+        return productSearchRepository.search(query, pageable, facets);
+    }
+
+    @Override
+    public FacetedPage<Product> facets(String query, List<ProductFacet> facets) {
+        return productSearchRepository.facets(query, facets);
+    }
+
+    @Override
+    public List<Product> suggest(String prefix, int size) {
+        return productSearchRepository.suggest(prefix, size);
+    }
+
+    @Override
+    public void index(Product entity) {
+        afterCommit(() -> productSearchRepository.index(entity));
+    }
+
+    @Override
+    public void deleteFromIndexById(String id) {
+        afterCommit(() -> productSearchRepository.deleteFromIndexById(id));
+    }
+
+    /**
+     * Sends the write once the current transaction commits, so that the product indexed is the one committed and the
+     * search results are invalidated after it, or at once outside of transactions.
+     */
+    private static void afterCommit(Runnable write) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            write.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    write.run();
+                }
+            }
+        );
+    }
+}
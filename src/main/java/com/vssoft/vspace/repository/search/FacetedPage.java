@@ -0,0 +1,20 @@
+package com.vssoft.vspace.repository.search;
+
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A page of search hits along with the facets computed over all the matches.
+ *
+ * @param page the hits, empty when only the facets were requested.
+ * @param facets the buckets of each requested facet, by facet name.
+ */
+public record FacetedPage<T>(Page<T> page, Map<String, List<Bucket>> facets) {
+    /**
+     * @param key the value of a terms bucket, or the start of a date bucket in ISO-8601 format.
+     * @param count the number of matches in the bucket.
+     */
+    public record Bucket(String key, long count) {}
+}
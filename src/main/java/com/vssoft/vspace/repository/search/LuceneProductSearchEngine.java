@@ -0,0 +1,672 @@
+package com.vssoft.vspace.repository.search;
+
+import co.elastic.clients.elasticsearch._types.aggregations.CalendarInterval;
+import com.vssoft.vspace.config.VSpaceProperties;
+import com.vssoft.vspace.domain.Product;
+import com.vssoft.vspace.domain.ProductTombstone;
+import com.vssoft.vspace.repository.ProductRepository;
+import com.vssoft.vspace.repository.ProductTombstoneRepository;
+import com.vssoft.vspace.web.rest.errors.ExpensiveQueryException;
+import com.vssoft.vspace.web.rest.errors.QuerySyntaxException;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MultiCollector;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.SimpleCollector;
+import org.apache.lucene.search.TopScoreDocCollector;
+import org.apache.lucene.search.TotalHitCountCollector;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.IOConsumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.regex.MatchResult;
+import java.util.regex.Pattern;
+
+/**
+ * Serves the product searches from a Lucene index local to this instance, for deployments without Elasticsearch.
+ * <p>
+ * The index is memory mapped and fed by the writes of this instance only, so it suits single instance deployments.
+ * Writes are applied once their transaction commits, and become searchable within the refresh interval. The index is
+ * rebuilt from the database at startup when missing, otherwise the products written or deleted since its last commit,
+ * which may be lost on a crash, are applied again. Query strings have the same syntax as with Elasticsearch, and are checked by the
+ * same {@link ProductSearchQueryGuard}. It is primary over the full-text index of the database, which backs the fallback
+ * when enabled.
+ */
+@Component
+@Primary
+@ConditionalOnProperty(prefix = "vspace.search", name = "engine", havingValue = "lucene")
+class LuceneProductSearchEngine implements ProductSearchEngine, DisposableBean {
+
+    private static final String ID = "id";
+    private static final String NAME = "name";
+    private static final String NAME_KEYWORD = "name.keyword";
+    private static final String CONTENT = "content";
+    private static final String CREATED_DATE = "createdDate";
+    private static final String UPDATED_DATE = "updatedDate";
+    private static final String[] DEFAULT_FIELDS = { NAME, CONTENT };
+    private static final Set<String> DATE_FIELDS = Set.of(CREATED_DATE, UPDATED_DATE);
+    private static final Map<String, String> TERMS_FIELDS = Map.of(NAME, NAME_KEYWORD);
+
+    /**
+     * Same bound as the keyword sub-field of the Elasticsearch mapping, longer names are left out of the terms facet.
+     */
+    private static final int MAX_KEYWORD_LENGTH = 256;
+
+    /**
+     * Same bound as the {@code index.max_result_window} of Elasticsearch, the hits before the page are collected too.
+     */
+    static final int MAX_RESULT_WINDOW = 10_000;
+
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+    private static final int MAX_SUGGEST_PREFIXES = 5;
+    private static final int REBUILD_BATCH_SIZE = 1_000;
+
+    /**
+     * Key of the commit user data holding the time up to which the writes were applied, in epoch milliseconds.
+     */
+    private static final String INDEXED_UNTIL = "indexedUntil";
+
+    private final Logger log = LoggerFactory.getLogger(LuceneProductSearchEngine.class);
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private final ProductSearchQueryGuard queryGuard;
+    private final Directory directory;
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * When the first write that could not be applied failed, the next commits do not claim to hold the writes since.
+     */
+    private volatile Instant failedSince;
+
+    LuceneProductSearchEngine(
+        ProductRepository repository,
+        ProductTombstoneRepository tombstoneRepository,
+        ProductSearchQueryGuard queryGuard,
+        PlatformTransactionManager transactionManager,
+        VSpaceProperties properties
+    ) throws IOException {
+        VSpaceProperties.Search.Lucene config = properties.getSearch().getLucene();
+        this.queryGuard = queryGuard;
+        this.directory = new MMapDirectory(Path.of(config.getPath()));
+        boolean exists = DirectoryReader.indexExists(directory);
+        this.writer = new IndexWriter(directory, new IndexWriterConfig(analyzer));
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        Instant indexedUntil = exists ? indexedUntil() : null;
+        if (indexedUntil == null) {
+            rebuild(repository, transactionTemplate);
+        } else {
+            Duration window = Duration.ofSeconds(config.getReconcileWindowSeconds());
+            // The end also covers the clocks running ahead of this one
+            reconcile(repository, tombstoneRepository, transactionTemplate, indexedUntil.minus(window), Instant.now().plus(window));
+        }
+        this.searcherManager = new SearcherManager(writer, null);
+        this.scheduler =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "lucene-products");
+                thread.setDaemon(true);
+                return thread;
+            });
+        scheduler.scheduleWithFixedDelay(this::refresh, config.getRefreshIntervalMillis(), config.getRefreshIntervalMillis(), TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::commit, config.getCommitIntervalSeconds(), config.getCommitIntervalSeconds(), TimeUnit.SECONDS);
+    }
+
+    @Override
+    public Page<Product> search(String query, Pageable pageable) {
+        Query luceneQuery = parse(query);
+        return withSearcher(searcher -> {
+            TopScoreDocCollector hits = topHits(pageable);
+            searcher.search(luceneQuery, hits);
+            return page(searcher, hits, pageable);
+        });
+    }
+
+    @Override
+    public FacetedPage<Product> search(String query, Pageable pageable, List<ProductFacet> facets) {
+        Query luceneQuery = parse(query);
+        return withSearcher(searcher -> {
+            TopScoreDocCollector hits = topHits(pageable);
+            List<FacetCounter> counters = facets.stream().map(LuceneProductSearchEngine::counter).toList();
+            List<Collector> collectors = new ArrayList<>(counters);
+            collectors.add(hits);
+            searcher.search(luceneQuery, MultiCollector.wrap(collectors));
+            return new FacetedPage<>(page(searcher, hits, pageable), buckets(facets, counters));
+        });
+    }
+
+    @Override
+    public FacetedPage<Product> facets(String query, List<ProductFacet> facets) {
+        Query luceneQuery = parse(query);
+        return withSearcher(searcher -> {
+            TotalHitCountCollector total = new TotalHitCountCollector();
+            List<FacetCounter> counters = facets.stream().map(LuceneProductSearchEngine::counter).toList();
+            List<Collector> collectors = new ArrayList<>(counters);
+            collectors.add(total);
+            searcher.search(luceneQuery, MultiCollector.wrap(collectors));
+            return new FacetedPage<>(new PageImpl<>(List.of(), Pageable.unpaged(), total.getTotalHits()), buckets(facets, counters));
+        });
+    }
+
+    @Override
+    public List<Product> suggest(String prefix, int size) {
+        List<String> prefixes = WORD
+            .matcher(prefix)
+            .results()
+            .map(MatchResult::group)
+            .map(word -> word.toLowerCase(Locale.ROOT))
+            .limit(MAX_SUGGEST_PREFIXES)
+            .toList();
+        if (prefixes.isEmpty()) {
+            return List.of();
+        }
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        prefixes.forEach(word -> builder.add(new PrefixQuery(new Term(NAME, word)), BooleanClause.Occur.MUST));
+        Query luceneQuery = builder.build();
+        return withSearcher(searcher -> {
+            StoredFields storedFields = searcher.storedFields();
+            List<Product> suggestions = new ArrayList<>();
+            for (ScoreDoc scoreDoc : searcher.search(luceneQuery, size).scoreDocs) {
+                Document document = storedFields.document(scoreDoc.doc, Set.of(ID, NAME));
+                Product product = new Product();
+                product.setId(document.get(ID));
+                product.setName(document.get(NAME));
+                suggestions.add(product);
+            }
+            return suggestions;
+        });
+    }
+
+    @Override
+    public void index(Product entity) {
+        Term id = new Term(ID, entity.getId());
+        // Built within the transaction, where the lazy content can still be loaded
+        Document document = toDocument(entity);
+        afterCommit(indexWriter -> indexWriter.updateDocument(id, document));
+    }
+
+    @Override
+    public void deleteFromIndexById(String id) {
+        afterCommit(indexWriter -> indexWriter.deleteDocuments(new Term(ID, id)));
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        scheduler.shutdownNow();
+        searcherManager.close();
+        if (writer.hasUncommittedChanges()) {
+            setIndexedUntil(Instant.now());
+        }
+        // Commits the pending writes
+        writer.close();
+        directory.close();
+    }
+
+    /**
+     * Applies the write once the current transaction commits, so that rolled back writes never reach the index, or at
+     * once outside of transactions.
+     */
+    private void afterCommit(IOConsumer<IndexWriter> write) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(write);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(write);
+                }
+            }
+        );
+    }
+
+    private void apply(IOConsumer<IndexWriter> write) {
+        try {
+            write.accept(writer);
+        } catch (IOException | RuntimeException e) {
+            // The database is committed already, the write is applied again at the next startup
+            if (failedSince == null) {
+                failedSince = Instant.now();
+            }
+            log.error("Could not write to the local product search index", e);
+        }
+    }
+
+    private Instant indexedUntil() {
+        Iterable<Map.Entry<String, String>> commitData = writer.getLiveCommitData();
+        if (commitData != null) {
+            for (Map.Entry<String, String> entry : commitData) {
+                if (INDEXED_UNTIL.equals(entry.getKey())) {
+                    return Instant.ofEpochMilli(Long.parseLong(entry.getValue()));
+                }
+            }
+        }
+        // Built before the time was recorded
+        return null;
+    }
+
+    private void setIndexedUntil(Instant indexedUntil) {
+        Instant failed = failedSince;
+        Instant until = failed != null && failed.isBefore(indexedUntil) ? failed : indexedUntil;
+        writer.setLiveCommitData(Map.of(INDEXED_UNTIL, Long.toString(until.toEpochMilli())).entrySet());
+    }
+
+    private void rebuild(ProductRepository repository, TransactionTemplate transactionTemplate) throws IOException {
+        log.info("Building the local product search index from the database");
+        Instant start = Instant.now();
+        writer.deleteAll();
+        Pageable pageable = PageRequest.of(0, REBUILD_BATCH_SIZE, Sort.by(ID));
+        Page<Product> page;
+        do {
+            Pageable current = pageable;
+            // One transaction per batch, so that loaded products do not pile up in the persistence context
+            page = transactionTemplate.execute(status -> repository.findAll(current));
+            for (Product product : page) {
+                writer.addDocument(toDocument(product));
+            }
+            pageable = page.nextPageable();
+        } while (page.hasNext());
+        setIndexedUntil(start);
+        writer.commit();
+        log.info("Indexed {} products", page.getTotalElements());
+    }
+
+    /**
+     * Applies the deletions, then the writes, found in the database between the given times. Those already in the
+     * index are applied again, which is harmless.
+     */
+    private void reconcile(
+        ProductRepository repository,
+        ProductTombstoneRepository tombstoneRepository,
+        TransactionTemplate transactionTemplate,
+        Instant since,
+        Instant until
+    ) throws IOException {
+        Instant start = Instant.now();
+        int deleted = forEachChange(
+            transactionTemplate,
+            tombstoneRepository::findDeletedAfter,
+            ProductTombstone::getDeletedDate,
+            ProductTombstone::getId,
+            since,
+            until,
+            tombstone -> writer.deleteDocuments(new Term(ID, tombstone.getId()))
+        );
+        int written = forEachChange(
+            transactionTemplate,
+            repository::findWrittenAfter,
+            Product::getUpdatedDate,
+            Product::getId,
+            since,
+            until,
+            product -> writer.updateDocument(new Term(ID, product.getId()), toDocument(product))
+        );
+        setIndexedUntil(start);
+        writer.commit();
+        log.info("Applied the {} product writes and {} deletions since {} to the local product search index", written, deleted, since);
+    }
+
+    private static <T> int forEachChange(
+        TransactionTemplate transactionTemplate,
+        ChangeFinder<T> finder,
+        Function<T, Instant> changedDate,
+        Function<T, String> changedId,
+        Instant since,
+        Instant until,
+        IOConsumer<T> action
+    ) throws IOException {
+        Pageable batch = PageRequest.of(0, REBUILD_BATCH_SIZE);
+        Instant date = since;
+        String id = "";
+        int count = 0;
+        List<T> changes;
+        do {
+            Instant afterDate = date;
+            String afterId = id;
+            changes = transactionTemplate.execute(status -> finder.find(afterDate, afterId, until, batch));
+            for (T change : changes) {
+                action.accept(change);
+            }
+            if (!changes.isEmpty()) {
+                T last = changes.get(changes.size() - 1);
+                date = changedDate.apply(last);
+                id = changedId.apply(last);
+            }
+            count += changes.size();
+        } while (changes.size() == REBUILD_BATCH_SIZE);
+        return count;
+    }
+
+    void refresh() {
+        try {
+            searcherManager.maybeRefresh();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not refresh the local product search index", e);
+        }
+    }
+
+    private void commit() {
+        try {
+            if (writer.hasUncommittedChanges()) {
+                // The writes applied from now on may be left out of the commit
+                setIndexedUntil(Instant.now());
+                writer.commit();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not commit the local product search index", e);
+        }
+    }
+
+    private Query parse(String query) {
+        QueryParser parser = new MultiFieldQueryParser(DEFAULT_FIELDS, analyzer) {
+            @Override
+            protected Query getRangeQuery(String field, String part1, String part2, boolean startInclusive, boolean endInclusive)
+                throws ParseException {
+                if (!DATE_FIELDS.contains(field)) {
+                    return super.getRangeQuery(field, part1, part2, startInclusive, endInclusive);
+                }
+                long lower = part1 == null ? Long.MIN_VALUE : parseDate(part1) + (startInclusive ? 0 : 1);
+                long upper = part2 == null ? Long.MAX_VALUE : parseDate(part2) - (endInclusive ? 0 : 1);
+                return LongPoint.newRangeQuery(field, lower, upper);
+            }
+        };
+        // Leading wildcards are rewritten or rejected by the guard, only the match-all * gets here
+        parser.setAllowLeadingWildcard(true);
+        try {
+            return parser.parse(queryGuard.check(query));
+        } catch (ParseException e) {
+            throw new QuerySyntaxException();
+        }
+    }
+
+    private static long parseDate(String date) throws ParseException {
+        try {
+            return date.contains("T") ? Instant.parse(date).toEpochMilli() : LocalDate.parse(date).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            throw new ParseException("Invalid date " + date);
+        }
+    }
+
+    private <T> T withSearcher(SearcherFunction<T> function) {
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                return function.apply(searcher);
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IndexSearcher.TooManyClauses e) {
+            throw new ExpensiveQueryException("clauses");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static TopScoreDocCollector topHits(Pageable pageable) {
+        long window = pageable.getOffset() + pageable.getPageSize();
+        if (window > MAX_RESULT_WINDOW) {
+            throw new ExpensiveQueryException("result-window");
+        }
+        // Hits are counted exactly, as Elasticsearch does for the first 10000
+        return TopScoreDocCollector.create((int) Math.max(1, window), Integer.MAX_VALUE);
+    }
+
+    private static Page<Product> page(IndexSearcher searcher, TopScoreDocCollector hits, Pageable pageable) throws IOException {
+        StoredFields storedFields = searcher.storedFields();
+        List<Product> products = new ArrayList<>();
+        for (ScoreDoc scoreDoc : hits.topDocs((int) pageable.getOffset(), pageable.getPageSize()).scoreDocs) {
+            products.add(toProduct(storedFields.document(scoreDoc.doc)));
+        }
+        return new PageImpl<>(products, pageable, hits.getTotalHits());
+    }
+
+    private static Document toDocument(Product product) {
+        Document document = new Document();
+        document.add(new StringField(ID, product.getId(), Field.Store.YES));
+        document.add(new TextField(NAME, product.getName(), Field.Store.YES));
+        if (product.getName().length() <= MAX_KEYWORD_LENGTH) {
+            document.add(new SortedDocValuesField(NAME_KEYWORD, new BytesRef(product.getName())));
+        }
+        if (product.getContent() != null) {
+            document.add(new TextField(CONTENT, product.getContent(), Field.Store.YES));
+        }
+        addDate(document, CREATED_DATE, product.getCreatedDate());
+        addDate(document, UPDATED_DATE, product.getUpdatedDate());
+        return document;
+    }
+
+    private static void addDate(Document document, String field, Instant date) {
+        if (date == null) {
+            return;
+        }
+        long epochMillis = date.toEpochMilli();
+        document.add(new LongPoint(field, epochMillis));
+        document.add(new NumericDocValuesField(field, epochMillis));
+        document.add(new StoredField(field, epochMillis));
+    }
+
+    private static Product toProduct(Document document) {
+        Product product = new Product();
+        product.setId(document.get(ID));
+        product.setName(document.get(NAME));
+        product.setContent(document.get(CONTENT));
+        product.setCreatedDate(getDate(document, CREATED_DATE));
+        product.setUpdatedDate(getDate(document, UPDATED_DATE));
+        return product;
+    }
+
+    private static Instant getDate(Document document, String field) {
+        IndexableField value = document.getField(field);
+        return value == null ? null : Instant.ofEpochMilli(value.numericValue().longValue());
+    }
+
+    private static FacetCounter counter(ProductFacet facet) {
+        return facet.isDateHistogram() ? new DateHistogramCounter(facet.name(), facet.interval()) : new TermsCounter(TERMS_FIELDS.get(facet.name()), facet.size());
+    }
+
+    private static Map<String, List<FacetedPage.Bucket>> buckets(List<ProductFacet> facets, List<FacetCounter> counters) throws IOException {
+        Map<String, List<FacetedPage.Bucket>> buckets = new LinkedHashMap<>();
+        for (int i = 0; i < facets.size(); i++) {
+            buckets.put(facets.get(i).name(), counters.get(i).buckets());
+        }
+        return buckets;
+    }
+
+    /**
+     * The start of the UTC calendar interval holding the given time, weeks starting on Monday as in Elasticsearch.
+     */
+    static long bucketStart(long epochMillis, CalendarInterval interval) {
+        LocalDate date = Instant.ofEpochMilli(epochMillis).atZone(ZoneOffset.UTC).toLocalDate();
+        LocalDate start =
+            switch (interval) {
+                case Day -> date;
+                case Week -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case Month -> date.withDayOfMonth(1);
+                case Quarter -> date.withMonth((date.getMonthValue() - 1) / 3 * 3 + 1).withDayOfMonth(1);
+                case Year -> date.withDayOfYear(1);
+                default -> throw new IllegalArgumentException("Unsupported interval " + interval);
+            };
+        return start.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+    }
+
+    @FunctionalInterface
+    private interface SearcherFunction<T> {
+        T apply(IndexSearcher searcher) throws IOException;
+    }
+
+    /**
+     * Finds the changes after the given position, and before the given date, in the order they were made.
+     */
+    @FunctionalInterface
+    private interface ChangeFinder<T> {
+        List<T> find(Instant date, String id, Instant until, Pageable pageable);
+    }
+
+    private abstract static class FacetCounter extends SimpleCollector {
+
+        /**
+         * Must be called before the searcher is released.
+         */
+        abstract List<FacetedPage.Bucket> buckets() throws IOException;
+
+        @Override
+        public ScoreMode scoreMode() {
+            return ScoreMode.COMPLETE_NO_SCORES;
+        }
+    }
+
+    /**
+     * Counts per ordinal within a segment, and per value once the segment is done.
+     */
+    private static final class TermsCounter extends FacetCounter {
+
+        private final String field;
+        private final int size;
+        private final Map<String, Long> counts = new HashMap<>();
+        private SortedDocValues values;
+        private int[] ordinalCounts;
+
+        TermsCounter(String field, int size) {
+            this.field = field;
+            this.size = size;
+        }
+
+        @Override
+        protected void doSetNextReader(LeafReaderContext context) throws IOException {
+            flush();
+            values = DocValues.getSorted(context.reader(), field);
+            ordinalCounts = new int[values.getValueCount()];
+        }
+
+        @Override
+        public void collect(int doc) throws IOException {
+            if (values.advanceExact(doc)) {
+                ordinalCounts[values.ordValue()]++;
+            }
+        }
+
+        @Override
+        List<FacetedPage.Bucket> buckets() throws IOException {
+            flush();
+            return counts
+                .entrySet()
+                .stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()).thenComparing(Map.Entry.comparingByKey()))
+                .limit(size)
+                .map(entry -> new FacetedPage.Bucket(entry.getKey(), entry.getValue()))
+                .toList();
+        }
+
+        private void flush() throws IOException {
+            if (values == null) {
+                return;
+            }
+            for (int ordinal = 0; ordinal < ordinalCounts.length; ordinal++) {
+                if (ordinalCounts[ordinal] > 0) {
+                    counts.merge(values.lookupOrd(ordinal).utf8ToString(), (long) ordinalCounts[ordinal], Long::sum);
+                }
+            }
+            values = null;
+        }
+    }
+
+    private static final class DateHistogramCounter extends FacetCounter {
+
+        private final String field;
+        private final CalendarInterval interval;
+        private final TreeMap<Long, Long> counts = new TreeMap<>();
+        private NumericDocValues values;
+
+        DateHistogramCounter(String field, CalendarInterval interval) {
+            this.field = field;
+            this.interval = interval;
+        }
+
+        @Override
+        protected void doSetNextReader(LeafReaderContext context) throws IOException {
+            values = DocValues.getNumeric(context.reader(), field);
+        }
+
+        @Override
+        public void collect(int doc) throws IOException {
+            if (values.advanceExact(doc)) {
+                counts.merge(bucketStart(values.longValue(), interval), 1L, Long::sum);
+            }
+        }
+
+        @Override
+        List<FacetedPage.Bucket> buckets() {
+            return counts.entrySet().stream().map(entry -> new FacetedPage.Bucket(Instant.ofEpochMilli(entry.getKey()).toString(), entry.getValue())).toList();
+        }
+    }
+}
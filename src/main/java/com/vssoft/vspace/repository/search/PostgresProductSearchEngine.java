@@ -0,0 +1,192 @@
+package com.vssoft.vspace.repository.search;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.vssoft.vspace.config.VSpaceProperties;
+import com.vssoft.vspace.domain.Product;
+import com.vssoft.vspace.repository.ProductFullTextRepository.Match;
+import com.vssoft.vspace.repository.ProductFullTextSchema;
+import com.vssoft.vspace.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.graph.GraphSemantic;
+import org.hibernate.graph.RootGraph;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.MatchResult;
+import java.util.regex.Pattern;
+
+/**
+ * Serves the product searches from the full-text index of the database, see {@link ProductFullTextSchema}.
+ * <p>
+ * Query strings are translated to the web search syntax of PostgreSQL: field names, wildcards, fuzziness and boosts
+ * are dropped, and hits are ordered by rank whatever the requested sort. The position reached by each page is kept
+ * for a while, so that clients following the next links are served by keyset rather than by offset.
+ * <p>
+ * Along with another engine, when {@code vspace.search.fallback} is enabled, it serves the searches that engine cannot,
+ * see {@code ProductServiceImpl}.
+ */
+@Component
+@ConditionalOnExpression(ProductFullTextSchema.ENABLED)
+public class PostgresProductSearchEngine implements ProductSearchEngine {
+
+    private static final Pattern FIELD_PREFIX = Pattern.compile("[\\w.]+:");
+    private static final Pattern MODIFIER = Pattern.compile("[~^][\\d.]*");
+    private static final Pattern SYNTAX = Pattern.compile("[*?(){}\\[\\]\\\\/!+&|]");
+    private static final Pattern NOT = Pattern.compile("\\bNOT\\s+");
+    private static final Pattern AND = Pattern.compile("\\bAND\\b");
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+
+    private static final Map<String, String> DATE_COLUMNS = Map.of("createdDate", "created_date", "updatedDate", "updated_date");
+    private static final Map<String, String> TERMS_COLUMNS = Map.of("name", "name");
+
+    private static final int MAX_SUGGEST_PREFIXES = 5;
+
+    private record CursorKey(String query, int size, int page) {}
+
+    private final ProductRepository repository;
+    private final ProductFullTextSchema schema;
+    private final EntityManager entityManager;
+    private final Cache<CursorKey, Match> cursors;
+
+    /**
+     * @param schema taken so that the search vector exists before the first search.
+     */
+    public PostgresProductSearchEngine(
+        ProductRepository repository,
+        ProductFullTextSchema schema,
+        EntityManager entityManager,
+        VSpaceProperties properties
+    ) {
+        VSpaceProperties.Search.Postgres config = properties.getSearch().getPostgres();
+        this.repository = repository;
+        this.schema = schema;
+        this.entityManager = entityManager;
+        this.cursors =
+            Caffeine
+                .newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(config.getCursorTimeToLiveSeconds()))
+                .maximumSize(config.getMaxCursors())
+                .build();
+    }
+
+    /**
+     * Transactional of its own for the fallback, which is called once the transaction of the failed search is over.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Product> search(String query, Pageable pageable) {
+        String webSearch = toWebSearch(query);
+        int size = pageable.getPageSize();
+        int pageNumber = pageable.getPageNumber();
+        Match after = pageNumber == 0 ? null : cursors.getIfPresent(new CursorKey(webSearch, size, pageNumber - 1));
+        List<Match> matches = pageNumber == 0 || after != null
+            ? repository.findMatches(webSearch, after, size)
+            : repository.findMatches(webSearch, pageable.getOffset(), size);
+        if (matches.size() == size) {
+            cursors.put(new CursorKey(webSearch, size, pageNumber), matches.get(size - 1));
+        }
+        return PageableExecutionUtils.getPage(hydrate(matches), pageable, () -> repository.countMatches(webSearch));
+    }
+
+    @Override
+    public FacetedPage<Product> search(String query, Pageable pageable, List<ProductFacet> facets) {
+        return new FacetedPage<>(search(query, pageable), buckets(toWebSearch(query), facets));
+    }
+
+    @Override
+    public FacetedPage<Product> facets(String query, List<ProductFacet> facets) {
+        String webSearch = toWebSearch(query);
+        return new FacetedPage<>(new PageImpl<>(List.of(), Pageable.unpaged(), repository.countMatches(webSearch)), buckets(webSearch, facets));
+    }
+
+    @Override
+    public List<Product> suggest(String prefix, int size) {
+        List<String> prefixes = WORD
+            .matcher(prefix)
+            .results()
+            .map(MatchResult::group)
+            .map(word -> word.toLowerCase(Locale.ROOT))
+            .limit(MAX_SUGGEST_PREFIXES)
+            .toList();
+        return repository.findByNamePrefixes(prefixes, size);
+    }
+
+    /**
+     * Whether the full-text index can be searched, which takes PostgreSQL.
+     */
+    public boolean isAvailable() {
+        return schema.isAvailable();
+    }
+
+    /**
+     * Writes the search vector in the row of the product, in the current transaction.
+     */
+    @Override
+    public void index(Product entity) {
+        if (schema.isAvailable()) {
+            repository.updateSearchVector(entity.getId(), entity.getName(), entity.getContent());
+        }
+    }
+
+    /**
+     * Nothing to do, the search vector is deleted by the database along with the row.
+     */
+    @Override
+    public void deleteFromIndexById(String id) {}
+
+    /**
+     * Keeps the words, phrases and exclusions of a Lucene query string, the rest of its syntax is dropped.
+     */
+    static String toWebSearch(String query) {
+        String webSearch = FIELD_PREFIX.matcher(query).replaceAll(" ");
+        webSearch = MODIFIER.matcher(webSearch).replaceAll(" ");
+        webSearch = SYNTAX.matcher(webSearch).replaceAll(" ");
+        webSearch = NOT.matcher(webSearch).replaceAll("-");
+        webSearch = AND.matcher(webSearch).replaceAll(" ");
+        return webSearch.trim().replaceAll("\\s+", " ");
+    }
+
+    private Map<String, List<FacetedPage.Bucket>> buckets(String webSearch, List<ProductFacet> facets) {
+        Map<String, List<FacetedPage.Bucket>> buckets = new LinkedHashMap<>();
+        for (ProductFacet facet : facets) {
+            if (facet.isDateHistogram()) {
+                Map<Instant, Long> counts = repository.countMatchesByDate(
+                    webSearch,
+                    DATE_COLUMNS.get(facet.name()),
+                    facet.interval().jsonValue()
+                );
+                buckets.put(facet.name(), counts.entrySet().stream().map(e -> new FacetedPage.Bucket(e.getKey().toString(), e.getValue())).toList());
+            } else {
+                Map<String, Long> counts = repository.countMatchesByValue(webSearch, TERMS_COLUMNS.get(facet.name()), facet.size());
+                buckets.put(facet.name(), counts.entrySet().stream().map(e -> new FacetedPage.Bucket(e.getKey(), e.getValue())).toList());
+            }
+        }
+        return buckets;
+    }
+
+    /**
+     * Loads the products in the order of the matches, from the second level cache when possible and in a single query
+     * otherwise.
+     */
+    private List<Product> hydrate(List<Match> matches) {
+        List<String> ids = matches.stream().map(Match::id).toList();
+        Session session = entityManager.unwrap(Session.class);
+        @SuppressWarnings("unchecked")
+        RootGraph<Product> withContent = (RootGraph<Product>) session.getEntityGraph(Product.WITH_CONTENT);
+        return session.byMultipleIds(Product.class).with(withContent, GraphSemantic.FETCH).multiLoad(ids).stream().filter(Objects::nonNull).toList();
+    }
+}
@@ -0,0 +1,87 @@
+package com.vssoft.vspace.repository.search;
+
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
+import co.elastic.clients.elasticsearch._types.aggregations.CalendarInterval;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A facet of a product search: the number of matching products per bucket of a field.
+ *
+ * @param name the name of the facet, which is the name of the field as exposed by the API.
+ * @param interval the bucket width of a date facet, {@code null} for a terms facet.
+ * @param size the maximum number of buckets of a terms facet.
+ */
+public record ProductFacet(String name, CalendarInterval interval, int size) {
+
+    public static final int DEFAULT_TERMS_SIZE = 10;
+
+    /**
+     * Date fields, bucketed by calendar interval.
+     */
+    private static final Map<String, String> DATE_FIELDS = Map.of("createdDate", "createdDate", "updatedDate", "updatedDate");
+
+    /**
+     * Keyword fields, bucketed by value.
+     */
+    private static final Map<String, String> TERMS_FIELDS = Map.of("name", "name.keyword");
+
+    /**
+     * Intervals finer than a day would produce thousands of buckets over the life of the index.
+     */
+    private static final Map<String, CalendarInterval> INTERVALS = Map.of(
+        "day",
+        CalendarInterval.Day,
+        "week",
+        CalendarInterval.Week,
+        "month",
+        CalendarInterval.Month,
+        "quarter",
+        CalendarInterval.Quarter,
+        "year",
+        CalendarInterval.Year
+    );
+
+    /**
+     * Parses a facet from its API form: {@code field}, {@code dateField:interval} or {@code keywordField:size}.
+     *
+     * @throws IllegalArgumentException if the field is not facetable or the parameter is invalid.
+     */
+    public static ProductFacet parse(String spec, int maxTermsSize) {
+        int separator = spec.indexOf(':');
+        String name = separator < 0 ? spec : spec.substring(0, separator);
+        String parameter = separator < 0 ? null : spec.substring(separator + 1);
+        if (DATE_FIELDS.containsKey(name)) {
+            CalendarInterval interval = parameter == null ? CalendarInterval.Month : INTERVALS.get(parameter.toLowerCase(Locale.ROOT));
+            if (interval == null) {
+                throw new IllegalArgumentException("Unsupported interval " + parameter + ", expected one of " + INTERVALS.keySet());
+            }
+            return new ProductFacet(name, interval, 0);
+        }
+        if (TERMS_FIELDS.containsKey(name)) {
+            int size;
+            try {
+                size = parameter == null ? DEFAULT_TERMS_SIZE : Integer.parseInt(parameter);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid facet size " + parameter, e);
+            }
+            if (size < 1 || size > maxTermsSize) {
+                throw new IllegalArgumentException("Facet size must be between 1 and " + maxTermsSize);
+            }
+            return new ProductFacet(name, null, size);
+        }
+        throw new IllegalArgumentException("Cannot facet on " + name);
+    }
+
+    public boolean isDateHistogram() {
+        return interval != null;
+    }
+
+    Aggregation toAggregation() {
+        if (isDateHistogram()) {
+            return Aggregation.of(a -> a.dateHistogram(h -> h.field(DATE_FIELDS.get(name)).calendarInterval(interval).minDocCount(1)));
+        }
+        return Aggregation.of(a -> a.terms(t -> t.field(TERMS_FIELDS.get(name)).size(size)));
+    }
+}
@@ -0,0 +1,44 @@
+package com.vssoft.vspace.repository.search;
+
+import com.vssoft.vspace.domain.Product;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * The product searches, served by Elasticsearch through {@link ProductSearchRepository}, by the full-text index of
+ * the database or by a local Lucene index, depending on {@code vspace.search.engine}.
+ */
+public interface ProductSearchEngine {
+    Page<Product> search(String query, Pageable pageable);
+
+    /**
+     * Searches for the products matching the query and computes the given facets over all of them, in one request.
+     */
+    FacetedPage<Product> search(String query, Pageable pageable, List<ProductFacet> facets);
+
+    /**
+     * Computes the given facets over the products matching the query, without fetching any of them.
+     *
+     * @return the facets, along with an empty page holding the number of matches.
+     */
+    FacetedPage<Product> facets(String query, List<ProductFacet> facets);
+
+    /**
+     * Finds the products whose name matches the text typed so far, each word of it as a prefix.
+     *
+     * @return products with only their id and name loaded, best matches first.
+     */
+    List<Product> suggest(String prefix, int size);
+
+    /**
+     * Makes the saved product searchable, possibly asynchronously.
+     */
+    void index(Product entity);
+
+    /**
+     * Makes the deleted product unsearchable, possibly asynchronously.
+     */
+    void deleteFromIndexById(String id);
+}
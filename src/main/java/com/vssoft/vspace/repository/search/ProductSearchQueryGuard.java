@@ -0,0 +1,123 @@
+package com.vssoft.vspace.repository.search;
+
+import co.elastic.clients.elasticsearch._types.query_dsl.QueryStringQuery;
+import com.vssoft.vspace.config.VSpaceProperties;
+import com.vssoft.vspace.web.rest.errors.ExpensiveQueryException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchTemplate;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.client.elc.NativeQueryBuilder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounds the cost of the product searches sent to Elasticsearch.
+ * <p>
+ * Query strings are analyzed before being sent, see {@link QueryStringAnalyzer}, and every search carries a server
+ * side timeout. The {@code terminate_after} budget is not exposed by Spring Data queries, so searches go through a
+ * template whose client adds it to every request. Faceted searches do not, the budget would truncate their counts.
+ */
+@Component
+class ProductSearchQueryGuard implements MeterBinder {
+
+    private final Logger log = LoggerFactory.getLogger(ProductSearchQueryGuard.class);
+
+    private final QueryStringAnalyzer analyzer;
+    private final Duration timeout;
+    private final int terminateAfter;
+    private final int fuzzyMaxExpansions;
+    private final Map<QueryStringAnalyzer.Construct, LongAdder> rejected = new EnumMap<>(QueryStringAnalyzer.Construct.class);
+    private final Map<QueryStringAnalyzer.Construct, LongAdder> rewritten = new EnumMap<>(QueryStringAnalyzer.Construct.class);
+
+    ProductSearchQueryGuard(VSpaceProperties properties) {
+        VSpaceProperties.Search.QueryGuard config = properties.getSearch().getQueryGuard();
+        this.analyzer =
+            new QueryStringAnalyzer(
+                config.getMaxDepth(),
+                config.getMaxClauses(),
+                config.getMaxFuzzyTerms(),
+                config.getMinFuzzyTermLength(),
+                config.isRewriteLeadingWildcards(),
+                config.isAllowRegex()
+            );
+        this.timeout = Duration.ofMillis(config.getTimeoutMillis());
+        this.terminateAfter = config.getTerminateAfter();
+        this.fuzzyMaxExpansions = config.getFuzzyMaxExpansions();
+        for (QueryStringAnalyzer.Construct construct : QueryStringAnalyzer.Construct.values()) {
+            rejected.put(construct, new LongAdder());
+            rewritten.put(construct, new LongAdder());
+        }
+    }
+
+    /**
+     * @return the query string to send in place of the given one.
+     * @throws ExpensiveQueryException if the query cannot be made cheap enough.
+     */
+    String check(String query) {
+        QueryStringAnalyzer.Result result = analyzer.analyze(query);
+        if (result.isRejected()) {
+            rejected.get(result.rejected()).increment();
+            log.debug("Rejected query {}: {}", query, result.rejected());
+            throw new ExpensiveQueryException(name(result.rejected()));
+        }
+        if (!result.rewritten().isEmpty()) {
+            result.rewritten().forEach(construct -> rewritten.get(construct).increment());
+            log.debug("Rewrote query {} to {}", query, result.query());
+        }
+        return result.query();
+    }
+
+    /**
+     * @return a builder of query string query for the given, already checked, query string, with the server side
+     * timeout set.
+     */
+    NativeQueryBuilder queryBuilder(String checkedQuery) {
+        return NativeQuery
+            .builder()
+            .withQuery(QueryStringQuery.of(qs -> qs.query(checkedQuery).fuzzyMaxExpansions(fuzzyMaxExpansions))._toQuery())
+            .withTimeout(timeout);
+    }
+
+    /**
+     * @return a template sharing the connections of the given one, whose searches stop collecting documents on each
+     * shard once the budget is reached.
+     */
+    ElasticsearchTemplate budgeted(ElasticsearchTemplate template) {
+        if (terminateAfter <= 0) {
+            return template;
+        }
+        return new ElasticsearchTemplate(
+            template.execute(client -> client.withTransportOptions(options -> options.setParameter("terminate_after", String.valueOf(terminateAfter)))),
+            template.getElasticsearchConverter()
+        );
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (QueryStringAnalyzer.Construct construct : QueryStringAnalyzer.Construct.values()) {
+            FunctionCounter
+                .builder("search.query.rejected", rejected.get(construct), LongAdder::sum)
+                .tag("construct", name(construct))
+                .description("Product searches rejected as too expensive")
+                .register(registry);
+            FunctionCounter
+                .builder("search.query.rewritten", rewritten.get(construct), LongAdder::sum)
+                .tag("construct", name(construct))
+                .description("Product searches whose query string was rewritten to be cheaper")
+                .register(registry);
+        }
+    }
+
+    private static String name(QueryStringAnalyzer.Construct construct) {
+        return construct.name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+}
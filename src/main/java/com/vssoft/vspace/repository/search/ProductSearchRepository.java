@@ -1,21 +1,35 @@
 package com.vssoft.vspace.repository.search;
 
-import co.elastic.clients.elasticsearch._types.query_dsl.QueryStringQuery;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
+import co.elastic.clients.elasticsearch._types.query_dsl.TextQueryType;
 import com.vssoft.vspace.domain.Product;
 import com.vssoft.vspace.repository.ProductRepository;
-import lombok.RequiredArgsConstructor;
+import com.vssoft.vspace.repository.search.ElasticsearchClientSupport.Operation;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.graph.GraphSemantic;
+import org.hibernate.graph.RootGraph;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregation;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregations;
 import org.springframework.data.elasticsearch.client.elc.ElasticsearchTemplate;
 import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.client.elc.NativeQueryBuilder;
 import org.springframework.data.elasticsearch.core.SearchHit;
 import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilter;
 import org.springframework.data.elasticsearch.core.query.Query;
 import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
 import org.springframework.scheduling.annotation.Async;
 
+import java.time.Instant;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 
 public interface ProductSearchRepository extends ElasticsearchRepository<Product, String>, ProductSearchRepositoryInternal {}
 
@@ -24,6 +38,25 @@ interface ProductSearchRepositoryInternal {
 
     Page<Product> search(Query query);
 
+    /**
+     * Searches for the products matching the query and computes the given facets over all of them, in one request.
+     */
+    FacetedPage<Product> search(String query, Pageable pageable, List<ProductFacet> facets);
+
+    /**
+     * Computes the given facets over the products matching the query, without fetching any of them.
+     *
+     * @return the facets, along with an empty page holding the number of matches.
+     */
+    FacetedPage<Product> facets(String query, List<ProductFacet> facets);
+
+    /**
+     * Finds the products whose name matches the text typed so far, each word of it as a prefix.
+     *
+     * @return products with only their id and name loaded, best matches first.
+     */
+    List<Product> suggest(String prefix, int size);
+
     @Async
     void index(Product entity);
 
@@ -31,32 +64,148 @@ interface ProductSearchRepositoryInternal {
     void deleteFromIndexById(String id);
 }
 
-@RequiredArgsConstructor
 class ProductSearchRepositoryInternalImpl implements ProductSearchRepositoryInternal {
 
-    private final ElasticsearchTemplate elasticsearchTemplate;
+    private static final List<String> SUGGEST_FIELDS = List.of("name.suggest", "name.suggest._2gram", "name.suggest._3gram");
+
+    private final ElasticsearchClientSupport clientSupport;
+    private final ElasticsearchTemplate budgetedTemplate;
     private final ProductRepository repository;
+    private final ProductSearchResultCache resultCache;
+    private final ProductSearchQueryGuard queryGuard;
+    private final EntityManager entityManager;
+
+    ProductSearchRepositoryInternalImpl(
+        ElasticsearchClientSupport clientSupport,
+        ProductRepository repository,
+        ProductSearchResultCache resultCache,
+        ProductSearchQueryGuard queryGuard,
+        EntityManager entityManager
+    ) {
+        this.clientSupport = clientSupport;
+        this.budgetedTemplate = queryGuard.budgeted(clientSupport.template(Operation.SEARCH));
+        this.repository = repository;
+        this.resultCache = resultCache;
+        this.queryGuard = queryGuard;
+        this.entityManager = entityManager;
+    }
 
     @Override
     public Page<Product> search(String query, Pageable pageable) {
-        NativeQuery nativeQuery = new NativeQuery(QueryStringQuery.of(qs -> qs.query(query))._toQuery());
-        return search(nativeQuery.setPageable(pageable));
+        String checkedQuery = queryGuard.check(query);
+        Optional<ProductSearchResultCache.Key> key = resultCache.key(checkedQuery, pageable);
+        Optional<ProductSearchResultCache.Result> cached = key.flatMap(resultCache::get);
+        if (cached.isPresent()) {
+            return new PageImpl<>(hydrate(cached.get().ids()), pageable, cached.get().totalHits());
+        }
+
+        Page<Product> page = search(queryGuard.queryBuilder(checkedQuery).withPageable(pageable).build());
+        // The key holds the generation read before searching, so a result racing with a write is not served once the
+        // write is searchable
+        key.ifPresent(k -> resultCache.put(k, new ProductSearchResultCache.Result(page.map(Product::getId).getContent(), page.getTotalElements())));
+        return page;
     }
 
     @Override
     public Page<Product> search(Query query) {
-        SearchHits<Product> searchHits = elasticsearchTemplate.search(query, Product.class);
+        SearchHits<Product> searchHits = clientSupport.timed(Operation.SEARCH, () -> budgetedTemplate.search(query, Product.class));
         List<Product> hits = searchHits.map(SearchHit::getContent).stream().toList();
         return new PageImpl<>(hits, query.getPageable(), searchHits.getTotalHits());
     }
 
+    @Override
+    public FacetedPage<Product> search(String query, Pageable pageable, List<ProductFacet> facets) {
+        NativeQuery nativeQuery = facetQuery(query, facets).withPageable(pageable).build();
+        SearchHits<Product> searchHits = clientSupport.timed(Operation.SEARCH, () -> clientSupport.template(Operation.SEARCH).search(nativeQuery, Product.class));
+        List<Product> hits = searchHits.map(SearchHit::getContent).stream().toList();
+        return new FacetedPage<>(new PageImpl<>(hits, pageable, searchHits.getTotalHits()), buckets(searchHits, facets));
+    }
+
+    @Override
+    public FacetedPage<Product> facets(String query, List<ProductFacet> facets) {
+        // Without hits there is nothing to score nor fetch, and the shards can answer from their request cache
+        NativeQuery nativeQuery = facetQuery(query, facets).withMaxResults(0).withRequestCache(true).build();
+        SearchHits<Product> searchHits = clientSupport.timed(Operation.SEARCH, () -> clientSupport.template(Operation.SEARCH).search(nativeQuery, Product.class));
+        return new FacetedPage<>(new PageImpl<>(List.of(), Pageable.unpaged(), searchHits.getTotalHits()), buckets(searchHits, facets));
+    }
+
+    @Override
+    public List<Product> suggest(String prefix, int size) {
+        NativeQuery query = NativeQuery
+            .builder()
+            .withQuery(q -> q.multiMatch(mm -> mm.query(prefix).type(TextQueryType.BoolPrefix).fields(SUGGEST_FIELDS)))
+            .withSourceFilter(new FetchSourceFilter(new String[] { "id", "name" }, null))
+            .withMaxResults(size)
+            .withTrackTotalHits(false)
+            .build();
+        SearchHits<Product> searchHits = clientSupport.timed(Operation.SEARCH, () -> clientSupport.template(Operation.SEARCH).search(query, Product.class));
+        return searchHits.map(SearchHit::getContent).stream().toList();
+    }
+
+    /**
+     * Writes wait for the refresh making them searchable, see {@link ElasticsearchClientSupport}, before invalidating
+     * the cached results.
+     */
     @Override
     public void index(Product entity) {
-        repository.findById(entity.getId()).ifPresent(elasticsearchTemplate::save);
+        repository
+            .findById(entity.getId())
+            .ifPresent(product -> clientSupport.timed(Operation.INDEX, () -> clientSupport.template(Operation.INDEX).save(product)));
+        resultCache.invalidate();
     }
 
     @Override
     public void deleteFromIndexById(String id) {
-        elasticsearchTemplate.delete(id, Product.class);
+        clientSupport.timed(Operation.DELETE, () -> clientSupport.template(Operation.DELETE).delete(id, Product.class));
+        resultCache.invalidate();
+    }
+
+    /**
+     * Faceted searches are sent without the {@code terminate_after} budget: it would stop the aggregations along with
+     * the hits, and their counts would be truncated without telling.
+     */
+    private NativeQueryBuilder facetQuery(String query, List<ProductFacet> facets) {
+        NativeQueryBuilder builder = queryGuard.queryBuilder(queryGuard.check(query));
+        facets.forEach(facet -> builder.withAggregation(facet.name(), facet.toAggregation()));
+        return builder;
+    }
+
+    private static Map<String, List<FacetedPage.Bucket>> buckets(SearchHits<Product> searchHits, List<ProductFacet> facets) {
+        Map<String, List<FacetedPage.Bucket>> buckets = new LinkedHashMap<>();
+        if (!(searchHits.getAggregations() instanceof ElasticsearchAggregations aggregations)) {
+            return buckets;
+        }
+        for (ProductFacet facet : facets) {
+            ElasticsearchAggregation aggregation = aggregations.get(facet.name());
+            if (aggregation == null) {
+                continue;
+            }
+            buckets.put(facet.name(), toBuckets(facet, aggregation.aggregation().getAggregate()));
+        }
+        return buckets;
+    }
+
+    private static List<FacetedPage.Bucket> toBuckets(ProductFacet facet, Aggregate aggregate) {
+        if (facet.isDateHistogram()) {
+            return aggregate
+                .dateHistogram()
+                .buckets()
+                .array()
+                .stream()
+                .map(bucket -> new FacetedPage.Bucket(Instant.ofEpochMilli(bucket.key()).toString(), bucket.docCount()))
+                .toList();
+        }
+        return aggregate.sterms().buckets().array().stream().map(bucket -> new FacetedPage.Bucket(bucket.key().stringValue(), bucket.docCount())).toList();
+    }
+
+    /**
+     * Loads the products in the given order, from the second level cache when possible and in a single query otherwise.
+     * Products deleted since the result was cached are skipped.
+     */
+    private List<Product> hydrate(List<String> ids) {
+        Session session = entityManager.unwrap(Session.class);
+        @SuppressWarnings("unchecked")
+        RootGraph<Product> withContent = (RootGraph<Product>) session.getEntityGraph(Product.WITH_CONTENT);
+        return session.byMultipleIds(Product.class).with(withContent, GraphSemantic.FETCH).multiLoad(ids).stream().filter(Objects::nonNull).toList();
     }
 }
@@ -0,0 +1,96 @@
+package com.vssoft.vspace.repository.search;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.vssoft.vspace.config.VSpaceProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Short-lived cache of product search results, keyed by normalized query string and page request.
+ * <p>
+ * Only the ids of the hits and the total are kept, products are hydrated from the entity cache. Every index write
+ * bumps a generation counter which is part of the key, once the write is committed and searchable: results computed
+ * before are unreachable from then on, and the cache serves nothing older than the index itself. Until then, as the
+ * write is indexed asynchronously, the results of the index do not show it either way. The generation is local to
+ * this node: on other nodes, the time to live bounds how long a write can go unnoticed.
+ */
+@Component
+class ProductSearchResultCache implements MeterBinder {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final AtomicLong generation = new AtomicLong();
+    private final boolean enabled;
+    private final Cache<Key, Result> results;
+
+    ProductSearchResultCache(VSpaceProperties properties) {
+        VSpaceProperties.Search.ResultCache config = properties.getSearch().getResultCache();
+        this.enabled = config.isEnabled();
+        this.results = Caffeine
+            .newBuilder()
+            .maximumSize(config.getMaxEntries())
+            .expireAfterWrite(Duration.ofSeconds(config.getTimeToLiveSeconds()))
+            .recordStats()
+            .build();
+    }
+
+    /**
+     * @return the key of the given search, or empty if it should not be cached.
+     */
+    Optional<Key> key(String query, Pageable pageable) {
+        if (!enabled || pageable.isUnpaged()) {
+            return Optional.empty();
+        }
+        String normalizedQuery = WHITESPACE.matcher(query.strip()).replaceAll(" ");
+        return Optional.of(new Key(generation.get(), normalizedQuery, pageable.getPageNumber(), pageable.getPageSize(), pageable.getSort()));
+    }
+
+    Optional<Result> get(Key key) {
+        return Optional.ofNullable(results.getIfPresent(key));
+    }
+
+    void put(Key key, Result result) {
+        results.put(key, result);
+    }
+
+    /**
+     * Makes every result cached so far unreachable, to be called after each write to the index, once searchable.
+     */
+    void invalidate() {
+        generation.incrementAndGet();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, results, "productSearchResults");
+        FunctionCounter
+            .builder("search.result.cache.saved.requests", results, cache -> cache.stats().hitCount())
+            .description("Elasticsearch search requests answered from the result cache")
+            .register(registry);
+        Gauge
+            .builder("search.result.cache.hit.ratio", results, cache -> cache.stats().hitRate())
+            .description("Share of product searches answered from the result cache")
+            .register(registry);
+        Gauge
+            .builder("search.result.cache.generation", generation, AtomicLong::get)
+            .description("Number of index writes seen by the result cache")
+            .register(registry);
+    }
+
+    record Key(long generation, String query, int page, int size, Sort sort) {}
+
+    record Result(List<String> ids, long totalHits) {}
+}
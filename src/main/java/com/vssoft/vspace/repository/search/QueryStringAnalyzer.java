@@ -0,0 +1,208 @@
+package com.vssoft.vspace.repository.search;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Single pass scanner of the Lucene query string syntax, which finds the constructs that are expensive to run before
+ * the query reaches Elasticsearch.
+ * <p>
+ * Leading wildcards are stripped, since they force a scan of every term of the field. Fuzzy operators beyond the
+ * budget, or on terms too short for fuzziness to be selective, are dropped. Regular expressions, deep nesting and
+ * queries with too many clauses cannot be rewritten without changing their meaning and are rejected. The scanner only
+ * tokenizes what it needs to: anything it does not understand is copied as is and left for Elasticsearch to parse.
+ */
+final class QueryStringAnalyzer {
+
+    enum Construct {
+        LEADING_WILDCARD,
+        FUZZY,
+        REGEX,
+        NESTING,
+        CLAUSES,
+    }
+
+    /**
+     * @param query the query to send, rewritten if needed.
+     * @param rewritten the constructs that were rewritten.
+     * @param rejected the construct that prevents running the query, or {@code null} if it can run.
+     */
+    record Result(String query, Set<Construct> rewritten, Construct rejected) {
+        boolean isRejected() {
+            return rejected != null;
+        }
+    }
+
+    private final int maxDepth;
+    private final int maxClauses;
+    private final int maxFuzzyTerms;
+    private final int minFuzzyTermLength;
+    private final boolean rewriteLeadingWildcards;
+    private final boolean allowRegex;
+
+    QueryStringAnalyzer(
+        int maxDepth,
+        int maxClauses,
+        int maxFuzzyTerms,
+        int minFuzzyTermLength,
+        boolean rewriteLeadingWildcards,
+        boolean allowRegex
+    ) {
+        this.maxDepth = maxDepth;
+        this.maxClauses = maxClauses;
+        this.maxFuzzyTerms = maxFuzzyTerms;
+        this.minFuzzyTermLength = minFuzzyTermLength;
+        this.rewriteLeadingWildcards = rewriteLeadingWildcards;
+        this.allowRegex = allowRegex;
+    }
+
+    Result analyze(String query) {
+        Set<Construct> rewritten = EnumSet.noneOf(Construct.class);
+        StringBuilder out = new StringBuilder(query.length());
+        int depth = 0;
+        int clauses = 0;
+        int fuzzyTerms = 0;
+        int length = query.length();
+        int i = 0;
+        while (i < length) {
+            char c = query.charAt(i);
+            if (Character.isWhitespace(c) || c == '+' || c == '-' || c == '!') {
+                out.append(c);
+                i++;
+            } else if (c == '(') {
+                if (++depth > maxDepth) {
+                    return rejected(query, rewritten, Construct.NESTING);
+                }
+                out.append(c);
+                i++;
+            } else if (c == ')') {
+                depth = Math.max(0, depth - 1);
+                out.append(c);
+                i++;
+            } else if (c == '^' || c == '~') {
+                // Boost, or proximity after a phrase
+                int end = skipNumber(query, i + 1);
+                out.append(query, i, end);
+                i = end;
+            } else if (c == '"' || c == '[' || c == '{' || c == '/') {
+                if (c == '/' && !allowRegex) {
+                    return rejected(query, rewritten, Construct.REGEX);
+                }
+                if (++clauses > maxClauses) {
+                    return rejected(query, rewritten, Construct.CLAUSES);
+                }
+                int end = skipDelimited(query, i, c == '[' || c == '{' ? "]}" : String.valueOf(c));
+                out.append(query, i, end);
+                i = end;
+            } else {
+                int end = skipTerm(query, i);
+                if (end == i) {
+                    // A stray ':', left for Elasticsearch to report
+                    out.append(c);
+                    i++;
+                    continue;
+                }
+                if (end < length && query.charAt(end) == ':') {
+                    out.append(query, i, end + 1);
+                    i = end + 1;
+                    continue;
+                }
+                String term = query.substring(i, end);
+                i = end;
+                if (isOperator(term)) {
+                    out.append(term);
+                    continue;
+                }
+                if (++clauses > maxClauses) {
+                    return rejected(query, rewritten, Construct.CLAUSES);
+                }
+                if (hasLeadingWildcard(term)) {
+                    if (!rewriteLeadingWildcards) {
+                        return rejected(query, rewritten, Construct.LEADING_WILDCARD);
+                    }
+                    term = stripLeadingWildcards(term);
+                    rewritten.add(Construct.LEADING_WILDCARD);
+                }
+                out.append(term);
+                if (i < length && query.charAt(i) == '~') {
+                    int fuzzyEnd = skipNumber(query, i + 1);
+                    if (++fuzzyTerms > maxFuzzyTerms || term.length() < minFuzzyTermLength) {
+                        rewritten.add(Construct.FUZZY);
+                    } else {
+                        out.append(query, i, fuzzyEnd);
+                    }
+                    i = fuzzyEnd;
+                }
+            }
+        }
+        return new Result(out.toString(), rewritten, null);
+    }
+
+    private static Result rejected(String query, Set<Construct> rewritten, Construct construct) {
+        return new Result(query, rewritten, construct);
+    }
+
+    private static int skipNumber(String query, int from) {
+        int i = from;
+        while (i < query.length() && (Character.isDigit(query.charAt(i)) || query.charAt(i) == '.')) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * @return the index after the closing delimiter, or the end of the query if it is not closed.
+     */
+    private static int skipDelimited(String query, int from, String closing) {
+        int i = from + 1;
+        while (i < query.length()) {
+            char c = query.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (closing.indexOf(c) >= 0) {
+                return i + 1;
+            } else {
+                i++;
+            }
+        }
+        return query.length();
+    }
+
+    private static int skipTerm(String query, int from) {
+        int i = from;
+        while (i < query.length()) {
+            char c = query.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (Character.isWhitespace(c) || "()\"[]{}/^~:".indexOf(c) >= 0) {
+                break;
+            } else {
+                i++;
+            }
+        }
+        return Math.min(i, query.length());
+    }
+
+    private static boolean isOperator(String term) {
+        return switch (term) {
+            case "AND", "OR", "NOT", "&&", "||" -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * A lone {@code *} is kept: Elasticsearch runs it as an exists or match all query, not as a wildcard.
+     */
+    private static boolean hasLeadingWildcard(String term) {
+        char first = term.charAt(0);
+        return (first == '*' || first == '?') && !term.equals("*");
+    }
+
+    private static String stripLeadingWildcards(String term) {
+        int i = 0;
+        while (i < term.length() && (term.charAt(i) == '*' || term.charAt(i) == '?')) {
+            i++;
+        }
+        return i == term.length() ? "*" : term.substring(i);
+    }
+}
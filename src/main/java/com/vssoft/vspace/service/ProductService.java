@@ -1,9 +1,15 @@
 package com.vssoft.vspace.service;
 
+import com.vssoft.vspace.repository.search.ProductFacet;
+import com.vssoft.vspace.service.dto.ProductChangeCursor;
+import com.vssoft.vspace.service.dto.ProductChangesDTO;
 import com.vssoft.vspace.service.dto.ProductDTO;
+import com.vssoft.vspace.service.dto.ProductSearchResultDTO;
+import com.vssoft.vspace.service.dto.ProductSuggestionDTO;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface ProductService {
@@ -47,6 +53,20 @@ public interface ProductService {
      */
     Optional<ProductDTO> findOne(String id);
 
+    /**
+     * Get the changes of the products after a position of the change feed: the products written and deleted since.
+     * Changes younger than {@code vspace.change-feed.settle-millis} are left for later, since transactions which
+     * started before them may still commit older ones.
+     *
+     * @param since the position of the last change seen.
+     * @param limit the maximum number of changes.
+     * @return the changes, oldest first, and the position to resume from: that of the last one, or the date up to
+     * which all the changes were read when caught up.
+     * @throws com.vssoft.vspace.web.rest.errors.ChangeFeedTokenExpiredException if the position is older than the
+     * deletions kept, by the clock of the database.
+     */
+    ProductChangesDTO findChanges(ProductChangeCursor since, int limit);
+
     /**
      * Delete the "id" product.
      *
@@ -63,4 +83,32 @@ public interface ProductService {
      * @return the list of entities.
      */
     Page<ProductDTO> search(String query, Pageable pageable);
+
+    /**
+     * Search for the products corresponding to the query, along with facets computed over all of them.
+     *
+     * @param query the query of the search.
+     * @param pageable the pagination information.
+     * @param facets the facets to compute.
+     * @return the page of entities and the facets.
+     */
+    ProductSearchResultDTO search(String query, Pageable pageable, List<ProductFacet> facets);
+
+    /**
+     * Compute facets over the products corresponding to the query, without fetching any of them.
+     *
+     * @param query the query of the search.
+     * @param facets the facets to compute.
+     * @return the facets, and the number of matching products.
+     */
+    ProductSearchResultDTO facets(String query, List<ProductFacet> facets);
+
+    /**
+     * Suggest products whose name matches the text typed so far.
+     *
+     * @param prefix the text typed so far.
+     * @param size the maximum number of suggestions.
+     * @return the ids and names of the matching products, best matches first.
+     */
+    List<ProductSuggestionDTO> suggest(String prefix, int size);
 }
@@ -0,0 +1,15 @@
+package com.vssoft.vspace.service.dto;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * A bucket of a search facet: a field value, or the start of a date interval, and the number of matches in it.
+ */
+@Data
+public class FacetBucketDTO implements Serializable {
+    private String key;
+
+    private long count;
+}
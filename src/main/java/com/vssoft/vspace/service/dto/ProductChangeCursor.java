@@ -0,0 +1,39 @@
+package com.vssoft.vspace.service.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * A position in the {@link com.vssoft.vspace.domain.Product} change feed: the date of a change and the id of the
+ * product, which orders the changes made at the same date. Handed to consumers as an opaque token.
+ *
+ * @param changedDate the date of the last change seen.
+ * @param id the id of the product of the last change seen.
+ */
+public record ProductChangeCursor(Instant changedDate, String id) {
+    /**
+     * The position before any change.
+     */
+    public static final ProductChangeCursor START = new ProductChangeCursor(Instant.EPOCH, "");
+
+    public String encode() {
+        String position = changedDate.getEpochSecond() + ":" + changedDate.getNano() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token was not made by {@link #encode()}.
+     */
+    public static ProductChangeCursor decode(String token) {
+        String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":", 3);
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Invalid change feed token: " + token);
+        }
+        try {
+            return new ProductChangeCursor(Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1])), parts[2]);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid change feed token: " + token, e);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.vssoft.vspace.service.dto;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * A change of a {@link com.vssoft.vspace.domain.Product}, as returned by the change feed: the product as it was
+ * written, or a tombstone when it was deleted.
+ */
+@Data
+public class ProductChangeDTO implements Serializable {
+
+    public enum Type {
+        UPSERT,
+        DELETE,
+    }
+
+    private Type type;
+
+    private String id;
+
+    private Instant changedDate;
+
+    /**
+     * The product, for upserts only.
+     */
+    private ProductDTO product;
+}
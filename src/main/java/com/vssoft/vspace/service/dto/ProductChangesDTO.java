@@ -0,0 +1,24 @@
+package com.vssoft.vspace.service.dto;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * A batch of the {@link com.vssoft.vspace.domain.Product} change feed, in the order the changes were made.
+ */
+@Data
+public class ProductChangesDTO implements Serializable {
+    private List<ProductChangeDTO> changes;
+
+    /**
+     * The token to ask for the changes after these ones with.
+     */
+    private String next;
+
+    /**
+     * Whether there were no more changes to return when the batch was read.
+     */
+    private boolean caughtUp;
+}
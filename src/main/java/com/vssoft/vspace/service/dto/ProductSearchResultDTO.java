@@ -0,0 +1,19 @@
+package com.vssoft.vspace.service.dto;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A page of {@link com.vssoft.vspace.domain.Product} search hits along with the facets computed over all the matches.
+ */
+@Data
+public class ProductSearchResultDTO implements Serializable {
+    private List<ProductDTO> products;
+
+    private long totalHits;
+
+    private Map<String, List<FacetBucketDTO>> facets;
+}
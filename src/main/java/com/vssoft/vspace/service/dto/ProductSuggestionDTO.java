@@ -0,0 +1,15 @@
+package com.vssoft.vspace.service.dto;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * An autocomplete suggestion for the {@link com.vssoft.vspace.domain.Product} entity.
+ */
+@Data
+public class ProductSuggestionDTO implements Serializable {
+    private String id;
+
+    private String name;
+}
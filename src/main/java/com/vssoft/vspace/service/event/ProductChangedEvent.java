@@ -0,0 +1,16 @@
+package com.vssoft.vspace.service.event;
+
+/**
+ * Published by {@code ProductService} on each write of a product, within its transaction. Listeners which must only
+ * see committed changes use {@code @TransactionalEventListener}.
+ *
+ * @param id the id of the product.
+ * @param type what happened to it.
+ */
+public record ProductChangedEvent(String id, Type type) {
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+    }
+}
@@ -0,0 +1,415 @@
+package com.vssoft.vspace.service.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vssoft.vspace.config.VSpaceProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes the committed writes of products to subscribers as server-sent events named {@code product}, whose data is
+ * the {@link ProductChangedEvent}.
+ * <p>
+ * Subscriptions are asynchronous requests, which hold no thread while idle. Events are sent by a few threads shared by
+ * all the subscribers, from a bounded buffer per subscriber: a subscriber which is not keeping up only gets the last
+ * event of each product, and once too many products are pending, an {@code overflow} event telling it to reload them.
+ * Writes are non-blocking, a thread only writes to a subscriber while its connection can take more, so that slow
+ * clients never hold up the others: the drain resumes once the container tells that the connection can be written to.
+ * <p>
+ * With the {@code redis} fan-out, events go through a Redis topic, so that the subscribers of every node get the
+ * writes made on any of them.
+ */
+@Component
+@ConditionalOnProperty(prefix = "vspace.product-events", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ProductEventBroadcaster implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductEventBroadcaster.class);
+
+    private static final String TOPIC = "vspace:product-events";
+
+    private static final byte[] OVERFLOW_EVENT = "event:overflow\ndata:\n\n".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] HEARTBEAT = ":\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ObjectMapper objectMapper;
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final long timeoutMillis;
+    private final ExecutorService dispatcher;
+    private final ScheduledExecutorService heartbeats;
+    private final RTopic topic;
+    private final int listenerId;
+    private final Counter sent;
+    private final Counter coalesced;
+    private final Counter overflows;
+
+    @Autowired
+    public ProductEventBroadcaster(VSpaceProperties properties, ObjectMapper objectMapper, RedissonClient redissonClient, MeterRegistry registry) {
+        this(properties, objectMapper, redissonClient, registry, dispatcher(properties.getProductEvents().getDispatchThreads()));
+    }
+
+    ProductEventBroadcaster(
+        VSpaceProperties properties,
+        ObjectMapper objectMapper,
+        RedissonClient redissonClient,
+        MeterRegistry registry,
+        ExecutorService dispatcher
+    ) {
+        VSpaceProperties.ProductEvents config = properties.getProductEvents();
+        this.objectMapper = objectMapper;
+        this.bufferSize = config.getBufferSize();
+        this.maxSubscribers = config.getMaxSubscribers();
+        this.timeoutMillis = Duration.ofSeconds(config.getTimeoutSeconds()).toMillis();
+        this.dispatcher = dispatcher;
+        this.heartbeats =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "product-events-heartbeat");
+                thread.setDaemon(true);
+                return thread;
+            });
+        heartbeats.scheduleWithFixedDelay(this::heartbeat, config.getHeartbeatSeconds(), config.getHeartbeatSeconds(), TimeUnit.SECONDS);
+
+        this.sent = Counter.builder("product.events.sent").description("Product events sent to subscribers").register(registry);
+        this.coalesced = Counter
+            .builder("product.events.coalesced")
+            .description("Product events merged with a pending one of the same product, for subscribers not keeping up")
+            .register(registry);
+        this.overflows = Counter
+            .builder("product.events.overflows")
+            .description("Times a subscriber had too many pending events and was told to reload instead")
+            .register(registry);
+        Gauge.builder("product.events.subscribers", subscribers, Set::size).description("Subscribers to product events").register(registry);
+
+        if ("redis".equals(config.getFanOut())) {
+            this.topic = redissonClient.getTopic(TOPIC, StringCodec.INSTANCE);
+            this.listenerId = topic.addListener(String.class, (channel, message) -> decode(message).ifPresent(this::dispatch));
+        } else {
+            this.topic = null;
+            this.listenerId = 0;
+        }
+    }
+
+    private static ExecutorService dispatcher(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(
+            threads,
+            runnable -> {
+                Thread thread = new Thread(runnable, "product-events-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        );
+    }
+
+    /**
+     * Subscribes the request to the events of the products written from now on, as an asynchronous request whose
+     * response is the stream of events.
+     *
+     * @return whether the request was subscribed, {@code false} if there are too many subscribers already.
+     */
+    public boolean subscribe(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (subscribers.size() >= maxSubscribers) {
+            return false;
+        }
+        response.setContentType(MediaType.TEXT_EVENT_STREAM_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        AsyncContext asyncContext = request.startAsync(request, response);
+        asyncContext.setTimeout(timeoutMillis);
+        Subscriber subscriber = new Subscriber(asyncContext, response.getOutputStream());
+        asyncContext.addListener(subscriber);
+        subscribers.add(subscriber);
+        // The container tells when the headers can be sent, which starts the first drain
+        subscriber.out.setWriteListener(subscriber);
+        return true;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    void onProductChanged(ProductChangedEvent event) {
+        if (topic == null) {
+            dispatch(event);
+            return;
+        }
+        topic
+            .publishAsync(event.type() + ":" + event.id())
+            .whenComplete((receivers, e) -> {
+                if (e != null) {
+                    log.warn("Could not publish the {} event of product {} to the other nodes: {}", event.type(), event.id(), e.getMessage());
+                    dispatch(event);
+                }
+            });
+    }
+
+    private static Optional<ProductChangedEvent> decode(String message) {
+        int separator = message.indexOf(':');
+        try {
+            return Optional.of(new ProductChangedEvent(message.substring(separator + 1), ProductChangedEvent.Type.valueOf(message.substring(0, separator))));
+        } catch (RuntimeException e) {
+            log.warn("Ignoring invalid product event {}", message);
+            return Optional.empty();
+        }
+    }
+
+    private void dispatch(ProductChangedEvent event) {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.offer(event)) {
+                dispatcher.execute(subscriber::drain);
+            }
+        }
+    }
+
+    private void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.heartbeat()) {
+                dispatcher.execute(subscriber::drain);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (topic != null) {
+            topic.removeListener(listenerId);
+        }
+        heartbeats.shutdownNow();
+        dispatcher.shutdownNow();
+        subscribers.forEach(Subscriber::complete);
+    }
+
+    /**
+     * Merges an event into the pending one of the same product: a product created and then updated is still new to
+     * the subscriber.
+     */
+    static ProductChangedEvent.Type merge(ProductChangedEvent.Type pending, ProductChangedEvent.Type next) {
+        return pending == ProductChangedEvent.Type.CREATED && next == ProductChangedEvent.Type.UPDATED ? pending : next;
+    }
+
+    /**
+     * The events pending for a subscriber, sent by at most one thread at a time: the first event offered to an idle
+     * subscriber schedules a drain, which sends events until none is pending, or until the connection cannot take
+     * more, in which case the container schedules the next drain once it can.
+     */
+    private final class Subscriber implements WriteListener, AsyncListener {
+
+        private final AsyncContext asyncContext;
+        private final ServletOutputStream out;
+        private final Map<String, ProductChangedEvent.Type> pending = new LinkedHashMap<>();
+
+        /**
+         * The events taken from the pending ones and not written yet, only used by the draining thread.
+         */
+        private final Deque<byte[]> unsent = new ArrayDeque<>();
+
+        private boolean overflowed;
+        private boolean heartbeatDue;
+        // Until the container first tells that the response can be written
+        private boolean draining = true;
+        private boolean awaitingWritePossible = true;
+        private boolean closed;
+
+        private Subscriber(AsyncContext asyncContext, ServletOutputStream out) {
+            this.asyncContext = asyncContext;
+            this.out = out;
+        }
+
+        /**
+         * @return whether a drain has to be scheduled.
+         */
+        synchronized boolean offer(ProductChangedEvent event) {
+            if (closed) {
+                return false;
+            }
+            ProductChangedEvent.Type previous = pending.get(event.id());
+            if (previous != null) {
+                coalesced.increment();
+                pending.put(event.id(), merge(previous, event.type()));
+            } else if (pending.size() < bufferSize) {
+                pending.put(event.id(), event.type());
+            } else {
+                // The reload covers this event as well, which is committed already
+                overflows.increment();
+                pending.clear();
+                overflowed = true;
+            }
+            return schedule();
+        }
+
+        synchronized boolean heartbeat() {
+            if (closed) {
+                return false;
+            }
+            heartbeatDue = true;
+            return schedule();
+        }
+
+        private boolean schedule() {
+            if (draining) {
+                return false;
+            }
+            draining = true;
+            return true;
+        }
+
+        void drain() {
+            try {
+                while (true) {
+                    while (!unsent.isEmpty()) {
+                        if (!isReady()) {
+                            return;
+                        }
+                        out.write(unsent.poll());
+                    }
+                    if (!isReady()) {
+                        return;
+                    }
+                    out.flush();
+                    // Until what was flushed is written, the container holding it meanwhile
+                    if (!isReady()) {
+                        return;
+                    }
+                    synchronized (this) {
+                        if (closed || (pending.isEmpty() && !overflowed && !heartbeatDue)) {
+                            draining = false;
+                            return;
+                        }
+                        if (overflowed) {
+                            unsent.add(OVERFLOW_EVENT);
+                        }
+                        for (Map.Entry<String, ProductChangedEvent.Type> event : pending.entrySet()) {
+                            unsent.add(encode(new ProductChangedEvent(event.getKey(), event.getValue())));
+                        }
+                        if (heartbeatDue && unsent.isEmpty()) {
+                            unsent.add(HEARTBEAT);
+                        }
+                        pending.clear();
+                        overflowed = false;
+                        heartbeatDue = false;
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The client went away, or the subscription timed out meanwhile
+                close();
+            }
+        }
+
+        /**
+         * @return whether the connection can take more, otherwise {@link #onWritePossible()} schedules the next drain.
+         */
+        private boolean isReady() {
+            synchronized (this) {
+                if (closed) {
+                    return false;
+                }
+                // Set first, since the container may call back as soon as it answers
+                awaitingWritePossible = true;
+            }
+            if (!out.isReady()) {
+                return false;
+            }
+            synchronized (this) {
+                awaitingWritePossible = false;
+            }
+            return true;
+        }
+
+        private byte[] encode(ProductChangedEvent event) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            bytes.writeBytes("event:product\ndata:".getBytes(StandardCharsets.UTF_8));
+            try {
+                objectMapper.writeValue(bytes, event);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            bytes.writeBytes("\n\n".getBytes(StandardCharsets.UTF_8));
+            sent.increment();
+            return bytes.toByteArray();
+        }
+
+        @Override
+        public void onWritePossible() {
+            synchronized (this) {
+                if (closed || !awaitingWritePossible) {
+                    return;
+                }
+                awaitingWritePossible = false;
+            }
+            dispatcher.execute(this::drain);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            close();
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            complete();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            complete();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Not restarted
+        }
+
+        void complete() {
+            close();
+            try {
+                asyncContext.complete();
+            } catch (IllegalStateException e) {
+                // Completed already
+            }
+        }
+
+        private void close() {
+            synchronized (this) {
+                closed = true;
+                pending.clear();
+            }
+            subscribers.remove(this);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.vssoft.vspace.service.impl;
+
+import com.vssoft.vspace.common.utils.RequestCoalescer;
+import com.vssoft.vspace.config.VSpaceProperties;
+import com.vssoft.vspace.repository.search.ProductFacet;
+import com.vssoft.vspace.service.ProductService;
+import com.vssoft.vspace.service.dto.ProductChangeCursor;
+import com.vssoft.vspace.service.dto.ProductChangesDTO;
+import com.vssoft.vspace.service.dto.ProductDTO;
+import com.vssoft.vspace.service.dto.ProductSearchResultDTO;
+import com.vssoft.vspace.service.dto.ProductSuggestionDTO;
+import com.vssoft.vspace.service.event.ProductChangedEvent;
+import com.vssoft.vspace.service.mapper.ProductMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Lets concurrent identical reads of products share one call to {@link ProductServiceImpl}, so that a spike of
+ * requests for the same product, the first page of products or the same search page reaches Postgres or Elasticsearch
+ * once. Each caller gets its own copy of the DTOs.
+ * <p>
+ * Only the first page in the default order is shared among {@link #findAll(Pageable)} calls, the one most requested
+ * at once. Once a write is committed, the calls already in flight are not shared with new callers any more, since they
+ * may have read the data as it was before the write. Writes go straight to the wrapped service.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(prefix = "vspace.coalescing", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class CoalescingProductService implements ProductService, MeterBinder {
+
+    private final ProductService delegate;
+    private final RequestCoalescer<String, Optional<ProductDTO>> findOne;
+    private final RequestCoalescer<Integer, Page<ProductDTO>> findFirstPage;
+    private final RequestCoalescer<SearchKey, Page<ProductDTO>> search;
+
+    public CoalescingProductService(ProductServiceImpl delegate, ProductMapper productMapper, VSpaceProperties properties) {
+        this.delegate = delegate;
+        Duration maxWait = Duration.ofMillis(properties.getCoalescing().getMaxWaitMillis());
+        this.findOne = new RequestCoalescer<>(maxWait, product -> product.map(productMapper::copy));
+        this.findFirstPage = new RequestCoalescer<>(maxWait, page -> page.map(productMapper::copy));
+        this.search = new RequestCoalescer<>(maxWait, page -> page.map(productMapper::copy));
+    }
+
+    @Override
+    public ProductDTO save(ProductDTO productDTO) {
+        return delegate.save(productDTO);
+    }
+
+    @Override
+    public ProductDTO update(ProductDTO productDTO) {
+        return delegate.update(productDTO);
+    }
+
+    @Override
+    public Optional<ProductDTO> partialUpdate(ProductDTO productDTO) {
+        return delegate.partialUpdate(productDTO);
+    }
+
+    @Override
+    public Page<ProductDTO> findAll(Pageable pageable) {
+        if (pageable.isUnpaged() || pageable.getPageNumber() != 0 || pageable.getSort().isSorted()) {
+            return delegate.findAll(pageable);
+        }
+        return findFirstPage.execute(pageable.getPageSize(), () -> delegate.findAll(pageable));
+    }
+
+    @Override
+    public Optional<ProductDTO> findOne(String id) {
+        return findOne.execute(id, () -> delegate.findOne(id));
+    }
+
+    @Override
+    public ProductChangesDTO findChanges(ProductChangeCursor since, int limit) {
+        return delegate.findChanges(since, limit);
+    }
+
+    @Override
+    public void delete(String id) {
+        delegate.delete(id);
+    }
+
+    @Override
+    public Page<ProductDTO> search(String query, Pageable pageable) {
+        return search.execute(new SearchKey(query, pageable), () -> delegate.search(query, pageable));
+    }
+
+    @Override
+    public ProductSearchResultDTO search(String query, Pageable pageable, List<ProductFacet> facets) {
+        return delegate.search(query, pageable, facets);
+    }
+
+    @Override
+    public ProductSearchResultDTO facets(String query, List<ProductFacet> facets) {
+        return delegate.facets(query, facets);
+    }
+
+    @Override
+    public List<ProductSuggestionDTO> suggest(String prefix, int size) {
+        return delegate.suggest(prefix, size);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    void onProductChanged(ProductChangedEvent event) {
+        findOne.forget(event.id());
+        findFirstPage.forgetAll();
+        search.forgetAll();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bind("findOne", findOne, registry);
+        bind("findAll", findFirstPage, registry);
+        bind("search", search, registry);
+    }
+
+    private static void bind(String operation, RequestCoalescer<?, ?> coalescer, MeterRegistry registry) {
+        FunctionCounter
+            .builder("product.requests.coalesced", coalescer, RequestCoalescer::getCollapsed)
+            .description("Product reads answered by an identical read in flight, instead of their own call")
+            .tag("operation", operation)
+            .register(registry);
+        FunctionCounter
+            .builder("product.requests.coalesced.timeouts", coalescer, RequestCoalescer::getTimedOut)
+            .description("Product reads which stopped waiting for an identical read in flight and made their own call")
+            .tag("operation", operation)
+            .register(registry);
+    }
+
+    private record SearchKey(String query, Pageable pageable) {}
+}
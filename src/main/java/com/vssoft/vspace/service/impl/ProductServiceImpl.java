@@ -1,19 +1,51 @@
 package com.vssoft.vspace.service.impl;
 
+import com.vssoft.vspace.config.VSpaceProperties;
 import com.vssoft.vspace.domain.Product;
+import com.vssoft.vspace.domain.ProductTombstone;
 import com.vssoft.vspace.repository.ProductRepository;
-import com.vssoft.vspace.repository.search.ProductSearchRepository;
+import com.vssoft.vspace.repository.ProductTombstoneRepository;
+import com.vssoft.vspace.repository.search.PostgresProductSearchEngine;
+import com.vssoft.vspace.repository.search.ProductFacet;
+import com.vssoft.vspace.repository.search.ProductSearchEngine;
 import com.vssoft.vspace.service.ProductService;
+import com.vssoft.vspace.service.dto.ProductChangeCursor;
+import com.vssoft.vspace.service.dto.ProductChangeDTO;
+import com.vssoft.vspace.service.dto.ProductChangesDTO;
 import com.vssoft.vspace.service.dto.ProductDTO;
+import com.vssoft.vspace.service.dto.ProductSearchResultDTO;
+import com.vssoft.vspace.service.dto.ProductSuggestionDTO;
+import com.vssoft.vspace.service.event.ProductChangedEvent;
 import com.vssoft.vspace.service.mapper.ProductMapper;
+import com.vssoft.vspace.web.rest.errors.ChangeFeedTokenExpiredException;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.Set;
+import java.util.regex.MatchResult;
+import java.util.regex.Pattern;
 
 @Slf4j
 @Service
@@ -21,17 +53,37 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class ProductServiceImpl implements ProductService {
 
+    /**
+     * Circuit breaker and bulkhead of the calls to Elasticsearch, configured under {@code resilience4j}.
+     */
+    static final String PRODUCT_SEARCH = "productSearch";
+
+    private static final Pattern FIELD_PREFIX = Pattern.compile("[\\w.]+:");
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+    private static final Set<String> OPERATORS = Set.of("AND", "OR", "NOT", "TO");
+    private static final String KEYWORD_SUFFIX = ".keyword";
+    private static final Set<String> SORTABLE_ATTRIBUTES = Set.of("id", "name", "createdDate", "updatedDate");
+
     private final ProductRepository productRepository;
+    private final ProductTombstoneRepository productTombstoneRepository;
     private final ProductMapper productMapper;
-    private final ProductSearchRepository productSearchRepository;
+    private final ProductSearchEngine productSearchEngine;
+    private final VSpaceProperties properties;
+    private final ApplicationEventPublisher eventPublisher;
 
+    /**
+     * The full-text index of the database, when it serves the searches or backs the fallback.
+     */
+    private final ObjectProvider<PostgresProductSearchEngine> databaseSearchEngine;
 
     @Override
     public ProductDTO save(final ProductDTO productDTO) {
         log.debug("Request to save Product : {}", productDTO);
         var product = productMapper.toEntity(productDTO);
-        product = productRepository.save(product);
-        productSearchRepository.save(product);
+        // Flushed so that its updated date is the one read back from the database
+        product = productRepository.saveAndFlush(product);
+        index(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(product.getId(), ProductChangedEvent.Type.CREATED));
         return productMapper.toDto(product);
     }
 
@@ -39,8 +91,10 @@ public class ProductServiceImpl implements ProductService {
     public ProductDTO update(final ProductDTO productDTO) {
         log.debug("Request to update Product : {}", productDTO);
         Product product = productMapper.toEntity(productDTO);
-        product = productRepository.save(product);
-        productSearchRepository.index(product);
+        // Flushed so that its updated date is the one read back from the database
+        product = productRepository.saveAndFlush(product);
+        index(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(product.getId(), ProductChangedEvent.Type.UPDATED));
         return productMapper.toDto(product);
     }
 
@@ -53,14 +107,27 @@ public class ProductServiceImpl implements ProductService {
                     productMapper.partialUpdate(existingProduct, productDTO);
                     return existingProduct;
                 })
-                .map(productRepository::save)
+                .map(productRepository::saveAndFlush)
                 .map(savedProduct -> {
-                    productSearchRepository.index(savedProduct);
+                    index(savedProduct);
+                    eventPublisher.publishEvent(new ProductChangedEvent(savedProduct.getId(), ProductChangedEvent.Type.UPDATED));
                     return savedProduct;
                 })
                 .map(productMapper::toDto);
     }
 
+    /**
+     * Indexes the product in the search engine, and in the full-text index of the database when it backs the fallback.
+     */
+    private void index(final Product product) {
+        productSearchEngine.index(product);
+        databaseSearchEngine.ifAvailable(fullText -> {
+            if (fullText != productSearchEngine) {
+                fullText.index(product);
+            }
+        });
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Page<ProductDTO> findAll(final Pageable pageable) {
@@ -75,17 +142,172 @@ public class ProductServiceImpl implements ProductService {
         return productRepository.findById(id).map(productMapper::toDto);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public ProductChangesDTO findChanges(final ProductChangeCursor since, final int limit) {
+        log.debug("Request to get the changes of Products since {}", since);
+        VSpaceProperties.ChangeFeed config = properties.getChangeFeed();
+        // The clock the dates of the changes were taken from, rather than that of this node
+        Instant now = Instant.EPOCH.plus(productRepository.currentTimeMicros(), ChronoUnit.MICROS);
+        if (
+            config.getTombstoneRetentionDays() > 0 &&
+            !since.equals(ProductChangeCursor.START) &&
+            since.changedDate().isBefore(now.minus(Duration.ofDays(config.getTombstoneRetentionDays())))
+        ) {
+            throw new ChangeFeedTokenExpiredException();
+        }
+        Instant until = now.minus(Duration.ofMillis(config.getSettleMillis()));
+        Pageable first = PageRequest.of(0, limit);
+        List<Product> written = productRepository.findWrittenAfter(since.changedDate(), since.id(), until, first);
+        List<ProductTombstone> deleted = productTombstoneRepository.findDeletedAfter(since.changedDate(), since.id(), until, first);
+
+        List<ProductChangeDTO> changes = new ArrayList<>(written.size() + deleted.size());
+        written.forEach(product -> changes.add(change(ProductChangeDTO.Type.UPSERT, product.getId(), product.getUpdatedDate(), productMapper.toDto(product))));
+        deleted.forEach(tombstone -> changes.add(change(ProductChangeDTO.Type.DELETE, tombstone.getId(), tombstone.getDeletedDate(), null)));
+        changes.sort(Comparator.comparing(ProductChangeDTO::getChangedDate).thenComparing(ProductChangeDTO::getId));
+
+        ProductChangesDTO result = new ProductChangesDTO();
+        // Both lists were read in full, unless one of them, or the two together, reached the limit
+        result.setCaughtUp(changes.size() < limit);
+        result.setChanges(changes.size() > limit ? new ArrayList<>(changes.subList(0, limit)) : changes);
+        ProductChangeCursor next = result.getChanges().isEmpty()
+            ? since
+            : cursor(result.getChanges().get(result.getChanges().size() - 1));
+        if (result.isCaughtUp() && next.changedDate().isBefore(until)) {
+            // Every change before the settled date was read: later ones are after it, and the position stays recent
+            // however long there are no changes, rather than expiring with the deletions kept
+            next = new ProductChangeCursor(until, "");
+        }
+        result.setNext(next.encode());
+        return result;
+    }
+
+    private static ProductChangeDTO change(ProductChangeDTO.Type type, String id, Instant changedDate, ProductDTO product) {
+        ProductChangeDTO change = new ProductChangeDTO();
+        change.setType(type);
+        change.setId(id);
+        change.setChangedDate(changedDate);
+        change.setProduct(product);
+        return change;
+    }
+
+    private static ProductChangeCursor cursor(ProductChangeDTO change) {
+        return new ProductChangeCursor(change.getChangedDate(), change.getId());
+    }
+
     @Override
     public void delete(final String id) {
         log.debug("Request to delete Product : {}", id);
         productRepository.deleteById(id);
-        productSearchRepository.deleteFromIndexById(id);
+        productTombstoneRepository.save(new ProductTombstone(id));
+        productSearchEngine.deleteFromIndexById(id);
+        eventPublisher.publishEvent(new ProductChangedEvent(id, ProductChangedEvent.Type.DELETED));
     }
 
     @Override
     @Transactional(readOnly = true)
+    @Bulkhead(name = PRODUCT_SEARCH)
+    @CircuitBreaker(name = PRODUCT_SEARCH, fallbackMethod = "searchDatabase")
     public Page<ProductDTO> search(final String query, final Pageable pageable) {
         log.debug("Request to search for a page of Products for query {}", query);
-        return productSearchRepository.search(query, pageable).map(productMapper::toDto);
+        return productSearchEngine.search(query, pageable).map(productMapper::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @Bulkhead(name = PRODUCT_SEARCH)
+    @CircuitBreaker(name = PRODUCT_SEARCH)
+    public ProductSearchResultDTO search(final String query, final Pageable pageable, final List<ProductFacet> facets) {
+        log.debug("Request to search for Products with facets {} for query {}", facets, query);
+        return productMapper.toSearchResult(productSearchEngine.search(query, pageable, facets));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @Bulkhead(name = PRODUCT_SEARCH)
+    @CircuitBreaker(name = PRODUCT_SEARCH)
+    public ProductSearchResultDTO facets(final String query, final List<ProductFacet> facets) {
+        log.debug("Request to compute the facets {} of Products for query {}", facets, query);
+        return productMapper.toSearchResult(productSearchEngine.facets(query, facets));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @Bulkhead(name = PRODUCT_SEARCH)
+    @CircuitBreaker(name = PRODUCT_SEARCH)
+    public List<ProductSuggestionDTO> suggest(final String prefix, final int size) {
+        log.debug("Request to suggest Products for prefix {}", prefix);
+        return productMapper.toSuggestion(productSearchEngine.suggest(prefix, size));
+    }
+
+    /**
+     * Fallback while the circuit is open. Only the exceptions telling that Elasticsearch was not called have one, so
+     * that failed searches, such as invalid or expensive queries, still fail.
+     */
+    private Page<ProductDTO> searchDatabase(final String query, final Pageable pageable, final CallNotPermittedException e) {
+        return searchNames(query, pageable, e);
+    }
+
+    /**
+     * Fallback while too many searches are in flight.
+     */
+    private Page<ProductDTO> searchDatabase(final String query, final Pageable pageable, final BulkheadFullException e) {
+        return searchNames(query, pageable, e);
+    }
+
+    /**
+     * Searches the full-text index of the database while the search engine cannot be called, hits being ordered by
+     * rank. Without that index, such as on another database, the words of the query are looked up in product names:
+     * query syntax is ignored and a product matches if its name contains any of the words, ignoring case. The page
+     * size is capped either way, to bound the load on the database.
+     */
+    private Page<ProductDTO> searchNames(final String query, final Pageable pageable, final RuntimeException e) {
+        VSpaceProperties.Search.Fallback config = properties.getSearch().getFallback();
+        if (!config.isEnabled()) {
+            throw e;
+        }
+        Pageable bounded = PageRequest.of(
+            pageable.getPageNumber(),
+            Math.min(pageable.getPageSize(), config.getMaxPageSize()),
+            databaseSort(pageable.getSort())
+        );
+        PostgresProductSearchEngine fullText = databaseSearchEngine.getIfAvailable();
+        if (fullText != null && fullText != productSearchEngine && fullText.isAvailable()) {
+            log.debug("Search engine unavailable ({}), searching the full-text index of the database for query {}", e.getMessage(), query);
+            return fullText.search(query, bounded).map(productMapper::toDto);
+        }
+        log.debug("Search engine unavailable ({}), searching product names for query {}", e.getMessage(), query);
+        List<String> words = WORD
+            .matcher(FIELD_PREFIX.matcher(query).replaceAll(" "))
+            .results()
+            .map(MatchResult::group)
+            .filter(word -> !OPERATORS.contains(word))
+            .map(word -> word.toLowerCase(Locale.ROOT))
+            .distinct()
+            .limit(config.getMaxTerms())
+            .toList();
+        if (words.isEmpty()) {
+            return Page.empty(bounded);
+        }
+        Specification<Product> nameContainsAnyWord = (root, criteriaQuery, builder) ->
+            builder.or(words.stream().map(word -> builder.like(builder.lower(root.get("name")), "%" + word + "%")).toArray(Predicate[]::new));
+        return productRepository.findAll(nameContainsAnyWord, bounded).map(productMapper::toDto);
+    }
+
+    /**
+     * Maps a sort of the search index to the attributes of the entity, dropping the fields it does not have, such as
+     * {@code _score}.
+     */
+    static Sort databaseSort(final Sort sort) {
+        List<Sort.Order> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            String property = order.getProperty().endsWith(KEYWORD_SUFFIX)
+                ? order.getProperty().substring(0, order.getProperty().length() - KEYWORD_SUFFIX.length())
+                : order.getProperty();
+            if (SORTABLE_ATTRIBUTES.contains(property)) {
+                orders.add(order.withProperty(property));
+            }
+        }
+        return Sort.by(orders);
     }
 }
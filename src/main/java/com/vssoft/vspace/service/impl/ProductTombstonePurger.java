@@ -0,0 +1,73 @@
+package com.vssoft.vspace.service.impl;
+
+import com.vssoft.vspace.config.VSpaceProperties;
+import com.vssoft.vspace.repository.ProductRepository;
+import com.vssoft.vspace.repository.ProductTombstoneRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes the tombstones of the products deleted longer ago than {@code vspace.change-feed.tombstone-retention-days},
+ * every hour. Every node does, deleting the same rows is harmless.
+ */
+@Slf4j
+@Component
+class ProductTombstonePurger implements DisposableBean {
+
+    private static final Duration INTERVAL = Duration.ofHours(1);
+
+    private final ProductRepository productRepository;
+    private final ProductTombstoneRepository productTombstoneRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration retention;
+    private final ScheduledExecutorService scheduler;
+
+    ProductTombstonePurger(
+        ProductRepository productRepository,
+        ProductTombstoneRepository productTombstoneRepository,
+        PlatformTransactionManager transactionManager,
+        VSpaceProperties properties
+    ) {
+        this.productRepository = productRepository;
+        this.productTombstoneRepository = productTombstoneRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retention = Duration.ofDays(properties.getChangeFeed().getTombstoneRetentionDays());
+        this.scheduler =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "product-tombstones-purge");
+                thread.setDaemon(true);
+                return thread;
+            });
+        if (!retention.isZero()) {
+            scheduler.scheduleWithFixedDelay(this::purge, INTERVAL.toMinutes(), INTERVAL.toMinutes(), TimeUnit.MINUTES);
+        }
+    }
+
+    void purge() {
+        try {
+            Integer purged = transactionTemplate.execute(status -> {
+                // The clock the tombstones were dated with, which the change feed checks tokens against too
+                Instant now = Instant.EPOCH.plus(productRepository.currentTimeMicros(), ChronoUnit.MICROS);
+                return productTombstoneRepository.deleteDeletedBefore(now.minus(retention));
+            });
+            log.debug("Purged {} product tombstones older than {}", purged, retention);
+        } catch (RuntimeException e) {
+            log.warn("Could not purge the product tombstones older than {}: {}", retention, e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+}
@@ -1,9 +1,37 @@
 package com.vssoft.vspace.service.mapper;
 
 import com.vssoft.vspace.domain.Product;
+import com.vssoft.vspace.repository.search.FacetedPage;
+import com.vssoft.vspace.service.dto.FacetBucketDTO;
 import com.vssoft.vspace.service.dto.ProductDTO;
+import com.vssoft.vspace.service.dto.ProductSearchResultDTO;
+import com.vssoft.vspace.service.dto.ProductSuggestionDTO;
 import org.mapstruct.Mapper;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 @Mapper(config = DefaultConfigMapper.class)
 public interface ProductMapper extends EntityMapper<ProductDTO, Product>{
+
+    ProductDTO copy(ProductDTO dto);
+
+    ProductSuggestionDTO toSuggestion(Product entity);
+
+    List<ProductSuggestionDTO> toSuggestion(List<Product> entityList);
+
+    FacetBucketDTO toFacetBucket(FacetedPage.Bucket bucket);
+
+    List<FacetBucketDTO> toFacetBuckets(List<FacetedPage.Bucket> buckets);
+
+    default ProductSearchResultDTO toSearchResult(FacetedPage<Product> facetedPage) {
+        ProductSearchResultDTO result = new ProductSearchResultDTO();
+        result.setProducts(toDto(facetedPage.page().getContent()));
+        result.setTotalHits(facetedPage.page().getTotalElements());
+        Map<String, List<FacetBucketDTO>> facets = new LinkedHashMap<>();
+        facetedPage.facets().forEach((name, buckets) -> facets.put(name, toFacetBuckets(buckets)));
+        result.setFacets(facets);
+        return result;
+    }
 }
@@ -0,0 +1,47 @@
+package com.vssoft.vspace.web.rest;
+
+import com.vssoft.vspace.service.event.ProductEventBroadcaster;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api")
+@ConditionalOnProperty(prefix = "vspace.product-events", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ProductEventResource {
+
+    private final ProductEventBroadcaster productEventBroadcaster;
+
+    /**
+     * {@code GET  /_events/products} : subscribe to the writes of products, pushed as server-sent events instead of
+     * polling {@code /products}.
+     * <p>
+     * Each write is a {@code product} event, whose data holds the {@code id} of the product and the {@code type} of the
+     * write: {@code CREATED}, {@code UPDATED} or {@code DELETED}. An {@code overflow} event means that the subscriber
+     * fell too far behind and should reload the products. The subscription ends after
+     * {@code vspace.product-events.timeout-seconds}, and the client reconnects.
+     *
+     * @param request the request to subscribe.
+     * @param response the response to stream the events to.
+     * @throws ResponseStatusException {@code 503 (Service Unavailable)} if there are too many subscribers.
+     */
+    @GetMapping(value = "/_events/products", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public void subscribeToProductEvents(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        log.debug("REST request to subscribe to Product events");
+        if (!productEventBroadcaster.subscribe(request, response)) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many subscribers to product events");
+        }
+    }
+}
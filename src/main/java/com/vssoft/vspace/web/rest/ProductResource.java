@@ -1,31 +1,54 @@
 package com.vssoft.vspace.web.rest;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.vssoft.vspace.common.utils.HeaderUtil;
+import com.vssoft.vspace.common.utils.LatestRequestTracker;
 import com.vssoft.vspace.common.utils.PaginationUtil;
 import com.vssoft.vspace.common.utils.ResponseUtil;
+import com.vssoft.vspace.config.VSpaceProperties;
 import com.vssoft.vspace.repository.ProductRepository;
+import com.vssoft.vspace.repository.search.ProductFacet;
+import com.vssoft.vspace.security.SecurityUtils;
 import com.vssoft.vspace.service.ProductService;
+import com.vssoft.vspace.service.dto.ProductChangeCursor;
+import com.vssoft.vspace.service.dto.ProductChangeDTO;
+import com.vssoft.vspace.service.dto.ProductChangesDTO;
 import com.vssoft.vspace.service.dto.ProductDTO;
+import com.vssoft.vspace.service.dto.ProductSearchResultDTO;
+import com.vssoft.vspace.service.dto.ProductSuggestionDTO;
 import com.vssoft.vspace.web.rest.errors.BadRequestAlertException;
+import com.vssoft.vspace.web.rest.errors.ChangeFeedTokenExpiredException;
 import com.vssoft.vspace.web.rest.errors.ElasticsearchExceptionMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @RestController
@@ -35,11 +58,21 @@ public class ProductResource {
     private final ProductRepository productRepository;
     private static final String ENTITY_NAME = "product";
 
+    static final String SUGGEST_SESSION_HEADER = "X-Suggest-Session";
+
     @Value("${vspace.clientApp.name}")
     private String applicationName;
 
     private final ProductService productService;
 
+    private final VSpaceProperties properties;
+
+    private final ObjectMapper objectMapper;
+
+    private final AsyncTaskExecutor taskExecutor;
+
+    private final LatestRequestTracker suggestRequests = new LatestRequestTracker();
+
     /**
      * {@code POST  /products} : Create a new product.
      *
@@ -145,6 +178,56 @@ public class ProductResource {
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    /**
+     * {@code GET  /products/changes?since=:since} : get the changes of the products since a token, for systems keeping
+     * a copy of the products in sync.
+     * <p>
+     * The changes are streamed oldest first, read from the database in batches, until there are no more or
+     * {@code vspace.change-feed.max-changes} were sent: the products written, whole, and the ids of the products deleted.
+     * The response ends with the token to ask for the next changes with, and whether there were no more.
+     *
+     * @param since the token of the previous response, or none for all the changes.
+     * @param response the response to stream the changes to.
+     * @throws BadRequestAlertException {@code 400 (Bad Request)} if the token is invalid.
+     * @throws ChangeFeedTokenExpiredException {@code 410 (Gone)} if the token is older than the deletions kept, in
+     * which case the products have to be read again from the start.
+     */
+    @GetMapping("/products/changes")
+    public void getProductChanges(@RequestParam(required = false) String since, HttpServletResponse response) throws IOException {
+        log.debug("REST request to get the changes of Products since {}", since);
+        ProductChangeCursor cursor;
+        try {
+            cursor = since == null || since.isBlank() ? ProductChangeCursor.START : ProductChangeCursor.decode(since);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid change feed token", ENTITY_NAME, "invalidtoken");
+        }
+        VSpaceProperties.ChangeFeed config = properties.getChangeFeed();
+        // Read before anything is written, so that a failure still gets an error response
+        ProductChangesDTO batch = productService.findChanges(cursor, Math.min(config.getBatchSize(), config.getMaxChanges()));
+
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try (JsonGenerator generator = objectMapper.createGenerator(response.getOutputStream())) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("changes");
+            int sent = 0;
+            while (true) {
+                for (ProductChangeDTO change : batch.getChanges()) {
+                    generator.writeObject(change);
+                }
+                sent += batch.getChanges().size();
+                if (batch.isCaughtUp() || sent >= config.getMaxChanges()) {
+                    break;
+                }
+                generator.flush();
+                batch = productService.findChanges(ProductChangeCursor.decode(batch.getNext()), Math.min(config.getBatchSize(), config.getMaxChanges() - sent));
+            }
+            generator.writeEndArray();
+            generator.writeStringField("next", batch.getNext());
+            generator.writeBooleanField("caughtUp", batch.isCaughtUp());
+            generator.writeEndObject();
+        }
+    }
+
     /**
      * {@code GET  /products/:id} : get the "id" product.
      *
@@ -180,4 +263,144 @@ public class ProductResource {
             throw ElasticsearchExceptionMapper.mapException(e);
         }
     }
+
+    /**
+     * {@code GET  /_search/products/faceted?query=:query&facet=:facet} : search for the products corresponding
+     * to the query, along with the number of matches per bucket of each facet, in a single search.
+     * <p>
+     * A facet is {@code createdDate} or {@code updatedDate}, optionally followed by {@code :day}, {@code :week},
+     * {@code :month} (the default), {@code :quarter} or {@code :year}, or {@code name}, optionally followed by the
+     * maximum number of buckets, for example {@code name:20}.
+     *
+     * @param query the query of the product search.
+     * @param facet the facets to compute.
+     * @param hits whether to return the page of matching products, or only the facets, which is faster.
+     * @param pageable the pagination information.
+     * @return the products and facets of the search.
+     */
+    @GetMapping("/_search/products/faceted")
+    public ResponseEntity<ProductSearchResultDTO> searchProductsWithFacets(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "") List<String> facet,
+            @RequestParam(defaultValue = "true") boolean hits,
+            @org.springdoc.core.annotations.ParameterObject Pageable pageable
+    ) {
+        log.debug("REST request to search for Products with facets {} for query {}", facet, query);
+        List<ProductFacet> facets = parseFacets(facet);
+        try {
+            if (!hits) {
+                return ResponseEntity.ok(productService.facets(query, facets));
+            }
+            ProductSearchResultDTO result = productService.search(query, pageable, facets);
+            Page<ProductDTO> page = new PageImpl<>(result.getProducts(), pageable, result.getTotalHits());
+            HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+            return ResponseEntity.ok().headers(headers).body(result);
+        } catch (RuntimeException e) {
+            throw ElasticsearchExceptionMapper.mapException(e);
+        }
+    }
+
+    /**
+     * {@code GET  /_suggest/products?prefix=:prefix} : suggest products whose name matches the text typed so far.
+     * <p>
+     * With a {@code debounce}, the search only starts once the session sent no newer suggest request for that long,
+     * and requests superseded in the meantime return immediately without searching. No thread waits meanwhile: the
+     * response completes asynchronously. Sessions are those of the servlet container, or named by the client with the
+     * {@value #SUGGEST_SESSION_HEADER} header, within its login. Without either, or without a debounce, every request is
+     * answered.
+     *
+     * @param prefix the text typed so far.
+     * @param size the maximum number of suggestions.
+     * @param debounce how long to wait for a newer request from the same session, in milliseconds.
+     * @param clientSession the session named by the client, if any.
+     * @param request the current request, identifying the session.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the ids and names of the matching products in body,
+     * or with status {@code 204 (No Content)} if a newer request from the same session superseded this one.
+     */
+    @GetMapping("/_suggest/products")
+    public DeferredResult<ResponseEntity<List<ProductSuggestionDTO>>> suggestProducts(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "0") long debounce,
+            @RequestHeader(name = SUGGEST_SESSION_HEADER, required = false) String clientSession,
+            HttpServletRequest request
+    ) {
+        log.debug("REST request to suggest Products for prefix {}", prefix);
+        DeferredResult<ResponseEntity<List<ProductSuggestionDTO>>> result = new DeferredResult<>();
+        if (prefix.isBlank()) {
+            result.setResult(ResponseEntity.ok(List.of()));
+            return result;
+        }
+        VSpaceProperties.Search.Suggest config = properties.getSearch().getSuggest();
+        int boundedSize = Math.max(1, Math.min(size, config.getMaxSize()));
+        long debounceMillis = Math.min(debounce, config.getMaxDebounceMillis());
+        Optional<String> sessionKey = debounceMillis > 0 ? sessionKey(request, clientSession) : Optional.empty();
+        if (sessionKey.isEmpty()) {
+            result.setResult(ResponseEntity.ok(suggest(prefix, boundedSize)));
+            return result;
+        }
+
+        // Only debounced requests take part, the others must not make one give up
+        LatestRequestTracker.Ticket ticket = suggestRequests.register(sessionKey.get(), () -> result.setResult(ResponseEntity.noContent().build()));
+        CompletableFuture
+            .delayedExecutor(debounceMillis, TimeUnit.MILLISECONDS)
+            .execute(() -> {
+                if (ticket.isSuperseded()) {
+                    return;
+                }
+                try {
+                    taskExecutor.execute(() -> {
+                        try {
+                            List<ProductSuggestionDTO> suggestions = suggest(prefix, boundedSize);
+                            result.setResult(ticket.isSuperseded() ? ResponseEntity.noContent().build() : ResponseEntity.ok(suggestions));
+                        } catch (RuntimeException e) {
+                            result.setErrorResult(e);
+                        }
+                    });
+                } catch (TaskRejectedException e) {
+                    result.setErrorResult(e);
+                }
+            });
+        return result;
+    }
+
+    private List<ProductSuggestionDTO> suggest(String prefix, int size) {
+        try {
+            return productService.suggest(prefix, size);
+        } catch (RuntimeException e) {
+            throw ElasticsearchExceptionMapper.mapException(e);
+        }
+    }
+
+    private List<ProductFacet> parseFacets(List<String> specs) {
+        VSpaceProperties.Search.Facets config = properties.getSearch().getFacets();
+        List<String> nonBlank = specs.stream().filter(spec -> !spec.isBlank()).toList();
+        if (nonBlank.size() > config.getMaxFacets()) {
+            throw new BadRequestAlertException("At most " + config.getMaxFacets() + " facets can be requested", ENTITY_NAME, "toomanyfacets");
+        }
+        try {
+            List<ProductFacet> facets = nonBlank.stream().map(spec -> ProductFacet.parse(spec.strip(), config.getMaxTermsSize())).toList();
+            if (facets.stream().map(ProductFacet::name).distinct().count() < facets.size()) {
+                throw new IllegalArgumentException("Each field can only be faceted once");
+            }
+            return facets;
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "invalidfacet");
+        }
+    }
+
+    /**
+     * The session of the servlet container, or the one named by the client within its login, if any. The login or the
+     * address alone would make the tabs and devices of a user, or the users behind a proxy, supersede each other.
+     */
+    private static Optional<String> sessionKey(HttpServletRequest request, String clientSession) {
+        HttpSession session = request.getSession(false);
+        if (session != null) {
+            return Optional.of("session:" + session.getId());
+        }
+        if (clientSession == null || clientSession.isBlank()) {
+            return Optional.empty();
+        }
+        return Optional.of("client:" + SecurityUtils.getCurrentUserLogin().orElseGet(request::getRemoteAddr) + ":" + clientSession);
+    }
 }
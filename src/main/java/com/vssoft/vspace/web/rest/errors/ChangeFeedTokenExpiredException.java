@@ -0,0 +1,20 @@
+package com.vssoft.vspace.web.rest.errors;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.ErrorResponseException;
+
+import java.io.Serial;
+
+/**
+ * A change feed token older than the deletions kept: the products have to be read again from the start.
+ */
+public class ChangeFeedTokenExpiredException extends ErrorResponseException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public ChangeFeedTokenExpiredException() {
+        super(HttpStatus.GONE, ProblemDetail.forStatusAndDetail(HttpStatus.GONE, "Change feed token older than the deletions kept, start over without one"), null);
+    }
+}
@@ -2,6 +2,8 @@ package com.vssoft.vspace.web.rest.errors;
 
 import com.vssoft.vspace.common.VspaceConstants;
 import com.vssoft.vspace.common.utils.HeaderUtil;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import jakarta.servlet.http.HttpServletRequest;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Value;
@@ -11,6 +13,8 @@ import org.springframework.dao.DataAccessException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageConversionException;
 import org.springframework.lang.NonNull;
@@ -43,8 +47,12 @@ public class ExceptionTranslator extends ResponseEntityExceptionHandler {
     private static final String MESSAGE_KEY = "message";
     private static final String PATH_KEY = "path";
     private static final boolean CASUAL_CHAIN_ENABLED = false;
+    private static final List<MediaType> BINARY_MEDIA_TYPES = List.of(
+            MediaType.parseMediaType("application/x-jackson-smile"),
+            MediaType.APPLICATION_CBOR
+    );
 
-    @Value("${jhipster.clientApp.name}")
+    @Value("${vspace.clientApp.name}")
     private String applicationName;
 
     private final Environment env;
@@ -69,9 +77,34 @@ public class ExceptionTranslator extends ResponseEntityExceptionHandler {
             WebRequest request
     ) {
         body = body == null ? wrapAndCustomizeProblem(ex, (NativeWebRequest) request) : body;
+        Optional<MediaType> binaryMediaType = preferredBinaryMediaType(request);
+        if (binaryMediaType.isPresent()) {
+            HttpHeaders binaryHeaders = new HttpHeaders();
+            if (headers != null) binaryHeaders.putAll(headers);
+            binaryHeaders.setContentType(binaryMediaType.get());
+            headers = binaryHeaders;
+        }
         return super.handleExceptionInternal(ex, body, headers, statusCode, request);
     }
 
+    /**
+     * Spring MVC only negotiates problem details as JSON or XML, so a client preferring Smile or CBOR gets them by
+     * presetting the content type of the response.
+     */
+    private Optional<MediaType> preferredBinaryMediaType(WebRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (StringUtils.isBlank(accept)) return Optional.empty();
+        List<MediaType> acceptable;
+        try {
+            acceptable = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            return Optional.empty();
+        }
+        acceptable.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        MediaType preferred = acceptable.isEmpty() ? null : acceptable.get(0);
+        return BINARY_MEDIA_TYPES.stream().filter(type -> preferred != null && type.equalsTypeAndSubtype(preferred)).findFirst();
+    }
+
     protected ProblemDetailWithCause wrapAndCustomizeProblem(Throwable ex, NativeWebRequest request) {
         return customizeProblem(getProblemDetailWithCause(ex), ex, request);
     }
@@ -201,6 +234,7 @@ public class ExceptionTranslator extends ResponseEntityExceptionHandler {
         if (err instanceof AccessDeniedException) return HttpStatus.FORBIDDEN;
         if (err instanceof ConcurrencyFailureException) return HttpStatus.CONFLICT;
         if (err instanceof BadCredentialsException) return HttpStatus.UNAUTHORIZED;
+        if (err instanceof CallNotPermittedException || err instanceof BulkheadFullException) return HttpStatus.SERVICE_UNAVAILABLE;
         return null;
     }
 
@@ -0,0 +1,14 @@
+package com.vssoft.vspace.web.rest.errors;
+
+import java.io.Serial;
+
+@SuppressWarnings("java:S110") // Inheritance tree of classes should not be too deep
+public class ExpensiveQueryException extends BadRequestAlertException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public ExpensiveQueryException(String construct) {
+        super("Query too expensive to run: " + construct, "elasticsearch", "expensiveQuery");
+    }
+}
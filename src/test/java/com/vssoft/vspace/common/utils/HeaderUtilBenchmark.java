@@ -0,0 +1,29 @@
+package com.vssoft.vspace.common.utils;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpHeaders;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeaderUtilBenchmark {
+
+    private static final String APPLICATION_NAME = "VSpaceApp";
+    private static final String ENTITY_NAME = "product";
+    private static final String ID = "0189b3f4-3f0e-7c1a-9a43-5f7c6d2b1e10";
+
+    @Benchmark
+    public HttpHeaders createEntityCreationAlert() {
+        return HeaderUtil.createEntityCreationAlert(APPLICATION_NAME, false, ENTITY_NAME, ID);
+    }
+
+    @Benchmark
+    public HttpHeaders createEntityUpdateAlert() {
+        return HeaderUtil.createEntityUpdateAlert(APPLICATION_NAME, true, ENTITY_NAME, ID);
+    }
+}
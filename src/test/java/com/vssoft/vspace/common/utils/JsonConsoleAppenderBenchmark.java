@@ -0,0 +1,54 @@
+package com.vssoft.vspace.common.utils;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import com.vssoft.vspace.config.VSpaceProperties;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many log calls per millisecond request threads can make under heavy logging,
+ * with the JSON console appender in synchronous and asynchronous mode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class JsonConsoleAppenderBenchmark {
+
+    @Param({ "sync", "async" })
+    public String mode;
+
+    private PrintStream stdout;
+    private LoggerContext context;
+    private Logger logger;
+
+    @Setup
+    public void setUp() {
+        stdout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        VSpaceProperties.Logging.AsyncConsole asyncConsole = new VSpaceProperties.Logging.AsyncConsole();
+        asyncConsole.setEnabled("async".equals(mode));
+        context = new LoggerContext();
+        LoggingUtils.addJsonConsoleAppender(context, "{\"app_name\":\"vspace\",\"app_port\":\"8080\"}", asyncConsole);
+        logger = context.getLogger("com.vssoft.vspace.web.rest.ProductResource");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.stop();
+        System.setOut(stdout);
+    }
+
+    @Benchmark
+    public void log() {
+        logger.info("REST request to get a page of products page={} size={}", 0, 20);
+    }
+}
@@ -0,0 +1,43 @@
+package com.vssoft.vspace.common.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LatestRequestTrackerTest {
+
+    private final LatestRequestTracker tracker = new LatestRequestTracker();
+
+    @Test
+    void tellsARequestAtOnceWhenTheSameSessionSendsANewerOne() {
+        AtomicInteger firstSuperseded = new AtomicInteger();
+        AtomicInteger secondSuperseded = new AtomicInteger();
+
+        LatestRequestTracker.Ticket first = tracker.register("session", firstSuperseded::incrementAndGet);
+        assertThat(first.isSuperseded()).isFalse();
+
+        LatestRequestTracker.Ticket second = tracker.register("session", secondSuperseded::incrementAndGet);
+        assertThat(first.isSuperseded()).isTrue();
+        assertThat(firstSuperseded).hasValue(1);
+        assertThat(second.isSuperseded()).isFalse();
+        assertThat(secondSuperseded).hasValue(0);
+
+        tracker.register("session", () -> {});
+        assertThat(second.isSuperseded()).isTrue();
+        assertThat(secondSuperseded).hasValue(1);
+        assertThat(firstSuperseded).hasValue(1);
+    }
+
+    @Test
+    void keepsTheRequestsOfOtherSessions() {
+        AtomicInteger superseded = new AtomicInteger();
+
+        LatestRequestTracker.Ticket ticket = tracker.register("session", superseded::incrementAndGet);
+        tracker.register("other session", () -> {});
+
+        assertThat(ticket.isSuperseded()).isFalse();
+        assertThat(superseded).hasValue(0);
+    }
+}
@@ -0,0 +1,73 @@
+package com.vssoft.vspace.common.utils;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.text.MessageFormat;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaginationUtilBenchmark {
+
+    private UriComponentsBuilder uriBuilder;
+    private Page<Object> page;
+
+    @Setup
+    public void setUp() {
+        uriBuilder = UriComponentsBuilder.fromHttpUrl("http://localhost:8080/api/products?page=2&size=20&sort=id,asc");
+        page = new PageImpl<>(Collections.emptyList(), PageRequest.of(2, 20), 1000);
+    }
+
+    @Benchmark
+    public HttpHeaders generatePaginationHttpHeaders() {
+        return PaginationUtil.generatePaginationHttpHeaders(uriBuilder.cloneBuilder(), page);
+    }
+
+    @Benchmark
+    public HttpHeaders messageFormatBaseline() {
+        return messageFormatPaginationHttpHeaders(uriBuilder.cloneBuilder(), page);
+    }
+
+    /**
+     * The previous implementation, which formats and encodes the whole URI once per link.
+     */
+    private static <T> HttpHeaders messageFormatPaginationHttpHeaders(UriComponentsBuilder uriBuilder, Page<T> page) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("X-Total-Count", Long.toString(page.getTotalElements()));
+        int pageNumber = page.getNumber();
+        int pageSize = page.getSize();
+        StringBuilder link = new StringBuilder();
+        if (pageNumber < page.getTotalPages() - 1) {
+            link.append(prepareLink(uriBuilder, pageNumber + 1, pageSize, "next")).append(",");
+        }
+        if (pageNumber > 0) {
+            link.append(prepareLink(uriBuilder, pageNumber - 1, pageSize, "prev")).append(",");
+        }
+        link
+            .append(prepareLink(uriBuilder, page.getTotalPages() - 1, pageSize, "last"))
+            .append(",")
+            .append(prepareLink(uriBuilder, 0, pageSize, "first"));
+        headers.add(HttpHeaders.LINK, link.toString());
+        return headers;
+    }
+
+    private static String prepareLink(UriComponentsBuilder uriBuilder, int pageNumber, int pageSize, String relType) {
+        String uri = uriBuilder
+            .replaceQueryParam("page", Integer.toString(pageNumber))
+            .replaceQueryParam("size", Integer.toString(pageSize))
+            .toUriString()
+            .replace(",", "%2C")
+            .replace(";", "%3B");
+        return MessageFormat.format("<{0}>; rel=\"{1}\"", uri, relType);
+    }
+}
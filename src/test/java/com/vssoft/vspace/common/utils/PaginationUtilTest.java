@@ -0,0 +1,50 @@
+package com.vssoft.vspace.common.utils;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaginationUtilTest {
+
+    @ParameterizedTest
+    @CsvSource(
+        delimiter = '|',
+        value = {
+            "http://localhost:8080/api/products | 0 | 20 | 1000 | " +
+            "<http://localhost:8080/api/products?page=1&size=20>; rel=\"next\"," +
+            "<http://localhost:8080/api/products?page=49&size=20>; rel=\"last\"," +
+            "<http://localhost:8080/api/products?page=0&size=20>; rel=\"first\"",
+            "http://localhost:8080/api/products?page=2&size=20&sort=id,asc | 2 | 20 | 1000 | " +
+            "<http://localhost:8080/api/products?sort=id%2Casc&page=3&size=20>; rel=\"next\"," +
+            "<http://localhost:8080/api/products?sort=id%2Casc&page=1&size=20>; rel=\"prev\"," +
+            "<http://localhost:8080/api/products?sort=id%2Casc&page=49&size=20>; rel=\"last\"," +
+            "<http://localhost:8080/api/products?sort=id%2Casc&page=0&size=20>; rel=\"first\"",
+            "http://localhost:8080/api/products?sort=name,desc&sort=id;asc&page=49 | 49 | 20 | 1000 | " +
+            "<http://localhost:8080/api/products?sort=name%2Cdesc&sort=id%3Basc&page=48&size=20>; rel=\"prev\"," +
+            "<http://localhost:8080/api/products?sort=name%2Cdesc&sort=id%3Basc&page=49&size=20>; rel=\"last\"," +
+            "<http://localhost:8080/api/products?sort=name%2Cdesc&sort=id%3Basc&page=0&size=20>; rel=\"first\"",
+            "http://localhost:8080/api/_search/products?query=na%C3%AFve%20page%3D__page__&size=5 | 3 | 5 | 17 | " +
+            "<http://localhost:8080/api/_search/products?query=na%25C3%25AFve%2520page%253D__page__&page=2&size=5>; rel=\"prev\"," +
+            "<http://localhost:8080/api/_search/products?query=na%25C3%25AFve%2520page%253D__page__&page=3&size=5>; rel=\"last\"," +
+            "<http://localhost:8080/api/_search/products?query=na%25C3%25AFve%2520page%253D__page__&page=0&size=5>; rel=\"first\"",
+            "https://example.com:8443/ctx/api/products?filter=a+b&page=0#top | 0 | 10 | 0 | " +
+            "<https://example.com:8443/ctx/api/products?filter=a+b&page=-1&size=10#top>; rel=\"last\"," +
+            "<https://example.com:8443/ctx/api/products?filter=a+b&page=0&size=10#top>; rel=\"first\"",
+        }
+    )
+    void writesTheTotalAndTheLinksToTheOtherPages(String uri, int pageNumber, int pageSize, long total, String link) {
+        var page = new PageImpl<>(Collections.emptyList(), PageRequest.of(pageNumber, pageSize), total);
+
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(UriComponentsBuilder.fromUriString(uri), page);
+
+        assertThat(headers.get("X-Total-Count")).containsExactly(Long.toString(total));
+        assertThat(headers.get(HttpHeaders.LINK)).containsExactly(link);
+    }
+}
@@ -0,0 +1,158 @@
+package com.vssoft.vspace.common.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RequestCoalescerTest {
+
+    private static final int CALLERS = 8;
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Test
+    void sharesOneCallBetweenConcurrentCallersAndCopiesTheResult() throws Exception {
+        RequestCoalescer<String, List<String>> coalescer = new RequestCoalescer<>(Duration.ofSeconds(10), ArrayList::new);
+
+        List<List<String>> results = executeConcurrently(coalescer, () -> {
+            calls.incrementAndGet();
+            await();
+            return new ArrayList<>(List.of("product"));
+        });
+
+        assertThat(calls).hasValue(1);
+        assertThat(results).hasSize(CALLERS).allSatisfy(result -> assertThat(result).containsExactly("product"));
+        assertThat(results.stream().map(System::identityHashCode).distinct()).hasSize(CALLERS);
+        assertThat(coalescer.getCollapsed()).isEqualTo(CALLERS - 1);
+        assertThat(coalescer.getTimedOut()).isZero();
+    }
+
+    @Test
+    void makesItsOwnCallOnceTheMaximumWaitIsOver() throws Exception {
+        RequestCoalescer<String, String> coalescer = new RequestCoalescer<>(Duration.ofMillis(10), value -> value);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CountDownLatch started = new CountDownLatch(1);
+            Future<String> slow = executor.submit(() ->
+                coalescer.execute("key", () -> {
+                    started.countDown();
+                    await();
+                    return "slow";
+                })
+            );
+            started.await();
+
+            assertThat(coalescer.execute("key", () -> "own")).isEqualTo("own");
+            assertThat(coalescer.getTimedOut()).isEqualTo(1);
+            release.countDown();
+            assertThat(slow.get(10, TimeUnit.SECONDS)).isEqualTo("slow");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void throwsTheFailureToEveryCaller() throws Exception {
+        RequestCoalescer<String, String> coalescer = new RequestCoalescer<>(Duration.ofSeconds(10), value -> value);
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<CompletableFuture<String>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(
+                    CompletableFuture.supplyAsync(
+                        () ->
+                            coalescer.execute("key", () -> {
+                                calls.incrementAndGet();
+                                await();
+                                throw new IllegalStateException("unavailable");
+                            }),
+                        executor
+                    )
+                );
+            }
+            awaitCollapsed(coalescer);
+            release.countDown();
+
+            for (CompletableFuture<String> result : results) {
+                assertThatThrownBy(result::join).hasCauseInstanceOf(IllegalStateException.class).hasRootCauseMessage("unavailable");
+            }
+            assertThat(calls).hasValue(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void makesANewCallOnceTheCallInFlightIsForgotten() throws Exception {
+        RequestCoalescer<String, String> coalescer = new RequestCoalescer<>(Duration.ofSeconds(10), value -> value);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CountDownLatch started = new CountDownLatch(1);
+            Future<String> stale = executor.submit(() ->
+                coalescer.execute("key", () -> {
+                    started.countDown();
+                    await();
+                    return "before write";
+                })
+            );
+            started.await();
+
+            coalescer.forget("key");
+
+            assertThat(coalescer.execute("key", () -> "after write")).isEqualTo("after write");
+            assertThat(coalescer.getCollapsed()).isZero();
+            release.countDown();
+            assertThat(stale.get(10, TimeUnit.SECONDS)).isEqualTo("before write");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private <V> List<V> executeConcurrently(RequestCoalescer<String, V> coalescer, Supplier<V> call) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<V>> futures = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                futures.add(executor.submit(() -> coalescer.execute("key", call)));
+            }
+            awaitCollapsed(coalescer);
+            release.countDown();
+            List<V> results = new ArrayList<>();
+            for (Future<V> future : futures) {
+                results.add(future.get(10, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void awaitCollapsed(RequestCoalescer<?, ?> coalescer) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (coalescer.getCollapsed() < CALLERS - 1 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
+    private void await() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
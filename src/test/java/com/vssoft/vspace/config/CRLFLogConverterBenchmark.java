@@ -0,0 +1,55 @@
+package com.vssoft.vspace.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link CRLFLogConverter#transform} with the previous {@code replaceAll} based implementation
+ * on typical clean and dirty log messages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CRLFLogConverterBenchmark {
+
+    @Param({
+        "Request to get Product : 0189b3f4-3f0e-7c1a-9a43-5f7c6d2b1e10",
+        "REST request to search for a page of Products for query name:phone*",
+        "Enter: search() with argument[s] = [line1\nline2\r\n\tindented]",
+    })
+    public String message;
+
+    private LoggingEvent event;
+    private CRLFLogConverter converter;
+
+    @Setup
+    public void setUp() {
+        LoggerContext context = new LoggerContext();
+        event = new LoggingEvent();
+        event.setLoggerName("com.vssoft.vspace.service.impl.ProductServiceImpl");
+        event.setLevel(Level.DEBUG);
+        event.setMessage(message);
+        converter = new CRLFLogConverter();
+        converter.setContext(context);
+        converter.setOptionList(List.of("red"));
+        converter.start();
+    }
+
+    @Benchmark
+    public String transform() {
+        return converter.transform(event, message);
+    }
+
+    @Benchmark
+    public String replaceAll() {
+        return message.replaceAll("[\n\r\t]", "_");
+    }
+}
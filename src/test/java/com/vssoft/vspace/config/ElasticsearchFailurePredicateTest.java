@@ -0,0 +1,29 @@
+package com.vssoft.vspace.config;
+
+import com.vssoft.vspace.web.rest.errors.ExpensiveQueryException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.elasticsearch.UncategorizedElasticsearchException;
+
+import java.net.SocketTimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ElasticsearchFailurePredicateTest {
+
+    private final ElasticsearchFailurePredicate predicate = new ElasticsearchFailurePredicate();
+
+    @Test
+    void recordsServerSideFailures() {
+        assertThat(predicate.test(new UncategorizedElasticsearchException("unavailable", 503, null, null))).isTrue();
+        assertThat(predicate.test(new RuntimeException(new SocketTimeoutException()))).isTrue();
+    }
+
+    @Test
+    void ignoresCallerErrors() {
+        assertThat(predicate.test(new ExpensiveQueryException("regex"))).isFalse();
+        assertThat(predicate.test(new RuntimeException(new UncategorizedElasticsearchException("bad query", 400, null, null)))).isFalse();
+        assertThat(predicate.test(BulkheadFullException.createBulkheadFullException(Bulkhead.ofDefaults("test")))).isFalse();
+    }
+}
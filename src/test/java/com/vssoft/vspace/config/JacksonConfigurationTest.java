@@ -0,0 +1,160 @@
+package com.vssoft.vspace.config;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.vssoft.vspace.service.dto.ProductDTO;
+import com.vssoft.vspace.web.rest.errors.BadRequestAlertException;
+import com.vssoft.vspace.web.rest.errors.ExceptionTranslator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class JacksonConfigurationTest {
+
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    private final JacksonConfiguration configuration = new JacksonConfiguration();
+    private final Map<MediaType, AbstractJackson2HttpMessageConverter> converters = Map.of(
+        MediaType.APPLICATION_JSON,
+        new MappingJackson2HttpMessageConverter(builder().build()),
+        SMILE,
+        configuration.smileHttpMessageConverter(builder()),
+        MediaType.APPLICATION_CBOR,
+        configuration.cborHttpMessageConverter(builder())
+    );
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc =
+            MockMvcBuilders
+                .standaloneSetup(new TestController())
+                .setControllerAdvice(new ExceptionTranslator(new MockEnvironment()))
+                .setMessageConverters(converters.get(MediaType.APPLICATION_JSON), converters.get(SMILE), converters.get(MediaType.APPLICATION_CBOR))
+                .build();
+    }
+
+    @Test
+    void defaultsToJson() throws Exception {
+        mockMvc.perform(get("/product").accept(MediaType.ALL)).andExpect(status().isOk()).andExpect(content().contentType(MediaType.APPLICATION_JSON));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "application/x-jackson-smile", "application/cbor" })
+    void readsAndWritesBinaryFormats(String mediaType) throws Exception {
+        MediaType type = MediaType.parseMediaType(mediaType);
+        ObjectMapper mapper = converters.get(type).getObjectMapper();
+        ProductDTO product = product();
+
+        MvcResult result = mockMvc
+            .perform(post("/product").contentType(type).accept(type).content(mapper.writeValueAsBytes(product)))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(type))
+            .andReturn();
+
+        assertThat(mapper.readValue(result.getResponse().getContentAsByteArray(), ProductDTO.class)).isEqualTo(product);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "application/x-jackson-smile", "application/cbor" })
+    void writesErrorsInBinaryFormats(String mediaType) throws Exception {
+        MediaType type = MediaType.parseMediaType(mediaType);
+
+        MvcResult result = mockMvc
+            .perform(get("/error").accept(type))
+            .andExpect(status().isBadRequest())
+            .andExpect(content().contentType(type))
+            .andReturn();
+
+        Map<?, ?> problem = converters.get(type).getObjectMapper().readValue(result.getResponse().getContentAsByteArray(), Map.class);
+        assertThat(problem.get("status")).isEqualTo(400);
+        assertThat(problem.get("message")).isEqualTo("error.invalid");
+        assertThat(problem.get("path")).isEqualTo("/error");
+    }
+
+    @Test
+    void usesPrebuiltWritersForHotTypes() {
+        ObjectMapper mapper = builder().build();
+        PrebuiltObjectBindings bindings = new PrebuiltObjectBindings(mapper);
+        JavaType page = mapper.getTypeFactory().constructCollectionType(List.class, ProductDTO.class);
+        ObjectWriter writer = mapper.writerFor(page);
+
+        assertThat(bindings.writer(writer, page, MediaType.APPLICATION_JSON)).isNotSameAs(writer);
+        assertThat(bindings.writer(writer, page, MediaType.APPLICATION_JSON)).isSameAs(bindings.writer(mapper.writer(), page, null));
+        assertThat(bindings.writer(writer, page, MediaType.TEXT_EVENT_STREAM)).isSameAs(writer);
+        assertThat(bindings.writer(mapper.writerWithView(Object.class), page, MediaType.APPLICATION_JSON).getConfig().getActiveView())
+            .isEqualTo(Object.class);
+        assertThat(bindings.reader(mapper.readerFor(String.class), mapper.constructType(String.class)).getValueType())
+            .isEqualTo(mapper.constructType(String.class));
+    }
+
+    @Test
+    void replacesTheDefaultConvertersInPlace() {
+        ObjectMapper mapper = builder().build();
+        List<AbstractJackson2HttpMessageConverter> prebuilt = List.of(
+            configuration.mappingJackson2HttpMessageConverter(mapper),
+            configuration.smileHttpMessageConverter(builder()),
+            configuration.cborHttpMessageConverter(builder())
+        );
+
+        List<HttpMessageConverter<?>> combined = new HttpMessageConverters(prebuilt).getConverters();
+
+        assertThat(combined.stream().filter(AbstractJackson2HttpMessageConverter.class::isInstance)).containsExactlyElementsOf(prebuilt);
+    }
+
+    private Jackson2ObjectMapperBuilder builder() {
+        return Jackson2ObjectMapperBuilder.json().modulesToInstall(configuration.javaTimeModule(), configuration.jdk8TimeModule(), configuration.hibernate6Module());
+    }
+
+    private static ProductDTO product() {
+        ProductDTO product = new ProductDTO();
+        product.setId("0189b3f4-3f0e-7c1a-9a43-5f7c6d2b1e10");
+        product.setName("Product name");
+        product.setContent("Product content");
+        return product;
+    }
+
+    @RestController
+    static class TestController {
+
+        @GetMapping("/product")
+        ProductDTO get() {
+            return product();
+        }
+
+        @PostMapping("/product")
+        ProductDTO post(@RequestBody ProductDTO product) {
+            return product;
+        }
+
+        @GetMapping("/error")
+        ProductDTO error() {
+            throw new BadRequestAlertException("Invalid product", "product", "invalid");
+        }
+    }
+}
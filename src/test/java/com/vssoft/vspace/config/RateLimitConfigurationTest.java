@@ -0,0 +1,28 @@
+package com.vssoft.vspace.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.web.ServerProperties.ForwardHeadersStrategy;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.assertj.core.api.Assertions.assertThatNoException;
+
+class RateLimitConfigurationTest {
+
+    @Test
+    void takesForwardedAddressesOnlyFromTheProxiesListed() {
+        MockEnvironment environment = new MockEnvironment();
+
+        assertThatNoException().isThrownBy(() -> RateLimitConfiguration.checkForwardedAddresses(null, environment));
+        assertThatNoException().isThrownBy(() -> RateLimitConfiguration.checkForwardedAddresses(ForwardHeadersStrategy.NONE, environment));
+        assertThatIllegalStateException()
+            .isThrownBy(() -> RateLimitConfiguration.checkForwardedAddresses(ForwardHeadersStrategy.NATIVE, environment))
+            .withMessageContaining(RateLimitConfiguration.INTERNAL_PROXIES);
+        assertThatIllegalStateException()
+            .isThrownBy(() -> RateLimitConfiguration.checkForwardedAddresses(ForwardHeadersStrategy.FRAMEWORK, environment));
+
+        environment.setProperty(RateLimitConfiguration.INTERNAL_PROXIES, "10\\.0\\.0\\.1");
+
+        assertThatNoException().isThrownBy(() -> RateLimitConfiguration.checkForwardedAddresses(ForwardHeadersStrategy.NATIVE, environment));
+    }
+}
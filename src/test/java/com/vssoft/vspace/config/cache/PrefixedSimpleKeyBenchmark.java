@@ -0,0 +1,42 @@
+package com.vssoft.vspace.config.cache;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrefixedSimpleKeyBenchmark {
+
+    private static final String PREFIX = "a1b2c3d";
+
+    private final Pageable pageable = PageRequest.of(0, 20);
+    private final PrefixedSimpleKey key = new PrefixedSimpleKey(PREFIX, "findAll", pageable);
+    private final PrefixedSimpleKey equalKey = new PrefixedSimpleKey(PREFIX, "findAll", PageRequest.of(0, 20));
+
+    @Benchmark
+    public PrefixedSimpleKey construct() {
+        return new PrefixedSimpleKey(PREFIX, "findOne", "0189b3f4-3f0e-7c1a-9a43-5f7c6d2b1e10");
+    }
+
+    @Benchmark
+    public PrefixedSimpleKey constructWithPageable() {
+        return new PrefixedSimpleKey(PREFIX, "findAll", pageable);
+    }
+
+    @Benchmark
+    public int hashCodeOf() {
+        return key.hashCode();
+    }
+
+    @Benchmark
+    public boolean equalsOf() {
+        return key.equals(equalKey);
+    }
+}
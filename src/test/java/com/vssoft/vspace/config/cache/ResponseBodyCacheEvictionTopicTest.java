@@ -0,0 +1,77 @@
+package com.vssoft.vspace.config.cache;
+
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.listener.MessageListener;
+import org.redisson.client.codec.StringCodec;
+import org.redisson.misc.CompletableFutureWrapper;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ResponseBodyCacheEvictionTopicTest {
+
+    private static final CachedResponse RESPONSE = new CachedResponse("application/json", "\"1\"", "{}".getBytes(StandardCharsets.UTF_8));
+
+    private final List<MessageListener<String>> listeners = new CopyOnWriteArrayList<>();
+    private final RedissonClient redissonClient = sharedTopic();
+
+    @Test
+    void evictsTheResponseOnEveryNode() {
+        MemoryResponseBodyCache cache = new MemoryResponseBodyCache(100, Duration.ofMinutes(1));
+        MemoryResponseBodyCache otherCache = new MemoryResponseBodyCache(100, Duration.ofMinutes(1));
+        ResponseBodyCacheEvictionTopic evictions = new ResponseBodyCacheEvictionTopic(cache, redissonClient, "evictions");
+        new ResponseBodyCacheEvictionTopic(otherCache, redissonClient, "evictions");
+        cache.put("/api/products/1", "json", RESPONSE, cache.generation());
+        otherCache.put("/api/products/1", "json", RESPONSE, otherCache.generation());
+        otherCache.put("/api/products/2", "json", RESPONSE, otherCache.generation());
+
+        evictions.evict("/api/products/1");
+
+        assertThat(cache.get("/api/products/1", "json")).isNull();
+        assertThat(otherCache.get("/api/products/1", "json")).isNull();
+        assertThat(otherCache.get("/api/products/2", "json")).isNotNull();
+    }
+
+    @Test
+    void evictsOnceOnTheNodeSendingTheEviction() {
+        MemoryResponseBodyCache cache = new MemoryResponseBodyCache(100, Duration.ofMinutes(1));
+        ResponseBodyCacheEvictionTopic evictions = new ResponseBodyCacheEvictionTopic(cache, redissonClient, "evictions");
+        long before = cache.generation();
+
+        evictions.evict("/api/products/1");
+
+        assertThat(cache.generation()).isEqualTo(before + 1);
+    }
+
+    /**
+     * Delivers each message published to the listeners of every node.
+     */
+    @SuppressWarnings("unchecked")
+    private RedissonClient sharedTopic() {
+        RTopic topic = mock(RTopic.class);
+        when(topic.addListener(eq(String.class), any(MessageListener.class)))
+            .thenAnswer(invocation -> {
+                listeners.add(invocation.getArgument(1));
+                return listeners.size();
+            });
+        when(topic.publishAsync(anyString()))
+            .thenAnswer(invocation -> {
+                listeners.forEach(listener -> listener.onMessage("evictions", invocation.getArgument(0)));
+                return new CompletableFutureWrapper<>((long) listeners.size());
+            });
+        RedissonClient client = mock(RedissonClient.class);
+        when(client.getTopic("evictions", StringCodec.INSTANCE)).thenReturn(topic);
+        return client;
+    }
+}
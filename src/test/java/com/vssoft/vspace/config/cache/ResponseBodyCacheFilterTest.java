@@ -0,0 +1,139 @@
+package com.vssoft.vspace.config.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseBodyCacheFilterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final MemoryResponseBodyCache cache = new MemoryResponseBodyCache(100, Duration.ofMinutes(1));
+    private final ResponseBodyCacheFilter filter = new ResponseBodyCacheFilter(cache, "/api/products/", "id", 1024, registry);
+    private final AtomicInteger renders = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void servesHitsFromTheCache() throws Exception {
+        MockHttpServletResponse miss = get("/api/products/1", "1", null);
+        MockHttpServletResponse hit = get("/api/products/1", "1", null);
+
+        assertThat(renders).hasValue(1);
+        assertThat(hit.getContentAsString()).isEqualTo(miss.getContentAsString()).isEqualTo("{\"id\":\"1\"}");
+        assertThat(hit.getContentType()).isEqualTo(MediaType.APPLICATION_JSON_VALUE);
+        assertThat(hit.getContentLength()).isEqualTo(10);
+        assertThat(hit.getHeader(HttpHeaders.ETAG)).isEqualTo(miss.getHeader(HttpHeaders.ETAG)).startsWith("\"");
+        assertThat(registry.get("http.server.response.cache.requests").tag("result", "hit").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void answersConditionalRequestsWithNotModified() throws Exception {
+        String etag = get("/api/products/1", "1", null).getHeader(HttpHeaders.ETAG);
+
+        MockHttpServletResponse response = get("/api/products/1", "1", "W/" + etag);
+
+        assertThat(response.getStatus()).isEqualTo(HttpServletResponse.SC_NOT_MODIFIED);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+        assertThat(get("/api/products/1", "1", "\"other\"").getStatus()).isEqualTo(HttpServletResponse.SC_OK);
+    }
+
+    @Test
+    void cachesEachAuthorityScopeApart() throws Exception {
+        get("/api/products/1", "1", null);
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("admin", null, "ROLE_ADMIN"));
+        get("/api/products/1", "1", null);
+        get("/api/products/1", "1", null);
+
+        assertThat(renders).hasValue(2);
+    }
+
+    @Test
+    void rendersAgainOnceEvicted() throws Exception {
+        get("/api/products/1", "1", null);
+        cache.evict("/api/products/1");
+        get("/api/products/1", "1", null);
+
+        assertThat(renders).hasValue(2);
+    }
+
+    @Test
+    void dropsResponsesRenderedDuringAnEviction() throws Exception {
+        MockHttpServletRequest request = request("/api/products/1", "1", null);
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            cache.evict("/api/products/1");
+            render("1", (HttpServletResponse) res, HttpServletResponse.SC_OK);
+        });
+
+        assertThat(cache.get("/api/products/1", "*/*|")).isNull();
+    }
+
+    @Test
+    void skipsFailuresAndOtherPaths() throws Exception {
+        MockHttpServletRequest missing = request("/api/products/2", "2", null);
+        filter.doFilter(missing, new MockHttpServletResponse(), chain("2", HttpServletResponse.SC_NOT_FOUND));
+        // Same product as /api/products/1, but eviction would miss this path
+        get("/api/products/%31", "1", null);
+
+        assertThat(cache.get("/api/products/2", "*/*|")).isNull();
+        assertThat(cache.get("/api/products/%31", "*/*|")).isNull();
+    }
+
+    @Test
+    void roundTripsEntriesThroughTheirEncoding() {
+        CachedResponse response = new CachedResponse("application/json", "\"1\"", "{\"id\":\"1\"}".getBytes(StandardCharsets.UTF_8));
+
+        CachedResponse decoded = CachedResponse.decode(response.encode());
+
+        assertThat(decoded.contentType()).isEqualTo("application/json");
+        assertThat(decoded.etag()).isEqualTo("\"1\"");
+        assertThat(new String(decoded.body(), decoded.offset(), decoded.length(), StandardCharsets.UTF_8)).isEqualTo("{\"id\":\"1\"}");
+    }
+
+    private MockHttpServletResponse get(String uri, String id, String ifNoneMatch) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(uri, id, ifNoneMatch), response, chain(id, HttpServletResponse.SC_OK));
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String uri, String id, String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        // As set by the handler mapping
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/products/{id}");
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Map.of("id", id));
+        return request;
+    }
+
+    private FilterChain chain(String id, int status) {
+        return (req, res) -> render(id, (HttpServletResponse) res, status);
+    }
+
+    private void render(String id, HttpServletResponse response, int status) throws IOException {
+        renders.incrementAndGet();
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getOutputStream().write(("{\"id\":\"" + id + "\"}").getBytes(StandardCharsets.UTF_8));
+    }
+}
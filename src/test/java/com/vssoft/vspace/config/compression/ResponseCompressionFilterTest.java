@@ -0,0 +1,173 @@
+package com.vssoft.vspace.config.compression;
+
+import com.aayushatharva.brotli4j.decoder.Decoder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCompressionFilterTest {
+
+    private static final String JSON = "[" + "{\"id\":\"1\",\"name\":\"Product\",\"content\":\"Some content\"},".repeat(50) + "{}]";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ResponseCompressor compressor = new ResponseCompressor(4, 6, 2);
+    private final ResponseCompressionFilter filter = new ResponseCompressionFilter(compressor, 1024, 4096, new String[] { "image/*" }, registry);
+
+    @Test
+    void negotiatesTheCodingPreferredByTheClient() {
+        assertThat(ContentCoding.negotiate("gzip, deflate, br", true)).isEqualTo(ContentCoding.BROTLI);
+        assertThat(ContentCoding.negotiate("gzip, deflate, br", false)).isEqualTo(ContentCoding.GZIP);
+        assertThat(ContentCoding.negotiate("br;q=0.5, gzip", true)).isEqualTo(ContentCoding.GZIP);
+        assertThat(ContentCoding.negotiate("*", true)).isEqualTo(ContentCoding.BROTLI);
+        assertThat(ContentCoding.negotiate("*;q=0, identity", true)).isNull();
+        assertThat(ContentCoding.negotiate("deflate", true)).isNull();
+        assertThat(ContentCoding.negotiate(null, true)).isNull();
+    }
+
+    @Test
+    void compressesWithGzip() throws Exception {
+        MockHttpServletResponse response = filter("gzip", MediaType.APPLICATION_JSON_VALUE, JSON);
+
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(response.getHeader(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT_ENCODING);
+        assertThat(response.getContentLength()).isEqualTo(response.getContentAsByteArray().length);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(JSON);
+        }
+        assertThat(registry.get("http.server.compression.bytes.saved").tag("encoding", "gzip").counter().count())
+            .isEqualTo(JSON.length() - response.getContentAsByteArray().length);
+        assertThat(registry.get("http.server.compression").tag("encoding", "gzip").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void compressesWithBrotli() throws Exception {
+        MockHttpServletResponse response = filter("br", MediaType.APPLICATION_JSON_VALUE, JSON);
+
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("br");
+        byte[] body = response.getContentAsByteArray();
+        assertThat(new String(Decoder.decompress(body).getDecompressedData(), StandardCharsets.UTF_8)).isEqualTo(JSON);
+    }
+
+    @Test
+    void streamsBodiesLargerThanTheBuffer() throws Exception {
+        String json = JSON.repeat(5);
+        MockHttpServletResponse response = filter("br", MediaType.APPLICATION_JSON_VALUE, json);
+
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("br");
+        assertThat(response.getHeader(HttpHeaders.CONTENT_LENGTH)).isNull();
+        byte[] body = response.getContentAsByteArray();
+        assertThat(new String(Decoder.decompress(body).getDecompressedData(), StandardCharsets.UTF_8)).isEqualTo(json);
+        assertThat(registry.get("http.server.compression.bytes.saved").tag("encoding", "br").counter().count()).isEqualTo(json.length() - body.length);
+    }
+
+    @Test
+    void sendsWhatWasFlushedOnceMoreIsWritten() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(
+            request("gzip"),
+            response,
+            (req, res) -> {
+                res.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                res.getOutputStream().write(JSON.getBytes(StandardCharsets.UTF_8));
+                res.getOutputStream().flush();
+                assertThat(response.getContentAsByteArray()).isEmpty();
+                res.getOutputStream().write(JSON.getBytes(StandardCharsets.UTF_8));
+                byte[] sent = response.getContentAsByteArray();
+                try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(sent))) {
+                    assertThat(new String(in.readNBytes(JSON.length()), StandardCharsets.UTF_8)).isEqualTo(JSON);
+                }
+                res.getOutputStream().flush();
+                assertThat(response.getContentAsByteArray()).hasSizeGreaterThan(sent.length);
+            }
+        );
+
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(JSON + JSON);
+        }
+    }
+
+    @Test
+    void reusesBuffersAndCompressorsAcrossRequests() throws Exception {
+        MockHttpServletResponse first = filter("gzip", MediaType.APPLICATION_JSON_VALUE, JSON);
+        MockHttpServletResponse second = filter("gzip", MediaType.APPLICATION_JSON_VALUE, JSON.replace("Product", "Article"));
+
+        assertThat(first.getContentAsByteArray()).isNotEqualTo(second.getContentAsByteArray());
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(second.getContentAsByteArray()))) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(JSON.replace("Product", "Article"));
+        }
+    }
+
+    @Test
+    void sendsSmallResponsesAsIs() throws Exception {
+        MockHttpServletResponse response = filter("gzip", MediaType.APPLICATION_JSON_VALUE, "{\"id\":\"1\"}");
+
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(response.getContentAsString()).isEqualTo("{\"id\":\"1\"}");
+        assertThat(response.getContentLength()).isEqualTo(10);
+        assertThat(registry.get("http.server.compression.skipped").tag("reason", "below-threshold").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void sendsExcludedAndStreamedMediaAsIs() throws Exception {
+        assertThat(filter("gzip", MediaType.IMAGE_PNG_VALUE, JSON).getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(filter("gzip", MediaType.TEXT_EVENT_STREAM_VALUE, JSON).getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(filter("gzip", MediaType.IMAGE_PNG_VALUE, JSON).getContentAsString()).isEqualTo(JSON);
+        assertThat(registry.get("http.server.compression.skipped").tag("reason", "media-type").counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    void sendsResponsesAsIsWithoutAcceptedCoding() throws Exception {
+        MockHttpServletResponse response = filter("identity", MediaType.APPLICATION_JSON_VALUE, JSON);
+
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(response.getContentAsString()).isEqualTo(JSON);
+    }
+
+    @Test
+    void weakensStrongEtags() throws Exception {
+        MockHttpServletRequest request = request("gzip");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(
+            request,
+            response,
+            (req, res) -> {
+                ((HttpServletResponse) res).setHeader(HttpHeaders.ETAG, "\"1\"");
+                write((HttpServletResponse) res, MediaType.APPLICATION_JSON_VALUE, JSON);
+            }
+        );
+
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo("W/\"1\"");
+    }
+
+    private MockHttpServletResponse filter(String acceptEncoding, String contentType, String body) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(acceptEncoding), response, (req, res) -> write((HttpServletResponse) res, contentType, body));
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String acceptEncoding) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products");
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        return request;
+    }
+
+    private static void write(HttpServletResponse response, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        response.setContentType(contentType);
+        response.setContentLength(bytes.length);
+        response.getOutputStream().write(bytes);
+        response.getOutputStream().flush();
+    }
+}
@@ -0,0 +1,56 @@
+package com.vssoft.vspace.config.filter;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpaWebFilterBenchmark {
+
+    @Param({ "/api/products/0d8a3c4e-6f1b-11ee-b962-0242ac120002", "/products/edit", "/content/main.css", "/management/health" })
+    private String path;
+
+    @Param({ "", "/vspace" })
+    private String contextPath;
+
+    private String requestUri;
+    private int contextPathLength;
+
+    @Setup
+    public void setUp() {
+        requestUri = contextPath + path;
+        contextPathLength = contextPath.length();
+    }
+
+    @Benchmark
+    public boolean isClientRoute() {
+        return SpaWebFilter.isClientRoute(requestUri, contextPathLength);
+    }
+
+    @Benchmark
+    public boolean regexBaseline() {
+        return regexIsClientRoute(requestUri, contextPathLength);
+    }
+
+    /**
+     * The previous classification, which copies the path and compiles a regular expression per request.
+     */
+    static boolean regexIsClientRoute(String requestUri, int contextPathLength) {
+        String path = requestUri.substring(contextPathLength);
+        return (
+            !path.startsWith("/api") &&
+            !path.startsWith("/management") &&
+            !path.startsWith("/v3/api-docs") &&
+            !path.startsWith("/login") &&
+            !path.startsWith("/oauth2") &&
+            !path.startsWith("/websocket") &&
+            !path.contains(".") &&
+            path.matches("/(.*)")
+        );
+    }
+}
@@ -0,0 +1,49 @@
+package com.vssoft.vspace.config.filter;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpaWebFilterTest {
+
+    @ParameterizedTest
+    @ValueSource(
+        strings = {
+            "",
+            "/",
+            "/products",
+            "/products/edit/42",
+            "/api",
+            "/apis",
+            "/api/products",
+            "/ap",
+            "/management/health",
+            "/manage",
+            "/v3/api-docs",
+            "/v3/api",
+            "/login",
+            "/login/oauth2/code/oidc",
+            "/oauth2/authorization/oidc",
+            "/websocket/tracker",
+            "/index.html",
+            "/content/main.css",
+            "/products/1.5",
+            "products",
+            "//api",
+            "/API",
+            "/products\n",
+            "/products\r\nfoo",
+            "/products\u0085",
+            "/products\u2028",
+            "/products\u2029",
+            "/caf\u00e9",
+            "/%2e%2e/secret",
+        }
+    )
+    void classifiesLikeTheRegexFilter(String path) {
+        assertThat(SpaWebFilter.isClientRoute(path, 0)).isEqualTo(SpaWebFilterBenchmark.regexIsClientRoute(path, 0));
+        String withContextPath = "/vspace" + path;
+        assertThat(SpaWebFilter.isClientRoute(withContextPath, 7)).isEqualTo(SpaWebFilterBenchmark.regexIsClientRoute(withContextPath, 7));
+    }
+}
@@ -0,0 +1,129 @@
+package com.vssoft.vspace.config.persistence;
+
+import com.github.luben.zstd.Zstd;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ContentCodecTest {
+
+    private static final String[] WORDS = {
+        "Lightweight",
+        "aluminium",
+        "body",
+        "with",
+        "a",
+        "battery",
+        "lasting",
+        "all",
+        "day",
+        "and",
+        "fast",
+        "charging",
+        "Includes",
+        "the",
+        "charger",
+        "cable",
+        "warranty",
+        "of",
+        "two",
+        "years",
+        "Dimensions",
+        "weight",
+        "grams",
+        "Bluetooth",
+        "wireless",
+        "display",
+    };
+
+    private final ContentCodec codec = new ContentCodec(true, 64, 3, List.of(), 2);
+
+    @Test
+    void compressesContentsFromTheMinimumSize() {
+        String content = description(new Random(1), 100);
+
+        byte[] encoded = codec.encode(content);
+
+        assertThat(encoded[0]).isEqualTo(ContentCodec.MAGIC);
+        assertThat(encoded[1]).isEqualTo(ContentCodec.ZSTD);
+        assertThat(encoded.length).isLessThan(content.length() / 2);
+        assertThat(codec.decode(encoded)).isEqualTo(content);
+    }
+
+    @Test
+    void keepsSmallAndIncompressibleContentsAsText() {
+        String incompressible = "The quick brown fox jumps over the lazy dog, 0123456789 ABCDEFGHIJKLM";
+
+        assertThat(codec.encode("Short")).isEqualTo("Short".getBytes(StandardCharsets.UTF_8));
+        assertThat(codec.encode(incompressible)).isEqualTo(incompressible.getBytes(StandardCharsets.UTF_8));
+        assertThat(codec.encode("")).isEmpty();
+        assertThat(codec.encode(null)).isNull();
+    }
+
+    @Test
+    void readsContentsWrittenAsText() {
+        String content = "Écran 4K, " + description(new Random(2), 100);
+
+        assertThat(codec.decode(content.getBytes(StandardCharsets.UTF_8))).isEqualTo(content);
+        assertThat(codec.decode(new byte[0])).isEmpty();
+        assertThat(codec.decode(null)).isNull();
+    }
+
+    @Test
+    void readsCompressedContentsOnceCompressionIsDisabled() {
+        String content = description(new Random(3), 100);
+        ContentCodec disabled = new ContentCodec(false, 64, 3, List.of(), 2);
+
+        assertThat(disabled.encode(content)).isEqualTo(content.getBytes(StandardCharsets.UTF_8));
+        assertThat(disabled.decode(codec.encode(content))).isEqualTo(content);
+    }
+
+    @Test
+    void compressesShortContentsBetterWithADictionary() {
+        byte[] dictionary = train();
+        ContentCodec withDictionary = new ContentCodec(true, 64, 3, List.of(dictionary), 1);
+        String content = description(new Random(-1), 30);
+
+        byte[] encoded = withDictionary.encode(content);
+
+        assertThat(encoded[1]).isEqualTo(ContentCodec.ZSTD_DICTIONARY);
+        assertThat(encoded.length).isLessThan(codec.encode(content).length);
+        assertThat(withDictionary.decode(encoded)).isEqualTo(content);
+        // The single pooled context is reused without the dictionary
+        assertThat(withDictionary.decode(codec.encode(description(new Random(4), 100)))).isEqualTo(description(new Random(4), 100));
+        assertThat(withDictionary.decode(encoded)).isEqualTo(content);
+        assertThatThrownBy(() -> codec.decode(encoded)).isInstanceOf(IllegalStateException.class).hasMessageContaining("not configured");
+    }
+
+    @Test
+    void rejectsUnknownFormats() {
+        assertThatThrownBy(() -> codec.decode(new byte[] { ContentCodec.MAGIC, 9, 0 })).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> new ContentCodec(true, 64, 3, List.of(new byte[100]), 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static byte[] train() {
+        Random random = new Random(0);
+        byte[][] samples = new byte[1000][];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = description(random, 20 + random.nextInt(40)).getBytes(StandardCharsets.UTF_8);
+        }
+        byte[] dictionary = new byte[4096];
+        long size = Zstd.trainFromBuffer(samples, dictionary);
+        assertThat(Zstd.isError(size)).isFalse();
+        return Arrays.copyOf(dictionary, (int) size);
+    }
+
+    private static String description(Random random, int words) {
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            description.append(WORDS[random.nextInt(WORDS.length)]).append(i % 12 == 11 ? ". " : " ");
+        }
+        return description.toString();
+    }
+}
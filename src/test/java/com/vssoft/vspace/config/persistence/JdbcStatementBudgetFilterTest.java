@@ -0,0 +1,80 @@
+package com.vssoft.vspace.config.persistence;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JdbcStatementBudgetFilterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final JdbcStatementListener listener = new JdbcStatementListener(200);
+    private final JdbcStatementBudgetFilter filter = new JdbcStatementBudgetFilter(2, registry);
+
+    @Test
+    void recordsStatementsPerRequest() throws Exception {
+        MockHttpServletResponse response = filter(2);
+
+        assertThat(registry.get("jdbc.statements.per.request").tag("uri", "/api/products/{id}").summary().totalAmount()).isEqualTo(2);
+        assertThat(registry.find("jdbc.statements.budget.exceeded").counter()).isNull();
+        assertThat(response.getHeader(JdbcStatementBudgetFilter.STATEMENTS_HEADER)).isNull();
+    }
+
+    @Test
+    void flagsRequestsOverBudget() throws Exception {
+        MockHttpServletResponse response = filter(3);
+
+        assertThat(registry.get("jdbc.statements.budget.exceeded").tag("uri", "/api/products/{id}").counter().count()).isEqualTo(1);
+        assertThat(response.getHeader(JdbcStatementBudgetFilter.STATEMENTS_HEADER)).isEqualTo("3");
+    }
+
+    @Test
+    void ignoresStatementsOutsideOfRequests() throws Exception {
+        listener.afterQuery(execution(), List.of(query()));
+        filter(0);
+
+        assertThat(registry.get("jdbc.statements.per.request").summary().totalAmount()).isZero();
+    }
+
+    @Test
+    void countsBindValuesOfEveryBatchEntry() {
+        QueryInfo batch = query();
+        batch.setParametersList(List.of(List.of(new ParameterSetOperation(), new ParameterSetOperation()), List.of(new ParameterSetOperation())));
+
+        assertThat(JdbcStatementListener.bindValues(List.of(batch, query()))).isEqualTo(3);
+    }
+
+    private MockHttpServletResponse filter(int statements) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products/1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(
+            request,
+            response,
+            (req, res) -> {
+                req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/products/{id}");
+                for (int i = 0; i < statements; i++) {
+                    listener.afterQuery(execution(), List.of(query()));
+                }
+            }
+        );
+        return response;
+    }
+
+    private static ExecutionInfo execution() {
+        ExecutionInfo execution = new ExecutionInfo();
+        execution.setElapsedTime(1);
+        return execution;
+    }
+
+    private static QueryInfo query() {
+        return new QueryInfo("select * from products where id = ?");
+    }
+}
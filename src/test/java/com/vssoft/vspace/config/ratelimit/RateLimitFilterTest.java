@@ -0,0 +1,213 @@
+package com.vssoft.vspace.config.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+
+    private final AtomicLong clockMillis = new AtomicLong(1_000_000);
+    private final InMemoryTokenBucketStore store = new InMemoryTokenBucketStore();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final LeasingRateLimiter limiter = new LeasingRateLimiter(
+        store,
+        10,
+        Duration.ofSeconds(1),
+        Duration.ofSeconds(1),
+        1000,
+        registry,
+        () -> TimeUnit.MILLISECONDS.toNanos(clockMillis.get())
+    );
+    private final RateLimitFilter filter = new RateLimitFilter(
+        limiter,
+        List.of(
+            new RateLimitFilter.EndpointClass("search", new String[] { "/api/_search/**" }, 20, 2),
+            new RateLimitFilter.EndpointClass("api", new String[] { "/api/**" }, 100, 50)
+        ),
+        new ObjectMapper(),
+        registry
+    );
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void takesPermitsFromTheStoreInBatches() throws Exception {
+        authenticate("alice");
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(filter("/api/_search/products").getStatus()).isEqualTo(HttpStatus.OK.value());
+        }
+
+        assertThat(store.calls).hasValue(2);
+        assertThat(registry.get("rate.limit.leases").tag("result", "leased").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void rejectsRequestsOverTheLimitUntilTheBucketRefills() throws Exception {
+        authenticate("alice");
+        for (int i = 0; i < 20; i++) {
+            filter("/api/_search/products");
+        }
+
+        MockHttpServletResponse rejected = filter("/api/_search/products");
+        assertThat(rejected.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(rejected.getContentType()).isEqualTo(MediaType.APPLICATION_PROBLEM_JSON_VALUE);
+        assertThat(rejected.getContentAsString()).contains("\"status\":429").contains("error.http.429");
+
+        // Rejected locally until the bucket holds a permit again
+        assertThat(filter("/api/_search/products").getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(store.calls).hasValue(3);
+        assertThat(registry.get("http.server.requests.throttled").tag("endpoint", "search").counter().count()).isEqualTo(2);
+
+        clockMillis.addAndGet(500);
+        assertThat(filter("/api/_search/products").getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(store.calls).hasValue(4);
+    }
+
+    @Test
+    void limitsEachCallerAndClassOfEndpointsOnItsOwn() throws Exception {
+        authenticate("alice");
+        for (int i = 0; i < 21; i++) {
+            filter("/api/_search/products");
+        }
+
+        assertThat(filter("/api/products").getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(filter("/management/health").getStatus()).isEqualTo(HttpStatus.OK.value());
+        authenticate("bob");
+        assertThat(filter("/api/_search/products").getStatus()).isEqualTo(HttpStatus.OK.value());
+        SecurityContextHolder.clearContext();
+        assertThat(filter("/api/_search/products").getStatus()).isEqualTo(HttpStatus.OK.value());
+
+        assertThat(store.buckets).containsOnlyKeys("search:user:alice", "api:user:alice", "search:user:bob", "search:address:127.0.0.1");
+    }
+
+    @Test
+    void dropsLeasedPermitsOnceTheLeaseExpires() throws Exception {
+        authenticate("alice");
+        filter("/api/_search/products");
+
+        clockMillis.addAndGet(1001);
+        filter("/api/_search/products");
+
+        assertThat(store.calls).hasValue(2);
+    }
+
+    @Test
+    void letsRequestsThroughWhileTheStoreCannotBeReached() throws Exception {
+        authenticate("alice");
+        store.unavailable.set(true);
+
+        assertThat(filter("/api/_search/products").getStatus()).isEqualTo(HttpStatus.OK.value());
+        authenticate("bob");
+        assertThat(filter("/api/_search/products").getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(filter("/api/products").getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(registry.get("rate.limit.leases").tag("result", "failed").counter().count()).isEqualTo(1);
+
+        // Called again once the backoff is over
+        clockMillis.addAndGet(1000);
+        store.unavailable.set(false);
+        assertThat(filter("/api/_search/products").getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(store.calls).hasValue(2);
+    }
+
+    @Test
+    void sharesTheLeaseInFlightBetweenTheRequestsOfACaller() throws Exception {
+        CountDownLatch taking = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        TokenBucketStore slowStore = (key, capacity, refillPerSecond, permits) -> {
+            calls.incrementAndGet();
+            if (key.endsWith(":alice")) {
+                taking.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return new TokenBucketStore.Grant(permits, 0);
+        };
+        LeasingRateLimiter slowLimiter = new LeasingRateLimiter(slowStore, 10, Duration.ofSeconds(1), Duration.ofSeconds(1), 1000, registry);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<Long> first = executor.submit(() -> slowLimiter.tryAcquire("search:user:alice", 20, 2));
+            assertThat(taking.await(5, TimeUnit.SECONDS)).isTrue();
+            List<Future<Long>> waiting = List.of(
+                executor.submit(() -> slowLimiter.tryAcquire("search:user:alice", 20, 2)),
+                executor.submit(() -> slowLimiter.tryAcquire("search:user:alice", 20, 2))
+            );
+            // Other callers are not held up by the call in flight
+            assertThat(executor.submit(() -> slowLimiter.tryAcquire("search:user:bob", 20, 2)).get(5, TimeUnit.SECONDS)).isZero();
+
+            release.countDown();
+            assertThat(first.get(5, TimeUnit.SECONDS)).isZero();
+            for (Future<Long> request : waiting) {
+                assertThat(request.get(5, TimeUnit.SECONDS)).isZero();
+            }
+            assertThat(calls).hasValue(2);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private MockHttpServletResponse filter(String path) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", path), response, new MockFilterChain());
+        return response;
+    }
+
+    private static void authenticate(String login) {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(login, null, "ROLE_USER"));
+    }
+
+    private class InMemoryTokenBucketStore implements TokenBucketStore {
+
+        private final Map<String, double[]> buckets = new HashMap<>();
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicBoolean unavailable = new AtomicBoolean();
+
+        @Override
+        public Grant take(String key, long capacity, double refillPerSecond, int permits) {
+            calls.incrementAndGet();
+            if (unavailable.get()) {
+                throw new IllegalStateException("Redis is down");
+            }
+            long now = clockMillis.get();
+            double[] bucket = buckets.computeIfAbsent(key, k -> new double[] { capacity, now });
+            double tokens = Math.min(capacity, bucket[0] + (now - bucket[1]) * refillPerSecond / 1000);
+            int granted = (int) Math.min(permits, Math.floor(tokens));
+            bucket[0] = tokens - granted;
+            bucket[1] = now;
+            return new Grant(granted, granted > 0 ? 0 : (long) Math.ceil((1 - bucket[0]) * 1000 / refillPerSecond));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.vssoft.vspace.domain;
+
+import com.vssoft.vspace.config.persistence.ContentCodec;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metamodel.mapping.AttributeMapping;
+import org.hibernate.resource.beans.container.spi.BeanContainer;
+import org.hibernate.resource.beans.container.spi.ContainedBean;
+import org.hibernate.resource.beans.spi.BeanInstanceProducer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.YamlPropertiesFactoryBean;
+import org.springframework.core.io.ClassPathResource;
+
+import java.util.List;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompressedContentMutabilityPlanTest {
+
+    private final ContentCodec codec = new ContentCodec(true, 64, 3, List.of(), 1);
+    private final CompressedContentMutabilityPlan plan = new CompressedContentMutabilityPlan(codec);
+
+    @Test
+    void cachesContentsAsTheirEncodedBytes() {
+        String content = "Lightweight aluminium body with a battery lasting all day. ".repeat(10);
+
+        byte[] cached = (byte[]) plan.disassemble(content, null);
+
+        assertThat(cached.length).isLessThan(content.length());
+        assertThat(plan.assemble(cached, null)).isEqualTo(content);
+    }
+
+    @Test
+    void readsTheStringsCachedByEarlierVersions() {
+        assertThat(plan.assemble("Cached as a string", null)).isEqualTo("Cached as a string");
+    }
+
+    /**
+     * Hibernate 6.2 only gets mutability plans from its bean container when {@code hibernate.cdi.extensions} is false,
+     * reading the flag inverted, and would otherwise fail to create this one, which has no default constructor. Fails
+     * once Hibernate reads it the right way, the setting of {@code application.yml} then having to be removed.
+     */
+    @Test
+    void getsThePlanFromTheBeanContainerWithTheSettingsOfTheApplication() {
+        YamlPropertiesFactoryBean yaml = new YamlPropertiesFactoryBean();
+        yaml.setResources(new ClassPathResource("application.yml"));
+        Properties application = yaml.getObject();
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+            .applySetting(AvailableSettings.URL, "jdbc:h2:mem:mutability;DB_CLOSE_DELAY=-1")
+            .applySetting(AvailableSettings.USE_SECOND_LEVEL_CACHE, false)
+            .applySetting(AvailableSettings.ALLOW_EXTENSIONS_IN_CDI, application.getProperty("spring.jpa.properties.hibernate.cdi.extensions"))
+            .applySetting(AvailableSettings.BEAN_CONTAINER, new PlanContainer(plan))
+            .build();
+        try (SessionFactory sessionFactory = new MetadataSources(registry).addAnnotatedClass(Product.class).buildMetadata().buildSessionFactory()) {
+            AttributeMapping content = sessionFactory
+                .unwrap(SessionFactoryImplementor.class)
+                .getMappingMetamodel()
+                .getEntityDescriptor(Product.class)
+                .findAttributeMapping("content");
+
+            assertThat(content.getAttributeMetadata().getMutabilityPlan()).isSameAs(plan);
+        } finally {
+            StandardServiceRegistryBuilder.destroy(registry);
+        }
+    }
+
+    private record PlanContainer(CompressedContentMutabilityPlan plan) implements BeanContainer {
+        @Override
+        public <B> ContainedBean<B> getBean(Class<B> beanType, LifecycleOptions lifecycleOptions, BeanInstanceProducer fallbackProducer) {
+            B bean = beanType == CompressedContentMutabilityPlan.class ? beanType.cast(plan) : fallbackProducer.produceBeanInstance(beanType);
+            return () -> bean;
+        }
+
+        @Override
+        public <B> ContainedBean<B> getBean(
+            String name,
+            Class<B> beanType,
+            LifecycleOptions lifecycleOptions,
+            BeanInstanceProducer fallbackProducer
+        ) {
+            B bean = fallbackProducer.produceBeanInstance(name, beanType);
+            return () -> bean;
+        }
+
+        @Override
+        public void stop() {}
+    }
+}
@@ -0,0 +1,136 @@
+package com.vssoft.vspace.domain;
+
+import com.vssoft.vspace.config.persistence.ContentCodec;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.jpa.SpecHints;
+import org.hibernate.resource.beans.container.spi.BeanContainer;
+import org.hibernate.resource.beans.container.spi.ContainedBean;
+import org.hibernate.resource.beans.spi.BeanInstanceProducer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads a page of products with large contents as the list pages do, and updates them as the {@code PUT} requests do,
+ * merging detached products with new contents then flushing, against an in-memory H2 database and without the second
+ * level cache, so that the cost of reading and writing the contents shows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductFlushBenchmark {
+
+    @Param({ "100" })
+    public int products;
+
+    @Param({ "8192" })
+    public int contentLength;
+
+    private StandardServiceRegistry registry;
+    private SessionFactory sessionFactory;
+    private List<String> ids;
+    private int generation;
+
+    @Setup
+    public void setUp() {
+        registry =
+            new StandardServiceRegistryBuilder()
+                .applySetting(AvailableSettings.URL, "jdbc:h2:mem:flush;MODE=PostgreSQL;DB_CLOSE_DELAY=-1")
+                .applySetting(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .applySetting(AvailableSettings.USE_SECOND_LEVEL_CACHE, false)
+                .applySetting(AvailableSettings.STATEMENT_BATCH_SIZE, 25)
+                .applySetting(AvailableSettings.BEAN_CONTAINER, new ContentBeanContainer())
+                .build();
+        sessionFactory = new MetadataSources(registry).addAnnotatedClass(Product.class).buildMetadata().buildSessionFactory();
+        sessionFactory.inTransaction(session -> {
+            for (int i = 0; i < products; i++) {
+                Product product = new Product();
+                product.setName("Product " + i);
+                product.setContent("x".repeat(contentLength));
+                session.persist(product);
+            }
+        });
+        ids = sessionFactory.fromSession(session -> session.createQuery("select p.id from Product p", String.class).getResultList());
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+        StandardServiceRegistryBuilder.destroy(registry);
+    }
+
+    @Benchmark
+    public List<Product> loadPage() {
+        try (Session session = sessionFactory.openSession()) {
+            return session
+                .createQuery("from Product", Product.class)
+                .setHint(SpecHints.HINT_SPEC_FETCH_GRAPH, session.getEntityGraph(Product.WITH_CONTENT))
+                .setReadOnly(true)
+                .getResultList();
+        }
+    }
+
+    @Benchmark
+    public int mergeAndFlush() {
+        String content = String.valueOf((char) ('a' + generation++ % 26)).repeat(contentLength);
+        List<Product> updates = ids
+            .stream()
+            .map(id -> {
+                Product product = new Product();
+                product.setId(id);
+                product.setName("Product " + id);
+                product.setContent(content);
+                return product;
+            })
+            .toList();
+        return sessionFactory.fromTransaction(session -> {
+            updates.forEach(session::merge);
+            session.flush();
+            return updates.size();
+        });
+    }
+
+    /**
+     * Creates the converter and the mutability plan of the contents, which Spring creates in the application.
+     */
+    private static class ContentBeanContainer implements BeanContainer {
+
+        private final ContentCodec codec = new ContentCodec(true, 64, 3, List.of(), 2);
+        private final Map<Class<?>, Object> beans = Map.of(
+            CompressedContentConverter.class,
+            new CompressedContentConverter(codec),
+            CompressedContentMutabilityPlan.class,
+            new CompressedContentMutabilityPlan(codec)
+        );
+
+        @Override
+        public <B> ContainedBean<B> getBean(Class<B> beanType, LifecycleOptions lifecycleOptions, BeanInstanceProducer fallbackProducer) {
+            B bean = beans.containsKey(beanType) ? beanType.cast(beans.get(beanType)) : fallbackProducer.produceBeanInstance(beanType);
+            return () -> bean;
+        }
+
+        @Override
+        public <B> ContainedBean<B> getBean(
+            String name,
+            Class<B> beanType,
+            LifecycleOptions lifecycleOptions,
+            BeanInstanceProducer fallbackProducer
+        ) {
+            B bean = fallbackProducer.produceBeanInstance(name, beanType);
+            return () -> bean;
+        }
+
+        @Override
+        public void stop() {}
+    }
+}
@@ -0,0 +1,221 @@
+package com.vssoft.vspace.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Open-loop HTTP load generator for the product API.
+ * <p>
+ * Requests are issued on a fixed schedule derived from the target rate, whether or not earlier requests
+ * have completed, and latencies are measured from the intended send time, so a slow server shows up as
+ * higher latency instead of a lower request rate (no coordinated omission).
+ */
+class LoadGenerator {
+
+    enum Operation {
+        GET_PRODUCT,
+        LIST_PRODUCTS,
+        SEARCH_PRODUCTS,
+        SUGGEST_PRODUCTS,
+        CREATE_PRODUCT,
+        UPDATE_PRODUCT,
+    }
+
+    private static final String[] WORDS = { "phone", "laptop", "camera", "speaker", "watch", "tablet", "monitor", "keyboard" };
+    private static final String[] QUERIES = { "phone", "name:laptop*", "camera OR speaker", "watch", "content:lorem", "tablet*" };
+    private static final String CONTENT = "Lorem ipsum dolor sit amet, consectetur adipiscing elit. ".repeat(20);
+    private static final int MAX_IN_FLIGHT = 5_000;
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpClient client;
+    private final URI baseUri;
+    private final String authorization;
+    private final List<String> productIds = new CopyOnWriteArrayList<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private String csrfToken;
+
+    LoadGenerator(URI baseUri, String accessToken) {
+        this.baseUri = baseUri;
+        this.authorization = "Bearer " + accessToken;
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newFixedThreadPool(16))
+            .build();
+    }
+
+    /**
+     * Creates the products the read operations work on.
+     */
+    void seed(int count) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request("/api/products?size=1").GET().build(), HttpResponse.BodyHandlers.ofString());
+        csrfToken = response.headers().firstValue("X-XSRF-TOKEN").orElseThrow(() -> new IllegalStateException("No CSRF token returned"));
+        for (int i = 0; i < count; i++) {
+            HttpResponse<String> created = client.send(create(i), HttpResponse.BodyHandlers.ofString());
+            if (created.statusCode() != 201) {
+                throw new IllegalStateException("Seeding failed with status " + created.statusCode() + ": " + created.body());
+            }
+            productIds.add(mapper.readTree(created.body()).get("id").asText());
+        }
+    }
+
+    /**
+     * Runs the workload for the given duration.
+     *
+     * @return the latencies of each operation.
+     */
+    Map<Operation, OperationResult> run(int targetRps, Duration duration, Map<Operation, Integer> mix) throws InterruptedException {
+        Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+        Map<Operation, AtomicLong> errors = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new Recorder(HIGHEST_TRACKABLE_MICROS, 3));
+            errors.put(operation, new AtomicLong());
+        }
+        Operation[] schedule = weightedSchedule(mix);
+
+        long periodNanos = TimeUnit.SECONDS.toNanos(1) / targetRps;
+        long ticks = duration.toNanos() / periodNanos;
+        long start = System.nanoTime();
+        AtomicLong tick = new AtomicLong();
+        ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor();
+        ticker.scheduleAtFixedRate(
+            () -> {
+                long n = tick.getAndIncrement();
+                if (n >= ticks) {
+                    return;
+                }
+                Operation operation = schedule[(int) (n % schedule.length)];
+                long intendedStart = start + n * periodNanos;
+                if (inFlight.incrementAndGet() > MAX_IN_FLIGHT) {
+                    inFlight.decrementAndGet();
+                    errors.get(operation).incrementAndGet();
+                    return;
+                }
+                client
+                    .sendAsync(request(operation, n), HttpResponse.BodyHandlers.ofString())
+                    .whenComplete((response, failure) -> {
+                        inFlight.decrementAndGet();
+                        long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedStart);
+                        recorders.get(operation).recordValue(Math.min(latencyMicros, HIGHEST_TRACKABLE_MICROS));
+                        if (failure != null || response.statusCode() >= 400) {
+                            errors.get(operation).incrementAndGet();
+                        } else if (operation == Operation.CREATE_PRODUCT) {
+                            rememberCreatedProduct(response.body());
+                        }
+                    });
+            },
+            0,
+            periodNanos,
+            TimeUnit.NANOSECONDS
+        );
+
+        while (tick.get() < ticks) {
+            Thread.sleep(100);
+        }
+        ticker.shutdownNow();
+        long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(50);
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        Map<Operation, OperationResult> results = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            results.put(operation, new OperationResult(recorders.get(operation).getIntervalHistogram(), errors.get(operation).get(), elapsedSeconds));
+        }
+        return results;
+    }
+
+    private HttpRequest request(Operation operation, long n) {
+        String id = productIds.get((int) (n % productIds.size()));
+        return switch (operation) {
+            case GET_PRODUCT -> request("/api/products/" + id).GET().build();
+            case LIST_PRODUCTS -> request("/api/products?page=" + (n % 5) + "&size=20&sort=id,asc").GET().build();
+            case SEARCH_PRODUCTS -> request(
+                "/api/_search/products?query=" + URLEncoder.encode(QUERIES[(int) (n % QUERIES.length)], StandardCharsets.UTF_8) + "&size=20"
+            )
+                .GET()
+                .build();
+            case SUGGEST_PRODUCTS -> request("/api/_suggest/products?prefix=" + WORDS[(int) (n % WORDS.length)].substring(0, 1 + (int) (n % 4)))
+                .GET()
+                .build();
+            case CREATE_PRODUCT -> create(n);
+            case UPDATE_PRODUCT -> write("/api/products/" + id, "PUT", product(id, n));
+        };
+    }
+
+    private HttpRequest create(long n) {
+        return write("/api/products", "POST", product(null, n));
+    }
+
+    private HttpRequest write(String path, String method, String body) {
+        return request(path)
+            .header("Content-Type", "application/json")
+            .header("X-XSRF-TOKEN", csrfToken)
+            .header("Cookie", "XSRF-TOKEN=" + csrfToken)
+            .method(method, HttpRequest.BodyPublishers.ofString(body))
+            .build();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(baseUri.resolve(path)).timeout(Duration.ofSeconds(30)).header("Authorization", authorization);
+    }
+
+    private String product(String id, long n) {
+        var product = mapper.createObjectNode();
+        product.put("id", id);
+        product.put("name", "Product " + n + " " + WORDS[(int) (n % WORDS.length)]);
+        product.put("content", CONTENT);
+        return product.toString();
+    }
+
+    private void rememberCreatedProduct(String body) {
+        try {
+            JsonNode created = mapper.readTree(body);
+            if (created.hasNonNull("id")) {
+                productIds.add(created.get("id").asText());
+            }
+        } catch (IOException e) {
+            // Not a product, the request is still counted
+        }
+    }
+
+    private static Operation[] weightedSchedule(Map<Operation, Integer> mix) {
+        List<Operation> schedule = new ArrayList<>();
+        mix.forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                schedule.add(operation);
+            }
+        });
+        // Interleave operations instead of running them in blocks
+        Collections.shuffle(schedule, new Random(42));
+        return schedule.toArray(Operation[]::new);
+    }
+
+    record OperationResult(Histogram latencyMicros, long errors, double elapsedSeconds) {
+        double throughput() {
+            return latencyMicros.getTotalCount() / elapsedSeconds;
+        }
+    }
+}
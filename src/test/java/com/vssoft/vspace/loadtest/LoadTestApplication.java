@@ -0,0 +1,80 @@
+package com.vssoft.vspace.loadtest;
+
+import com.vssoft.vspace.VspaceApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Boots the application against in-process stand-ins for its dependencies (H2 for PostgreSQL, an embedded
+ * Redis, {@link StubElasticsearchServer} and {@link StubOidcIssuer}), replays a mixed product API workload at
+ * a fixed request rate and writes a latency report, so two builds can be compared on the same machine.
+ * <p>
+ * Run with {@code ./mvnw -Ploadtest verify}, see {@link LoadTestSettings} for the available options.
+ */
+public final class LoadTestApplication {
+
+    private LoadTestApplication() {}
+
+    public static void main(String[] args) {
+        int status = 1;
+        try {
+            run(LoadTestSettings.fromSystemProperties(), args);
+            status = 0;
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            // Client libraries leave non-daemon threads behind
+            System.exit(status);
+        }
+    }
+
+    private static void run(LoadTestSettings settings, String[] args) throws Exception {
+        // The devtools restarter would run this main method a second time in its own class loader
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        int redisPort = freePort();
+        RedisServer redis = new RedisServer(redisPort);
+        redis.start();
+        StubElasticsearchServer elasticsearch = StubElasticsearchServer.start();
+        StubOidcIssuer oidc = StubOidcIssuer.start();
+        ConfigurableApplicationContext context = null;
+        try {
+            List<String> arguments = new ArrayList<>(List.of(args));
+            arguments.add("--spring.elasticsearch.uris=" + elasticsearch.getUri());
+            arguments.add("--spring.security.oauth2.client.provider.oidc.issuer-uri=" + oidc.getIssuerUri());
+            arguments.add("--vspace.cache.redis.server=redis://localhost:" + redisPort);
+            context = new SpringApplicationBuilder(VspaceApplication.class).profiles("loadtest").run(arguments.toArray(String[]::new));
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+
+            LoadGenerator generator = new LoadGenerator(URI.create("http://localhost:" + port), oidc.issueToken("loadtest", Duration.ofHours(1)));
+            System.out.println("Seeding " + settings.seedProducts() + " products");
+            generator.seed(settings.seedProducts());
+            System.out.println("Warming up for " + settings.warmup().toSeconds() + "s at " + settings.targetRps() + " req/s");
+            generator.run(settings.targetRps(), settings.warmup(), settings.mix());
+            System.out.println("Measuring for " + settings.duration().toSeconds() + "s at " + settings.targetRps() + " req/s");
+            LoadTestReport.write(settings, generator.run(settings.targetRps(), settings.duration(), settings.mix()));
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+            oidc.stop();
+            elasticsearch.stop();
+            redis.stop();
+        }
+    }
+
+    static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
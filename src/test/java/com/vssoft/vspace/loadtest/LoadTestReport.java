@@ -0,0 +1,93 @@
+package com.vssoft.vspace.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes the result of a load test run as JSON, with keys in a stable order so reports of two builds can be
+ * diffed directly, and prints a summary table.
+ */
+final class LoadTestReport {
+
+    private LoadTestReport() {}
+
+    static void write(LoadTestSettings settings, Map<LoadGenerator.Operation, LoadGenerator.OperationResult> results) throws IOException {
+        ObjectMapper mapper = new ObjectMapper()
+            .enable(SerializationFeature.INDENT_OUTPUT)
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+
+        ObjectNode report = mapper.createObjectNode();
+        report.put("build", settings.build());
+        report.put("timestamp", Instant.now().toString());
+        ObjectNode config = report.putObject("config");
+        config.put("targetRps", settings.targetRps());
+        config.put("warmupSeconds", settings.warmup().toSeconds());
+        config.put("durationSeconds", settings.duration().toSeconds());
+        config.put("seedProducts", settings.seedProducts());
+        ObjectNode mix = config.putObject("mix");
+        settings.mix().forEach((operation, weight) -> mix.put(operation.name(), weight));
+
+        ObjectNode operations = report.putObject("operations");
+        Histogram total = new Histogram(3);
+        long totalErrors = 0;
+        double elapsedSeconds = 0;
+        System.out.printf("%-16s %8s %7s %9s %9s %9s %9s %9s%n", "operation", "count", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        for (Map.Entry<LoadGenerator.Operation, LoadGenerator.OperationResult> entry : results.entrySet()) {
+            LoadGenerator.OperationResult result = entry.getValue();
+            operations.set(entry.getKey().name(), summary(mapper, result.latencyMicros(), result.errors(), result.elapsedSeconds()));
+            print(entry.getKey().name(), result.latencyMicros(), result.errors(), result.elapsedSeconds());
+            total.add(result.latencyMicros());
+            totalErrors += result.errors();
+            elapsedSeconds = result.elapsedSeconds();
+        }
+        report.set("total", summary(mapper, total, totalErrors, elapsedSeconds));
+        print("TOTAL", total, totalErrors, elapsedSeconds);
+
+        Files.createDirectories(settings.reportFile().toAbsolutePath().getParent());
+        mapper.writeValue(settings.reportFile().toFile(), mapper.treeToValue(report, Map.class));
+        System.out.println("Report written to " + settings.reportFile().toAbsolutePath());
+    }
+
+    private static ObjectNode summary(ObjectMapper mapper, Histogram latencyMicros, long errors, double elapsedSeconds) {
+        return mapper
+            .createObjectNode()
+            .put("count", latencyMicros.getTotalCount())
+            .put("errors", errors)
+            .put("throughput", round(latencyMicros.getTotalCount() / elapsedSeconds))
+            .put("p50Ms", millis(latencyMicros, 50))
+            .put("p95Ms", millis(latencyMicros, 95))
+            .put("p99Ms", millis(latencyMicros, 99))
+            .put("maxMs", round(latencyMicros.getMaxValue() / 1000.0));
+    }
+
+    private static void print(String name, Histogram latencyMicros, long errors, double elapsedSeconds) {
+        System.out.printf(
+            Locale.ROOT,
+            "%-16s %8d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+            name,
+            latencyMicros.getTotalCount(),
+            errors,
+            latencyMicros.getTotalCount() / elapsedSeconds,
+            millis(latencyMicros, 50),
+            millis(latencyMicros, 95),
+            millis(latencyMicros, 99),
+            latencyMicros.getMaxValue() / 1000.0
+        );
+    }
+
+    private static double millis(Histogram latencyMicros, double percentile) {
+        return round(latencyMicros.getValueAtPercentile(percentile) / 1000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
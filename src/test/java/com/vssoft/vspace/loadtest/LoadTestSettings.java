@@ -0,0 +1,46 @@
+package com.vssoft.vspace.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Load test settings, read from {@code loadtest.*} system properties.
+ *
+ * @param targetRps requests per second the generator tries to sustain, independently of response times.
+ * @param warmup how long to run the workload before recording.
+ * @param duration how long to record.
+ * @param seedProducts how many products are created before the warmup.
+ * @param mix relative weight of each operation in the workload.
+ * @param reportFile where the JSON report is written.
+ * @param build label of the build under test, copied to the report.
+ */
+record LoadTestSettings(
+    int targetRps,
+    Duration warmup,
+    Duration duration,
+    int seedProducts,
+    Map<LoadGenerator.Operation, Integer> mix,
+    Path reportFile,
+    String build
+) {
+    static LoadTestSettings fromSystemProperties() {
+        Map<LoadGenerator.Operation, Integer> mix = new EnumMap<>(LoadGenerator.Operation.class);
+        mix.put(LoadGenerator.Operation.GET_PRODUCT, Integer.getInteger("loadtest.mix.get", 50));
+        mix.put(LoadGenerator.Operation.LIST_PRODUCTS, Integer.getInteger("loadtest.mix.list", 20));
+        mix.put(LoadGenerator.Operation.SEARCH_PRODUCTS, Integer.getInteger("loadtest.mix.search", 20));
+        mix.put(LoadGenerator.Operation.SUGGEST_PRODUCTS, Integer.getInteger("loadtest.mix.suggest", 0));
+        mix.put(LoadGenerator.Operation.CREATE_PRODUCT, Integer.getInteger("loadtest.mix.create", 5));
+        mix.put(LoadGenerator.Operation.UPDATE_PRODUCT, Integer.getInteger("loadtest.mix.update", 5));
+        return new LoadTestSettings(
+            Integer.getInteger("loadtest.rps", 200),
+            Duration.ofSeconds(Integer.getInteger("loadtest.warmup", 10)),
+            Duration.ofSeconds(Integer.getInteger("loadtest.duration", 30)),
+            Integer.getInteger("loadtest.seed", 500),
+            mix,
+            Path.of(System.getProperty("loadtest.report", "target/loadtest-report.json")),
+            System.getProperty("loadtest.build", "unknown")
+        );
+    }
+}
@@ -0,0 +1,164 @@
+package com.vssoft.vspace.loadtest;
+
+import com.vssoft.vspace.VspaceApplication;
+import com.vssoft.vspace.domain.Product;
+import com.vssoft.vspace.repository.ProductRepository;
+import com.vssoft.vspace.service.ProductService;
+import com.vssoft.vspace.service.dto.ProductDTO;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.query.Query;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the latency of the product searches served by Elasticsearch and by the full-text index of PostgreSQL, on
+ * the same dataset, through {@link ProductService} so that loading the hits is included.
+ * <p>
+ * Both must be real servers, given by the {@code SPRING_DATASOURCE_URL}, {@code SPRING_DATASOURCE_USERNAME},
+ * {@code SPRING_DATASOURCE_PASSWORD} and {@code SPRING_ELASTICSEARCH_URIS} environment variables, otherwise the
+ * benchmark fails at setup. Use a scratch database: the products are seeded there and kept for the next runs, and
+ * copied to Elasticsearch whenever its index holds a different number of products.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ProductSearchEngineBenchmark {
+
+    private static final String[] NAME_WORDS = { "phone", "laptop", "camera", "speaker", "watch", "tablet", "monitor", "keyboard" };
+    private static final String[] MODIFIERS = { "red", "black", "wireless", "gaming", "portable", "smart", "compact", "pro" };
+    private static final String[] CONTENT_WORDS = {
+        "battery",
+        "screen",
+        "charger",
+        "bluetooth",
+        "warranty",
+        "aluminium",
+        "lightweight",
+        "waterproof",
+        "display",
+        "storage",
+        "memory",
+        "sensor",
+    };
+    private static final String[] QUERIES = { "phone", "wireless speaker", "camera OR tablet", "waterproof watch", "gaming laptop -red", "bluetooth" };
+    private static final int PAGE_SIZE = 20;
+    private static final int PAGES = 5;
+    private static final int BATCH_SIZE = 1_000;
+
+    @Param({ "elasticsearch", "postgres" })
+    public String engine;
+
+    @Param({ "10000" })
+    public int products;
+
+    private RedisServer redis;
+    private StubOidcIssuer oidc;
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        if (System.getenv("SPRING_DATASOURCE_URL") == null || System.getenv("SPRING_ELASTICSEARCH_URIS") == null) {
+            throw new IllegalStateException("Set SPRING_DATASOURCE_URL and SPRING_ELASTICSEARCH_URIS to a scratch PostgreSQL database and Elasticsearch");
+        }
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        int redisPort = LoadTestApplication.freePort();
+        redis = new RedisServer(redisPort);
+        redis.start();
+        oidc = StubOidcIssuer.start();
+        context =
+            new SpringApplicationBuilder(VspaceApplication.class)
+                .profiles("loadtest")
+                .run(
+                    "--spring.jpa.hibernate.ddl-auto=update",
+                    "--spring.security.oauth2.client.provider.oidc.issuer-uri=" + oidc.getIssuerUri(),
+                    "--vspace.cache.redis.server=redis://localhost:" + redisPort,
+                    "--vspace.search.engine=" + engine,
+                    // Every search reaches the engine
+                    "--vspace.search.result-cache.enabled=false"
+                );
+        seed();
+        productService = context.getBean(ProductService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (context != null) {
+            context.close();
+        }
+        if (oidc != null) {
+            oidc.stop();
+        }
+        if (redis != null) {
+            redis.stop();
+        }
+    }
+
+    @Benchmark
+    public Page<ProductDTO> firstPage() {
+        return productService.search(nextQuery(), PageRequest.of(0, PAGE_SIZE));
+    }
+
+    /**
+     * Pages through the hits as a client following the next links would.
+     */
+    @Benchmark
+    public void nextPages(Blackhole blackhole) {
+        String query = nextQuery();
+        for (int page = 0; page < PAGES; page++) {
+            blackhole.consume(productService.search(query, PageRequest.of(page, PAGE_SIZE)));
+        }
+    }
+
+    private String nextQuery() {
+        return QUERIES[next++ % QUERIES.length];
+    }
+
+    private void seed() {
+        ProductRepository repository = context.getBean(ProductRepository.class);
+        long existing = repository.count();
+        Random random = new Random(existing);
+        for (long created = existing; created < products; created += BATCH_SIZE) {
+            List<Product> batch = new ArrayList<>();
+            for (int i = 0; i < Math.min(BATCH_SIZE, products - created); i++) {
+                Product product = new Product();
+                product.setName(pick(random, MODIFIERS) + " " + pick(random, NAME_WORDS));
+                StringBuilder content = new StringBuilder();
+                for (int word = 0; word < 40; word++) {
+                    content.append(pick(random, CONTENT_WORDS)).append(' ');
+                }
+                product.setContent(content.toString().trim());
+                batch.add(product);
+            }
+            repository.saveAll(batch);
+        }
+        if ("elasticsearch".equals(engine)) {
+            ElasticsearchOperations operations = context.getBean(ElasticsearchOperations.class);
+            if (operations.count(Query.findAll(), Product.class) != repository.count()) {
+                for (int page = 0; page * BATCH_SIZE < repository.count(); page++) {
+                    operations.save(repository.findAll(PageRequest.of(page, BATCH_SIZE)).getContent());
+                }
+                operations.indexOps(Product.class).refresh();
+            }
+        }
+    }
+
+    private static String pick(Random random, String[] words) {
+        return words[random.nextInt(words.length)];
+    }
+}
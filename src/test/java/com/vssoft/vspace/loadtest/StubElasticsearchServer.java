@@ -0,0 +1,176 @@
+package com.vssoft.vspace.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * In-memory stand-in for the subset of the Elasticsearch HTTP API used by the application:
+ * index existence check, refresh, index/delete of single documents and {@code query_string}/{@code multi_match} searches.
+ * <p>
+ * Matching is a naive case-insensitive term lookup over {@code name} and {@code content}; it is meant to
+ * produce realistic response shapes and sizes, not Elasticsearch relevance.
+ */
+class StubElasticsearchServer {
+
+    private static final String DOC_PATH = "/_doc/";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, Map<String, JsonNode>> indices = new ConcurrentSkipListMap<>();
+    private final HttpServer server;
+
+    private StubElasticsearchServer(HttpServer server) {
+        this.server = server;
+    }
+
+    static StubElasticsearchServer start() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        StubElasticsearchServer stub = new StubElasticsearchServer(server);
+        server.createContext("/", stub::handle);
+        server.setExecutor(Executors.newFixedThreadPool(8));
+        server.start();
+        return stub;
+    }
+
+    String getUri() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    void stop() {
+        server.stop(0);
+    }
+
+    private JsonNode readBody(HttpExchange exchange) throws IOException {
+        InputStream body = exchange.getRequestBody();
+        if ("gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+            body = new GZIPInputStream(body);
+        }
+        return mapper.readTree(body);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+            String index = path.substring(1).split("/")[0];
+            if ("HEAD".equals(method)) {
+                respond(exchange, 200, null);
+            } else if (path.endsWith("/_refresh")) {
+                ObjectNode refreshed = mapper.createObjectNode();
+                refreshed.set("_shards", shards());
+                respond(exchange, 200, refreshed);
+            } else if (path.endsWith("/_search")) {
+                respond(exchange, 200, search(index, readBody(exchange)));
+            } else if (path.contains(DOC_PATH) && ("PUT".equals(method) || "POST".equals(method))) {
+                String id = path.substring(path.indexOf(DOC_PATH) + DOC_PATH.length());
+                documents(index).put(id, readBody(exchange));
+                respond(exchange, 200, writeResult(index, id, "created"));
+            } else if (path.contains(DOC_PATH) && "DELETE".equals(method)) {
+                String id = path.substring(path.indexOf(DOC_PATH) + DOC_PATH.length());
+                boolean deleted = documents(index).remove(id) != null;
+                respond(exchange, 200, writeResult(index, id, deleted ? "deleted" : "not_found"));
+            } else if ("PUT".equals(method)) {
+                documents(index);
+                respond(exchange, 200, mapper.createObjectNode().put("acknowledged", true).put("index", index));
+            } else {
+                respond(exchange, 404, mapper.createObjectNode().put("error", "Unsupported by stub: " + method + " " + path));
+            }
+        }
+    }
+
+    private Map<String, JsonNode> documents(String index) {
+        return indices.computeIfAbsent(index, i -> new ConcurrentSkipListMap<>());
+    }
+
+    private ObjectNode search(String index, JsonNode request) {
+        // Both query_string and multi_match hold the user input in a nested "query" field
+        JsonNode queryText = request.path("query").findValue("query");
+        List<String> terms = terms(queryText == null ? "*" : queryText.asText());
+        int from = request.path("from").asInt(0);
+        int size = request.path("size").asInt(10);
+
+        List<Map.Entry<String, JsonNode>> matches = new ArrayList<>();
+        for (Map.Entry<String, JsonNode> document : documents(index).entrySet()) {
+            if (matches(document.getValue(), terms)) {
+                matches.add(document);
+            }
+        }
+
+        ObjectNode response = mapper.createObjectNode().put("took", 1).put("timed_out", false);
+        response.set("_shards", shards().put("skipped", 0));
+        ObjectNode hits = response.putObject("hits");
+        hits.putObject("total").put("value", matches.size()).put("relation", "eq");
+        hits.put("max_score", 1.0);
+        ArrayNode hitList = hits.putArray("hits");
+        for (Map.Entry<String, JsonNode> match : matches.subList(Math.min(from, matches.size()), Math.min(from + size, matches.size()))) {
+            ObjectNode hit = hitList.addObject().put("_index", index).put("_id", match.getKey()).put("_score", 1.0);
+            hit.set("_source", match.getValue());
+        }
+        return response;
+    }
+
+    private static List<String> terms(String query) {
+        List<String> terms = new ArrayList<>();
+        for (String term : query.toLowerCase(Locale.ROOT).split("[\\s()\"]+")) {
+            String value = term.substring(term.indexOf(':') + 1).replace("*", "").replace("?", "");
+            if (!value.isEmpty() && !"and".equals(value) && !"or".equals(value) && !"not".equals(value)) {
+                terms.add(value);
+            }
+        }
+        return terms;
+    }
+
+    private static boolean matches(JsonNode document, List<String> terms) {
+        if (terms.isEmpty()) {
+            return true;
+        }
+        String text = (document.path("name").asText() + " " + document.path("content").asText()).toLowerCase(Locale.ROOT);
+        return terms.stream().anyMatch(text::contains);
+    }
+
+    private ObjectNode writeResult(String index, String id, String result) {
+        ObjectNode response = mapper.createObjectNode()
+            .put("_index", index)
+            .put("_id", id)
+            .put("_version", 1)
+            .put("result", result)
+            .put("_seq_no", 0)
+            .put("_primary_term", 1);
+        response.set("_shards", shards());
+        return response;
+    }
+
+    private ObjectNode shards() {
+        return mapper.createObjectNode().put("total", 1).put("successful", 1).put("failed", 0);
+    }
+
+    private void respond(HttpExchange exchange, int status, JsonNode body) throws IOException {
+        exchange.getResponseHeaders().add("X-Elastic-Product", "Elasticsearch");
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] bytes = mapper.writeValueAsString(body).getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.vssoft.vspace.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Minimal OpenID Connect issuer: serves the discovery document and the JWKS, and mints signed access tokens
+ * carrying the identity claims the application expects, so no userinfo round trip is needed.
+ */
+class StubOidcIssuer {
+
+    private static final String REALM_PATH = "/realms/vspace";
+    private static final String AUDIENCE = "account";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpServer server;
+    private final RSAKey signingKey;
+
+    private StubOidcIssuer(HttpServer server, RSAKey signingKey) {
+        this.server = server;
+        this.signingKey = signingKey;
+    }
+
+    static StubOidcIssuer start() throws IOException, JOSEException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        StubOidcIssuer issuer = new StubOidcIssuer(server, new RSAKeyGenerator(2048).keyID("loadtest").generate());
+        server.createContext(REALM_PATH + "/.well-known/openid-configuration", exchange -> issuer.respond(exchange, issuer.discovery()));
+        server.createContext(
+            REALM_PATH + "/protocol/openid-connect/certs",
+            exchange -> issuer.respond(exchange, new JWKSet(issuer.signingKey.toPublicJWK()).toString())
+        );
+        server.start();
+        return issuer;
+    }
+
+    String getIssuerUri() {
+        return "http://localhost:" + server.getAddress().getPort() + REALM_PATH;
+    }
+
+    void stop() {
+        server.stop(0);
+    }
+
+    /**
+     * @param login the user to issue the token for.
+     * @param validity how long the token stays valid.
+     * @return a serialized RS256 signed access token.
+     */
+    String issueToken(String login, Duration validity) throws JOSEException {
+        Instant now = Instant.now();
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+            .issuer(getIssuerUri())
+            .subject(login)
+            .audience(AUDIENCE)
+            .issueTime(Date.from(now))
+            .expirationTime(Date.from(now.plus(validity)))
+            .claim("preferred_username", login)
+            .claim("given_name", login)
+            .claim("family_name", "Loadtest")
+            .claim("groups", List.of("ROLE_USER", "ROLE_ADMIN"))
+            .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(signingKey.getKeyID()).build(), claims);
+        jwt.sign(new RSASSASigner(signingKey));
+        return jwt.serialize();
+    }
+
+    private String discovery() throws IOException {
+        String issuer = getIssuerUri();
+        ObjectNode discovery = mapper.createObjectNode()
+            .put("issuer", issuer)
+            .put("authorization_endpoint", issuer + "/protocol/openid-connect/auth")
+            .put("token_endpoint", issuer + "/protocol/openid-connect/token")
+            .put("userinfo_endpoint", issuer + "/protocol/openid-connect/userinfo")
+            .put("end_session_endpoint", issuer + "/protocol/openid-connect/logout")
+            .put("jwks_uri", issuer + "/protocol/openid-connect/certs");
+        discovery.putArray("response_types_supported").add("code");
+        discovery.putArray("subject_types_supported").add("public");
+        discovery.putArray("id_token_signing_alg_values_supported").add("RS256");
+        discovery.putArray("grant_types_supported").add("authorization_code").add("refresh_token").add("client_credentials");
+        return mapper.writeValueAsString(discovery);
+    }
+
+    private void respond(HttpExchange exchange, String body) throws IOException {
+        try (exchange) {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.vssoft.vspace.repository.search;
+
+import com.vssoft.vspace.config.VSpaceProperties;
+import com.vssoft.vspace.domain.Product;
+import com.vssoft.vspace.repository.ProductRepository;
+import com.vssoft.vspace.repository.ProductTombstoneRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LuceneProductSearchEngineBenchmark {
+
+    private static final String[] NAME_WORDS = { "phone", "laptop", "camera", "speaker", "watch", "tablet", "monitor", "keyboard" };
+    private static final String[] MODIFIERS = { "red", "black", "wireless", "gaming", "portable", "smart", "compact", "pro" };
+    private static final String[] QUERIES = { "phone", "wireless speaker", "camera OR tablet", "name:watch", "gaming laptop -red" };
+
+    @Param({ "10000" })
+    public int products;
+
+    private Path indexPath;
+    private LuceneProductSearchEngine engine;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        indexPath = Files.createTempDirectory("lucene-products");
+        VSpaceProperties properties = new VSpaceProperties();
+        properties.getSearch().getLucene().setPath(indexPath.toString());
+        ProductRepository repository = mock(ProductRepository.class);
+        when(repository.findAll(any(Pageable.class))).thenReturn(Page.empty());
+        engine = new LuceneProductSearchEngine(
+            repository,
+            mock(ProductTombstoneRepository.class),
+            new ProductSearchQueryGuard(properties), mock(PlatformTransactionManager.class),
+            properties
+        );
+        Random random = new Random(42);
+        for (int i = 0; i < products; i++) {
+            Product product = new Product();
+            product.setId(Integer.toString(i));
+            product.setName(MODIFIERS[random.nextInt(MODIFIERS.length)] + " " + NAME_WORDS[random.nextInt(NAME_WORDS.length)]);
+            product.setContent("Lorem ipsum dolor sit amet, consectetur adipiscing elit. ".repeat(5));
+            product.setCreatedDate(Instant.ofEpochSecond(1_600_000_000L + random.nextInt(100_000_000)));
+            engine.index(product);
+        }
+        engine.refresh();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        engine.destroy();
+        FileSystemUtils.deleteRecursively(indexPath);
+    }
+
+    @Benchmark
+    public Page<Product> search() {
+        return engine.search(QUERIES[next++ % QUERIES.length], PageRequest.of(0, 20));
+    }
+
+    @Benchmark
+    public FacetedPage<Product> facets() {
+        return engine.facets(QUERIES[next++ % QUERIES.length], List.of(ProductFacet.parse("createdDate:month", 50), ProductFacet.parse("name", 50)));
+    }
+}
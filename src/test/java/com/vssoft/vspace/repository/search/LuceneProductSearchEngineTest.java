@@ -0,0 +1,205 @@
+package com.vssoft.vspace.repository.search;
+
+import co.elastic.clients.elasticsearch._types.aggregations.CalendarInterval;
+import com.vssoft.vspace.config.VSpaceProperties;
+import com.vssoft.vspace.domain.Product;
+import com.vssoft.vspace.domain.ProductTombstone;
+import com.vssoft.vspace.repository.ProductRepository;
+import com.vssoft.vspace.repository.ProductTombstoneRepository;
+import com.vssoft.vspace.web.rest.errors.ExpensiveQueryException;
+import com.vssoft.vspace.web.rest.errors.QuerySyntaxException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LuceneProductSearchEngineTest {
+
+    @TempDir
+    Path indexPath;
+
+    private final ProductRepository repository = mock(ProductRepository.class);
+    private final ProductTombstoneRepository tombstoneRepository = mock(ProductTombstoneRepository.class);
+    private final VSpaceProperties properties = new VSpaceProperties();
+    private LuceneProductSearchEngine engine;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        properties.getSearch().getLucene().setPath(indexPath.toString());
+        when(repository.findAll(any(Pageable.class))).thenReturn(Page.empty());
+        engine = newEngine();
+        engine.index(product("1", "Red laptop", "A fast laptop", "2023-01-15T10:00:00Z"));
+        engine.index(product("2", "Blue phone", "A small phone", "2023-01-20T10:00:00Z"));
+        engine.index(product("3", "Red phone", "Another phone", "2023-03-02T10:00:00Z"));
+        engine.refresh();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        engine.destroy();
+    }
+
+    @Test
+    void searchesNamesAndContent() {
+        Page<Product> page = engine.search("phone", PageRequest.of(0, 10));
+
+        assertThat(page.getTotalElements()).isEqualTo(2);
+        assertThat(page.getContent()).extracting(Product::getId).containsExactlyInAnyOrder("2", "3");
+        assertThat(page.getContent().get(0).getContent()).isNotNull();
+        assertThat(engine.search("content:fast", PageRequest.of(0, 10)).getContent()).extracting(Product::getId).containsExactly("1");
+    }
+
+    @Test
+    void pagesThroughHits() {
+        Page<Product> page = engine.search("red OR phone", PageRequest.of(1, 2));
+
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(page.getContent()).hasSize(1);
+    }
+
+    @Test
+    void rejectsPagesBeyondTheResultWindow() {
+        assertThat(engine.search("phone", PageRequest.of(499, 20)).getContent()).isEmpty();
+        assertThatThrownBy(() -> engine.search("phone", PageRequest.of(500, 20))).isInstanceOf(ExpensiveQueryException.class);
+        assertThatThrownBy(() -> engine.search("phone", PageRequest.of(Integer.MAX_VALUE / 2, 100), List.of()))
+            .isInstanceOf(ExpensiveQueryException.class);
+    }
+
+    @Test
+    void searchesDateRanges() {
+        assertThat(engine.search("createdDate:[2023-02-01 TO *]", PageRequest.of(0, 10)).getContent())
+            .extracting(Product::getId)
+            .containsExactly("3");
+    }
+
+    @Test
+    void rejectsInvalidSyntax() {
+        assertThatThrownBy(() -> engine.search("name:(phone", PageRequest.of(0, 10))).isInstanceOf(QuerySyntaxException.class);
+    }
+
+    @Test
+    void writesBecomeSearchableOnRefresh() {
+        engine.deleteFromIndexById("2");
+        engine.index(product("3", "Green tablet", null, "2023-03-02T10:00:00Z"));
+
+        assertThat(engine.search("phone", PageRequest.of(0, 10)).getTotalElements()).isEqualTo(2);
+        engine.refresh();
+        assertThat(engine.search("phone", PageRequest.of(0, 10)).getTotalElements()).isZero();
+        assertThat(engine.search("tablet", PageRequest.of(0, 10)).getContent()).extracting(Product::getId).containsExactly("3");
+    }
+
+    @Test
+    void computesFacets() {
+        FacetedPage<Product> result = engine.facets(
+            "red OR phone",
+            List.of(ProductFacet.parse("createdDate:month", 50), ProductFacet.parse("name:2", 50))
+        );
+
+        assertThat(result.page().getTotalElements()).isEqualTo(3);
+        assertThat(result.facets().get("createdDate"))
+            .containsExactly(new FacetedPage.Bucket("2023-01-01T00:00:00Z", 2), new FacetedPage.Bucket("2023-03-01T00:00:00Z", 1));
+        assertThat(result.facets().get("name")).containsExactly(new FacetedPage.Bucket("Blue phone", 1), new FacetedPage.Bucket("Red laptop", 1));
+    }
+
+    @Test
+    void suggestsByNamePrefixes() {
+        assertThat(engine.suggest("red ph", 5)).extracting(Product::getName).containsExactly("Red phone");
+        assertThat(engine.suggest("fas", 5)).isEmpty();
+    }
+
+    @Test
+    void rebuildsFromTheDatabaseWhenMissing() throws IOException {
+        engine.destroy();
+        properties.getSearch().getLucene().setPath(indexPath.resolve("rebuilt").toString());
+        when(repository.findAll(any(Pageable.class)))
+            .thenReturn(new PageImpl<>(List.of(product("4", "Black camera", null, "2023-05-01T00:00:00Z")), PageRequest.of(0, 1_000), 1));
+        engine = newEngine();
+
+        assertThat(engine.search("camera", PageRequest.of(0, 10)).getContent()).extracting(Product::getId).containsExactly("4");
+    }
+
+    @Test
+    void appliesWritesOnceTheTransactionCommits() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            engine.index(product("4", "Black camera", null, "2023-05-01T00:00:00Z"));
+            engine.deleteFromIndexById("1");
+            engine.refresh();
+            assertThat(engine.search("camera OR laptop", PageRequest.of(0, 10)).getContent()).extracting(Product::getId).containsExactly("1");
+
+            TransactionSynchronizationUtils.invokeAfterCompletion(
+                TransactionSynchronizationManager.getSynchronizations(),
+                TransactionSynchronization.STATUS_ROLLED_BACK
+            );
+            engine.refresh();
+            assertThat(engine.search("camera OR laptop", PageRequest.of(0, 10)).getContent()).extracting(Product::getId).containsExactly("1");
+
+            TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+            engine.refresh();
+            assertThat(engine.search("camera OR laptop", PageRequest.of(0, 10)).getContent()).extracting(Product::getId).containsExactly("4");
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void reappliesTheChangesSinceTheLastCommitAtStartup() throws IOException {
+        engine.destroy();
+        when(tombstoneRepository.findDeletedAfter(any(), eq(""), any(), any())).thenReturn(List.of(new ProductTombstone("2", Instant.now())));
+        when(repository.findWrittenAfter(any(), eq(""), any(), any())).thenReturn(List.of(product("3", "Green tablet", null, "2023-03-02T10:00:00Z")));
+        engine = newEngine();
+
+        assertThat(engine.search("phone OR tablet", PageRequest.of(0, 10)).getContent()).extracting(Product::getId).containsExactly("3");
+        assertThat(engine.search("laptop", PageRequest.of(0, 10)).getContent()).extracting(Product::getId).containsExactly("1");
+    }
+
+    @Test
+    void bucketsByCalendarIntervalInUtc() {
+        long time = Instant.parse("2023-08-17T23:30:00Z").toEpochMilli();
+
+        assertThat(Instant.ofEpochMilli(LuceneProductSearchEngine.bucketStart(time, CalendarInterval.Day))).isEqualTo("2023-08-17T00:00:00Z");
+        assertThat(Instant.ofEpochMilli(LuceneProductSearchEngine.bucketStart(time, CalendarInterval.Week))).isEqualTo("2023-08-14T00:00:00Z");
+        assertThat(Instant.ofEpochMilli(LuceneProductSearchEngine.bucketStart(time, CalendarInterval.Quarter))).isEqualTo("2023-07-01T00:00:00Z");
+        assertThat(Instant.ofEpochMilli(LuceneProductSearchEngine.bucketStart(time, CalendarInterval.Year))).isEqualTo("2023-01-01T00:00:00Z");
+    }
+
+    private LuceneProductSearchEngine newEngine() throws IOException {
+        return new LuceneProductSearchEngine(
+            repository,
+            tombstoneRepository,
+            new ProductSearchQueryGuard(properties),
+            mock(PlatformTransactionManager.class),
+            properties
+        );
+    }
+
+    private static Product product(String id, String name, String content, String createdDate) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setContent(content);
+        product.setCreatedDate(Instant.parse(createdDate));
+        product.setUpdatedDate(Instant.parse(createdDate));
+        return product;
+    }
+}
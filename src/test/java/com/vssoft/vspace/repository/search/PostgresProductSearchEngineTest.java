@@ -0,0 +1,31 @@
+package com.vssoft.vspace.repository.search;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PostgresProductSearchEngineTest {
+
+    @ParameterizedTest
+    @CsvSource(
+        delimiter = '|',
+        value = {
+            "phone|phone",
+            "name:laptop*|laptop",
+            "camera OR speaker|camera OR speaker",
+            "\"red phone\"~2|\"red phone\"",
+            "+phone -case|phone -case",
+            "(phone OR tablet) AND black|phone OR tablet black",
+            "phone AND NOT case|phone -case",
+            "wi-fi router^2.5|wi-fi router",
+            "laptop~1|laptop",
+            "*|''",
+            "name:*|''",
+            "content:/ph.*ne/|ph. ne",
+        }
+    )
+    void translatesQueryStringsToWebSearch(String query, String expected) {
+        assertThat(PostgresProductSearchEngine.toWebSearch(query)).isEqualTo(expected);
+    }
+}
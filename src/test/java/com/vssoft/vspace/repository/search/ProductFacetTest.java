@@ -0,0 +1,31 @@
+package com.vssoft.vspace.repository.search;
+
+import co.elastic.clients.elasticsearch._types.aggregations.CalendarInterval;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class ProductFacetTest {
+
+    @Test
+    void parsesDateFacets() {
+        assertThat(ProductFacet.parse("createdDate", 50)).isEqualTo(new ProductFacet("createdDate", CalendarInterval.Month, 0));
+        assertThat(ProductFacet.parse("updatedDate:WEEK", 50)).isEqualTo(new ProductFacet("updatedDate", CalendarInterval.Week, 0));
+        assertThat(ProductFacet.parse("createdDate:month", 50).toAggregation().dateHistogram().field()).isEqualTo("createdDate");
+    }
+
+    @Test
+    void parsesTermsFacets() {
+        assertThat(ProductFacet.parse("name", 50)).isEqualTo(new ProductFacet("name", null, ProductFacet.DEFAULT_TERMS_SIZE));
+        assertThat(ProductFacet.parse("name:50", 50).toAggregation().terms().field()).isEqualTo("name.keyword");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "content", "createdDate:minute", "createdDate:", "name:0", "name:51", "name:ten", "" })
+    void rejectsInvalidFacets(String spec) {
+        assertThatIllegalArgumentException().isThrownBy(() -> ProductFacet.parse(spec, 50));
+    }
+}
@@ -0,0 +1,59 @@
+package com.vssoft.vspace.repository.search;
+
+import com.vssoft.vspace.config.VSpaceProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductSearchResultCacheTest {
+
+    private static final ProductSearchResultCache.Result RESULT = new ProductSearchResultCache.Result(List.of("1", "2"), 2);
+
+    private final VSpaceProperties properties = new VSpaceProperties();
+    private final ProductSearchResultCache cache = new ProductSearchResultCache(properties);
+
+    @Test
+    void keysQueriesByTheirWordsAndPage() {
+        PageRequest page = PageRequest.of(1, 20, Sort.by("name"));
+
+        assertThat(cache.key("  red \t running\n shoes ", page)).isEqualTo(cache.key("red running shoes", page));
+        assertThat(cache.key("red running shoes", page)).isNotEqualTo(cache.key("red running shoes", PageRequest.of(2, 20, Sort.by("name"))));
+        assertThat(cache.key("red running shoes", page)).isNotEqualTo(cache.key("red running shoes", PageRequest.of(1, 20)));
+        assertThat(cache.key("Red running shoes", page)).isNotEqualTo(cache.key("red running shoes", page));
+    }
+
+    @Test
+    void keepsNothingUnpagedNorWhenDisabled() {
+        assertThat(cache.key("shoes", Pageable.unpaged())).isEmpty();
+
+        properties.getSearch().getResultCache().setEnabled(false);
+
+        assertThat(new ProductSearchResultCache(properties).key("shoes", PageRequest.of(0, 20))).isEmpty();
+    }
+
+    @Test
+    void servesNothingCachedBeforeAnInvalidation() {
+        ProductSearchResultCache.Key key = cache.key("shoes", PageRequest.of(0, 20)).orElseThrow();
+        cache.put(key, RESULT);
+
+        assertThat(cache.key("shoes", PageRequest.of(0, 20)).flatMap(cache::get)).contains(RESULT);
+
+        cache.invalidate();
+
+        assertThat(cache.key("shoes", PageRequest.of(0, 20)).flatMap(cache::get)).isEmpty();
+    }
+
+    @Test
+    void servesNothingComputedWhileTheIndexWasWritten() {
+        ProductSearchResultCache.Key readBeforeSearching = cache.key("shoes", PageRequest.of(0, 20)).orElseThrow();
+        cache.invalidate();
+        cache.put(readBeforeSearching, RESULT);
+
+        assertThat(cache.key("shoes", PageRequest.of(0, 20)).flatMap(cache::get)).isEmpty();
+    }
+}
@@ -0,0 +1,102 @@
+package com.vssoft.vspace.repository.search;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryStringAnalyzerTest {
+
+    private final QueryStringAnalyzer analyzer = new QueryStringAnalyzer(2, 5, 2, 4, true, false);
+
+    @ParameterizedTest
+    @ValueSource(
+        strings = {
+            "phone",
+            "name:laptop*",
+            "camera OR speaker",
+            "content:lorem",
+            "name:\"red phone\"~2",
+            "createdDate:[2023-01-01 TO *]",
+            "+phone -case",
+            "(phone OR tablet) AND black",
+            "name:*",
+            "*",
+            "wi-fi router^2",
+            "laptop~1",
+            "price:\\*42",
+            "name:(phone OR tablet)",
+        }
+    )
+    void keepsCheapQueries(String query) {
+        QueryStringAnalyzer.Result result = analyzer.analyze(query);
+
+        assertThat(result.isRejected()).isFalse();
+        assertThat(result.rewritten()).isEmpty();
+        assertThat(result.query()).isEqualTo(query);
+    }
+
+    @ParameterizedTest
+    @CsvSource(
+        delimiter = '|',
+        value = {
+            "*phone|phone",
+            "name:*phone AND tablet|name:phone AND tablet",
+            "?*?ones|ones",
+            "name:**|name:*",
+            "(*book)|(book)",
+        }
+    )
+    void stripsLeadingWildcards(String query, String expected) {
+        QueryStringAnalyzer.Result result = analyzer.analyze(query);
+
+        assertThat(result.query()).isEqualTo(expected);
+        assertThat(result.rewritten()).containsExactly(QueryStringAnalyzer.Construct.LEADING_WILDCARD);
+    }
+
+    @ParameterizedTest
+    @CsvSource(
+        delimiter = '|',
+        value = {
+            "ab~2|ab",
+            "laptop~ phone~1 camera~2|laptop~ phone~1 camera",
+            "name:abc~ OR tablet~|name:abc OR tablet~",
+        }
+    )
+    void dropsFuzzinessBeyondTheBudget(String query, String expected) {
+        QueryStringAnalyzer.Result result = analyzer.analyze(query);
+
+        assertThat(result.query()).isEqualTo(expected);
+        assertThat(result.rewritten()).containsExactly(QueryStringAnalyzer.Construct.FUZZY);
+    }
+
+    @ParameterizedTest
+    @CsvSource(
+        delimiter = '|',
+        value = {
+            "name:/ph.*ne/|REGEX",
+            "/.*/|REGEX",
+            "((((phone))))|NESTING",
+            "a b c d e f|CLAUSES",
+            "\"a\" \"b\" \"c\" [1 TO 2] {3 TO 4} f|CLAUSES",
+        }
+    )
+    void rejectsWhatCannotBeRewritten(String query, QueryStringAnalyzer.Construct construct) {
+        assertThat(analyzer.analyze(query).rejected()).isEqualTo(construct);
+    }
+
+    @Test
+    void rejectsLeadingWildcardsWhenRewritingIsDisabled() {
+        QueryStringAnalyzer strict = new QueryStringAnalyzer(2, 5, 2, 4, false, false);
+
+        assertThat(strict.analyze("*phone").rejected()).isEqualTo(QueryStringAnalyzer.Construct.LEADING_WILDCARD);
+        assertThat(strict.analyze("name:*").isRejected()).isFalse();
+    }
+
+    @Test
+    void operatorsAreNotClauses() {
+        assertThat(analyzer.analyze("a AND b OR c && d || e").isRejected()).isFalse();
+    }
+}
@@ -0,0 +1,27 @@
+package com.vssoft.vspace.security;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SecurityUtilsBenchmark {
+
+    private final Map<String, Object> claims = Map.of(
+        "preferred_username", "admin",
+        "groups", List.of("ROLE_ADMIN", "ROLE_USER", "offline_access", "uma_authorization", "default-roles-vspace")
+    );
+
+    @Benchmark
+    public List<GrantedAuthority> extractAuthorityFromClaims() {
+        return SecurityUtils.extractAuthorityFromClaims(claims);
+    }
+}
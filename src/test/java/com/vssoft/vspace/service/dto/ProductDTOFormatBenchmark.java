@@ -0,0 +1,76 @@
+package com.vssoft.vspace.service.dto;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.hibernate6.Hibernate6Module;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of a page of {@link ProductDTO} in each of the formats the product API negotiates. The size of
+ * the payload is printed at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductDTOFormatBenchmark {
+
+    private static final TypeReference<List<ProductDTO>> PAGE = new TypeReference<>() {};
+
+    @Param({ "json", "smile", "cbor" })
+    public String format;
+
+    @Param({ "256", "8192" })
+    public int contentLength;
+
+    @Param({ "20" })
+    public int pageSize;
+
+    private ObjectMapper objectMapper;
+    private List<ProductDTO> page;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        JsonFactory factory =
+            switch (format) {
+                case "smile" -> new SmileFactory();
+                case "cbor" -> new CBORFactory();
+                default -> new JsonFactory();
+            };
+        objectMapper = new ObjectMapper(factory).registerModules(new JavaTimeModule(), new Jdk8Module(), new Hibernate6Module());
+        page = new ArrayList<>();
+        for (int i = 0; i < pageSize; i++) {
+            ProductDTO productDTO = new ProductDTO();
+            productDTO.setId("0189b3f4-3f0e-7c1a-9a43-5f7c6d2b1e" + (10 + i));
+            productDTO.setName("Product name " + i);
+            productDTO.setContent("Lorem ipsum dolor sit amet, consectetur adipiscing elit. ".repeat(contentLength / 57 + 1).substring(0, contentLength));
+            page.add(productDTO);
+        }
+        payload = objectMapper.writeValueAsBytes(page);
+        System.out.printf("%n%s payload of %d products with %d chars of content: %d bytes%n", format, pageSize, contentLength, payload.length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public List<ProductDTO> decode() throws IOException {
+        return objectMapper.readValue(payload, PAGE);
+    }
+}
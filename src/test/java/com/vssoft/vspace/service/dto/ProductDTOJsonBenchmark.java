@@ -0,0 +1,50 @@
+package com.vssoft.vspace.service.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.hibernate6.Hibernate6Module;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson (de)serialization of {@link ProductDTO} with the modules registered by {@code JacksonConfiguration}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductDTOJsonBenchmark {
+
+    @Param({ "256", "8192" })
+    public int contentLength;
+
+    private ObjectMapper objectMapper;
+    private ProductDTO productDTO;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        objectMapper = new ObjectMapper().registerModules(new JavaTimeModule(), new Jdk8Module(), new Hibernate6Module());
+        productDTO = new ProductDTO();
+        productDTO.setId("0189b3f4-3f0e-7c1a-9a43-5f7c6d2b1e10");
+        productDTO.setName("Product name");
+        productDTO.setContent("x".repeat(contentLength));
+        json = objectMapper.writeValueAsBytes(productDTO);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(productDTO);
+    }
+
+    @Benchmark
+    public ProductDTO deserialize() throws IOException {
+        return objectMapper.readValue(json, ProductDTO.class);
+    }
+}
@@ -0,0 +1,97 @@
+package com.vssoft.vspace.service.dto;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.hibernate6.Hibernate6Module;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.vssoft.vspace.config.JacksonConfiguration;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing and reading a page of {@link ProductDTO}, as returned by {@code GET /api/products?size=100}, through the
+ * JSON message converter:
+ * <ul>
+ *     <li>{@code reflection}: the modules registered before Blackbird, with the converter of Spring Boot.</li>
+ *     <li>{@code no-hibernate6}: the same, without the Hibernate module, to show what it costs for DTOs.</li>
+ *     <li>{@code blackbird}: with the Blackbird module, with the converter of Spring Boot.</li>
+ *     <li>{@code prebuilt}: with the Blackbird module, with the converter of {@link JacksonConfiguration}.</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductDTOListBenchmark {
+
+    private static final Type PAGE = new TypeReference<List<ProductDTO>>() {}.getType();
+
+    @Param({ "reflection", "no-hibernate6", "blackbird", "prebuilt" })
+    public String variant;
+
+    @Param({ "100" })
+    public int pageSize;
+
+    @Param({ "256" })
+    public int contentLength;
+
+    private MappingJackson2HttpMessageConverter converter;
+    private List<ProductDTO> page;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        JacksonConfiguration configuration = new JacksonConfiguration();
+        List<Module> modules = new ArrayList<>(List.of(configuration.javaTimeModule(), configuration.jdk8TimeModule()));
+        if (!variant.equals("no-hibernate6")) {
+            modules.add(configuration.hibernate6Module());
+        }
+        if (variant.equals("blackbird") || variant.equals("prebuilt")) {
+            modules.add(new BlackbirdModule());
+        }
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().modulesToInstall(modules.toArray(Module[]::new)).build();
+        converter =
+            variant.equals("prebuilt")
+                ? configuration.mappingJackson2HttpMessageConverter(objectMapper)
+                : new MappingJackson2HttpMessageConverter(objectMapper);
+
+        page = new ArrayList<>();
+        for (int i = 0; i < pageSize; i++) {
+            ProductDTO productDTO = new ProductDTO();
+            productDTO.setId("0189b3f4-3f0e-7c1a-9a43-5f7c6d2b%04d".formatted(i));
+            productDTO.setName("Product name " + i);
+            productDTO.setContent("x".repeat(contentLength));
+            page.add(productDTO);
+        }
+        json = write().getBodyAsBytes();
+    }
+
+    @Benchmark
+    public MockHttpOutputMessage write() throws IOException {
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        converter.write(page, PAGE, MediaType.APPLICATION_JSON, message);
+        return message;
+    }
+
+    @Benchmark
+    public Object read() throws IOException {
+        MockHttpInputMessage message = new MockHttpInputMessage(json);
+        message.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return converter.read(PAGE, null, message);
+    }
+}
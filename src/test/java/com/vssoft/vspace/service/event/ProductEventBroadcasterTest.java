@@ -0,0 +1,266 @@
+package com.vssoft.vspace.service.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vssoft.vspace.config.VSpaceProperties;
+import com.vssoft.vspace.web.rest.ProductEventResource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RedissonClient;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+class ProductEventBroadcasterTest {
+
+    private final ManualExecutor dispatcher = new ManualExecutor();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ProductEventBroadcaster broadcaster = new ProductEventBroadcaster(
+        properties(),
+        new ObjectMapper(),
+        mock(RedissonClient.class),
+        registry,
+        dispatcher
+    );
+    private final Map<MockHttpServletResponse, NonBlockingOutputStream> connections = new HashMap<>();
+    private final MockMvc mockMvc = MockMvcBuilders
+        .standaloneSetup(new ProductEventResource(broadcaster))
+        .addFilter((request, response, chain) -> {
+            MockHttpServletResponse mockResponse = (MockHttpServletResponse) response;
+            NonBlockingOutputStream out = new NonBlockingOutputStream(mockResponse.getOutputStream());
+            connections.put(mockResponse, out);
+            chain.doFilter(
+                request,
+                new HttpServletResponseWrapper(mockResponse) {
+                    @Override
+                    public ServletOutputStream getOutputStream() {
+                        return out;
+                    }
+                }
+            );
+        })
+        .build();
+
+    @AfterEach
+    void destroy() {
+        broadcaster.destroy();
+    }
+
+    @Test
+    void pushesCommittedWritesToSubscribers() throws Exception {
+        MockHttpServletResponse first = subscribe();
+        MockHttpServletResponse second = subscribe();
+
+        broadcaster.onProductChanged(new ProductChangedEvent("1", ProductChangedEvent.Type.CREATED));
+        dispatcher.runAll();
+
+        for (MockHttpServletResponse response : List.of(first, second)) {
+            assertThat(response.getContentType()).startsWith(MediaType.TEXT_EVENT_STREAM_VALUE);
+            assertThat(response.getContentAsString()).isEqualTo("event:product\ndata:{\"id\":\"1\",\"type\":\"CREATED\"}\n\n");
+        }
+        assertThat(registry.get("product.events.sent").counter().count()).isEqualTo(2);
+        assertThat(registry.get("product.events.subscribers").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    void sendsOnlyTheLastEventOfEachProductToSubscribersNotKeepingUp() throws Exception {
+        MockHttpServletResponse response = subscribe();
+
+        broadcaster.onProductChanged(new ProductChangedEvent("1", ProductChangedEvent.Type.CREATED));
+        broadcaster.onProductChanged(new ProductChangedEvent("2", ProductChangedEvent.Type.UPDATED));
+        broadcaster.onProductChanged(new ProductChangedEvent("1", ProductChangedEvent.Type.UPDATED));
+        broadcaster.onProductChanged(new ProductChangedEvent("2", ProductChangedEvent.Type.DELETED));
+        assertThat(dispatcher.tasks).hasSize(1);
+        dispatcher.runAll();
+
+        assertThat(response.getContentAsString())
+            .isEqualTo(
+                "event:product\ndata:{\"id\":\"1\",\"type\":\"CREATED\"}\n\n" + "event:product\ndata:{\"id\":\"2\",\"type\":\"DELETED\"}\n\n"
+            );
+        assertThat(registry.get("product.events.coalesced").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void tellsSubscribersWithTooManyPendingEventsToReload() throws Exception {
+        MockHttpServletResponse response = subscribe();
+
+        for (int i = 1; i <= 4; i++) {
+            broadcaster.onProductChanged(new ProductChangedEvent(Integer.toString(i), ProductChangedEvent.Type.UPDATED));
+        }
+        dispatcher.runAll();
+
+        assertThat(response.getContentAsString()).isEqualTo("event:overflow\ndata:\n\n" + "event:product\ndata:{\"id\":\"4\",\"type\":\"UPDATED\"}\n\n");
+        assertThat(registry.get("product.events.overflows").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void doesNotWaitForSubscribersWhoseConnectionIsFull() throws Exception {
+        MockHttpServletResponse slow = subscribe();
+        MockHttpServletResponse fast = subscribe();
+        dispatcher.runAll();
+        connections.get(slow).ready = false;
+
+        broadcaster.onProductChanged(new ProductChangedEvent("1", ProductChangedEvent.Type.CREATED));
+        dispatcher.runAll();
+        broadcaster.onProductChanged(new ProductChangedEvent("1", ProductChangedEvent.Type.UPDATED));
+        dispatcher.runAll();
+
+        assertThat(fast.getContentAsString())
+            .isEqualTo("event:product\ndata:{\"id\":\"1\",\"type\":\"CREATED\"}\n\n" + "event:product\ndata:{\"id\":\"1\",\"type\":\"UPDATED\"}\n\n");
+        assertThat(slow.getContentAsString()).isEmpty();
+
+        connections.get(slow).writePossible();
+        dispatcher.runAll();
+
+        assertThat(slow.getContentAsString()).isEqualTo("event:product\ndata:{\"id\":\"1\",\"type\":\"CREATED\"}\n\n");
+        assertThat(dispatcher.tasks).isEmpty();
+    }
+
+    @Test
+    void rejectsSubscribersOverTheLimit() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            subscribe();
+        }
+
+        mockMvc.perform(get("/api/_events/products")).andExpect(result -> assertThat(result.getResponse().getStatus()).isEqualTo(503));
+    }
+
+    @Test
+    void mergesEventsOfTheSameProduct() {
+        assertThat(ProductEventBroadcaster.merge(ProductChangedEvent.Type.CREATED, ProductChangedEvent.Type.UPDATED))
+            .isEqualTo(ProductChangedEvent.Type.CREATED);
+        assertThat(ProductEventBroadcaster.merge(ProductChangedEvent.Type.CREATED, ProductChangedEvent.Type.DELETED))
+            .isEqualTo(ProductChangedEvent.Type.DELETED);
+        assertThat(ProductEventBroadcaster.merge(ProductChangedEvent.Type.UPDATED, ProductChangedEvent.Type.UPDATED))
+            .isEqualTo(ProductChangedEvent.Type.UPDATED);
+    }
+
+    private MockHttpServletResponse subscribe() throws Exception {
+        MockHttpServletResponse response = mockMvc
+            .perform(get("/api/_events/products"))
+            .andExpect(request().asyncStarted())
+            .andReturn()
+            .getResponse();
+        connections.get(response).writePossible();
+        return response;
+    }
+
+    private static VSpaceProperties properties() {
+        VSpaceProperties properties = new VSpaceProperties();
+        properties.getProductEvents().setFanOut("local");
+        properties.getProductEvents().setBufferSize(2);
+        properties.getProductEvents().setMaxSubscribers(3);
+        return properties;
+    }
+
+    /**
+     * Stands in for the connection of a subscriber, which can take more until the test says otherwise.
+     */
+    private static final class NonBlockingOutputStream extends ServletOutputStream {
+
+        private final ServletOutputStream out;
+        private WriteListener listener;
+        private boolean ready = true;
+        private boolean polled;
+
+        NonBlockingOutputStream(ServletOutputStream out) {
+            this.out = out;
+        }
+
+        /**
+         * Calls back the listener as the container does, once the connection can be written to again.
+         */
+        void writePossible() throws IOException {
+            ready = true;
+            if (polled) {
+                polled = false;
+                listener.onWritePossible();
+            }
+        }
+
+        @Override
+        public boolean isReady() {
+            polled = !ready;
+            return ready;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            listener = writeListener;
+            polled = true;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            assertThat(ready).isTrue();
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            assertThat(ready).isTrue();
+            out.write(b, off, len);
+        }
+    }
+
+    /**
+     * Runs the drains when the test says so, standing in for a subscriber not keeping up meanwhile.
+     */
+    private static final class ManualExecutor extends AbstractExecutorService {
+
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        void runAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        @Override
+        public void shutdown() {}
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return List.of();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.vssoft.vspace.service.impl;
+
+import com.vssoft.vspace.config.VSpaceProperties;
+import com.vssoft.vspace.domain.Product;
+import com.vssoft.vspace.domain.ProductTombstone;
+import com.vssoft.vspace.repository.ProductRepository;
+import com.vssoft.vspace.repository.ProductTombstoneRepository;
+import com.vssoft.vspace.repository.search.PostgresProductSearchEngine;
+import com.vssoft.vspace.repository.search.ProductSearchEngine;
+import com.vssoft.vspace.service.dto.ProductChangeCursor;
+import com.vssoft.vspace.service.dto.ProductChangeDTO;
+import com.vssoft.vspace.service.dto.ProductChangesDTO;
+import com.vssoft.vspace.service.mapper.ProductMapperImpl;
+import com.vssoft.vspace.web.rest.errors.ChangeFeedTokenExpiredException;
+import com.vssoft.vspace.config.ElasticsearchFailurePredicate;
+import com.vssoft.vspace.service.ProductService;
+import com.vssoft.vspace.service.dto.ProductDTO;
+import com.vssoft.vspace.web.rest.errors.ExpensiveQueryException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.springboot3.bulkhead.autoconfigure.BulkheadAutoConfiguration;
+import io.github.resilience4j.springboot3.circuitbreaker.autoconfigure.CircuitBreakerAutoConfiguration;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.aop.AopAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.elasticsearch.UncategorizedElasticsearchException;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductServiceImplTest {
+
+    private static final Instant T0 = Instant.parse("2026-01-01T00:00:00.000001Z");
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ProductTombstoneRepository productTombstoneRepository = mock(ProductTombstoneRepository.class);
+    private final ProductSearchEngine productSearchEngine = mock(ProductSearchEngine.class);
+    private final VSpaceProperties properties = new VSpaceProperties();
+    private final ProductServiceImpl service = new ProductServiceImpl(
+        productRepository,
+        productTombstoneRepository,
+        new ProductMapperImpl(),
+        productSearchEngine,
+        properties,
+        mock(ApplicationEventPublisher.class),
+        mockProvider()
+    );
+
+    @Test
+    void mergesWritesAndDeletesInTheOrderTheyWereMade() {
+        ProductChangeCursor since = new ProductChangeCursor(T0, "a");
+        when(productRepository.findWrittenAfter(eq(T0), eq("a"), any(), any()))
+            .thenReturn(List.of(product("c", T0.plusSeconds(1)), product("b", T0.plusSeconds(3))));
+        when(productTombstoneRepository.findDeletedAfter(eq(T0), eq("a"), any(), any()))
+            .thenReturn(List.of(new ProductTombstone("d", T0.plusSeconds(2))));
+
+        ProductChangesDTO changes = service.findChanges(since, 10);
+
+        assertThat(changes.getChanges()).extracting(ProductChangeDTO::getId).containsExactly("c", "d", "b");
+        assertThat(changes.getChanges()).extracting(ProductChangeDTO::getType)
+            .containsExactly(ProductChangeDTO.Type.UPSERT, ProductChangeDTO.Type.DELETE, ProductChangeDTO.Type.UPSERT);
+        assertThat(changes.getChanges().get(0).getProduct().getName()).isEqualTo("Product c");
+        assertThat(changes.getChanges().get(1).getProduct()).isNull();
+        assertThat(changes.isCaughtUp()).isTrue();
+        assertThat(ProductChangeCursor.decode(changes.getNext())).isEqualTo(new ProductChangeCursor(T0.plusSeconds(3), "b"));
+    }
+
+    @Test
+    void stopsAtTheLimitAndResumesAfterTheLastChangeReturned() {
+        when(productRepository.findWrittenAfter(any(), any(), any(), any()))
+            .thenReturn(List.of(product("a", T0), product("b", T0)));
+        when(productTombstoneRepository.findDeletedAfter(any(), any(), any(), any()))
+            .thenReturn(List.of(new ProductTombstone("0", T0)));
+
+        ProductChangesDTO changes = service.findChanges(ProductChangeCursor.START, 2);
+
+        assertThat(changes.getChanges()).extracting(ProductChangeDTO::getId).containsExactly("0", "a");
+        assertThat(changes.isCaughtUp()).isFalse();
+        assertThat(ProductChangeCursor.decode(changes.getNext())).isEqualTo(new ProductChangeCursor(T0, "a"));
+    }
+
+    @Test
+    void keepsThePositionWhenThereAreNoChanges() {
+        ProductChangeCursor since = new ProductChangeCursor(T0, "a");
+
+        ProductChangesDTO changes = service.findChanges(since, 10);
+
+        assertThat(changes.getChanges()).isEmpty();
+        assertThat(changes.isCaughtUp()).isTrue();
+        assertThat(ProductChangeCursor.decode(changes.getNext())).isEqualTo(since);
+    }
+
+    @Test
+    void advancesACaughtUpPositionToTheSettledDate() {
+        Instant databaseTime = T0.plus(40, ChronoUnit.DAYS);
+        when(productRepository.currentTimeMicros()).thenReturn(ChronoUnit.MICROS.between(Instant.EPOCH, databaseTime));
+        ProductChangeCursor since = new ProductChangeCursor(databaseTime.minus(1, ChronoUnit.DAYS), "a");
+
+        ProductChangesDTO changes = service.findChanges(since, 10);
+
+        Instant until = databaseTime.minusMillis(new VSpaceProperties().getChangeFeed().getSettleMillis());
+        assertThat(changes.isCaughtUp()).isTrue();
+        assertThat(ProductChangeCursor.decode(changes.getNext())).isEqualTo(new ProductChangeCursor(until, ""));
+    }
+
+    @Test
+    void rejectsPositionsOlderThanTheDeletionsKeptByTheClockOfTheDatabase() {
+        Instant databaseTime = T0.plus(40, ChronoUnit.DAYS);
+        when(productRepository.currentTimeMicros()).thenReturn(ChronoUnit.MICROS.between(Instant.EPOCH, databaseTime));
+
+        assertThatThrownBy(() -> service.findChanges(new ProductChangeCursor(T0, "a"), 10)).isInstanceOf(ChangeFeedTokenExpiredException.class);
+        assertThat(service.findChanges(ProductChangeCursor.START, 10).isCaughtUp()).isTrue();
+    }
+
+    @Test
+    void leavesTheLatestChangesByTheClockOfTheDatabaseForLater() {
+        Instant databaseTime = T0.plusSeconds(10);
+        when(productRepository.currentTimeMicros()).thenReturn(ChronoUnit.MICROS.between(Instant.EPOCH, databaseTime));
+
+        service.findChanges(ProductChangeCursor.START, 10);
+
+        Instant until = databaseTime.minusMillis(new VSpaceProperties().getChangeFeed().getSettleMillis());
+        verify(productRepository).findWrittenAfter(any(), any(), eq(until), any());
+        verify(productTombstoneRepository).findDeletedAfter(any(), any(), eq(until), any());
+    }
+
+    @Test
+    void rejectsInvalidTokens() {
+        assertThatThrownBy(() -> ProductChangeCursor.decode("not a token")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ProductChangeCursor.decode("MTIz")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void fallsBackToTheDatabaseWhileTheCircuitIsOpenOrTheBulkheadFull() {
+        properties.getSearch().getFallback().setEnabled(true);
+        when(productRepository.findAll(anySpecification(), any(Pageable.class))).thenReturn(new PageImpl<>(List.of(product("a", T0))));
+
+        resilientService().run(context -> {
+            ProductService resilient = context.getBean(ProductService.class);
+            CircuitBreaker circuitBreaker = context.getBean(CircuitBreakerRegistry.class).circuitBreaker(ProductServiceImpl.PRODUCT_SEARCH);
+            Bulkhead bulkhead = context.getBean(BulkheadRegistry.class).bulkhead(ProductServiceImpl.PRODUCT_SEARCH);
+
+            circuitBreaker.transitionToOpenState();
+            assertThat(resilient.search("name:a", PageRequest.of(0, 10))).extracting(ProductDTO::getId).containsExactly("a");
+
+            circuitBreaker.transitionToClosedState();
+            assertThat(bulkhead.tryAcquirePermission()).isTrue();
+            assertThat(resilient.search("name:a", PageRequest.of(0, 10))).extracting(ProductDTO::getId).containsExactly("a");
+
+            verify(productSearchEngine, never()).search(any(), any(Pageable.class));
+        });
+    }
+
+    @Test
+    void passesTheErrorsOfTheCallerThroughWithoutOpeningTheCircuit() {
+        properties.getSearch().getFallback().setEnabled(true);
+        when(productSearchEngine.search(eq("regex"), any(Pageable.class))).thenThrow(new ExpensiveQueryException("regex"));
+        when(productSearchEngine.search(eq("bad"), any(Pageable.class)))
+            .thenThrow(new UncategorizedElasticsearchException("bad query", 400, null, null));
+
+        resilientService().run(context -> {
+            ProductService resilient = context.getBean(ProductService.class);
+
+            for (int i = 0; i < 5; i++) {
+                assertThatThrownBy(() -> resilient.search("regex", PageRequest.of(0, 10))).isInstanceOf(ExpensiveQueryException.class);
+                assertThatThrownBy(() -> resilient.search("bad", PageRequest.of(0, 10))).isInstanceOf(UncategorizedElasticsearchException.class);
+            }
+
+            CircuitBreaker circuitBreaker = context.getBean(CircuitBreakerRegistry.class).circuitBreaker(ProductServiceImpl.PRODUCT_SEARCH);
+            assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+            verify(productRepository, never()).findAll(anySpecification(), any(Pageable.class));
+        });
+    }
+
+    @Test
+    void mapsTheSortOfTheIndexToTheEntity() {
+        Sort sort = Sort.by(Sort.Order.desc("name.keyword"), Sort.Order.asc("_score"), Sort.Order.asc("id"));
+
+        assertThat(ProductServiceImpl.databaseSort(sort)).isEqualTo(Sort.by(Sort.Order.desc("name"), Sort.Order.asc("id")));
+        assertThat(ProductServiceImpl.databaseSort(Sort.by("content"))).isEqualTo(Sort.unsorted());
+    }
+
+    /**
+     * The service behind the circuit breaker and bulkhead of the application, with the settings of its searches.
+     */
+    private ApplicationContextRunner resilientService() {
+        return new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(AopAutoConfiguration.class, CircuitBreakerAutoConfiguration.class, BulkheadAutoConfiguration.class))
+            .withPropertyValues(
+                "resilience4j.circuitbreaker.instances.productSearch.sliding-window-size=4",
+                "resilience4j.circuitbreaker.instances.productSearch.minimum-number-of-calls=2",
+                "resilience4j.circuitbreaker.instances.productSearch.record-failure-predicate=" + ElasticsearchFailurePredicate.class.getName(),
+                "resilience4j.bulkhead.instances.productSearch.max-concurrent-calls=1",
+                "resilience4j.bulkhead.instances.productSearch.max-wait-duration=0"
+            )
+            .withBean(ProductService.class, () -> service);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ObjectProvider<PostgresProductSearchEngine> mockProvider() {
+        return mock(ObjectProvider.class);
+    }
+
+    private static Specification<Product> anySpecification() {
+        return any();
+    }
+
+    private static Product product(String id, Instant updatedDate) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setUpdatedDate(updatedDate);
+        return product;
+    }
+}
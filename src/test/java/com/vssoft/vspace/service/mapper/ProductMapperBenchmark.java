@@ -0,0 +1,64 @@
+package com.vssoft.vspace.service.mapper;
+
+import com.vssoft.vspace.domain.Product;
+import com.vssoft.vspace.service.dto.ProductDTO;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductMapperBenchmark {
+
+    @Param({ "20", "100" })
+    public int listSize;
+
+    private final ProductMapper productMapper = new ProductMapperImpl();
+
+    private Product product;
+    private ProductDTO productDTO;
+    private List<Product> products;
+    private List<ProductDTO> productDTOs;
+
+    @Setup
+    public void setUp() {
+        products = new ArrayList<>(listSize);
+        for (int i = 0; i < listSize; i++) {
+            Product p = new Product();
+            p.setId(UUID.randomUUID().toString());
+            p.setName("Product " + i);
+            p.setContent("Content of product " + i);
+            products.add(p);
+        }
+        product = products.get(0);
+        productDTOs = productMapper.toDto(products);
+        productDTO = productDTOs.get(0);
+    }
+
+    @Benchmark
+    public ProductDTO toDto() {
+        return productMapper.toDto(product);
+    }
+
+    @Benchmark
+    public Product toEntity() {
+        return productMapper.toEntity(productDTO);
+    }
+
+    @Benchmark
+    public List<ProductDTO> toDtoList() {
+        return productMapper.toDto(products);
+    }
+
+    @Benchmark
+    public List<Product> toEntityList() {
+        return productMapper.toEntity(productDTOs);
+    }
+}